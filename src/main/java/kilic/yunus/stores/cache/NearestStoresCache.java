@@ -0,0 +1,246 @@
+package kilic.yunus.stores.cache;
+
+import kilic.yunus.stores.model.dto.StoreWithDistance;
+import kilic.yunus.stores.repository.StoreRepository;
+import kilic.yunus.stores.repository.StoreSnapshot;
+import kilic.yunus.stores.service.DistanceCalculator;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.lang.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * {@code nearestStores} cache of one data set: an on-heap Caffeine cache (L1), optionally in front
+ * of an {@link OffHeapNearestStoresCache} (L2).
+ *
+ * <p>Keys carry the {@link StoreSnapshot#loadGeneration()} of the store data, so single-store changes
+ * do not make the cached results of the whole data set unreachable. Every result is cached with the
+ * generation it was searched in instead, and checked against the changes since on every hit (see
+ * {@link StoreSnapshot#changesSince}): it is still the result of a new search unless one of its
+ * stores changed, or a changed store is now at most as far from the location as its farthest store.
+ * Results that passed are cached again with the current generation, so the next hit only checks
+ * later changes. Results that failed, or whose changes are no longer known, are a miss.
+ *
+ * <p>L2 keeps results as store positions plus distances and resolves them against the current
+ * {@link StoreSnapshot} on an L1 miss. Positions only move with a change, which is then listed with
+ * the store that took over the position, so such results fail the check as well.
+ *
+ * <p>Searches go through {@link #get(Object, Callable)} ({@code @Cacheable(sync = true)}), which
+ * knows the generation a search started from. {@link #put} caches a value as current.
+ */
+public class NearestStoresCache implements Cache {
+
+    private final Cache l1;
+    private final OffHeapNearestStoresCache l2;
+    private final StoreRepository storeRepository;
+    private final DistanceCalculator distanceCalculator;
+
+    /**
+     * @param l2 off-heap tier, or {@code null} to cache on the heap only
+     */
+    public NearestStoresCache(Cache l1, OffHeapNearestStoresCache l2, StoreRepository storeRepository,
+                              DistanceCalculator distanceCalculator) {
+        this.l1 = l1;
+        this.l2 = l2;
+        this.storeRepository = storeRepository;
+        this.distanceCalculator = distanceCalculator;
+    }
+
+    /**
+     * @return the off-heap tier, {@code null} if there is none
+     */
+    public OffHeapNearestStoresCache offHeapTier() {
+        return l2;
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return l1.getName();
+    }
+
+    /**
+     * @return the native cache of the L1 tier
+     */
+    @Override
+    @NonNull
+    public Object getNativeCache() {
+        return l1.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(@NonNull Object key) {
+        if (!(key instanceof NearestStoresCacheKey cacheKey)) {
+            return l1.get(key);
+        }
+        StoreSnapshot snapshot = storeRepository.snapshot();
+        if (snapshot.loadGeneration() != cacheKey.loadGeneration()) {
+            return null;
+        }
+        ValueWrapper cached = l1.get(key);
+        CachedResults entry = cached != null && cached.get() instanceof CachedResults value ? value : null;
+        List<StoreWithDistance> results = entry != null
+                ? current(cacheKey, entry.generation(), entry.results(), snapshot)
+                : getFromOffHeapTier(cacheKey, snapshot);
+        if (results == null) {
+            return null;
+        }
+        if (entry == null || entry.generation() != snapshot.generation()) {
+            l1.put(key, new CachedResults(snapshot.generation(), results));
+        }
+        return new SimpleValueWrapper(results);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        // The search reads this or a later snapshot, so its result is checked from here on
+        long generation = storeRepository.snapshot().generation();
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value, generation);
+        return value;
+    }
+
+    @Override
+    public void put(@NonNull Object key, Object value) {
+        put(key, value, storeRepository.snapshot().generation());
+    }
+
+    @Override
+    public void evict(@NonNull Object key) {
+        // L2 entries cannot be removed by key, they are only reachable through the key's load generation
+        l1.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        l1.clear();
+        if (l2 != null) {
+            l2.clear();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void put(Object key, Object value, long generation) {
+        if (!(key instanceof NearestStoresCacheKey cacheKey) || !(value instanceof List<?> list)) {
+            l1.put(key, value);
+            return;
+        }
+        StoreSnapshot snapshot = storeRepository.snapshot();
+        if (snapshot.loadGeneration() != cacheKey.loadGeneration()) {
+            return;
+        }
+        List<StoreWithDistance> results = current(cacheKey, generation, (List<StoreWithDistance>) list, snapshot);
+        if (results == null) {
+            return;
+        }
+        l1.put(key, new CachedResults(snapshot.generation(), results));
+        putIntoOffHeapTier(cacheKey, results, snapshot);
+    }
+
+    /**
+     * @return the given results if they are still those of a search in the snapshot, {@code null}
+     * if a change since the given generation may have changed them
+     */
+    private List<StoreWithDistance> current(NearestStoresCacheKey key, long generation,
+                                            List<StoreWithDistance> results, StoreSnapshot snapshot) {
+        List<StoreSnapshot.Change> changes = snapshot.changesSince(generation);
+        if (changes == null) {
+            return null;
+        }
+        if (changes.isEmpty()) {
+            return results;
+        }
+        Set<String> uuids = HashSet.newHashSet(results.size());
+        results.forEach(result -> uuids.add(result.getStore().getUuid()));
+        // Fewer results than requested hold every store with a location
+        long farthest = results.size() < key.limit()
+                ? Long.MAX_VALUE
+                : Math.round(results.getLast().getDistance() * 100.0);
+        for (StoreSnapshot.Change change : changes) {
+            int position = change.position();
+            if (uuids.contains(change.uuid())) {
+                return null;
+            }
+            if (position < snapshot.size() && snapshot.hasValidLocation(position)
+                    && Math.round(distanceCalculator.calculateDistance(key.latitude(), key.longitude(),
+                    snapshot.latitude(position), snapshot.longitude(position)) * 100.0) <= farthest) {
+                return null;
+            }
+        }
+        return results;
+    }
+
+    private List<StoreWithDistance> getFromOffHeapTier(NearestStoresCacheKey key, StoreSnapshot snapshot) {
+        if (l2 == null) {
+            return null;
+        }
+        OffHeapNearestStoresCache.CompactResult compact = l2.get(key);
+        if (compact == null) {
+            return null;
+        }
+        List<StoreWithDistance> results = new ArrayList<>(compact.size());
+        for (int i = 0; i < compact.size(); i++) {
+            int position = compact.storeIndices()[i];
+            if (position >= snapshot.size()) {
+                return null;
+            }
+            results.add(StoreWithDistance.builder()
+                    .store(snapshot.get(position))
+                    .distance(compact.distances()[i] / 100.0)
+                    .build());
+        }
+        return current(key, compact.generation(), results, snapshot);
+    }
+
+    private void putIntoOffHeapTier(NearestStoresCacheKey key, List<StoreWithDistance> results,
+                                    StoreSnapshot snapshot) {
+        if (l2 == null || results.size() > l2.maxResults()) {
+            return;
+        }
+        int[] storeIndices = new int[results.size()];
+        int[] distances = new int[results.size()];
+        for (int i = 0; i < results.size(); i++) {
+            StoreWithDistance result = results.get(i);
+            storeIndices[i] = snapshot.indexOf(result.getStore().getUuid());
+            if (storeIndices[i] < 0) {
+                return;
+            }
+            // Distances are already rounded to two decimals
+            distances[i] = (int) Math.round(result.getDistance() * 100.0);
+        }
+        l2.put(key, new OffHeapNearestStoresCache.CompactResult(snapshot.generation(), storeIndices, distances));
+    }
+
+    /**
+     * L1 value: results and the generation they are known to be current in.
+     */
+    private record CachedResults(long generation, List<StoreWithDistance> results) {
+    }
+}
@@ -0,0 +1,78 @@
+package kilic.yunus.stores.cache;
+
+import kilic.yunus.stores.config.CacheConfig;
+import kilic.yunus.stores.repository.StoreDataChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drops {@code nearestStores} entries of superseded dataset load generations.
+ *
+ * <p>Stale entries are already unreachable because the load generation is part of the cache key, so
+ * this only reclaims their space. The sweep runs in the background and removes entries one by one
+ * (bucket by bucket for the off-heap tier), entries of the current load generation stay cached and
+ * readable throughout. Single-store changes keep the load generation and sweep nothing, the cache
+ * checks its entries against them (see {@link NearestStoresCache}).
+ *
+ * <p>Sweeps are coalesced, at most one is queued at a time and it evicts everything older than the
+ * newest load generation seen. Every data set has its own cache and generations, so they are swept
+ * independently.
+ */
+@Slf4j
+@Component
+public class NearestStoresCacheInvalidator {
+
+    private final CacheManager cacheManager;
+    private final Map<String, Sweep> sweeps = new ConcurrentHashMap<>();
+
+    public NearestStoresCacheInvalidator(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @EventListener
+    public void onStoreDataChanged(StoreDataChangedEvent event) {
+        Cache cache = cacheManager.getCache(CacheConfig.nearestStoresCache(event.dataset()));
+        Sweep sweep = sweeps.computeIfAbsent(event.dataset(), dataset -> new Sweep());
+        long previous = sweep.latestGeneration.getAndAccumulate(event.loadGeneration(), Math::max);
+        if (cache != null && event.loadGeneration() > previous && sweep.queued.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                // Cleared before reading the generation, so a later event queues another sweep
+                sweep.queued.set(false);
+                evictOlderThan(cache, sweep.latestGeneration.get());
+            });
+        }
+    }
+
+    void evictOlderThan(Cache cache, long loadGeneration) {
+        if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+            long sizeBefore = nativeCache.estimatedSize();
+            nativeCache
+                    .asMap()
+                    .keySet()
+                    .removeIf(key -> key instanceof NearestStoresCacheKey cacheKey
+                            && cacheKey.loadGeneration() < loadGeneration);
+            log.debug("Evicted {} cached results of {} older than store data load generation {}",
+                    Math.max(0, sizeBefore - nativeCache.estimatedSize()), cache.getName(), loadGeneration);
+        }
+        if (cache instanceof NearestStoresCache nearestStoresCache && nearestStoresCache.offHeapTier() != null) {
+            int freed = nearestStoresCache.offHeapTier().evictOlderThan(loadGeneration);
+            log.debug("Evicted {} off-heap cached results of {} older than store data load generation {}",
+                    freed, cache.getName(), loadGeneration);
+        }
+    }
+
+    private static final class Sweep {
+
+        private final AtomicLong latestGeneration = new AtomicLong();
+        private final AtomicBoolean queued = new AtomicBoolean();
+    }
+}
@@ -0,0 +1,16 @@
+package kilic.yunus.stores.cache;
+
+/**
+ * Cache key for the {@code nearestStores} cache. The load generation of the store data set is part
+ * of the key, so an entry computed before the data set was last loaded as a whole can never be
+ * served. Single-store changes keep the load generation, entries are checked against them instead,
+ * see {@link NearestStoresCache}.
+ *
+ * @param latitude       query latitude
+ * @param longitude      query longitude
+ * @param limit          requested number of stores
+ * @param loadGeneration {@link kilic.yunus.stores.repository.StoreSnapshot#loadGeneration() load generation}
+ *                       of the store data set the result was computed for
+ */
+public record NearestStoresCacheKey(double latitude, double longitude, int limit, long loadGeneration) {
+}
@@ -0,0 +1,319 @@
+package kilic.yunus.stores.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import kilic.yunus.stores.repository.StoreDatasets;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size, off-heap table of compact nearest-store results.
+ *
+ * <p>Results are stored as (store index, distance in hundredths of a kilometer) pairs, together with
+ * the {@link NearestStoresCacheKey} they belong to. Memory is either a direct buffer or, when a file
+ * is given, a memory-mapped file, so a large number of entries costs no Java heap and no GC work.
+ *
+ * <p>The table is 8-way set associative. A key hashes to one bucket, and when the bucket is full the
+ * least recently used entry of that bucket is replaced. Buckets are guarded by striped locks.
+ *
+ * <p>Slot layout:
+ *
+ * <pre>
+ *  0  long   load generation (0 = empty slot)
+ *  8  double latitude
+ * 16  double longitude
+ * 24  int    limit
+ * 28  int    result count
+ * 32  long   last access tick
+ * 40  long   generation of the result
+ * 48  count x (int store index, int distance in 1/100 km)
+ * </pre>
+ */
+@Slf4j
+public class OffHeapNearestStoresCache implements MeterBinder {
+
+    static final int WAYS = 8;
+
+    private static final int HEADER_BYTES = 48;
+    private static final int RESULT_BYTES = 8;
+    private static final int MAX_LOCK_STRIPES = 4096;
+    private static final String DATASET_TAG = "dataset";
+
+    private static final int GENERATION_OFFSET = 0;
+    private static final int LATITUDE_OFFSET = 8;
+    private static final int LONGITUDE_OFFSET = 16;
+    private static final int LIMIT_OFFSET = 24;
+    private static final int COUNT_OFFSET = 28;
+    private static final int ACCESS_OFFSET = 32;
+    private static final int RESULT_GENERATION_OFFSET = 40;
+
+    private final String dataset;
+    private final ByteBuffer buffer;
+    private final int maxResults;
+    private final int slotBytes;
+    private final int bucketMask;
+    private final Object[] locks;
+    private final AtomicLong clock = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder entries = new LongAdder();
+
+    /**
+     * @param capacity   maximum number of entries, rounded up to a power of two
+     * @param maxResults maximum number of results per entry, larger results are not stored
+     * @param file       file to memory-map, or {@code null} to use a direct buffer
+     */
+    public OffHeapNearestStoresCache(int capacity, int maxResults, Path file) {
+        this(StoreDatasets.DEFAULT, capacity, maxResults, file);
+    }
+
+    /**
+     * @param dataset store data set whose results are cached, used as a metrics tag
+     */
+    public OffHeapNearestStoresCache(String dataset, int capacity, int maxResults, Path file) {
+        if (capacity < WAYS || maxResults < 1) {
+            throw new IllegalArgumentException(
+                    "Off-heap cache needs at least " + WAYS + " entries and 1 result per entry");
+        }
+        int buckets = Integer.highestOneBit((capacity + WAYS - 1) / WAYS - 1) << 1;
+        buckets = Math.max(1, buckets);
+        this.dataset = dataset;
+        this.maxResults = maxResults;
+        this.slotBytes = HEADER_BYTES + maxResults * RESULT_BYTES;
+        this.bucketMask = buckets - 1;
+
+        long totalBytes = (long) buckets * WAYS * slotBytes;
+        if (totalBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    String.format("Off-heap cache of %d entries x %d bytes exceeds 2 GB",
+                            (long) buckets * WAYS, slotBytes));
+        }
+        this.buffer = file == null ? ByteBuffer.allocateDirect((int) totalBytes) : map(file, (int) totalBytes);
+
+        this.locks = new Object[Math.min(buckets, MAX_LOCK_STRIPES)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        log.info("Off-heap nearest stores cache for data set {}: {} entries, {} bytes, {}",
+                dataset, capacity(), totalBytes, file == null ? "direct memory" : file);
+    }
+
+    private static ByteBuffer map(Path file, int size) {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Content of a previous process refers to generations that no longer exist, start empty
+            channel.truncate(0);
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map off-heap cache file " + file, e);
+        }
+    }
+
+    /**
+     * Looks up the compact result for a key.
+     *
+     * @return store indices, distances and their generation, or {@code null} if the key is not cached
+     */
+    public CompactResult get(NearestStoresCacheKey key) {
+        int bucket = bucketOf(key);
+        synchronized (lockOf(bucket)) {
+            int slot = findSlot(bucket, key);
+            if (slot < 0) {
+                misses.increment();
+                return null;
+            }
+            buffer.putLong(slot + ACCESS_OFFSET, clock.incrementAndGet());
+            int count = buffer.getInt(slot + COUNT_OFFSET);
+            int[] storeIndices = new int[count];
+            int[] distances = new int[count];
+            for (int i = 0; i < count; i++) {
+                int offset = slot + HEADER_BYTES + i * RESULT_BYTES;
+                storeIndices[i] = buffer.getInt(offset);
+                distances[i] = buffer.getInt(offset + 4);
+            }
+            hits.increment();
+            return new CompactResult(buffer.getLong(slot + RESULT_GENERATION_OFFSET), storeIndices, distances);
+        }
+    }
+
+    /**
+     * Stores a result, replacing an existing entry for the same key or the least recently used entry
+     * of its bucket.
+     *
+     * @return false if the result has more entries than this cache holds per key
+     */
+    public boolean put(NearestStoresCacheKey key, CompactResult result) {
+        if (result.size() > maxResults) {
+            return false;
+        }
+        int bucket = bucketOf(key);
+        synchronized (lockOf(bucket)) {
+            int slot = findSlot(bucket, key);
+            if (slot < 0) {
+                slot = victimSlot(bucket);
+                if (buffer.getLong(slot + GENERATION_OFFSET) != 0) {
+                    evictions.increment();
+                } else {
+                    entries.increment();
+                }
+            }
+            buffer.putLong(slot + GENERATION_OFFSET, key.loadGeneration());
+            buffer.putDouble(slot + LATITUDE_OFFSET, key.latitude());
+            buffer.putDouble(slot + LONGITUDE_OFFSET, key.longitude());
+            buffer.putInt(slot + LIMIT_OFFSET, key.limit());
+            buffer.putInt(slot + COUNT_OFFSET, result.size());
+            buffer.putLong(slot + ACCESS_OFFSET, clock.incrementAndGet());
+            buffer.putLong(slot + RESULT_GENERATION_OFFSET, result.generation());
+            for (int i = 0; i < result.size(); i++) {
+                int offset = slot + HEADER_BYTES + i * RESULT_BYTES;
+                buffer.putInt(offset, result.storeIndices()[i]);
+                buffer.putInt(offset + 4, result.distances()[i]);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Frees all slots holding results of a load generation older than the given one. Runs bucket by
+     * bucket, so concurrent readers and writers are only blocked for a single bucket at a time.
+     *
+     * @return number of freed slots
+     */
+    public int evictOlderThan(long loadGeneration) {
+        int freed = 0;
+        for (int bucket = 0; bucket <= bucketMask; bucket++) {
+            synchronized (lockOf(bucket)) {
+                for (int way = 0; way < WAYS; way++) {
+                    int slot = slotOffset(bucket, way);
+                    long slotGeneration = buffer.getLong(slot + GENERATION_OFFSET);
+                    if (slotGeneration != 0 && slotGeneration < loadGeneration) {
+                        buffer.putLong(slot + GENERATION_OFFSET, 0);
+                        freed++;
+                    }
+                }
+            }
+        }
+        entries.add(-freed);
+        return freed;
+    }
+
+    /**
+     * Frees every slot.
+     */
+    public void clear() {
+        evictOlderThan(Long.MAX_VALUE);
+    }
+
+    public long capacity() {
+        return (long) (bucketMask + 1) * WAYS;
+    }
+
+    public long size() {
+        return entries.sum();
+    }
+
+    public int maxResults() {
+        return maxResults;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("store.cache.l2.size", this, OffHeapNearestStoresCache::size)
+                .description("Number of entries in the off-heap nearest stores cache")
+                .tag(DATASET_TAG, dataset)
+                .register(registry);
+        Gauge.builder("store.cache.l2.capacity", this, OffHeapNearestStoresCache::capacity)
+                .description("Maximum number of entries in the off-heap nearest stores cache")
+                .tag(DATASET_TAG, dataset)
+                .register(registry);
+        Gauge.builder("store.cache.l2.bytes", buffer, ByteBuffer::capacity)
+                .description("Off-heap memory reserved by the nearest stores cache")
+                .baseUnit("bytes")
+                .tag(DATASET_TAG, dataset)
+                .register(registry);
+        registerCounter(registry, "store.cache.l2.hits", "Off-heap cache hits", hits);
+        registerCounter(registry, "store.cache.l2.misses", "Off-heap cache misses", misses);
+        registerCounter(registry, "store.cache.l2.evictions", "Off-heap cache evictions", evictions);
+    }
+
+    private void registerCounter(MeterRegistry registry, String name, String description, LongAdder adder) {
+        FunctionCounter.builder(name, adder, LongAdder::sum)
+                .description(description)
+                .tag(DATASET_TAG, dataset)
+                .register(registry);
+    }
+
+    private int findSlot(int bucket, NearestStoresCacheKey key) {
+        for (int way = 0; way < WAYS; way++) {
+            int slot = slotOffset(bucket, way);
+            if (buffer.getLong(slot + GENERATION_OFFSET) == key.loadGeneration()
+                    && buffer.getInt(slot + LIMIT_OFFSET) == key.limit()
+                    && Double.compare(buffer.getDouble(slot + LATITUDE_OFFSET), key.latitude()) == 0
+                    && Double.compare(buffer.getDouble(slot + LONGITUDE_OFFSET), key.longitude()) == 0) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int victimSlot(int bucket) {
+        int victim = slotOffset(bucket, 0);
+        long oldestAccess = Long.MAX_VALUE;
+        for (int way = 0; way < WAYS; way++) {
+            int slot = slotOffset(bucket, way);
+            if (buffer.getLong(slot + GENERATION_OFFSET) == 0) {
+                return slot;
+            }
+            long access = buffer.getLong(slot + ACCESS_OFFSET);
+            if (access < oldestAccess) {
+                oldestAccess = access;
+                victim = slot;
+            }
+        }
+        return victim;
+    }
+
+    private int slotOffset(int bucket, int way) {
+        return (bucket * WAYS + way) * slotBytes;
+    }
+
+    private Object lockOf(int bucket) {
+        return locks[bucket % locks.length];
+    }
+
+    private int bucketOf(NearestStoresCacheKey key) {
+        long hash = Double.doubleToLongBits(key.latitude());
+        hash = hash * 31 + Double.doubleToLongBits(key.longitude());
+        hash = hash * 31 + key.limit();
+        hash = hash * 31 + key.loadGeneration();
+        // Spread the high bits, coordinates differ mostly in the low mantissa bits
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return (int) hash & bucketMask;
+    }
+
+    /**
+     * Compact nearest-store result: parallel arrays of store indices (see
+     * {@link kilic.yunus.stores.repository.StoreSnapshot#get(int)}) and distances in hundredths of a
+     * kilometer, as of the given store data generation.
+     */
+    public record CompactResult(long generation, int[] storeIndices, int[] distances) {
+
+        public int size() {
+            return storeIndices.length;
+        }
+    }
+}
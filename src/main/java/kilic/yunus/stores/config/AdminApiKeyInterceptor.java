@@ -0,0 +1,44 @@
+package kilic.yunus.stores.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import kilic.yunus.stores.exception.AdminAuthenticationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Rejects admin API requests that do not carry the configured API key.
+ */
+@Slf4j
+public class AdminApiKeyInterceptor implements HandlerInterceptor {
+
+    public static final String API_KEY_HEADER = "X-API-Key";
+
+    private final byte[] apiKey;
+
+    public AdminApiKeyInterceptor(AdminApiProperties properties) {
+        this.apiKey = StringUtils.hasText(properties.getApiKey())
+                ? properties.getApiKey().getBytes(StandardCharsets.UTF_8)
+                : null;
+        if (apiKey == null) {
+            log.warn("No admin API key configured (stores.admin.api-key), the admin API is disabled");
+        }
+    }
+
+    @Override
+    public boolean preHandle(
+            @NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) {
+        String provided = request.getHeader(API_KEY_HEADER);
+        // Constant time comparison, so the key cannot be guessed from response times
+        if (apiKey == null || provided == null
+                || !MessageDigest.isEqual(apiKey, provided.getBytes(StandardCharsets.UTF_8))) {
+            throw new AdminAuthenticationException("Missing or invalid API key");
+        }
+        return true;
+    }
+}
@@ -0,0 +1,17 @@
+package kilic.yunus.stores.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Admin API settings ({@code stores.admin.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "stores.admin")
+public class AdminApiProperties {
+
+    /**
+     * Key that admin API requests must send, the admin API rejects every request while it is empty.
+     */
+    private String apiKey;
+}
@@ -3,25 +3,87 @@ package kilic.yunus.stores.config;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import kilic.yunus.stores.cache.NearestStoresCache;
+import kilic.yunus.stores.cache.NearestStoresCacheKey;
+import kilic.yunus.stores.cache.OffHeapNearestStoresCache;
+import kilic.yunus.stores.model.domain.Location;
+import kilic.yunus.stores.repository.StoreDatasets;
+import kilic.yunus.stores.repository.StoreRepository;
+import kilic.yunus.stores.service.DistanceCalculator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.util.StringUtils;
 
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Cache configuration using Caffeine with metrics support.
+ * Cache configuration using Caffeine with metrics support. Every store data set has its own
+ * {@code nearestStores} cache (see {@link #nearestStoresCache(String)}), a {@link NearestStoresCache}
+ * that keeps results across single-store changes. When {@code stores.cache.l2.enabled} is set, each
+ * of them is backed by an additional off-heap tier of the configured size.
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    public static final String NEAREST_STORES_CACHE = "nearestStores";
+
+    /**
+     * @return name of the {@code nearestStores} cache of a data set, {@value #NEAREST_STORES_CACHE}
+     * for the default data set
+     */
+    public static String nearestStoresCache(String dataset) {
+        return StoreDatasets.DEFAULT.equals(dataset) ? NEAREST_STORES_CACHE : NEAREST_STORES_CACHE + ":" + dataset;
+    }
+
     @Bean
-    public CacheManager cacheManager(MeterRegistry meterRegistry) {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("nearestStores");
+    public CacheManager cacheManager(
+            MeterRegistry meterRegistry,
+            StoreDatasets storeDatasets,
+            DistanceCalculator distanceCalculator,
+            @Value("${stores.cache.l2.enabled:false}") boolean l2Enabled,
+            @Value("${stores.cache.l2.max-entries:262144}") int l2MaxEntries,
+            @Value("${stores.cache.l2.max-results-per-entry:10}") int l2MaxResults,
+            @Value("${stores.cache.l2.file:}") String l2File) {
+        Map<String, StoreRepository> repositoriesByCache = new HashMap<>();
+        storeDatasets.repositories().forEach(
+                (dataset, repository) -> repositoriesByCache.put(nearestStoresCache(dataset), repository));
+
+        CaffeineCacheManager cacheManager =
+                new CaffeineCacheManager() {
+                    @Override
+                    @NonNull
+                    protected Cache adaptCaffeineCache(
+                            @NonNull String name,
+                            @NonNull com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                        Cache l1 = super.adaptCaffeineCache(name, cache);
+                        StoreRepository repository = repositoriesByCache.get(name);
+                        if (repository == null) {
+                            return l1;
+                        }
+                        OffHeapNearestStoresCache offHeapTier = null;
+                        if (l2Enabled) {
+                            String dataset = repository.dataset();
+                            offHeapTier = new OffHeapNearestStoresCache(
+                                    dataset, l2MaxEntries, l2MaxResults, l2File(l2File, dataset));
+                            offHeapTier.bindTo(meterRegistry);
+                        }
+                        return new NearestStoresCache(l1, offHeapTier, repository, distanceCalculator);
+                    }
+                };
 
         Caffeine<Object, Object> caffeineBuilder =
                 Caffeine.newBuilder()
@@ -30,6 +92,7 @@ public class CacheConfig {
                         .recordStats(); // Enable statistics recording
 
         cacheManager.setCaffeine(caffeineBuilder);
+        cacheManager.setCacheNames(storeDatasets.names().stream().map(CacheConfig::nearestStoresCache).toList());
 
         // Register cache metrics with Micrometer
         cacheManager
@@ -37,12 +100,54 @@ public class CacheConfig {
                 .forEach(
                         cacheName -> {
                             var cache = cacheManager.getCache(cacheName);
-                            if (cache instanceof CaffeineCache caffeineCache) {
-                                CaffeineCacheMetrics.monitor(
-                                        meterRegistry, caffeineCache.getNativeCache(), cacheName);
+                            if (cache != null
+                                    && cache.getNativeCache()
+                                    instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+                                CaffeineCacheMetrics.monitor(meterRegistry, nativeCache, cacheName);
                             }
                         });
 
         return cacheManager;
     }
+
+    /**
+     * @return file to map the off-heap tier of a data set to, the configured file for the default
+     * data set and a sibling file with the data set name appended for the others
+     */
+    private static Path l2File(String file, String dataset) {
+        if (!StringUtils.hasText(file)) {
+            return null;
+        }
+        Path path = Path.of(file);
+        return StoreDatasets.DEFAULT.equals(dataset)
+                ? path
+                : path.resolveSibling(path.getFileName() + "-" + dataset);
+    }
+
+    /**
+     * Picks the {@code nearestStores} cache of the data set named by the first argument.
+     */
+    @Bean
+    public CacheResolver nearestStoresCacheResolver(CacheManager cacheManager, StoreDatasets storeDatasets) {
+        return context -> {
+            String dataset = storeDatasets.get((String) context.getArgs()[0]).dataset();
+            return List.of(Objects.requireNonNull(cacheManager.getCache(nearestStoresCache(dataset))));
+        };
+    }
+
+    /**
+     * Builds {@link NearestStoresCacheKey}s tagged with the current load generation of the data set
+     * named by the first argument.
+     */
+    @Bean
+    public KeyGenerator nearestStoresKeyGenerator(StoreDatasets storeDatasets) {
+        return (target, method, params) -> {
+            Location location = (Location) params[1];
+            return new NearestStoresCacheKey(
+                    location.getLatitude(),
+                    location.getLongitude(),
+                    (int) params[2],
+                    storeDatasets.get((String) params[0]).snapshot().loadGeneration());
+        };
+    }
 }
@@ -0,0 +1,63 @@
+package kilic.yunus.stores.config;
+
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.grpc.MetricCollectingServerInterceptor;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.validation.Validator;
+import kilic.yunus.stores.grpc.GrpcServer;
+import kilic.yunus.stores.grpc.StoreSearchGrpcService;
+import kilic.yunus.stores.service.StoreService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * gRPC server next to the HTTP server, started with {@code stores.grpc.enabled=true}. Calls run on
+ * their own executor, which is monitored as {@code executor.*{name="grpc"}}, and every call is
+ * measured as {@code grpc.server.*}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "stores.grpc", name = "enabled", havingValue = "true")
+public class GrpcConfig {
+
+    @Bean
+    public StoreSearchGrpcService storeSearchGrpcService(StoreService storeService, Validator validator,
+                                                         RequestLogSampler requestLogSampler,
+                                                         SearchTimeoutProperties searchTimeoutProperties,
+                                                         GrpcProperties properties) {
+        return new StoreSearchGrpcService(storeService, validator, requestLogSampler, searchTimeoutProperties,
+                properties.getMaxBatchSize());
+    }
+
+    @Bean
+    public GrpcServer grpcServer(GrpcProperties properties, StoreSearchGrpcService storeSearchGrpcService,
+                                 MeterRegistry meterRegistry) {
+        // Not a bean: an Executor bean would replace Spring Boot's applicationTaskExecutor
+        ExecutorService executor = executor(properties.getExecutor(), meterRegistry);
+        Server server = NettyServerBuilder.forPort(properties.getPort())
+                .executor(executor)
+                .maxConcurrentCallsPerConnection(properties.getMaxConcurrentCallsPerConnection())
+                .addService(ServerInterceptors.intercept(storeSearchGrpcService,
+                        new MetricCollectingServerInterceptor(meterRegistry)))
+                .build();
+        return new GrpcServer(server, executor, properties.getShutdownTimeout());
+    }
+
+    private static ExecutorService executor(GrpcProperties.Executor executor, MeterRegistry meterRegistry) {
+        ExecutorService executorService;
+        if (executor.isVirtualThreads()) {
+            executorService = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("grpc-", 0).factory());
+        } else {
+            int threads = executor.getThreads() > 0
+                    ? executor.getThreads() : Runtime.getRuntime().availableProcessors();
+            executorService = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("grpc-", 0).factory());
+        }
+        return ExecutorServiceMetrics.monitor(meterRegistry, executorService, "grpc");
+    }
+}
@@ -0,0 +1,59 @@
+package kilic.yunus.stores.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * gRPC server settings ({@code stores.grpc.*}). The server runs next to the HTTP server and serves
+ * the {@code stores.v1.StoreSearch} service of {@code src/main/proto}.
+ */
+@Data
+@ConfigurationProperties(prefix = "stores.grpc")
+public class GrpcProperties {
+
+    /**
+     * Whether the gRPC server is started.
+     */
+    private boolean enabled;
+
+    /**
+     * Port of the gRPC server, 0 = any free port.
+     */
+    private int port = 9091;
+
+    /**
+     * Calls a client may run at the same time over one connection.
+     */
+    private int maxConcurrentCallsPerConnection = 100;
+
+    /**
+     * Queries a batch may hold.
+     */
+    private int maxBatchSize = 1000;
+
+    /**
+     * How long running calls may take to complete on shutdown before they are cancelled.
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+
+    private final Executor executor = new Executor();
+
+    /**
+     * Threads that run gRPC calls, separate from the HTTP server's.
+     */
+    @Data
+    public static class Executor {
+
+        /**
+         * Run every call on its own virtual thread instead of a fixed pool of platform threads.
+         */
+        private boolean virtualThreads;
+
+        /**
+         * Platform threads of the pool, 0 = number of available processors.
+         */
+        private int threads;
+    }
+}
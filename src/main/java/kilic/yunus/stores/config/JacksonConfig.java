@@ -0,0 +1,19 @@
+package kilic.yunus.stores.config;
+
+import com.fasterxml.jackson.databind.Module;
+import kilic.yunus.stores.model.dto.NearestStoresResponseSerializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Jackson configuration, registered with the application's ObjectMapper and so used by the servlet
+ * and the reactive API alike.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Module nearestStoresResponseModule() {
+        return NearestStoresResponseSerializer.module();
+    }
+}
@@ -0,0 +1,63 @@
+package kilic.yunus.stores.config;
+
+import kilic.yunus.stores.model.dto.NearestStoresResponse;
+import kilic.yunus.stores.model.dto.NearestStoresResponseProtobuf;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.protobuf.ProtobufHttpMessageConverter;
+import org.springframework.lang.NonNull;
+
+import java.io.IOException;
+
+/**
+ * Writes nearest-store responses as Protobuf ({@code application/x-protobuf}), with the schema and
+ * message headers of Spring's {@link ProtobufHttpMessageConverter}. Responses are only written,
+ * requests are never read as Protobuf.
+ */
+public class NearestStoresProtobufHttpMessageConverter extends AbstractHttpMessageConverter<NearestStoresResponse> {
+
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+    static final String SCHEMA = "stores/v1/nearest_stores.proto";
+
+    public NearestStoresProtobufHttpMessageConverter() {
+        // Without the charset of ProtobufHttpMessageConverter.PROTOBUF, the format is binary
+        super(PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(@NonNull Class<?> clazz) {
+        return NearestStoresResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(@NonNull Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    @NonNull
+    protected NearestStoresResponse readInternal(@NonNull Class<? extends NearestStoresResponse> clazz,
+                                                 @NonNull HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf requests are not supported", inputMessage);
+    }
+
+    @Override
+    protected void addDefaultHeaders(@NonNull HttpHeaders headers, @NonNull NearestStoresResponse response,
+                                     MediaType contentType) throws IOException {
+        super.addDefaultHeaders(headers, response, contentType);
+        headers.set(ProtobufHttpMessageConverter.X_PROTOBUF_SCHEMA_HEADER, SCHEMA);
+        headers.set(ProtobufHttpMessageConverter.X_PROTOBUF_MESSAGE_HEADER,
+                kilic.yunus.stores.proto.NearestStoresResponse.getDescriptor().getFullName());
+    }
+
+    @Override
+    protected void writeInternal(@NonNull NearestStoresResponse response, @NonNull HttpOutputMessage outputMessage)
+            throws IOException {
+        NearestStoresResponseProtobuf.toMessage(response).writeTo(outputMessage.getBody());
+    }
+}
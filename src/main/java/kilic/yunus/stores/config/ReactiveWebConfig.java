@@ -0,0 +1,44 @@
+package kilic.yunus.stores.config;
+
+import kilic.yunus.stores.controller.ReactiveStoreSubscriptionHandler;
+import kilic.yunus.stores.controller.StoreSubscriptionMessages;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.reactive.socket.server.WebSocketService;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
+import org.springframework.web.reactive.socket.server.upgrade.ReactorNettyRequestUpgradeStrategy;
+
+import java.util.Map;
+
+/**
+ * Configuration of the reactive API ({@code reactive} profile). Tomcat is on the classpath for the
+ * servlet API and would be picked by default, the reactive API runs on Netty instead. Nearest-store
+ * subscriptions are served over WebSocket, ahead of the annotated controllers, upgraded by Netty
+ * rather than by the Tomcat WebSocket support that comes with the servlet stack.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWebConfig implements WebFluxConfigurer {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public HandlerMapping storeSubscriptionHandlerMapping(ReactiveStoreSubscriptionHandler handler) {
+        return new SimpleUrlHandlerMapping(Map.of(StoreSubscriptionMessages.PATH, handler), -1);
+    }
+
+    @Override
+    @NonNull
+    public WebSocketService getWebSocketService() {
+        return new HandshakeWebSocketService(new ReactorNettyRequestUpgradeStrategy());
+    }
+}
@@ -0,0 +1,17 @@
+package kilic.yunus.stores.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Per-request log settings ({@code stores.logging.requests.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "stores.logging.requests")
+public class RequestLogProperties {
+
+    /**
+     * Search requests logged per second at most, over REST and gRPC together, 0 = none.
+     */
+    private int maxPerSecond = 10;
+}
@@ -0,0 +1,68 @@
+package kilic.yunus.stores.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the search requests that are logged to {@code stores.logging.requests.max-per-second}, so the
+ * request log stays readable and cheap under load. Every logged request reports how many requests were
+ * left out since the one logged before it:
+ *
+ * <pre>{@code
+ * long skipped = requestLogSampler.sample();
+ * if (skipped != RequestLogSampler.NOT_SAMPLED) {
+ *     log.info("... (+{} requests not logged)", ..., skipped);
+ * }
+ * }</pre>
+ *
+ * <p>A request that is not logged costs a clock read and two atomic increments.
+ */
+@Component
+public class RequestLogSampler {
+
+    public static final long NOT_SAMPLED = -1;
+
+    private static final long SECOND_NANOS = 1_000_000_000L;
+
+    private final int maxPerSecond;
+    private final LongSupplier nanoClock;
+    private final AtomicLong second = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicInteger sampledThisSecond = new AtomicInteger();
+    private final LongAdder skipped = new LongAdder();
+
+    @Autowired
+    public RequestLogSampler(RequestLogProperties properties) {
+        this(properties.getMaxPerSecond(), System::nanoTime);
+    }
+
+    RequestLogSampler(int maxPerSecond, LongSupplier nanoClock) {
+        this.maxPerSecond = maxPerSecond;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @return requests left out since the last sampled one if this request is to be logged, otherwise
+     * {@link #NOT_SAMPLED}
+     */
+    public long sample() {
+        if (maxPerSecond <= 0) {
+            return NOT_SAMPLED;
+        }
+        long now = nanoClock.getAsLong() / SECOND_NANOS;
+        long current = second.get();
+        if (now != current && second.compareAndSet(current, now)) {
+            // Racing requests may still count against the previous second, which only errs on logging less
+            sampledThisSecond.set(0);
+        }
+        if (sampledThisSecond.incrementAndGet() > maxPerSecond) {
+            skipped.increment();
+            return NOT_SAMPLED;
+        }
+        return skipped.sumThenReset();
+    }
+}
@@ -0,0 +1,61 @@
+package kilic.yunus.stores.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Concurrency limit of store searches that miss the result cache
+ * ({@code stores.search.concurrency-limit.*}), see
+ * {@link kilic.yunus.stores.service.impl.AdaptiveConcurrencyLimiter}.
+ */
+@Data
+@ConfigurationProperties(prefix = "stores.search.concurrency-limit")
+public class SearchLimitProperties {
+
+    /**
+     * Whether searches beyond the limit are rejected.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Limit until enough searches were measured to adapt it.
+     */
+    private int initialLimit = 20;
+
+    /**
+     * Lowest limit, even when latency keeps rising.
+     */
+    private int minLimit = 4;
+
+    /**
+     * Highest limit, even when latency stays flat.
+     */
+    private int maxLimit = 200;
+
+    /**
+     * Latency increase over the long-term average that is taken as noise rather than queueing.
+     */
+    private double tolerance = 1.5;
+
+    /**
+     * Weight of every new limit estimate, 1 = no smoothing.
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * Period over which search latencies are averaged before the limit is adapted.
+     */
+    private Duration window = Duration.ofMillis(100);
+
+    /**
+     * Searches averaged at least before the limit is adapted.
+     */
+    private int minWindowSamples = 10;
+
+    /**
+     * Time rejected clients are asked to wait before retrying.
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
@@ -0,0 +1,51 @@
+package kilic.yunus.stores.config;
+
+import kilic.yunus.stores.exception.InvalidRequestTimeoutException;
+import kilic.yunus.stores.service.SearchDeadline;
+import lombok.Data;
+import org.hibernate.validator.constraints.time.DurationMin;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Search deadline settings ({@code stores.search.timeout.*}), see {@link SearchDeadline}.
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "stores.search.timeout")
+public class SearchTimeoutProperties {
+
+    public static final String HEADER = "X-Request-Timeout";
+
+    /**
+     * Deadline of searches whose request has no {@value #HEADER} header (and gRPC calls without a
+     * deadline), 0 = none.
+     */
+    private Duration defaultTimeout = Duration.ZERO;
+
+    /**
+     * Longest deadline a request may ask for with the {@value #HEADER} header, longer ones are cut to
+     * it. Must be positive, a cut to zero would fail every such request with 504.
+     */
+    @DurationMin(millis = 1)
+    private Duration maxTimeout = Duration.ofSeconds(30);
+
+    /**
+     * @param timeoutMillis value of the {@value #HEADER} header in milliseconds, null if absent
+     * @return deadline of a search from now
+     * @throws InvalidRequestTimeoutException if the header value is not positive
+     */
+    public SearchDeadline deadline(Long timeoutMillis) {
+        if (timeoutMillis != null) {
+            if (timeoutMillis <= 0) {
+                throw new InvalidRequestTimeoutException(HEADER + " must be a positive number of milliseconds");
+            }
+            return SearchDeadline.after(Duration.ofMillis(Math.min(timeoutMillis, maxTimeout.toMillis())));
+        }
+        return defaultTimeout.isZero() || defaultTimeout.isNegative()
+                ? SearchDeadline.NONE
+                : SearchDeadline.after(defaultTimeout);
+    }
+}
@@ -1,6 +1,9 @@
 package kilic.yunus.stores.config;
 
+import kilic.yunus.stores.repository.StoreDatasets;
+import kilic.yunus.stores.repository.StoreIndexStatus;
 import kilic.yunus.stores.repository.StoreRepository;
+import kilic.yunus.stores.repository.StoreSnapshot;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.actuate.health.Health;
@@ -8,8 +11,14 @@ import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
- * Custom health indicator to check store data availability.
+ * Custom health indicator to check store data availability. Reports every data set, and is only up
+ * if all of them have been loaded. A data set whose file holds no stores is loaded and reported as
+ * empty, it does not make it down. Neither does a spatial index that is still being built, searches
+ * scan all stores until then.
  */
 @Primary
 @Slf4j
@@ -17,22 +26,41 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class StoreDataHealthIndicator implements HealthIndicator {
 
-    private final StoreRepository storeRepository;
+    private final StoreDatasets storeDatasets;
 
     @Override
     public Health health() {
         try {
-            int storeCount = storeRepository.count();
+            Map<String, Object> datasets = new LinkedHashMap<>();
+            long totalStores = 0;
+            boolean allLoaded = true;
+            for (Map.Entry<String, StoreRepository> dataset : storeDatasets.repositories().entrySet()) {
+                StoreSnapshot snapshot = dataset.getValue().snapshot();
+                Map<String, Object> details = new LinkedHashMap<>();
+                details.put("totalStores", snapshot.size());
+                if (snapshot.size() == 0) {
+                    details.put("empty", true);
+                }
+                details.put("generation", snapshot.generation());
+                details.put("storage", snapshot.storage());
+                details.put("spatialIndex", spatialIndexDetails(dataset.getValue().indexStatus()));
+                datasets.put(dataset.getKey(), details);
+                totalStores += snapshot.size();
+                // Every load publishes a generation, generation 0 is the empty snapshot before the first one
+                allLoaded &= snapshot.generation() > 0;
+            }
 
-            if (storeCount > 0) {
+            if (allLoaded) {
                 return Health.up()
-                        .withDetail("totalStores", storeCount)
+                        .withDetail("totalStores", totalStores)
+                        .withDetail("datasets", datasets)
                         .withDetail("status", "Store data loaded successfully")
                         .build();
             } else {
                 return Health.down()
-                        .withDetail("totalStores", 0)
-                        .withDetail("status", "No store data available")
+                        .withDetail("totalStores", totalStores)
+                        .withDetail("datasets", datasets)
+                        .withDetail("status", "Store data not loaded")
                         .build();
             }
         } catch (Exception e) {
@@ -40,4 +68,13 @@ public class StoreDataHealthIndicator implements HealthIndicator {
             return Health.down().withDetail("error", e.getMessage()).build();
         }
     }
+
+    private static Map<String, Object> spatialIndexDetails(StoreIndexStatus indexStatus) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("status", indexStatus.state());
+        if (indexStatus.state() == StoreIndexStatus.State.BUILDING) {
+            details.put("progressPercent", Math.round(indexStatus.progress() * 100));
+        }
+        return details;
+    }
 }
@@ -0,0 +1,136 @@
+package kilic.yunus.stores.config;
+
+import kilic.yunus.stores.repository.StoreStorage;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Store data loading settings ({@code stores.data.*}). The top-level file is the default data set,
+ * further named data sets can be added under {@code stores.data.datasets.<name>.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "stores.data")
+public class StoreDataProperties {
+
+    /**
+     * Store data file, either JSON (optionally gzip-compressed, {@code .json.gz}), a binary snapshot
+     * ({@code .snapshot}) or a directory of JSON shards ({@code *.json}, {@code *.json.gz}). Defaults
+     * to the bundled store data, which the build compresses into the application.
+     */
+    private Resource file = new ClassPathResource("stores.json.gz");
+
+    /**
+     * Threads used to read shards and validate stores at load time, 0 = number of available
+     * processors.
+     */
+    private int validationParallelism;
+
+    /**
+     * Where loaded stores are kept. {@code off-heap} moves them out of the Java heap, for data sets
+     * large enough that garbage collection would suffer.
+     */
+    private StoreStorage storage = StoreStorage.HEAP;
+
+    private final Watch watch = new Watch();
+
+    private final ChangeLog changeLog = new ChangeLog();
+
+    private final SpatialIndex spatialIndex = new SpatialIndex();
+
+    /**
+     * Additional named data sets (lower-case letters, digits and dashes), e.g. one per store chain.
+     * Each one is loaded into its own repository and selected per request.
+     */
+    private Map<String, Dataset> datasets = new LinkedHashMap<>();
+
+    /**
+     * Settings of an additional data set: its own file and storage, all other settings are shared
+     * with the default data set. Its change log lives in a subdirectory named after the data set.
+     */
+    public StoreDataProperties forDataset(String name, Dataset dataset) {
+        StoreDataProperties properties = new StoreDataProperties();
+        properties.setFile(dataset.getFile());
+        properties.setStorage(dataset.getStorage() != null ? dataset.getStorage() : storage);
+        properties.setValidationParallelism(validationParallelism);
+        properties.getWatch().setEnabled(watch.isEnabled());
+        properties.getWatch().setDebounce(watch.getDebounce());
+        properties.getChangeLog().setEnabled(changeLog.isEnabled());
+        properties.getChangeLog().setDirectory(changeLog.getDirectory().resolve(name));
+        properties.getChangeLog().setSyncInterval(changeLog.getSyncInterval());
+        properties.getChangeLog().setCompactionThreshold(changeLog.getCompactionThreshold());
+        properties.getSpatialIndex().setEnabled(spatialIndex.isEnabled());
+        return properties;
+    }
+
+    @Data
+    public static class SpatialIndex {
+
+        /**
+         * Build a spatial index of every loaded snapshot in the background. Searches scan all stores
+         * until it is complete, and always without it.
+         */
+        private boolean enabled = true;
+    }
+
+    @Data
+    public static class Dataset {
+
+        /**
+         * Store data file or shard directory of the data set, same formats as the default file.
+         */
+        private Resource file;
+
+        /**
+         * Where the stores of the data set are kept, defaults to the storage of the default data set.
+         */
+        private StoreStorage storage;
+    }
+
+    @Data
+    public static class Watch {
+
+        /**
+         * Reload the store data file when it changes on disk.
+         */
+        private boolean enabled;
+
+        /**
+         * Quiet period after the last file change before reloading, so a file that is still being
+         * written is not picked up half-way.
+         */
+        private Duration debounce = Duration.ofMillis(500);
+    }
+
+    @Data
+    public static class ChangeLog {
+
+        /**
+         * Persist changes made through the admin API in an append-only log that is replayed on top
+         * of the store data file on startup and reload.
+         */
+        private boolean enabled;
+
+        /**
+         * Directory holding the log segments and compacted base snapshots.
+         */
+        private Path directory = Path.of("store-changes");
+
+        /**
+         * Extra time to wait for more changes before forcing the log to disk. Changes arriving while
+         * an fsync is running always share the next one, so this only helps on very fast disks.
+         */
+        private Duration syncInterval = Duration.ZERO;
+
+        /**
+         * Number of logged changes after which the log is compacted into a new base snapshot.
+         */
+        private int compactionThreshold = 10_000;
+    }
+}
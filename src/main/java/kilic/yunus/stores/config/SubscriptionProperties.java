@@ -0,0 +1,24 @@
+package kilic.yunus.stores.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Subscriptions to the nearest stores of a moving location ({@code stores.subscription.*}), see
+ * {@link kilic.yunus.stores.service.impl.StoreSubscriptionServiceImpl}.
+ */
+@Data
+@ConfigurationProperties(prefix = "stores.subscription")
+public class SubscriptionProperties {
+
+    /**
+     * Subscriptions open at most, further ones are refused.
+     */
+    private int maxSessions = 10_000;
+
+    /**
+     * Stores a subscription keeps per store it follows, the more the further it can move before the
+     * stores are searched again.
+     */
+    private int candidatesPerResult = 4;
+}
@@ -0,0 +1,28 @@
+package kilic.yunus.stores.config;
+
+import kilic.yunus.stores.controller.StoreSubscriptionHandler;
+import kilic.yunus.stores.controller.StoreSubscriptionMessages;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * WebSocket configuration of the servlet stack, serves nearest-store subscriptions.
+ */
+@Configuration
+@EnableWebSocket
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final StoreSubscriptionHandler storeSubscriptionHandler;
+
+    @Override
+    public void registerWebSocketHandlers(@NonNull WebSocketHandlerRegistry registry) {
+        registry.addHandler(storeSubscriptionHandler, StoreSubscriptionMessages.PATH);
+    }
+}
@@ -0,0 +1,76 @@
+package kilic.yunus.stores.controller;
+
+import jakarta.validation.Valid;
+import kilic.yunus.stores.config.RequestLogSampler;
+import kilic.yunus.stores.config.SearchTimeoutProperties;
+import kilic.yunus.stores.model.domain.Location;
+import kilic.yunus.stores.model.dto.NearestStoresRequest;
+import kilic.yunus.stores.model.dto.NearestStoresResponse;
+import kilic.yunus.stores.model.dto.StoreFields;
+import kilic.yunus.stores.service.ReactiveStoreService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive variant of {@link StoreController} with the same request parameters and response, served
+ * by WebFlux on Netty when the application runs with the {@code reactive} profile.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+@Validated
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStoreController {
+
+    private final ReactiveStoreService reactiveStoreService;
+    private final RequestLogSampler requestLogSampler;
+    private final SearchTimeoutProperties searchTimeoutProperties;
+
+    @GetMapping({"/stores/nearest", "/datasets/{dataset}/stores/nearest"})
+    public Mono<ResponseEntity<NearestStoresResponse>> findNearestStores(
+            @Valid @ModelAttribute NearestStoresRequest request,
+            @RequestHeader(name = SearchTimeoutProperties.HEADER, required = false) Long timeoutMillis) {
+        long skipped = requestLogSampler.sample();
+        if (skipped != RequestLogSampler.NOT_SAMPLED) {
+            log.info(
+                    "Finding nearest stores - dataset: {}, lat: {}, lon: {}, limit: {}, fields: {} "
+                            + "(+{} requests not logged)",
+                    request.getDataset(),
+                    request.getLatitude(),
+                    request.getLongitude(),
+                    request.getLimit(),
+                    request.getFields(),
+                    skipped);
+        }
+
+        Location location = new Location(request.getLatitude(), request.getLongitude());
+
+        return reactiveStoreService
+                .findNearestStores(request.getDataset(), location, request.getLimit(),
+                        searchTimeoutProperties.deadline(timeoutMillis))
+                .collectList()
+                .map(nearestStores -> ResponseEntity.ok(
+                        NearestStoresResponse.builder()
+                                .query(
+                                        NearestStoresResponse.QueryInfo.builder()
+                                                .dataset(request.getDataset())
+                                                .latitude(request.getLatitude())
+                                                .longitude(request.getLongitude())
+                                                .limit(request.getLimit())
+                                                .build())
+                                .results(nearestStores)
+                                .totalFound(nearestStores.size())
+                                .fields(StoreFields.parse(request.getFields()))
+                                .build()));
+    }
+}
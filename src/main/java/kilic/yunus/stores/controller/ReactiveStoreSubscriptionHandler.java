@@ -0,0 +1,51 @@
+package kilic.yunus.stores.controller;
+
+import kilic.yunus.stores.exception.DatasetNotFoundException;
+import kilic.yunus.stores.exception.SearchOverloadedException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive variant of {@link StoreSubscriptionHandler}. Location updates of a session are handled
+ * one after another on the calling thread, and on the bounded elastic scheduler while they may scan
+ * all stores, as in {@link kilic.yunus.stores.service.impl.ReactiveStoreServiceImpl}.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStoreSubscriptionHandler implements WebSocketHandler {
+
+    private final StoreSubscriptionMessages messages;
+
+    @Override
+    @NonNull
+    public Mono<Void> handle(@NonNull WebSocketSession session) {
+        StoreSubscriptionMessages.Session subscription;
+        try {
+            subscription = messages.open(session.getHandshakeInfo().getUri());
+        } catch (SearchOverloadedException e) {
+            return session.close(CloseStatus.SERVICE_OVERLOAD.withReason(e.getMessage()));
+        } catch (IllegalArgumentException | DatasetNotFoundException e) {
+            return session.close(CloseStatus.POLICY_VIOLATION.withReason(e.getMessage()));
+        }
+        return session.send(session.receive()
+                        .map(WebSocketMessage::getPayloadAsText)
+                        .concatMap(payload -> {
+                            Mono<String> reply = Mono.fromCallable(() -> messages.handle(subscription, payload))
+                                    .flatMap(Mono::justOrEmpty);
+                            return messages.mayScan(subscription)
+                                    ? reply.subscribeOn(Schedulers.boundedElastic())
+                                    : reply;
+                        })
+                        .map(session::textMessage))
+                .doFinally(signal -> subscription.subscription().close());
+    }
+}
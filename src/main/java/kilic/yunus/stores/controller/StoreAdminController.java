@@ -0,0 +1,172 @@
+package kilic.yunus.stores.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import kilic.yunus.stores.config.AdminApiKeyInterceptor;
+import kilic.yunus.stores.model.domain.Store;
+import kilic.yunus.stores.model.dto.ErrorResponse;
+import kilic.yunus.stores.model.dto.StoreChangeResponse;
+import kilic.yunus.stores.model.dto.StoreReloadResponse;
+import kilic.yunus.stores.service.StoreAdminService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * REST controller for changing single stores and reloading store data at runtime. Requests must carry
+ * the configured API key in the {@value AdminApiKeyInterceptor#API_KEY_HEADER} header.
+ */
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping(StoreAdminController.BASE_PATH)
+@RequiredArgsConstructor
+@Tag(name = "Store administration", description = "Incremental store data updates")
+public class StoreAdminController {
+
+    public static final String BASE_PATH = "/api/v1/admin/stores";
+
+    private static final String DATASET_DESCRIPTION = "Store data set to change, the default data set if omitted";
+    private static final String RELOAD_DATASET_DESCRIPTION = "Store data set to reload, the default data set if omitted";
+
+    private final StoreAdminService storeAdminService;
+
+    @Operation(
+            summary = "Add or replace a store",
+            description = "Adds the store, or replaces the store with the same UUID, without reloading the data file")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Store added or replaced",
+                            content =
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = StoreChangeResponse.class))),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid store",
+                            content =
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(
+                            responseCode = "401",
+                            description = "Missing or invalid API key",
+                            content =
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Data set not found",
+                            content =
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ErrorResponse.class)))
+            })
+    @PutMapping("/{uuid}")
+    public ResponseEntity<StoreChangeResponse> upsertStore(
+            @PathVariable String uuid,
+            @Parameter(description = DATASET_DESCRIPTION) @RequestParam(required = false) String dataset,
+            @Valid @RequestBody Store store) {
+        log.info("Upserting store {}", uuid);
+        return ResponseEntity.ok(storeAdminService.upsertStore(dataset, uuid, store));
+    }
+
+    @Operation(summary = "Remove a store", description = "Removes the store without reloading the data file")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Store removed",
+                            content =
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = StoreChangeResponse.class))),
+                    @ApiResponse(
+                            responseCode = "401",
+                            description = "Missing or invalid API key",
+                            content =
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Store or data set not found",
+                            content =
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ErrorResponse.class)))
+            })
+    @DeleteMapping("/{uuid}")
+    public ResponseEntity<StoreChangeResponse> deleteStore(
+            @PathVariable String uuid,
+            @Parameter(description = DATASET_DESCRIPTION) @RequestParam(required = false) String dataset) {
+        log.info("Deleting store {}", uuid);
+        return ResponseEntity.ok(storeAdminService.deleteStore(dataset, uuid));
+    }
+
+    /**
+     * Completes asynchronously, the request thread is released while the data file is loaded.
+     */
+    @Operation(
+            summary = "Reload store data",
+            description = "Loads the data file of the data set again in the background and publishes it, unless "
+                    + "it is unchanged since it was last loaded. The current store data is served until then")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Store data reloaded, or left in place if the data file is unchanged",
+                            content =
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = StoreReloadResponse.class))),
+                    @ApiResponse(
+                            responseCode = "401",
+                            description = "Missing or invalid API key",
+                            content =
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Data set not found",
+                            content =
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "Data file could not be loaded, the previous store data is still served",
+                            content =
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ErrorResponse.class)))
+            })
+    @PostMapping("/reload")
+    public CompletableFuture<ResponseEntity<StoreReloadResponse>> reload(
+            @Parameter(description = RELOAD_DATASET_DESCRIPTION) @RequestParam(required = false) String dataset) {
+        log.info("Reloading store data of data set {}", dataset);
+        return storeAdminService.reload(dataset).thenApply(ResponseEntity::ok);
+    }
+}
@@ -1,58 +1,89 @@
 package kilic.yunus.stores.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import kilic.yunus.stores.config.RequestLogSampler;
+import kilic.yunus.stores.config.SearchTimeoutProperties;
 import kilic.yunus.stores.model.domain.Location;
 import kilic.yunus.stores.model.dto.ErrorResponse;
 import kilic.yunus.stores.model.dto.NearestStoresRequest;
 import kilic.yunus.stores.model.dto.NearestStoresResponse;
+import kilic.yunus.stores.model.dto.StoreFields;
 import kilic.yunus.stores.model.dto.StoreWithDistance;
 import kilic.yunus.stores.service.StoreService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
 
 /**
- * REST controller for store operations.
+ * REST controller for store operations. The store data set to search is picked with the
+ * {@code dataset} query parameter or the {@code /datasets/{dataset}} path prefix, without either the
+ * default data set is searched.
  */
 @Slf4j
 @RestController
-@RequestMapping("/api/v1/stores")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/v1")
 @RequiredArgsConstructor
 @Validated
 @Tag(name = "Stores", description = "Store location and search APIs")
 public class StoreController {
 
     private final StoreService storeService;
+    private final RequestLogSampler requestLogSampler;
+    private final SearchTimeoutProperties searchTimeoutProperties;
 
     @Operation(
             summary = "Find nearest stores",
-            description = "Returns the nearest stores to a given location, sorted by distance")
+            description = "Returns the nearest stores to a given location, sorted by distance, with all or the "
+                    + "requested store properties")
     @ApiResponses(
             value = {
                     @ApiResponse(
                             responseCode = "200",
                             description = "Successfully retrieved nearest stores",
+                            content = {
+                                    @Content(
+                                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                            schema = @Schema(implementation = NearestStoresResponse.class)),
+                                    @Content(
+                                            mediaType = MediaType.APPLICATION_CBOR_VALUE,
+                                            schema = @Schema(implementation = NearestStoresResponse.class)),
+                                    @Content(
+                                            mediaType = "application/x-jackson-smile",
+                                            schema = @Schema(implementation = NearestStoresResponse.class)),
+                                    @Content(
+                                            mediaType = "application/x-protobuf",
+                                            schema = @Schema(description = "stores.v1.NearestStoresResponse "
+                                                    + "of stores/v1/nearest_stores.proto"))}),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid request parameters or request timeout",
                             content =
                             @Content(
                                     mediaType = MediaType.APPLICATION_JSON_VALUE,
-                                    schema = @Schema(implementation = NearestStoresResponse.class))),
+                                    schema = @Schema(implementation = ErrorResponse.class))),
                     @ApiResponse(
-                            responseCode = "400",
-                            description = "Invalid request parameters",
+                            responseCode = "404",
+                            description = "Data set not found",
                             content =
                             @Content(
                                     mediaType = MediaType.APPLICATION_JSON_VALUE,
@@ -61,34 +92,66 @@ public class StoreController {
                             responseCode = "500",
                             description = "Internal server error",
                             content =
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(
+                            responseCode = "503",
+                            description = "Too many concurrent searches, retry after the given delay",
+                            headers = @Header(
+                                    name = HttpHeaders.RETRY_AFTER,
+                                    description = "Seconds to wait before retrying the request",
+                                    schema = @Schema(type = "integer", example = "1")),
+                            content =
+                            @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(
+                            responseCode = "504",
+                            description = "Search did not complete within the request timeout",
+                            content =
                             @Content(
                                     mediaType = MediaType.APPLICATION_JSON_VALUE,
                                     schema = @Schema(implementation = ErrorResponse.class)))
             })
-    @GetMapping("/nearest")
+    @GetMapping({"/stores/nearest", "/datasets/{dataset}/stores/nearest"})
     public ResponseEntity<NearestStoresResponse> findNearestStores(
-            @Valid @ModelAttribute NearestStoresRequest request) {
-        log.info(
-                "Finding nearest stores - lat: {}, lon: {}, limit: {}",
-                request.getLatitude(),
-                request.getLongitude(),
-                request.getLimit());
+            @Valid @ModelAttribute NearestStoresRequest request,
+            @Parameter(description = "Milliseconds the search may take, the server default if omitted, "
+                    + "at most stores.search.timeout.max-timeout",
+                    example = "200")
+            @RequestHeader(name = SearchTimeoutProperties.HEADER, required = false) Long timeoutMillis) {
+        long skipped = requestLogSampler.sample();
+        if (skipped != RequestLogSampler.NOT_SAMPLED) {
+            log.info(
+                    "Finding nearest stores - dataset: {}, lat: {}, lon: {}, limit: {}, fields: {} "
+                            + "(+{} requests not logged)",
+                    request.getDataset(),
+                    request.getLatitude(),
+                    request.getLongitude(),
+                    request.getLimit(),
+                    request.getFields(),
+                    skipped);
+        }
 
         Location location = new Location(request.getLatitude(), request.getLongitude());
 
         List<StoreWithDistance> nearestStores =
-                storeService.findNearestStores(location, request.getLimit());
+                storeService.findNearestStores(request.getDataset(), location, request.getLimit(),
+                        searchTimeoutProperties.deadline(timeoutMillis));
 
         NearestStoresResponse response =
                 NearestStoresResponse.builder()
                         .query(
                                 NearestStoresResponse.QueryInfo.builder()
+                                        .dataset(request.getDataset())
                                         .latitude(request.getLatitude())
                                         .longitude(request.getLongitude())
                                         .limit(request.getLimit())
                                         .build())
                         .results(nearestStores)
                         .totalFound(nearestStores.size())
+                        .fields(StoreFields.parse(request.getFields()))
                         .build();
 
         return ResponseEntity.ok(response);
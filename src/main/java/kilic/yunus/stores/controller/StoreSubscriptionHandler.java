@@ -0,0 +1,64 @@
+package kilic.yunus.stores.controller;
+
+import kilic.yunus.stores.exception.DatasetNotFoundException;
+import kilic.yunus.stores.exception.SearchOverloadedException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Nearest-store subscriptions over WebSocket on the servlet stack, see
+ * {@link StoreSubscriptionMessages}. Sessions with invalid query parameters are closed with
+ * {@code 1008} (policy violation), and with {@code 1013} (try again later) while too many
+ * subscriptions are open.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class StoreSubscriptionHandler extends TextWebSocketHandler {
+
+    private static final String SESSION = StoreSubscriptionMessages.Session.class.getName();
+
+    private final StoreSubscriptionMessages messages;
+
+    @Override
+    public void afterConnectionEstablished(@NonNull WebSocketSession session) throws IOException {
+        try {
+            session.getAttributes().put(SESSION, messages.open(session.getUri()));
+        } catch (SearchOverloadedException e) {
+            session.close(CloseStatus.SERVICE_OVERLOAD.withReason(e.getMessage()));
+        } catch (IllegalArgumentException | DatasetNotFoundException e) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason(e.getMessage()));
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage message)
+            throws IOException {
+        StoreSubscriptionMessages.Session subscription =
+                (StoreSubscriptionMessages.Session) session.getAttributes().get(SESSION);
+        if (subscription != null) {
+            Optional<String> reply = messages.handle(subscription, message.getPayload());
+            if (reply.isPresent()) {
+                session.sendMessage(new TextMessage(reply.get()));
+            }
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) {
+        StoreSubscriptionMessages.Session subscription =
+                (StoreSubscriptionMessages.Session) session.getAttributes().remove(SESSION);
+        if (subscription != null) {
+            subscription.subscription().close();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package kilic.yunus.stores.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kilic.yunus.stores.config.RequestLogSampler;
+import kilic.yunus.stores.exception.InvalidCoordinatesException;
+import kilic.yunus.stores.exception.SearchOverloadedException;
+import kilic.yunus.stores.model.domain.Location;
+import kilic.yunus.stores.model.dto.ErrorResponse;
+import kilic.yunus.stores.model.dto.NearestStoresUpdate;
+import kilic.yunus.stores.model.dto.StoreFields;
+import kilic.yunus.stores.model.dto.StoreWithDistance;
+import kilic.yunus.stores.repository.StoreDatasets;
+import kilic.yunus.stores.service.StoreSubscription;
+import kilic.yunus.stores.service.StoreSubscriptionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Messages of the nearest-store subscription WebSocket at {@value #PATH}, for both the servlet and
+ * the reactive handler.
+ *
+ * <p>The {@code dataset}, {@code limit} and {@code fields} query parameters of the handshake work as
+ * for {@code /api/v1/stores/nearest}. The client sends its location as
+ * {@code {"latitude": 52.37, "longitude": 4.90}} whenever it moves, and receives a
+ * {@link NearestStoresUpdate} only if the nearest stores changed, or an {@link ErrorResponse} for an
+ * update that failed, after which the subscription continues.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StoreSubscriptionMessages {
+
+    public static final String PATH = "/api/v1/stores/nearest/live";
+
+    private static final int DEFAULT_LIMIT = 5;
+    private static final int MAX_LIMIT = 50;
+
+    private final StoreSubscriptionService storeSubscriptionService;
+    private final StoreDatasets storeDatasets;
+    private final ObjectMapper objectMapper;
+    private final RequestLogSampler requestLogSampler;
+
+    /**
+     * Opens the subscription of a WebSocket session, which closes it with the session.
+     *
+     * @param uri handshake URI of the session
+     * @throws IllegalArgumentException if a query parameter is invalid
+     * @throws kilic.yunus.stores.exception.DatasetNotFoundException if the data set does not exist
+     * @throws SearchOverloadedException if too many subscriptions are open
+     */
+    public Session open(URI uri) {
+        MultiValueMap<String, String> parameters = UriComponentsBuilder.fromUri(uri).build().getQueryParams();
+        String dataset = parameters.getFirst("dataset");
+        int limit = limit(parameters.getFirst("limit"));
+        StoreFields fields = StoreFields.parse(parameters.getFirst("fields"));
+
+        long skipped = requestLogSampler.sample();
+        if (skipped != RequestLogSampler.NOT_SAMPLED) {
+            log.info("Subscribing to nearest stores - dataset: {}, limit: {}, fields: {} (+{} requests not logged)",
+                    dataset, limit, fields, skipped);
+        }
+        return new Session(storeSubscriptionService.subscribe(dataset, limit), dataset, fields);
+    }
+
+    private static int limit(String parameter) {
+        if (parameter == null) {
+            return DEFAULT_LIMIT;
+        }
+        int limit;
+        try {
+            limit = Integer.parseInt(parameter);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Limit must be a number");
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        if (limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit cannot exceed " + MAX_LIMIT);
+        }
+        return limit;
+    }
+
+    /**
+     * @return whether updates of the session may scan all stores, while the spatial index of its data
+     * set is built
+     */
+    public boolean mayScan(Session session) {
+        return storeDatasets.get(session.dataset()).snapshot().gridIndex() == null;
+    }
+
+    /**
+     * @param payload location update sent by the client
+     * @return message to send back, empty if the nearest stores did not change
+     */
+    public Optional<String> handle(Session session, String payload) {
+        try {
+            return session.subscription().update(location(payload))
+                    .map(update -> write(project(update, session.fields())));
+        } catch (IllegalArgumentException | InvalidCoordinatesException e) {
+            return Optional.of(error(HttpStatus.BAD_REQUEST, e.getMessage()));
+        } catch (SearchOverloadedException e) {
+            return Optional.of(error(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()));
+        } catch (RuntimeException e) {
+            log.error("Error updating nearest store subscription", e);
+            return Optional.of(error(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred"));
+        }
+    }
+
+    private Location location(String payload) {
+        JsonNode message;
+        try {
+            message = objectMapper.readTree(payload);
+        } catch (JsonProcessingException e) {
+            message = null;
+        }
+        if (message == null || !message.path("latitude").isNumber() || !message.path("longitude").isNumber()) {
+            throw new IllegalArgumentException("Location updates must be JSON objects with a latitude and longitude");
+        }
+        return new Location(message.get("latitude").doubleValue(), message.get("longitude").doubleValue());
+    }
+
+    private static NearestStoresUpdate project(NearestStoresUpdate update, StoreFields fields) {
+        if (!fields.isAll()) {
+            update.setAdded(update.getAdded().stream()
+                    .map(result -> new StoreWithDistance(fields.project(result.getStore()), result.getDistance()))
+                    .toList());
+        }
+        return update;
+    }
+
+    private String error(HttpStatus status, String message) {
+        return write(ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(message)
+                .path(PATH)
+                .build());
+    }
+
+    private String write(Object message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot write subscription message", e);
+        }
+    }
+
+    /**
+     * Subscription of a WebSocket session and the store properties its updates contain.
+     */
+    public record Session(StoreSubscription subscription, String dataset, StoreFields fields) {
+    }
+}
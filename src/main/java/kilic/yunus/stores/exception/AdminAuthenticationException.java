@@ -0,0 +1,11 @@
+package kilic.yunus.stores.exception;
+
+/**
+ * Exception thrown when an admin API request does not carry a valid API key.
+ */
+public class AdminAuthenticationException extends RuntimeException {
+
+    public AdminAuthenticationException(String message) {
+        super(message);
+    }
+}
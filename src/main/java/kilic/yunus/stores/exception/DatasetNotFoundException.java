@@ -0,0 +1,11 @@
+package kilic.yunus.stores.exception;
+
+/**
+ * Exception thrown when a request names a store data set that is not configured.
+ */
+public class DatasetNotFoundException extends RuntimeException {
+
+    public DatasetNotFoundException(String message) {
+        super(message);
+    }
+}
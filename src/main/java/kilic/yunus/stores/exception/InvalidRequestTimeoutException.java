@@ -0,0 +1,11 @@
+package kilic.yunus.stores.exception;
+
+/**
+ * Exception thrown when a request asks for a search timeout that is not positive.
+ */
+public class InvalidRequestTimeoutException extends RuntimeException {
+
+    public InvalidRequestTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package kilic.yunus.stores.exception;
+
+/**
+ * Exception thrown when a store submitted for an update is rejected.
+ */
+public class InvalidStoreException extends RuntimeException {
+
+    public InvalidStoreException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,107 @@
+package kilic.yunus.stores.exception;
+
+import kilic.yunus.stores.model.dto.ErrorResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.stream.Collectors;
+
+/**
+ * Exception handler for the reactive API, same error responses as {@link GlobalExceptionHandler}.
+ */
+@Slf4j
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+    @ExceptionHandler(InvalidCoordinatesException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCoordinates(
+            InvalidCoordinatesException ex, ServerHttpRequest request) {
+        log.warn("Invalid coordinates: {}", ex.getMessage());
+        return error(HttpStatus.BAD_REQUEST, ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(InvalidRequestTimeoutException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidRequestTimeout(
+            InvalidRequestTimeoutException ex, ServerHttpRequest request) {
+        log.warn("Invalid request timeout: {}", ex.getMessage());
+        return error(HttpStatus.BAD_REQUEST, ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(DatasetNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleDatasetNotFound(
+            DatasetNotFoundException ex, ServerHttpRequest request) {
+        log.warn("Data set not found: {}", ex.getMessage());
+        return error(HttpStatus.NOT_FOUND, ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(StoreDataException.class)
+    public ResponseEntity<ErrorResponse> handleStoreDataException(
+            StoreDataException ex, ServerHttpRequest request) {
+        log.error("Store data error: {}", ex.getMessage(), ex);
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "Error accessing store data", request);
+    }
+
+    @ExceptionHandler(SearchOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleSearchOverloaded(
+            SearchOverloadedException ex, ServerHttpRequest request) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, GlobalExceptionHandler.retryAfterSeconds(ex))
+                .body(error(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), request).getBody());
+    }
+
+    @ExceptionHandler(SearchTimeoutException.class)
+    public ResponseEntity<ErrorResponse> handleSearchTimeout(SearchTimeoutException ex, ServerHttpRequest request) {
+        return error(HttpStatus.GATEWAY_TIMEOUT, ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorResponse> handleValidationException(
+            WebExchangeBindException ex, ServerHttpRequest request) {
+        log.warn("Validation error: {}", ex.getMessage());
+
+        String message =
+                ex.getBindingResult().getFieldErrors().stream()
+                        .map(FieldError::getDefaultMessage)
+                        .collect(Collectors.joining(", "));
+        return error(HttpStatus.BAD_REQUEST, message, request);
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ErrorResponse> handleResponseStatus(
+            ResponseStatusException ex, ServerHttpRequest request) {
+        // Unknown paths, unsupported methods and unreadable parameters
+        log.warn("Rejected request: {}", ex.getMessage());
+        HttpStatus status = HttpStatus.valueOf(ex.getStatusCode().value());
+        return error(status, ex.getReason() != null ? ex.getReason() : status.getReasonPhrase(), request);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErrorResponse> handleGenericException(Exception ex, ServerHttpRequest request) {
+        log.error("Unexpected error: {}", ex.getMessage(), ex);
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred", request);
+    }
+
+    private static ResponseEntity<ErrorResponse> error(HttpStatus status, String message, ServerHttpRequest request) {
+        ErrorResponse error =
+                ErrorResponse.builder()
+                        .timestamp(LocalDateTime.now())
+                        .status(status.value())
+                        .error(status.getReasonPhrase())
+                        .message(message)
+                        .path(request.getPath().value())
+                        .build();
+
+        return ResponseEntity.status(status).body(error);
+    }
+}
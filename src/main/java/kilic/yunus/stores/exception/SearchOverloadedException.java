@@ -0,0 +1,20 @@
+package kilic.yunus.stores.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when a search is rejected because the concurrency limit of store searches is
+ * reached. Clients should retry after {@link #getRetryAfter()}.
+ */
+@Getter
+public class SearchOverloadedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public SearchOverloadedException(String message, Duration retryAfter) {
+        super(message, null, false, false);
+        this.retryAfter = retryAfter;
+    }
+}
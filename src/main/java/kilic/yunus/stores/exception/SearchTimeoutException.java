@@ -0,0 +1,12 @@
+package kilic.yunus.stores.exception;
+
+/**
+ * Exception thrown when a search is stopped because its deadline passed or its caller cancelled it,
+ * before it produced a result.
+ */
+public class SearchTimeoutException extends RuntimeException {
+
+    public SearchTimeoutException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,11 @@
+package kilic.yunus.stores.exception;
+
+/**
+ * Exception thrown when a store with the requested UUID does not exist.
+ */
+public class StoreNotFoundException extends RuntimeException {
+
+    public StoreNotFoundException(String message) {
+        super(message);
+    }
+}
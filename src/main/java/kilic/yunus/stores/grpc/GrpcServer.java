@@ -0,0 +1,72 @@
+package kilic.yunus.stores.grpc;
+
+import io.grpc.Server;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the gRPC server with the application context and stops it before the context closes. On
+ * shutdown running calls get the configured time to complete, then they are cancelled and the
+ * executor of the server is shut down.
+ */
+@Slf4j
+public class GrpcServer implements SmartLifecycle {
+
+    private final Server server;
+    private final ExecutorService executor;
+    private final Duration shutdownTimeout;
+    private volatile boolean running;
+
+    public GrpcServer(Server server, ExecutorService executor, Duration shutdownTimeout) {
+        this.server = server;
+        this.executor = executor;
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    @Override
+    public void start() {
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start gRPC server", e);
+        }
+        running = true;
+        log.info("gRPC server started on port {}", server.getPort());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        server.shutdown();
+        try {
+            if (!server.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("gRPC calls still running after {}, cancelling them", shutdownTimeout);
+                server.shutdownNow().awaitTermination();
+            }
+        } catch (InterruptedException e) {
+            server.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+        log.info("gRPC server stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return port the server listens on, the bound port if it was configured as 0
+     */
+    public int getPort() {
+        return server.getPort();
+    }
+}
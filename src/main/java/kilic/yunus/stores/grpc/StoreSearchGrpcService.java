@@ -0,0 +1,304 @@
+package kilic.yunus.stores.grpc;
+
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import kilic.yunus.stores.config.RequestLogSampler;
+import kilic.yunus.stores.config.SearchTimeoutProperties;
+import kilic.yunus.stores.exception.DatasetNotFoundException;
+import kilic.yunus.stores.exception.InvalidCoordinatesException;
+import kilic.yunus.stores.exception.SearchOverloadedException;
+import kilic.yunus.stores.exception.SearchTimeoutException;
+import kilic.yunus.stores.exception.StoreDataException;
+import kilic.yunus.stores.model.domain.Location;
+import kilic.yunus.stores.model.dto.NearestStoresRequest;
+import kilic.yunus.stores.model.dto.NearestStoresResponseProtobuf;
+import kilic.yunus.stores.model.dto.StoreFields;
+import kilic.yunus.stores.model.dto.StoreWithDistance;
+import kilic.yunus.stores.proto.NearestStoresBatch;
+import kilic.yunus.stores.proto.NearestStoresQuery;
+import kilic.yunus.stores.proto.NearestStoresResponse;
+import kilic.yunus.stores.proto.StoreSearchGrpc;
+import kilic.yunus.stores.service.SearchDeadline;
+import kilic.yunus.stores.service.StoreService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The {@code stores.v1.StoreSearch} gRPC service over {@link StoreService}. Queries are validated like
+ * the parameters of the REST API, with the same messages, and errors map to gRPC status codes the way
+ * they map to HTTP statuses: invalid queries to {@code INVALID_ARGUMENT}, unknown data sets to
+ * {@code NOT_FOUND}, searches rejected at the concurrency limit to {@code UNAVAILABLE} with a
+ * {@code grpc-retry-pushback-ms} trailer for the client's retry policy, searches stopped at the
+ * deadline to {@code DEADLINE_EXCEEDED} and anything else to {@code INTERNAL}.
+ *
+ * <p>Searches run until the deadline of the call, or {@code stores.search.timeout.default-timeout}
+ * for calls without one, and stop early when the client cancels the call.
+ *
+ * <p>Both streaming calls respect flow control: a batch only writes results while the client keeps up,
+ * and a query stream only reads the next query once the result of the previous one could be sent.
+ */
+@Slf4j
+public class StoreSearchGrpcService extends StoreSearchGrpc.StoreSearchImplBase {
+
+    private static final Metadata.Key<String> RETRY_PUSHBACK =
+            Metadata.Key.of("grpc-retry-pushback-ms", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final StoreService storeService;
+    private final Validator validator;
+    private final RequestLogSampler requestLogSampler;
+    private final SearchTimeoutProperties searchTimeoutProperties;
+    private final int maxBatchSize;
+
+    public StoreSearchGrpcService(StoreService storeService, Validator validator,
+                                  RequestLogSampler requestLogSampler, SearchTimeoutProperties searchTimeoutProperties,
+                                  int maxBatchSize) {
+        this.storeService = storeService;
+        this.validator = validator;
+        this.requestLogSampler = requestLogSampler;
+        this.searchTimeoutProperties = searchTimeoutProperties;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public void findNearest(NearestStoresQuery query, StreamObserver<NearestStoresResponse> responseObserver) {
+        try {
+            responseObserver.onNext(search(request(query)));
+            responseObserver.onCompleted();
+        } catch (RuntimeException e) {
+            responseObserver.onError(status(e));
+        }
+    }
+
+    @Override
+    public void findNearestBatch(NearestStoresBatch batch, StreamObserver<NearestStoresResponse> responseObserver) {
+        List<NearestStoresRequest> requests;
+        try {
+            if (batch.getQueriesCount() > maxBatchSize) {
+                throw Status.INVALID_ARGUMENT
+                        .withDescription("Batch cannot exceed " + maxBatchSize + " queries")
+                        .asRuntimeException();
+            }
+            // The whole batch is rejected before any result is sent, like a single invalid query
+            requests = batch.getQueriesList().stream().map(this::request).toList();
+        } catch (RuntimeException e) {
+            responseObserver.onError(status(e));
+            return;
+        }
+        ServerCallStreamObserver<NearestStoresResponse> observer =
+                (ServerCallStreamObserver<NearestStoresResponse>) responseObserver;
+        BatchWriter writer = new BatchWriter(observer, requests.iterator());
+        observer.setOnCancelHandler(writer::cancel);
+        observer.setOnReadyHandler(writer);
+        writer.run();
+    }
+
+    @Override
+    public StreamObserver<NearestStoresQuery> findNearestStream(
+            StreamObserver<NearestStoresResponse> responseObserver) {
+        ServerCallStreamObserver<NearestStoresResponse> observer =
+                (ServerCallStreamObserver<NearestStoresResponse>) responseObserver;
+        observer.disableAutoRequest();
+        QueryStream stream = new QueryStream(observer);
+        observer.setOnCancelHandler(stream::cancel);
+        observer.setOnReadyHandler(stream::requestIfReady);
+        observer.request(1);
+        return stream;
+    }
+
+    private NearestStoresRequest request(NearestStoresQuery query) {
+        NearestStoresRequest request = NearestStoresRequest.builder()
+                .latitude(query.hasLatitude() ? query.getLatitude() : null)
+                .longitude(query.hasLongitude() ? query.getLongitude() : null)
+                .dataset(query.hasDataset() ? query.getDataset() : null)
+                .fields(query.hasFields() ? query.getFields() : null)
+                .build();
+        if (query.hasLimit()) {
+            request.setLimit(query.getLimit());
+        }
+        Set<ConstraintViolation<NearestStoresRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw Status.INVALID_ARGUMENT
+                    .withDescription(violations.stream()
+                            .map(ConstraintViolation::getMessage)
+                            .sorted()
+                            .collect(Collectors.joining(", ")))
+                    .asRuntimeException();
+        }
+        return request;
+    }
+
+    private NearestStoresResponse search(NearestStoresRequest request) {
+        long skipped = requestLogSampler.sample();
+        if (skipped != RequestLogSampler.NOT_SAMPLED) {
+            log.info("Finding nearest stores over gRPC - dataset: {}, lat: {}, lon: {}, limit: {}, fields: {} "
+                            + "(+{} requests not logged)",
+                    request.getDataset(), request.getLatitude(), request.getLongitude(), request.getLimit(),
+                    request.getFields(), skipped);
+        }
+
+        List<StoreWithDistance> nearestStores = storeService.findNearestStores(request.getDataset(),
+                new Location(request.getLatitude(), request.getLongitude()), request.getLimit(), deadline());
+
+        return NearestStoresResponseProtobuf.toMessage(kilic.yunus.stores.model.dto.NearestStoresResponse.builder()
+                .query(kilic.yunus.stores.model.dto.NearestStoresResponse.QueryInfo.builder()
+                        .dataset(request.getDataset())
+                        .latitude(request.getLatitude())
+                        .longitude(request.getLongitude())
+                        .limit(request.getLimit())
+                        .build())
+                .results(nearestStores)
+                .totalFound(nearestStores.size())
+                .fields(StoreFields.parse(request.getFields()))
+                .build());
+    }
+
+    /**
+     * @return deadline of the current call, which also passes when the call is cancelled
+     */
+    private SearchDeadline deadline() {
+        Context context = Context.current();
+        Deadline callDeadline = context.getDeadline();
+        SearchDeadline deadline = callDeadline != null
+                ? SearchDeadline.after(Duration.ofNanos(callDeadline.timeRemaining(TimeUnit.NANOSECONDS)))
+                : searchTimeoutProperties.deadline(null);
+        return deadline.withCancellation(context::isCancelled);
+    }
+
+    private static StatusRuntimeException status(RuntimeException e) {
+        return switch (e) {
+            case StatusRuntimeException statusException -> {
+                log.warn("Invalid gRPC query: {}", statusException.getStatus().getDescription());
+                yield statusException;
+            }
+            case InvalidCoordinatesException invalid -> {
+                log.warn("Invalid coordinates: {}", invalid.getMessage());
+                yield Status.INVALID_ARGUMENT.withDescription(invalid.getMessage()).asRuntimeException();
+            }
+            case DatasetNotFoundException notFound -> {
+                log.warn("Data set not found: {}", notFound.getMessage());
+                yield Status.NOT_FOUND.withDescription(notFound.getMessage()).asRuntimeException();
+            }
+            case SearchOverloadedException overloaded -> {
+                Metadata trailers = new Metadata();
+                trailers.put(RETRY_PUSHBACK, Long.toString(overloaded.getRetryAfter().toMillis()));
+                yield Status.UNAVAILABLE.withDescription(overloaded.getMessage()).asRuntimeException(trailers);
+            }
+            case SearchTimeoutException timeout -> Status.DEADLINE_EXCEEDED
+                    .withDescription(timeout.getMessage())
+                    .asRuntimeException();
+            case StoreDataException dataException -> {
+                log.error("Store data error: {}", dataException.getMessage(), dataException);
+                yield Status.INTERNAL.withDescription("Error accessing store data").asRuntimeException();
+            }
+            default -> {
+                log.error("Unexpected error: {}", e.getMessage(), e);
+                yield Status.INTERNAL.withDescription("An unexpected error occurred").asRuntimeException();
+            }
+        };
+    }
+
+    /**
+     * Writes the results of a batch while the transport accepts them, and continues on every ready
+     * signal. gRPC runs the callbacks of a call one at a time, so the fields need no synchronization.
+     */
+    private final class BatchWriter implements Runnable {
+
+        private final ServerCallStreamObserver<NearestStoresResponse> observer;
+        private final Iterator<NearestStoresRequest> pending;
+        private boolean closed;
+
+        BatchWriter(ServerCallStreamObserver<NearestStoresResponse> observer, Iterator<NearestStoresRequest> pending) {
+            this.observer = observer;
+            this.pending = pending;
+        }
+
+        @Override
+        public void run() {
+            while (!closed && pending.hasNext() && observer.isReady()) {
+                try {
+                    observer.onNext(search(pending.next()));
+                } catch (RuntimeException e) {
+                    closed = true;
+                    observer.onError(status(e));
+                }
+            }
+            if (!closed && !pending.hasNext()) {
+                closed = true;
+                observer.onCompleted();
+            }
+        }
+
+        void cancel() {
+            closed = true;
+        }
+    }
+
+    /**
+     * Answers the queries of a stream in order. The next query is requested once a result was sent
+     * and the transport is ready for more, so a slow client holds back the queries rather than letting
+     * results queue up on the server.
+     */
+    private final class QueryStream implements StreamObserver<NearestStoresQuery> {
+
+        private final ServerCallStreamObserver<NearestStoresResponse> observer;
+        private boolean awaitingReady;
+        private boolean closed;
+
+        QueryStream(ServerCallStreamObserver<NearestStoresResponse> observer) {
+            this.observer = observer;
+        }
+
+        @Override
+        public void onNext(NearestStoresQuery query) {
+            if (closed) {
+                return;
+            }
+            try {
+                observer.onNext(search(request(query)));
+            } catch (RuntimeException e) {
+                closed = true;
+                observer.onError(status(e));
+                return;
+            }
+            awaitingReady = true;
+            requestIfReady();
+        }
+
+        void requestIfReady() {
+            if (awaitingReady && !closed && observer.isReady()) {
+                awaitingReady = false;
+                observer.request(1);
+            }
+        }
+
+        void cancel() {
+            closed = true;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            closed = true;
+        }
+
+        @Override
+        public void onCompleted() {
+            if (!closed) {
+                closed = true;
+                observer.onCompleted();
+            }
+        }
+    }
+}
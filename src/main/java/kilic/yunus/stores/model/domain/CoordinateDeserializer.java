@@ -14,45 +14,49 @@ import java.io.IOException;
  * <p>Supports: - String format: "4.9041" or "-180.0" - Numeric format: 4.9041 or -180.0
  *
  * <p>This allows flexibility in JSON input format while maintaining type safety with double values
- * internally.
+ * internally. Values are read from the current token, a tree is only built to report unsupported
+ * input.
  */
 public class CoordinateDeserializer extends JsonDeserializer<Double> {
 
     @Override
     public Double deserialize(JsonParser parser, DeserializationContext context) throws IOException {
-        JsonNode node = parser.getCodec().readTree(parser);
+        switch (parser.currentToken()) {
+            // Handle null values
+            case VALUE_NULL:
+                return null;
 
-        // Handle null values
-        if (node.isNull()) {
-            return null;
-        }
+            // Handle numeric values directly
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
 
-        // Handle numeric values directly
-        if (node.isNumber()) {
-            return node.asDouble();
-        }
+            // Handle string values
+            case VALUE_STRING:
+                return parseString(parser.getText());
 
-        // Handle string values
-        if (node.isTextual()) {
-            String value = node.asText().trim();
+            default:
+                // Unsupported type
+                JsonNode node = parser.readValueAsTree();
+                throw new IOException(
+                        String.format(
+                                "Cannot deserialize coordinate from type: %s, value: %s",
+                                node.getNodeType(), node.toString()));
+        }
+    }
 
-            // Handle empty strings
-            if (value.isEmpty()) {
-                return null;
-            }
+    private static Double parseString(String text) throws IOException {
+        String value = text.trim();
 
-            try {
-                return Double.parseDouble(value);
-            } catch (NumberFormatException e) {
-                throw new IOException(
-                        String.format("Cannot deserialize coordinate value '%s' to double", value), e);
-            }
+        // Handle empty strings
+        if (value.isEmpty()) {
+            return null;
         }
 
-        // Unsupported type
-        throw new IOException(
-                String.format(
-                        "Cannot deserialize coordinate from type: %s, value: %s",
-                        node.getNodeType(), node.toString()));
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IOException(
+                    String.format("Cannot deserialize coordinate value '%s' to double", value), e);
+        }
     }
 }
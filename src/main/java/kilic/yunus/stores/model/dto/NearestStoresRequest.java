@@ -1,6 +1,7 @@
 package kilic.yunus.stores.model.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
@@ -36,4 +37,17 @@ public class NearestStoresRequest {
     @Schema(description = "Number of stores to return (1-50)", example = "5", defaultValue = "5")
     @Builder.Default
     private Integer limit = 5;
+
+    @Schema(description = "Store data set to search, the default data set if omitted", example = "default")
+    private String dataset;
+
+    @Schema(description = "Comma-separated store properties to return, or summary for uuid, addressName and "
+            + "coordinates. All properties if omitted, the distance is always returned", example = "summary")
+    private String fields;
+
+    @Schema(hidden = true)
+    @AssertTrue(message = "Fields must be a comma-separated list of store properties or summary")
+    public boolean isFieldsValid() {
+        return StoreFields.isValid(fields);
+    }
 }
@@ -1,5 +1,6 @@
 package kilic.yunus.stores.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -27,12 +28,22 @@ public class NearestStoresResponse {
     @Schema(description = "Total number of stores found", example = "5")
     private int totalFound;
 
+    /**
+     * Store properties to write, all if null.
+     */
+    @JsonIgnore
+    @Schema(hidden = true)
+    private StoreFields fields;
+
     @Data
     @Builder
     @NoArgsConstructor
     @AllArgsConstructor
     @Schema(description = "Query information")
     public static class QueryInfo {
+        @Schema(description = "Requested data set, omitted for the default data set", example = "default")
+        private String dataset;
+
         @Schema(description = "Query latitude", example = "52.3676")
         private double latitude;
 
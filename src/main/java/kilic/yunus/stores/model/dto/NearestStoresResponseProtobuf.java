@@ -0,0 +1,102 @@
+package kilic.yunus.stores.model.dto;
+
+import kilic.yunus.stores.model.domain.Store;
+import kilic.yunus.stores.proto.QueryInfo;
+
+/**
+ * Maps a {@link NearestStoresResponse} to its Protobuf message ({@code src/main/proto}). Like the
+ * JSON response, the message only holds the store properties selected with the response's fields,
+ * and leaves out null values.
+ */
+public final class NearestStoresResponseProtobuf {
+
+    private NearestStoresResponseProtobuf() {
+    }
+
+    public static kilic.yunus.stores.proto.NearestStoresResponse toMessage(NearestStoresResponse response) {
+        kilic.yunus.stores.proto.NearestStoresResponse.Builder message =
+                kilic.yunus.stores.proto.NearestStoresResponse.newBuilder()
+                        .setTotalFound(response.getTotalFound());
+        if (response.getQuery() != null) {
+            message.setQuery(toMessage(response.getQuery()));
+        }
+        if (response.getResults() != null) {
+            StoreFields fields = response.getFields() != null ? response.getFields() : StoreFields.ALL;
+            for (StoreWithDistance result : response.getResults()) {
+                kilic.yunus.stores.proto.StoreWithDistance.Builder resultMessage =
+                        kilic.yunus.stores.proto.StoreWithDistance.newBuilder()
+                                .setDistance(result.getDistance());
+                if (result.getStore() != null) {
+                    Store store = fields.isAll() ? result.getStore() : fields.project(result.getStore());
+                    resultMessage.setStore(toMessage(store));
+                }
+                message.addResults(resultMessage);
+            }
+        }
+        return message.build();
+    }
+
+    private static QueryInfo toMessage(NearestStoresResponse.QueryInfo query) {
+        QueryInfo.Builder message = QueryInfo.newBuilder()
+                .setLatitude(query.getLatitude())
+                .setLongitude(query.getLongitude())
+                .setLimit(query.getLimit());
+        if (query.getDataset() != null) {
+            message.setDataset(query.getDataset());
+        }
+        return message.build();
+    }
+
+    private static kilic.yunus.stores.proto.Store toMessage(Store store) {
+        kilic.yunus.stores.proto.Store.Builder message = kilic.yunus.stores.proto.Store.newBuilder();
+        if (store.getCity() != null) {
+            message.setCity(store.getCity());
+        }
+        if (store.getPostalCode() != null) {
+            message.setPostalCode(store.getPostalCode());
+        }
+        if (store.getStreet() != null) {
+            message.setStreet(store.getStreet());
+        }
+        if (store.getStreet2() != null) {
+            message.setStreet2(store.getStreet2());
+        }
+        if (store.getStreet3() != null) {
+            message.setStreet3(store.getStreet3());
+        }
+        if (store.getAddressName() != null) {
+            message.setAddressName(store.getAddressName());
+        }
+        if (store.getUuid() != null) {
+            message.setUuid(store.getUuid());
+        }
+        if (store.getLongitude() != null) {
+            message.setLongitude(store.getLongitude());
+        }
+        if (store.getLatitude() != null) {
+            message.setLatitude(store.getLatitude());
+        }
+        if (store.getComplexNumber() != null) {
+            message.setComplexNumber(store.getComplexNumber());
+        }
+        if (store.getShowWarningMessage() != null) {
+            message.setShowWarningMessage(store.getShowWarningMessage());
+        }
+        if (store.getTodayOpen() != null) {
+            message.setTodayOpen(store.getTodayOpen());
+        }
+        if (store.getLocationType() != null) {
+            message.setLocationType(store.getLocationType());
+        }
+        if (store.getCollectionPoint() != null) {
+            message.setCollectionPoint(store.getCollectionPoint());
+        }
+        if (store.getSapStoreID() != null) {
+            message.setSapStoreId(store.getSapStoreID());
+        }
+        if (store.getTodayClose() != null) {
+            message.setTodayClose(store.getTodayClose());
+        }
+        return message.build();
+    }
+}
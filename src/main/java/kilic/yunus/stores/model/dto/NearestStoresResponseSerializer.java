@@ -0,0 +1,249 @@
+package kilic.yunus.stores.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.std.StdDelegatingSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.Converter;
+import com.fasterxml.jackson.databind.util.StdConverter;
+import kilic.yunus.stores.model.domain.Store;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a {@link NearestStoresResponse} straight through the {@link JsonGenerator}, with field
+ * names encoded once, instead of through the reflective bean serializers of the response, its
+ * {@link StoreWithDistance} results and their {@link Store}s. It writes the same properties in the
+ * same order, so the output is byte for byte the output of the bean serializers.
+ *
+ * <p>Stores are written with the {@link NearestStoresResponse#getFields() fields} of the response,
+ * the full-store writer below is unrolled as it serves most responses.
+ *
+ * <p>Only the {@code non_null} and {@code always} inclusions are supported, and only without a
+ * property naming strategy or alphabetic ordering. Any other configuration keeps the bean serializer
+ * (see {@link #module()}), so new fields of these classes must be added here as well, which
+ * {@code NearestStoresResponseSerializerTest} checks.
+ */
+public final class NearestStoresResponseSerializer extends StdSerializer<NearestStoresResponse> {
+
+    private static final SerializedString QUERY = new SerializedString("query");
+    private static final SerializedString RESULTS = new SerializedString("results");
+    private static final SerializedString TOTAL_FOUND = new SerializedString("totalFound");
+
+    private static final SerializedString DATASET = new SerializedString("dataset");
+    private static final SerializedString LATITUDE = new SerializedString("latitude");
+    private static final SerializedString LONGITUDE = new SerializedString("longitude");
+    private static final SerializedString LIMIT = new SerializedString("limit");
+
+    private static final SerializedString STORE = new SerializedString("store");
+    private static final SerializedString DISTANCE = new SerializedString("distance");
+
+    private static final SerializedString CITY = new SerializedString("city");
+    private static final SerializedString POSTAL_CODE = new SerializedString("postalCode");
+    private static final SerializedString STREET = new SerializedString("street");
+    private static final SerializedString STREET2 = new SerializedString("street2");
+    private static final SerializedString STREET3 = new SerializedString("street3");
+    private static final SerializedString ADDRESS_NAME = new SerializedString("addressName");
+    private static final SerializedString UUID = new SerializedString("uuid");
+    private static final SerializedString COMPLEX_NUMBER = new SerializedString("complexNumber");
+    private static final SerializedString SHOW_WARNING_MESSAGE = new SerializedString("showWarningMessage");
+    private static final SerializedString TODAY_OPEN = new SerializedString("todayOpen");
+    private static final SerializedString LOCATION_TYPE = new SerializedString("locationType");
+    private static final SerializedString COLLECTION_POINT = new SerializedString("collectionPoint");
+    private static final SerializedString SAP_STORE_ID = new SerializedString("sapStoreID");
+    private static final SerializedString TODAY_CLOSE = new SerializedString("todayClose");
+
+    private final boolean writeNulls;
+
+    NearestStoresResponseSerializer(boolean writeNulls) {
+        super(NearestStoresResponse.class);
+        this.writeNulls = writeNulls;
+    }
+
+    /**
+     * @return module that serializes {@link NearestStoresResponse} with this serializer wherever the
+     * mapper's configuration allows it, and otherwise with the bean serializer on a copy of the
+     * response without the properties left out of its stores
+     */
+    public static SimpleModule module() {
+        SimpleModule module = new SimpleModule(NearestStoresResponseSerializer.class.getSimpleName());
+        module.setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription beanDescription,
+                                                      JsonSerializer<?> serializer) {
+                if (beanDescription.getBeanClass() != NearestStoresResponse.class) {
+                    return serializer;
+                }
+                @SuppressWarnings("unchecked")
+                Converter<Object, ?> projection = (Converter<Object, ?>) (Converter<?, ?>) new ProjectingConverter();
+                JsonSerializer<?> projectingSerializer =
+                        new StdDelegatingSerializer(projection, beanDescription.getType(), serializer);
+                if (config.getPropertyNamingStrategy() != null
+                        || config.isEnabled(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)) {
+                    return projectingSerializer;
+                }
+                JsonInclude.Include inclusion = inclusion(config, NearestStoresResponse.class);
+                boolean sameInclusion = inclusion == inclusion(config, NearestStoresResponse.QueryInfo.class)
+                        && inclusion == inclusion(config, StoreWithDistance.class)
+                        && inclusion == inclusion(config, Store.class);
+                if (!sameInclusion
+                        || (inclusion != JsonInclude.Include.NON_NULL && inclusion != JsonInclude.Include.ALWAYS)) {
+                    return projectingSerializer;
+                }
+                return new NearestStoresResponseSerializer(inclusion == JsonInclude.Include.ALWAYS);
+            }
+        });
+        return module;
+    }
+
+    private static JsonInclude.Include inclusion(SerializationConfig config, Class<?> type) {
+        JsonInclude.Include inclusion = config.getDefaultPropertyInclusion(type).getValueInclusion();
+        return inclusion == JsonInclude.Include.USE_DEFAULTS ? JsonInclude.Include.ALWAYS : inclusion;
+    }
+
+    @Override
+    public void serialize(NearestStoresResponse response, JsonGenerator generator, SerializerProvider provider)
+            throws IOException {
+        generator.writeStartObject(response);
+        if (response.getQuery() != null) {
+            generator.writeFieldName(QUERY);
+            writeQuery(response.getQuery(), generator);
+        } else if (writeNulls) {
+            generator.writeFieldName(QUERY);
+            generator.writeNull();
+        }
+        if (response.getResults() != null) {
+            generator.writeFieldName(RESULTS);
+            writeResults(response.getResults(), response.getFields(), generator);
+        } else if (writeNulls) {
+            generator.writeFieldName(RESULTS);
+            generator.writeNull();
+        }
+        generator.writeFieldName(TOTAL_FOUND);
+        generator.writeNumber(response.getTotalFound());
+        generator.writeEndObject();
+    }
+
+    private void writeQuery(NearestStoresResponse.QueryInfo query, JsonGenerator generator) throws IOException {
+        generator.writeStartObject(query);
+        writeString(DATASET, query.getDataset(), generator);
+        generator.writeFieldName(LATITUDE);
+        generator.writeNumber(query.getLatitude());
+        generator.writeFieldName(LONGITUDE);
+        generator.writeNumber(query.getLongitude());
+        generator.writeFieldName(LIMIT);
+        generator.writeNumber(query.getLimit());
+        generator.writeEndObject();
+    }
+
+    private void writeResults(List<StoreWithDistance> results, StoreFields fields, JsonGenerator generator)
+            throws IOException {
+        boolean allFields = fields == null || fields.isAll();
+        generator.writeStartArray(results, results.size());
+        for (StoreWithDistance result : results) {
+            if (result == null) {
+                // Elements are never left out, whatever the inclusion
+                generator.writeNull();
+                continue;
+            }
+            generator.writeStartObject(result);
+            if (result.getStore() != null) {
+                generator.writeFieldName(STORE);
+                if (allFields) {
+                    writeStore(result.getStore(), generator);
+                } else {
+                    generator.writeStartObject(result.getStore());
+                    fields.write(result.getStore(), generator, writeNulls);
+                    generator.writeEndObject();
+                }
+            } else if (writeNulls) {
+                generator.writeFieldName(STORE);
+                generator.writeNull();
+            }
+            generator.writeFieldName(DISTANCE);
+            generator.writeNumber(result.getDistance());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeStore(Store store, JsonGenerator generator) throws IOException {
+        generator.writeStartObject(store);
+        writeString(CITY, store.getCity(), generator);
+        writeString(POSTAL_CODE, store.getPostalCode(), generator);
+        writeString(STREET, store.getStreet(), generator);
+        writeString(STREET2, store.getStreet2(), generator);
+        writeString(STREET3, store.getStreet3(), generator);
+        writeString(ADDRESS_NAME, store.getAddressName(), generator);
+        writeString(UUID, store.getUuid(), generator);
+        writeDouble(LONGITUDE, store.getLongitude(), generator);
+        writeDouble(LATITUDE, store.getLatitude(), generator);
+        writeString(COMPLEX_NUMBER, store.getComplexNumber(), generator);
+        writeBoolean(SHOW_WARNING_MESSAGE, store.getShowWarningMessage(), generator);
+        writeString(TODAY_OPEN, store.getTodayOpen(), generator);
+        writeString(LOCATION_TYPE, store.getLocationType(), generator);
+        writeBoolean(COLLECTION_POINT, store.getCollectionPoint(), generator);
+        writeString(SAP_STORE_ID, store.getSapStoreID(), generator);
+        writeString(TODAY_CLOSE, store.getTodayClose(), generator);
+        generator.writeEndObject();
+    }
+
+    private void writeString(SerializedString name, String value, JsonGenerator generator) throws IOException {
+        if (value != null) {
+            generator.writeFieldName(name);
+            generator.writeString(value);
+        } else if (writeNulls) {
+            generator.writeFieldName(name);
+            generator.writeNull();
+        }
+    }
+
+    private void writeDouble(SerializedString name, Double value, JsonGenerator generator) throws IOException {
+        if (value != null) {
+            generator.writeFieldName(name);
+            generator.writeNumber(value);
+        } else if (writeNulls) {
+            generator.writeFieldName(name);
+            generator.writeNull();
+        }
+    }
+
+    private void writeBoolean(SerializedString name, Boolean value, JsonGenerator generator) throws IOException {
+        if (value != null) {
+            generator.writeFieldName(name);
+            generator.writeBoolean(value);
+        } else if (writeNulls) {
+            generator.writeFieldName(name);
+            generator.writeNull();
+        }
+    }
+
+    /**
+     * Replaces the stores of a response that leaves out properties by copies without them, for the
+     * bean serializer.
+     */
+    private static final class ProjectingConverter extends StdConverter<NearestStoresResponse, NearestStoresResponse> {
+
+        @Override
+        public NearestStoresResponse convert(NearestStoresResponse response) {
+            StoreFields fields = response.getFields();
+            if (fields == null || fields.isAll() || response.getResults() == null) {
+                return response;
+            }
+            List<StoreWithDistance> results = response.getResults().stream()
+                    .map(result -> result == null || result.getStore() == null ? result
+                            : new StoreWithDistance(fields.project(result.getStore()), result.getDistance()))
+                    .toList();
+            return new NearestStoresResponse(response.getQuery(), results, response.getTotalFound(), null);
+        }
+    }
+}
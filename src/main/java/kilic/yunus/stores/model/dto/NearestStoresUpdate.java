@@ -0,0 +1,40 @@
+package kilic.yunus.stores.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Changes of the nearest stores of a subscription since its previous location update. Stores that
+ * stay among the nearest are not repeated, so their distances are only sent when they entered.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Changes of the nearest stores since the previous location update")
+public class NearestStoresUpdate {
+
+    @Schema(description = "Latitude of the location update", example = "52.3676")
+    private double latitude;
+
+    @Schema(description = "Longitude of the location update", example = "4.9041")
+    private double longitude;
+
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    @Schema(description = "Stores that became one of the nearest, or changed, with their distance")
+    private List<StoreWithDistance> added;
+
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    @Schema(description = "UUIDs of stores that are no longer one of the nearest")
+    private List<String> removed;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(description = "UUIDs of all nearest stores sorted by distance, only if the order changed")
+    private List<String> order;
+}
@@ -0,0 +1,38 @@
+package kilic.yunus.stores.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of a single-store change made through the admin API.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Result of a store change")
+public class StoreChangeResponse {
+
+    @Schema(description = "Store data set that was changed", example = "default")
+    private String dataset;
+
+    @Schema(description = "UUID of the changed store", example = "EOgKYx4XFiQAAAFJa_YYZ4At")
+    private String uuid;
+
+    @Schema(description = "Performed change", example = "UPSERTED")
+    private Change change;
+
+    @Schema(description = "Store data generation that contains the change", example = "42")
+    private long generation;
+
+    @Schema(description = "Total number of stores after the change", example = "587")
+    private int totalStores;
+
+    public enum Change {
+        UPSERTED,
+        DELETED
+    }
+}
@@ -0,0 +1,208 @@
+package kilic.yunus.stores.model.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import kilic.yunus.stores.model.domain.Store;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link Store} properties a nearest-store response contains, picked with the {@code fields}
+ * request parameter: a comma-separated list of property names and {@value #SUMMARY}, which stands for
+ * {@code uuid}, {@code addressName}, {@code longitude} and {@code latitude}. The distance of a result
+ * is always written.
+ *
+ * <p>Every field set is parsed once and holds the writers of its properties in {@link Store} order,
+ * so writing a projected store only loops over the selected properties.
+ */
+public final class StoreFields {
+
+    public static final String SUMMARY = "summary";
+
+    /**
+     * All properties, the field set of a request without {@code fields}.
+     */
+    public static final StoreFields ALL = new StoreFields(Field.ALL_MASK);
+
+    private static final int SUMMARY_MASK =
+            Field.UUID.mask() | Field.ADDRESS_NAME.mask() | Field.LONGITUDE.mask() | Field.LATITUDE.mask();
+    private static final Map<String, Field> FIELDS_BY_NAME = Arrays.stream(Field.values())
+            .collect(Collectors.toUnmodifiableMap(field -> field.name.getValue(), Function.identity()));
+
+    // Bounded by the number of property subsets, parameter spellings are only kept up to a limit
+    private static final Map<Integer, StoreFields> BY_MASK = new ConcurrentHashMap<>();
+    private static final Map<String, StoreFields> BY_PARAMETER = new ConcurrentHashMap<>();
+    private static final int MAX_CACHED_PARAMETERS = 1024;
+
+    private final int mask;
+    private final Field[] fields;
+
+    private StoreFields(int mask) {
+        this.mask = mask;
+        this.fields = Arrays.stream(Field.values())
+                .filter(field -> (mask & field.mask()) != 0)
+                .toArray(Field[]::new);
+    }
+
+    /**
+     * @param parameter value of the {@code fields} parameter, {@link #ALL} if null or blank
+     * @throws IllegalArgumentException if the parameter names an unknown property
+     */
+    public static StoreFields parse(String parameter) {
+        if (parameter == null || parameter.isBlank()) {
+            return ALL;
+        }
+        StoreFields storeFields = BY_PARAMETER.get(parameter);
+        if (storeFields == null) {
+            storeFields = of(mask(parameter));
+            if (BY_PARAMETER.size() < MAX_CACHED_PARAMETERS) {
+                BY_PARAMETER.put(parameter, storeFields);
+            }
+        }
+        return storeFields;
+    }
+
+    /**
+     * @return whether {@link #parse(String)} accepts the parameter
+     */
+    public static boolean isValid(String parameter) {
+        try {
+            parse(parameter);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static StoreFields of(int mask) {
+        return mask == Field.ALL_MASK ? ALL : BY_MASK.computeIfAbsent(mask, StoreFields::new);
+    }
+
+    private static int mask(String parameter) {
+        int mask = 0;
+        for (String name : parameter.split(",", -1)) {
+            String trimmed = name.trim();
+            if (trimmed.equals(SUMMARY)) {
+                mask |= SUMMARY_MASK;
+            } else {
+                Field field = FIELDS_BY_NAME.get(trimmed);
+                if (field == null) {
+                    throw new IllegalArgumentException("Unknown store field: " + trimmed);
+                }
+                mask |= field.mask();
+            }
+        }
+        return mask;
+    }
+
+    public boolean isAll() {
+        return mask == Field.ALL_MASK;
+    }
+
+    /**
+     * Writes the selected properties of a store, null values only if {@code writeNulls} is set.
+     */
+    void write(Store store, JsonGenerator generator, boolean writeNulls) throws IOException {
+        for (Field field : fields) {
+            Object value = field.value(store);
+            if (value != null || writeNulls) {
+                generator.writeFieldName(field.name);
+                field.write(value, generator);
+            }
+        }
+    }
+
+    /**
+     * @return copy of the store with all other properties null
+     */
+    public Store project(Store store) {
+        Store projected = new Store();
+        for (Field field : fields) {
+            field.copy(store, projected);
+        }
+        return projected;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.stream(fields).map(field -> field.name.getValue()).collect(Collectors.joining(","));
+    }
+
+    /**
+     * The properties of {@link Store}, in the order they are serialized.
+     */
+    private enum Field {
+        CITY("city", Store::getCity,
+                (store, value) -> store.setCity((String) value)),
+        POSTAL_CODE("postalCode", Store::getPostalCode,
+                (store, value) -> store.setPostalCode((String) value)),
+        STREET("street", Store::getStreet,
+                (store, value) -> store.setStreet((String) value)),
+        STREET2("street2", Store::getStreet2,
+                (store, value) -> store.setStreet2((String) value)),
+        STREET3("street3", Store::getStreet3,
+                (store, value) -> store.setStreet3((String) value)),
+        ADDRESS_NAME("addressName", Store::getAddressName,
+                (store, value) -> store.setAddressName((String) value)),
+        UUID("uuid", Store::getUuid,
+                (store, value) -> store.setUuid((String) value)),
+        LONGITUDE("longitude", Store::getLongitude,
+                (store, value) -> store.setLongitude((Double) value)),
+        LATITUDE("latitude", Store::getLatitude,
+                (store, value) -> store.setLatitude((Double) value)),
+        COMPLEX_NUMBER("complexNumber", Store::getComplexNumber,
+                (store, value) -> store.setComplexNumber((String) value)),
+        SHOW_WARNING_MESSAGE("showWarningMessage", Store::getShowWarningMessage,
+                (store, value) -> store.setShowWarningMessage((Boolean) value)),
+        TODAY_OPEN("todayOpen", Store::getTodayOpen,
+                (store, value) -> store.setTodayOpen((String) value)),
+        LOCATION_TYPE("locationType", Store::getLocationType,
+                (store, value) -> store.setLocationType((String) value)),
+        COLLECTION_POINT("collectionPoint", Store::getCollectionPoint,
+                (store, value) -> store.setCollectionPoint((Boolean) value)),
+        SAP_STORE_ID("sapStoreID", Store::getSapStoreID,
+                (store, value) -> store.setSapStoreID((String) value)),
+        TODAY_CLOSE("todayClose", Store::getTodayClose,
+                (store, value) -> store.setTodayClose((String) value));
+
+        static final int ALL_MASK = (1 << values().length) - 1;
+
+        private final SerializedString name;
+        private final Function<Store, Object> getter;
+        private final BiConsumer<Store, Object> setter;
+
+        Field(String name, Function<Store, Object> getter, BiConsumer<Store, Object> setter) {
+            this.name = new SerializedString(name);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        int mask() {
+            return 1 << ordinal();
+        }
+
+        Object value(Store store) {
+            return getter.apply(store);
+        }
+
+        void copy(Store from, Store to) {
+            setter.accept(to, getter.apply(from));
+        }
+
+        void write(Object value, JsonGenerator generator) throws IOException {
+            switch (value) {
+                case null -> generator.writeNull();
+                case String string -> generator.writeString(string);
+                case Double number -> generator.writeNumber(number);
+                case Boolean flag -> generator.writeBoolean(flag);
+                default -> throw new IllegalStateException("Unsupported store property: " + value.getClass());
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package kilic.yunus.stores.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of a store data reload requested through the admin API.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Result of a store data reload")
+public class StoreReloadResponse {
+
+    @Schema(description = "Store data set that was reloaded", example = "default")
+    private String dataset;
+
+    @Schema(description = "Whether new store data was published, false if the data file is unchanged", example = "true")
+    private boolean reloaded;
+
+    @Schema(description = "Store data generation that is now served", example = "42")
+    private long generation;
+
+    @Schema(description = "Total number of stores after the reload", example = "587")
+    private int totalStores;
+}
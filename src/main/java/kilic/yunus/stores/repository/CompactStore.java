@@ -0,0 +1,261 @@
+package kilic.yunus.stores.repository;
+
+import kilic.yunus.stores.model.domain.Store;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact, immutable form of a {@link Store} that store data is held and searched in.
+ *
+ * <p>Coordinates are primitives (NaN when missing), the location type is a small code, opening
+ * times are minutes since midnight and both flags share one byte, so the search loop reads plain
+ * fields without unboxing. {@link #toStore()} builds the JSON-facing {@link Store} on demand, which
+ * is only needed for result rows.
+ */
+public final class CompactStore {
+
+    private static final String CLOSED = "Gesloten";
+    private static final short NO_TIME = -1;
+    private static final short CLOSED_TIME = -2;
+    private static final short NO_LOCATION_TYPE = -1;
+
+    /**
+     * Number of string columns, see {@link #string(int)}.
+     */
+    static final int STRING_COLUMNS = 9;
+    static final int UUID_COLUMN = 6;
+
+    // Canonical "HH:mm" strings, so materialized stores share them
+    private static final String[] TIMES = new String[24 * 60];
+
+    static {
+        for (int minutes = 0; minutes < TIMES.length; minutes++) {
+            TIMES[minutes] = String.format("%02d:%02d", minutes / 60, minutes % 60);
+        }
+    }
+
+    private final double latitude;
+    private final double longitude;
+    private final String city;
+    private final String postalCode;
+    private final String street;
+    private final String street2;
+    private final String street3;
+    private final String addressName;
+    private final String uuid;
+    private final String complexNumber;
+    private final String sapStoreID;
+    private final short locationType;
+    private final short todayOpen;
+    private final short todayClose;
+    // showWarningMessage in bits 0-1, collectionPoint in bits 2-3 (0 = null, 1 = false, 2 = true)
+    private final byte flags;
+
+    private CompactStore(Store store) {
+        this.latitude = store.getLatitude() != null ? store.getLatitude() : Double.NaN;
+        this.longitude = store.getLongitude() != null ? store.getLongitude() : Double.NaN;
+        this.city = store.getCity();
+        this.postalCode = store.getPostalCode();
+        this.street = store.getStreet();
+        this.street2 = store.getStreet2();
+        this.street3 = store.getStreet3();
+        this.addressName = store.getAddressName();
+        this.uuid = store.getUuid();
+        this.complexNumber = store.getComplexNumber();
+        this.sapStoreID = store.getSapStoreID();
+        this.locationType = LocationTypes.encode(store.getLocationType());
+        this.todayOpen = encodeTime(store.getTodayOpen());
+        this.todayClose = encodeTime(store.getTodayClose());
+        this.flags = (byte) (encodeFlag(store.getShowWarningMessage())
+                | encodeFlag(store.getCollectionPoint()) << 2);
+    }
+
+    /**
+     * Rebuilds a record from the values returned by {@link #string(int)} and the code accessors.
+     */
+    CompactStore(double latitude, double longitude, String[] strings, short locationType,
+                 short todayOpen, short todayClose, byte flags) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.city = strings[0];
+        this.postalCode = strings[1];
+        this.street = strings[2];
+        this.street2 = strings[3];
+        this.street3 = strings[4];
+        this.addressName = strings[5];
+        this.uuid = strings[UUID_COLUMN];
+        this.complexNumber = strings[7];
+        this.sapStoreID = strings[8];
+        this.locationType = locationType;
+        this.todayOpen = todayOpen;
+        this.todayClose = todayClose;
+        this.flags = flags;
+    }
+
+    /**
+     * @throws IllegalArgumentException if an opening time is neither {@code HH:mm} nor
+     *                                  {@code Gesloten}, which validated stores never are
+     */
+    public static CompactStore of(Store store) {
+        return new CompactStore(store);
+    }
+
+    /**
+     * @return a new {@link Store} with the same values as the store this was created from
+     */
+    public Store toStore() {
+        return Store.builder()
+                .latitude(Double.isNaN(latitude) ? null : latitude)
+                .longitude(Double.isNaN(longitude) ? null : longitude)
+                .city(city)
+                .postalCode(postalCode)
+                .street(street)
+                .street2(street2)
+                .street3(street3)
+                .addressName(addressName)
+                .uuid(uuid)
+                .complexNumber(complexNumber)
+                .showWarningMessage(decodeFlag(flags & 0b11))
+                .todayOpen(decodeTime(todayOpen))
+                .locationType(LocationTypes.decode(locationType))
+                .collectionPoint(decodeFlag(flags >> 2 & 0b11))
+                .sapStoreID(sapStoreID)
+                .todayClose(decodeTime(todayClose))
+                .build();
+    }
+
+    public double latitude() {
+        return latitude;
+    }
+
+    public double longitude() {
+        return longitude;
+    }
+
+    public String uuid() {
+        return uuid;
+    }
+
+    String string(int column) {
+        return switch (column) {
+            case 0 -> city;
+            case 1 -> postalCode;
+            case 2 -> street;
+            case 3 -> street2;
+            case 4 -> street3;
+            case 5 -> addressName;
+            case UUID_COLUMN -> uuid;
+            case 7 -> complexNumber;
+            case 8 -> sapStoreID;
+            default -> throw new IndexOutOfBoundsException(column);
+        };
+    }
+
+    short locationTypeCode() {
+        return locationType;
+    }
+
+    short todayOpenCode() {
+        return todayOpen;
+    }
+
+    short todayCloseCode() {
+        return todayClose;
+    }
+
+    byte flags() {
+        return flags;
+    }
+
+    /**
+     * Same check as {@link Store#hasValidLocation()}, missing coordinates are NaN and fail it.
+     */
+    public boolean hasValidLocation() {
+        return isValidLocation(latitude, longitude);
+    }
+
+    static boolean isValidLocation(double latitude, double longitude) {
+        return latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+    }
+
+    private static short encodeTime(String time) {
+        if (time == null) {
+            return NO_TIME;
+        }
+        if (CLOSED.equals(time)) {
+            return CLOSED_TIME;
+        }
+        if (time.length() != 5 || time.charAt(2) != ':') {
+            throw new IllegalArgumentException("Unsupported opening time: " + time);
+        }
+        try {
+            int minutes = Integer.parseInt(time, 0, 2, 10) * 60 + Integer.parseInt(time, 3, 5, 10);
+            if (minutes < 0 || minutes >= TIMES.length || !TIMES[minutes].equals(time)) {
+                throw new IllegalArgumentException("Unsupported opening time: " + time);
+            }
+            return (short) minutes;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unsupported opening time: " + time, e);
+        }
+    }
+
+    private static String decodeTime(short time) {
+        return switch (time) {
+            case NO_TIME -> null;
+            case CLOSED_TIME -> CLOSED;
+            default -> TIMES[time];
+        };
+    }
+
+    private static int encodeFlag(Boolean value) {
+        if (value == null) {
+            return 0;
+        }
+        return value ? 2 : 1;
+    }
+
+    private static Boolean decodeFlag(int value) {
+        return value == 0 ? null : value == 2;
+    }
+
+    /**
+     * Process-wide codes for location types. There are only a handful of distinct values, so codes
+     * are never released.
+     */
+    private static final class LocationTypes {
+
+        private static final Map<String, Short> CODES = new ConcurrentHashMap<>();
+        private static volatile String[] names = new String[0];
+
+        static short encode(String name) {
+            if (name == null) {
+                return NO_LOCATION_TYPE;
+            }
+            Short code = CODES.get(name);
+            return code != null ? code : register(name);
+        }
+
+        static String decode(short code) {
+            return code == NO_LOCATION_TYPE ? null : names[code];
+        }
+
+        private static synchronized short register(String name) {
+            Short code = CODES.get(name);
+            if (code != null) {
+                return code;
+            }
+            if (names.length == Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many distinct location types");
+            }
+            short next = (short) names.length;
+            String[] grown = Arrays.copyOf(names, next + 1);
+            grown[next] = name;
+            // Publish the name before the code, so a reader finding the code can decode it
+            names = grown;
+            CODES.put(name, next);
+            return next;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package kilic.yunus.stores.repository;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Chunk holding its stores as {@link CompactStore} objects on the Java heap.
+ */
+final class HeapStoreChunk implements StoreChunk {
+
+    private final CompactStore[] records;
+
+    private HeapStoreChunk(CompactStore[] records) {
+        this.records = records;
+    }
+
+    static HeapStoreChunk of(List<CompactStore> records) {
+        return new HeapStoreChunk(records.toArray(CompactStore[]::new));
+    }
+
+    @Override
+    public int size() {
+        return records.length;
+    }
+
+    @Override
+    public double latitude(int offset) {
+        return records[offset].latitude();
+    }
+
+    @Override
+    public double longitude(int offset) {
+        return records[offset].longitude();
+    }
+
+    @Override
+    public boolean hasValidLocation(int offset) {
+        return records[offset].hasValidLocation();
+    }
+
+    @Override
+    public String uuid(int offset) {
+        return records[offset].uuid();
+    }
+
+    @Override
+    public CompactStore record(int offset) {
+        return records[offset];
+    }
+
+    @Override
+    public StoreChunk with(int offset, CompactStore store) {
+        CompactStore[] next = Arrays.copyOf(records, Math.max(records.length, offset + 1));
+        next[offset] = store;
+        return new HeapStoreChunk(next);
+    }
+
+    @Override
+    public StoreChunk truncate(int size) {
+        return new HeapStoreChunk(Arrays.copyOf(records, size));
+    }
+}
@@ -0,0 +1,187 @@
+package kilic.yunus.stores.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chunk holding its stores in one direct (off-heap) buffer, so the garbage collector only sees a
+ * single small object per chunk no matter how many strings the stores have.
+ *
+ * <p>The buffer is laid out in columns: latitudes and longitudes first, so a search reads them
+ * sequentially, then per-string start offsets into a UTF-8 string arena, the location type and
+ * opening time codes, a bitmap of missing strings per store, the flags and finally the arena.
+ * Values are decoded into a {@link CompactStore} only when a store is read.
+ */
+final class OffHeapStoreChunk implements StoreChunk {
+
+    private static final int STRINGS = CompactStore.STRING_COLUMNS;
+
+    private final ByteBuffer buffer;
+    private final int size;
+
+    private OffHeapStoreChunk(ByteBuffer buffer, int size) {
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    static OffHeapStoreChunk of(List<CompactStore> records) {
+        int size = records.size();
+        byte[][] strings = new byte[size * STRINGS][];
+        int arenaSize = 0;
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < STRINGS; column++) {
+                String value = records.get(row).string(column);
+                if (value != null) {
+                    strings[row * STRINGS + column] = value.getBytes(StandardCharsets.UTF_8);
+                    arenaSize += strings[row * STRINGS + column].length;
+                }
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(arenaOffset(size) + arenaSize).order(ByteOrder.nativeOrder());
+        int position = 0;
+        for (int row = 0; row < size; row++) {
+            CompactStore record = records.get(row);
+            buffer.putDouble(latitudeOffset(row), record.latitude());
+            buffer.putDouble(longitudeOffset(size, row), record.longitude());
+            buffer.putShort(locationTypeOffset(size, row), record.locationTypeCode());
+            buffer.putShort(todayOpenOffset(size, row), record.todayOpenCode());
+            buffer.putShort(todayCloseOffset(size, row), record.todayCloseCode());
+            buffer.put(flagsOffset(size, row), record.flags());
+
+            short nulls = 0;
+            for (int column = 0; column < STRINGS; column++) {
+                byte[] value = strings[row * STRINGS + column];
+                buffer.putInt(stringOffset(size, row, column), position);
+                if (value == null) {
+                    nulls |= (short) (1 << column);
+                } else {
+                    buffer.put(arenaOffset(size) + position, value);
+                    position += value.length;
+                }
+            }
+            buffer.putShort(nullsOffset(size, row), nulls);
+        }
+        // End of the last string
+        buffer.putInt(stringOffset(size, size, 0), position);
+        return new OffHeapStoreChunk(buffer, size);
+    }
+
+    /**
+     * @return bytes of off-heap memory held by this chunk
+     */
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double latitude(int offset) {
+        return buffer.getDouble(latitudeOffset(offset));
+    }
+
+    @Override
+    public double longitude(int offset) {
+        return buffer.getDouble(longitudeOffset(size, offset));
+    }
+
+    @Override
+    public String uuid(int offset) {
+        return string(offset, CompactStore.UUID_COLUMN);
+    }
+
+    @Override
+    public CompactStore record(int offset) {
+        String[] strings = new String[STRINGS];
+        for (int column = 0; column < STRINGS; column++) {
+            strings[column] = string(offset, column);
+        }
+        return new CompactStore(
+                latitude(offset),
+                longitude(offset),
+                strings,
+                buffer.getShort(locationTypeOffset(size, offset)),
+                buffer.getShort(todayOpenOffset(size, offset)),
+                buffer.getShort(todayCloseOffset(size, offset)),
+                buffer.get(flagsOffset(size, offset)));
+    }
+
+    @Override
+    public StoreChunk with(int offset, CompactStore store) {
+        List<CompactStore> records = records(size);
+        if (offset == size) {
+            records.add(store);
+        } else {
+            records.set(offset, store);
+        }
+        return of(records);
+    }
+
+    @Override
+    public StoreChunk truncate(int size) {
+        return of(records(size));
+    }
+
+    private List<CompactStore> records(int count) {
+        List<CompactStore> records = new ArrayList<>(count + 1);
+        for (int offset = 0; offset < count; offset++) {
+            records.add(record(offset));
+        }
+        return records;
+    }
+
+    private String string(int row, int column) {
+        if ((buffer.getShort(nullsOffset(size, row)) & 1 << column) != 0) {
+            return null;
+        }
+        // Strings are stored back to back, so a string ends where the next one starts
+        int start = buffer.getInt(stringOffset(size, row, column));
+        int end = buffer.getInt(stringOffset(size, row, column) + Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        buffer.get(arenaOffset(size) + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int latitudeOffset(int row) {
+        return row * Double.BYTES;
+    }
+
+    private static int longitudeOffset(int size, int row) {
+        return (size + row) * Double.BYTES;
+    }
+
+    private static int stringOffset(int size, int row, int column) {
+        return 2 * size * Double.BYTES + (row * STRINGS + column) * Integer.BYTES;
+    }
+
+    private static int locationTypeOffset(int size, int row) {
+        return stringOffset(size, size, 1) + row * Short.BYTES;
+    }
+
+    private static int todayOpenOffset(int size, int row) {
+        return locationTypeOffset(size, size + row);
+    }
+
+    private static int todayCloseOffset(int size, int row) {
+        return locationTypeOffset(size, 2 * size + row);
+    }
+
+    private static int nullsOffset(int size, int row) {
+        return locationTypeOffset(size, 3 * size + row);
+    }
+
+    private static int flagsOffset(int size, int row) {
+        return locationTypeOffset(size, 4 * size) + row;
+    }
+
+    private static int arenaOffset(int size) {
+        return flagsOffset(size, size);
+    }
+}
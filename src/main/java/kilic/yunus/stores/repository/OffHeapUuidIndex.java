@@ -0,0 +1,85 @@
+package kilic.yunus.stores.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * UUID to position lookup for off-heap snapshots: an open-addressing hash table in a direct buffer
+ * that stores only the UUID hash and position of each store. Keys are not copied, a candidate is
+ * confirmed by reading its UUID from the chunks the table was built from, which never change.
+ */
+final class OffHeapUuidIndex implements StoreSnapshot.UuidLookup {
+
+    private static final int SLOT_BYTES = 2 * Integer.BYTES;
+    // Largest power of two whose slots still fit in one buffer
+    private static final int MAX_SLOTS = 1 << 27;
+
+    private final StoreChunk[] chunks;
+    private final int size;
+    private final ByteBuffer slots;
+    private final int mask;
+
+    OffHeapUuidIndex(StoreChunk[] chunks, int size) {
+        // At most 2/3 full, so probe sequences stay short
+        int capacity = Integer.highestOneBit(Math.max(2, size + (size >> 1)) - 1) << 1;
+        if (capacity > MAX_SLOTS) {
+            throw new IllegalArgumentException("Too many stores for an off-heap UUID index: " + size);
+        }
+        this.chunks = chunks;
+        this.size = size;
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        this.mask = capacity - 1;
+        for (int index = 0; index < size; index++) {
+            String uuid = chunk(index).uuid(offset(index));
+            if (uuid != null) {
+                insert(hash(uuid), index);
+            }
+        }
+    }
+
+    @Override
+    public int get(String uuid) {
+        if (uuid == null) {
+            return -1;
+        }
+        int hash = hash(uuid);
+        for (int slot = hash & mask; ; slot = slot + 1 & mask) {
+            // Positions are stored plus one, so an all-zero slot is empty
+            int position = slots.getInt(slot * SLOT_BYTES + Integer.BYTES) - 1;
+            if (position < 0) {
+                return -1;
+            }
+            if (slots.getInt(slot * SLOT_BYTES) == hash && uuid.equals(chunk(position).uuid(offset(position)))) {
+                return position;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void insert(int hash, int index) {
+        int slot = hash & mask;
+        while (slots.getInt(slot * SLOT_BYTES + Integer.BYTES) != 0) {
+            slot = slot + 1 & mask;
+        }
+        slots.putInt(slot * SLOT_BYTES, hash);
+        slots.putInt(slot * SLOT_BYTES + Integer.BYTES, index + 1);
+    }
+
+    private StoreChunk chunk(int index) {
+        return chunks[index >> StoreSnapshot.CHUNK_BITS];
+    }
+
+    private static int offset(int index) {
+        return index & StoreSnapshot.CHUNK_MASK;
+    }
+
+    private static int hash(String uuid) {
+        // Spread the bits, linear probing needs the low bits to differ
+        int hash = uuid.hashCode() * 0x9E3779B9;
+        return hash ^ hash >>> 16;
+    }
+}
@@ -0,0 +1,39 @@
+package kilic.yunus.stores.repository;
+
+import kilic.yunus.stores.model.domain.Store;
+
+/**
+ * Immutable block of up to {@code 1024} consecutive stores of a {@link StoreSnapshot}. Changes
+ * return a new chunk, so a chunk can be shared by every snapshot generation it did not change in.
+ */
+sealed interface StoreChunk permits HeapStoreChunk, OffHeapStoreChunk {
+
+    int size();
+
+    double latitude(int offset);
+
+    double longitude(int offset);
+
+    String uuid(int offset);
+
+    CompactStore record(int offset);
+
+    default boolean hasValidLocation(int offset) {
+        return CompactStore.isValidLocation(latitude(offset), longitude(offset));
+    }
+
+    default Store store(int offset) {
+        return record(offset).toStore();
+    }
+
+    /**
+     * @return copy with the store at {@code offset} replaced, or appended if {@code offset} equals
+     * the size
+     */
+    StoreChunk with(int offset, CompactStore store);
+
+    /**
+     * @return copy holding only the first {@code size} stores
+     */
+    StoreChunk truncate(int size);
+}
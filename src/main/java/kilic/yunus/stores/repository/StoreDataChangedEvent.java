@@ -0,0 +1,13 @@
+package kilic.yunus.stores.repository;
+
+/**
+ * Application event published by a {@link StoreRepository} after a new generation of store data has
+ * been made visible to readers.
+ *
+ * @param dataset        name of the data set that changed, see {@link StoreDatasets}
+ * @param generation     the generation that is now current
+ * @param loadGeneration {@link StoreSnapshot#loadGeneration() load generation} of the current generation
+ * @param storeCount     number of stores in the new generation
+ */
+public record StoreDataChangedEvent(String dataset, long generation, long loadGeneration, int storeCount) {
+}
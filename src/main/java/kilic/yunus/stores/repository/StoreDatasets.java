@@ -0,0 +1,47 @@
+package kilic.yunus.stores.repository;
+
+import kilic.yunus.stores.exception.DatasetNotFoundException;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Named store data sets served side by side, e.g. one per store chain. Every data set has its own
+ * {@link StoreRepository}, so it is loaded, reloaded, changed, indexed and cached independently of
+ * the others. The {@value #DEFAULT} data set always exists.
+ */
+@FunctionalInterface
+public interface StoreDatasets {
+
+    String DEFAULT = "default";
+
+    /**
+     * @return repository per data set name, the default data set first
+     */
+    Map<String, StoreRepository> repositories();
+
+    /**
+     * @param name data set name, {@code null} or blank for the default data set
+     * @throws DatasetNotFoundException if there is no data set with that name
+     */
+    default StoreRepository get(String name) {
+        String dataset = name == null || name.isBlank() ? DEFAULT : name;
+        StoreRepository repository = repositories().get(dataset);
+        if (repository == null) {
+            throw new DatasetNotFoundException("Store data set not found: " + name);
+        }
+        return repository;
+    }
+
+    default Set<String> names() {
+        return repositories().keySet();
+    }
+
+    /**
+     * @return the given repository as the only, default data set
+     */
+    static StoreDatasets of(StoreRepository repository) {
+        Map<String, StoreRepository> repositories = Map.of(DEFAULT, repository);
+        return () -> repositories;
+    }
+}
@@ -0,0 +1,251 @@
+package kilic.yunus.stores.repository;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Uniform latitude/longitude grid over the store positions of a {@link StoreSnapshot}, so a
+ * nearest-store search only has to look at the cells around the query location. The grid covers
+ * the bounding box of all stores with a valid location and has about {@value #STORES_PER_CELL}
+ * stores per cell. Positions are grouped by cell in a single array, in snapshot order within a cell.
+ *
+ * <p>Snapshots derived by single-store changes keep using the index of the snapshot it was built
+ * for. The positions whose coordinates may have changed since (replaced, appended, moved or removed
+ * stores) are listed separately: grid entries at those positions are stale and the search checks
+ * them one by one instead. Once more than about {@code sqrt(n)} positions changed the derived
+ * snapshot has no index, and the repository builds a new one in the background.
+ */
+public final class StoreGridIndex {
+
+    static final int STORES_PER_CELL = 4;
+
+    private static final int MIN_CHANGES = 64;
+    private static final int MAX_CELLS = 1 << 24;
+    private static final int PROGRESS_STEP = 1 << 16;
+
+    private final double minLatitude;
+    private final double minLongitude;
+    private final double maxLongitude;
+    private final double cellHeight;
+    private final double cellWidth;
+    private final int rows;
+    private final int columns;
+    // Positions of cell c are positions[cellStarts[c] .. cellStarts[c + 1])
+    private final int[] cellStarts;
+    private final int[] positions;
+    private final int[] changedPositions;
+
+    private StoreGridIndex(double minLatitude, double minLongitude, double maxLongitude, double cellHeight,
+                           double cellWidth, int rows, int columns, int[] cellStarts, int[] positions,
+                           int[] changedPositions) {
+        this.minLatitude = minLatitude;
+        this.minLongitude = minLongitude;
+        this.maxLongitude = maxLongitude;
+        this.cellHeight = cellHeight;
+        this.cellWidth = cellWidth;
+        this.rows = rows;
+        this.columns = columns;
+        this.cellStarts = cellStarts;
+        this.positions = positions;
+        this.changedPositions = changedPositions;
+    }
+
+    /**
+     * Indexes every store of the snapshot that has a valid location.
+     *
+     * @param progress receives the completed share of the work, from 0 to 1
+     */
+    static StoreGridIndex build(StoreSnapshot snapshot, DoubleConsumer progress) {
+        int size = snapshot.size();
+        double minLatitude = Double.POSITIVE_INFINITY;
+        double maxLatitude = Double.NEGATIVE_INFINITY;
+        double minLongitude = Double.POSITIVE_INFINITY;
+        double maxLongitude = Double.NEGATIVE_INFINITY;
+        int indexed = 0;
+        for (int position = 0; position < size; position++) {
+            if (snapshot.hasValidLocation(position)) {
+                double latitude = snapshot.latitude(position);
+                double longitude = snapshot.longitude(position);
+                minLatitude = Math.min(minLatitude, latitude);
+                maxLatitude = Math.max(maxLatitude, latitude);
+                minLongitude = Math.min(minLongitude, longitude);
+                maxLongitude = Math.max(maxLongitude, longitude);
+                indexed++;
+            }
+            reportProgress(progress, position, size, 0);
+        }
+        if (indexed == 0) {
+            progress.accept(1);
+            return new StoreGridIndex(0, 0, 0, 1, 1, 1, 1, new int[2], new int[0], new int[0]);
+        }
+
+        // Cells of about the same size in kilometers, at the middle of the covered area
+        int cells = Math.clamp(indexed / STORES_PER_CELL, 1, MAX_CELLS);
+        double height = maxLatitude - minLatitude;
+        double width = (maxLongitude - minLongitude) * Math.cos(Math.toRadians((minLatitude + maxLatitude) / 2));
+        int rows;
+        int columns;
+        if (height <= 0 || width <= 0) {
+            rows = height > 0 ? cells : 1;
+            columns = width > 0 ? cells : 1;
+        } else {
+            columns = (int) Math.clamp(Math.round(Math.sqrt(cells * width / height)), 1, cells);
+            rows = Math.max(1, cells / columns);
+        }
+        double cellHeight = height > 0 ? height / rows : 1;
+        double cellWidth = maxLongitude > minLongitude ? (maxLongitude - minLongitude) / columns : 1;
+
+        // Counting sort of the positions by cell
+        int[] cellOf = new int[size];
+        int[] cellStarts = new int[rows * columns + 1];
+        for (int position = 0; position < size; position++) {
+            if (snapshot.hasValidLocation(position)) {
+                int row = cell(snapshot.latitude(position), minLatitude, cellHeight, rows);
+                int column = cell(snapshot.longitude(position), minLongitude, cellWidth, columns);
+                cellOf[position] = row * columns + column;
+                cellStarts[cellOf[position] + 1]++;
+            } else {
+                cellOf[position] = -1;
+            }
+            reportProgress(progress, position, size, 1);
+        }
+        for (int cell = 0; cell < rows * columns; cell++) {
+            cellStarts[cell + 1] += cellStarts[cell];
+        }
+        int[] next = Arrays.copyOf(cellStarts, rows * columns);
+        int[] positions = new int[indexed];
+        for (int position = 0; position < size; position++) {
+            if (cellOf[position] >= 0) {
+                positions[next[cellOf[position]]++] = position;
+            }
+            reportProgress(progress, position, size, 2);
+        }
+        progress.accept(1);
+        return new StoreGridIndex(minLatitude, minLongitude, maxLongitude, cellHeight, cellWidth, rows, columns,
+                cellStarts, positions, new int[0]);
+    }
+
+    private static void reportProgress(DoubleConsumer progress, int position, int size, int pass) {
+        if ((position & (PROGRESS_STEP - 1)) == 0) {
+            progress.accept((pass + (double) position / size) / 3);
+        }
+    }
+
+    private static int cell(double coordinate, double min, double cellSize, int cells) {
+        return (int) Math.clamp(Math.floor((coordinate - min) / cellSize), 0, cells - 1);
+    }
+
+    /**
+     * @return index for a snapshot derived from the indexed one, or {@code null} if too many
+     * positions changed for the index to stay useful
+     */
+    StoreGridIndex withChanged(int... changed) {
+        int[] merged = Arrays.copyOf(changedPositions, changedPositions.length + changed.length);
+        System.arraycopy(changed, 0, merged, changedPositions.length, changed.length);
+        merged = Arrays.stream(merged).sorted().distinct().toArray();
+        if (merged.length > maxChanges()) {
+            return null;
+        }
+        return new StoreGridIndex(minLatitude, minLongitude, maxLongitude, cellHeight, cellWidth, rows, columns,
+                cellStarts, positions, merged);
+    }
+
+    /**
+     * @return number of changed positions beyond which the index is no longer carried over
+     */
+    int maxChanges() {
+        return Math.max(MIN_CHANGES, (int) Math.sqrt(positions.length));
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int columns() {
+        return columns;
+    }
+
+    /**
+     * @return row of the given latitude, clamped to the grid
+     */
+    public int row(double latitude) {
+        return cell(latitude, minLatitude, cellHeight, rows);
+    }
+
+    /**
+     * @return column of the given longitude, clamped to the grid
+     */
+    public int column(double longitude) {
+        return cell(longitude, minLongitude, cellWidth, columns);
+    }
+
+    /**
+     * @return latitude of the southern edge of a row, {@code row(latitude) >= row} for every store
+     * north of it
+     */
+    public double rowSouth(int row) {
+        return minLatitude + row * cellHeight;
+    }
+
+    /**
+     * @return longitude of the western edge of a column
+     */
+    public double columnWest(int column) {
+        return minLongitude + column * cellWidth;
+    }
+
+    public double minLongitude() {
+        return minLongitude;
+    }
+
+    public double maxLongitude() {
+        return maxLongitude;
+    }
+
+    /**
+     * @return offset of the first position of a cell, see {@link #position(int)}
+     */
+    public int cellStart(int row, int column) {
+        return cellStarts[row * columns + column];
+    }
+
+    /**
+     * @return offset after the last position of a cell
+     */
+    public int cellEnd(int row, int column) {
+        return cellStarts[row * columns + column + 1];
+    }
+
+    public int position(int offset) {
+        return positions[offset];
+    }
+
+    /**
+     * @return whether the store at this position may have moved since the index was built, its grid
+     * entry must then be ignored
+     */
+    public boolean isChanged(int position) {
+        return changedPositions.length > 0 && Arrays.binarySearch(changedPositions, position) >= 0;
+    }
+
+    /**
+     * @return number of positions that changed since the index was built
+     */
+    public int changedCount() {
+        return changedPositions.length;
+    }
+
+    /**
+     * @return changed position in ascending order, may be beyond the size of the snapshot
+     */
+    public int changedPosition(int i) {
+        return changedPositions[i];
+    }
+
+    /**
+     * @return number of stores in the grid
+     */
+    public int size() {
+        return positions.length;
+    }
+}
@@ -0,0 +1,28 @@
+package kilic.yunus.stores.repository;
+
+/**
+ * State of the spatial index of the current snapshot of a {@link StoreRepository}.
+ *
+ * @param state    whether searches use the index
+ * @param progress completed share of the running build, from 0 to 1, only meaningful while building
+ */
+public record StoreIndexStatus(State state, double progress) {
+
+    public static final StoreIndexStatus DISABLED = new StoreIndexStatus(State.DISABLED, 0);
+    public static final StoreIndexStatus READY = new StoreIndexStatus(State.READY, 1);
+
+    public enum State {
+        /**
+         * No index is built, searches scan all stores.
+         */
+        DISABLED,
+        /**
+         * The index is being built, searches scan all stores until it is complete.
+         */
+        BUILDING,
+        /**
+         * Searches use the index.
+         */
+        READY
+    }
+}
@@ -3,10 +3,74 @@ package kilic.yunus.stores.repository;
 import kilic.yunus.stores.model.domain.Store;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface StoreRepository {
 
+    /**
+     * @return name of the data set this repository holds, see {@link StoreDatasets}
+     */
+    default String dataset() {
+        return StoreDatasets.DEFAULT;
+    }
+
     List<Store> findAll();
 
     int count();
+
+    /**
+     * Current immutable store data. Callers that need several consistent reads (e.g. resolve store
+     * indices) should fetch the snapshot once and work against it.
+     *
+     * @return the current snapshot, {@link StoreSnapshot#EMPTY} if nothing has been loaded yet
+     */
+    StoreSnapshot snapshot();
+
+    /**
+     * Monotonically increasing version of the loaded store data. Incremented every time a new data
+     * set is published, so derived data (e.g. cached search results) can be tagged with it.
+     *
+     * @return current dataset generation, 0 if nothing has been loaded yet
+     */
+    default long generation() {
+        return snapshot().generation();
+    }
+
+    /**
+     * @return whether searches of the current snapshot can use a spatial index, see
+     * {@link StoreSnapshot#gridIndex()}
+     */
+    default StoreIndexStatus indexStatus() {
+        return snapshot().gridIndex() != null ? StoreIndexStatus.READY : StoreIndexStatus.DISABLED;
+    }
+
+    /**
+     * Re-reads the underlying store data in the background and publishes it as a new generation,
+     * unless it is unchanged since it was last loaded. The current generation keeps being served
+     * until the new one is complete.
+     *
+     * @return future completing with the published snapshot, the current one if the store data is
+     * unchanged, or exceptionally if the new data could not be loaded (the current generation then
+     * stays in place)
+     */
+    CompletableFuture<StoreSnapshot> reload();
+
+    /**
+     * Adds the store, or replaces the store with the same UUID, and publishes the result as a new
+     * generation. Only the affected parts of the current snapshot are copied, readers are never
+     * blocked.
+     *
+     * @return the published snapshot
+     * @throws kilic.yunus.stores.exception.StoreDataException if the store is invalid
+     */
+    StoreSnapshot upsert(Store store);
+
+    /**
+     * Removes the store with the given UUID and publishes the result as a new generation.
+     *
+     * @return the published snapshot, empty if there is no store with the given UUID (no new
+     * generation is published then)
+     */
+    Optional<StoreSnapshot> delete(String uuid);
 }
@@ -0,0 +1,410 @@
+package kilic.yunus.stores.repository;
+
+import kilic.yunus.stores.model.domain.Store;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Immutable view of one generation of store data. Stores keep a stable position for the lifetime of
+ * the snapshot, so they can be referred to by index (e.g. from compact cached search results).
+ * They are held in compact form on or off the Java heap ({@link StoreStorage}). Searches read
+ * coordinates by position, the {@link Store} accessors build a new instance on every call.
+ *
+ * <p>Single-store changes derive a new snapshot from the previous one ({@link #withStore},
+ * {@link #withoutStore}) instead of rebuilding it. Stores are held in fixed-size chunks and only
+ * the chunks that change are copied, the UUID lookup keeps recent changes in a small overlay on top
+ * of a shared base lookup. Both make a change cost roughly {@code O(sqrt(n))} rather than {@code O(n)},
+ * and the previous snapshot stays untouched for readers still holding it.
+ *
+ * <p>Derived snapshots keep the {@link #loadGeneration} of the snapshot they were derived from and
+ * remember the stores that changed since ({@link #changesSince}), so results searched in an earlier
+ * generation can be checked against the changes instead of being searched again.
+ *
+ * <p>A {@link StoreGridIndex} for nearest-store searches is built separately ({@link #buildGridIndex})
+ * and attached to the snapshot once it is complete, so a snapshot can be searched right away. Derived
+ * snapshots carry the index over as long as only a few stores changed.
+ */
+public final class StoreSnapshot {
+
+    public static final StoreSnapshot EMPTY = new StoreSnapshot(0, List.of());
+
+    static final int CHUNK_BITS = 10;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // Changes remembered for changesSince(), older ones are forgotten
+    static final int MAX_TRACKED_CHANGES = 1024;
+
+    private final long generation;
+    private final long loadGeneration;
+    private final ChangeHistory changes;
+    private final StoreStorage storage;
+    private final StoreChunk[] chunks;
+    private final int size;
+    private final UuidIndex uuidIndex;
+    private final List<Store> stores = new StoreList();
+    // Set once by buildGridIndex() or adoptGridIndex(), or carried over from the previous snapshot
+    private volatile StoreGridIndex gridIndex;
+
+    public StoreSnapshot(long generation, List<Store> stores) {
+        this(generation, stores, StoreStorage.HEAP);
+    }
+
+    public StoreSnapshot(long generation, List<Store> stores, StoreStorage storage) {
+        this.generation = generation;
+        this.loadGeneration = generation;
+        this.changes = new ChangeHistory(generation, new Change[0]);
+        this.storage = storage;
+        this.size = stores.size();
+        this.chunks = new StoreChunk[(size + CHUNK_MASK) >> CHUNK_BITS];
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            int from = chunk << CHUNK_BITS;
+            List<Store> chunkStores = stores.subList(from, Math.min(from + CHUNK_SIZE, size));
+            chunks[chunk] = storage.chunk(chunkStores.stream().map(CompactStore::of).toList());
+        }
+        this.uuidIndex = new UuidIndex(storage.uuidLookup(chunks, size), Collections.emptyMap());
+    }
+
+    private StoreSnapshot(long generation, long loadGeneration, ChangeHistory changes, StoreStorage storage,
+                          StoreChunk[] chunks, int size, UuidIndex uuidIndex, StoreGridIndex gridIndex) {
+        this.generation = generation;
+        this.loadGeneration = loadGeneration;
+        this.changes = changes;
+        this.storage = storage;
+        this.chunks = chunks;
+        this.size = size;
+        this.uuidIndex = uuidIndex.isFull()
+                ? new UuidIndex(storage.uuidLookup(chunks, size), Collections.emptyMap())
+                : uuidIndex;
+        this.gridIndex = gridIndex;
+    }
+
+    public long generation() {
+        return generation;
+    }
+
+    /**
+     * @return generation of the snapshot this one was derived from by single-store changes, its own
+     * generation if it was loaded as a whole
+     */
+    public long loadGeneration() {
+        return loadGeneration;
+    }
+
+    /**
+     * Lists the single-store changes that led from an earlier generation of the same load to this
+     * snapshot. Every change names the store and a position it affected: the position of a changed
+     * or added store, or for a removed store both its position and the former position of the store
+     * that took it over. Stores at positions that are not listed are unchanged.
+     *
+     * @return changes in the order they were made, empty for the generation of this snapshot, or
+     * {@code null} if they are not known, for generations of another load or too far back
+     */
+    public List<Change> changesSince(long since) {
+        return changes.since(since, generation);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public StoreStorage storage() {
+        return storage;
+    }
+
+    /**
+     * @return new {@link Store} built from the store at the given position
+     */
+    public Store get(int index) {
+        return chunk(index).store(index & CHUNK_MASK);
+    }
+
+    /**
+     * @return latitude of the store at the given position, NaN if it has none
+     */
+    public double latitude(int index) {
+        return chunk(index).latitude(index & CHUNK_MASK);
+    }
+
+    /**
+     * @return longitude of the store at the given position, NaN if it has none
+     */
+    public double longitude(int index) {
+        return chunk(index).longitude(index & CHUNK_MASK);
+    }
+
+    /**
+     * Same check as {@link Store#hasValidLocation()}, without building the {@link Store}.
+     */
+    public boolean hasValidLocation(int index) {
+        return chunk(index).hasValidLocation(index & CHUNK_MASK);
+    }
+
+    private StoreChunk chunk(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return chunks[index >> CHUNK_BITS];
+    }
+
+    /**
+     * @return position of the store with the given UUID, or -1 if it is not part of this snapshot
+     */
+    public int indexOf(String uuid) {
+        return uuidIndex.get(uuid);
+    }
+
+    /**
+     * @return spatial index of this snapshot, {@code null} while it has none and has to be searched
+     * by a scan of all stores
+     */
+    public StoreGridIndex gridIndex() {
+        return gridIndex;
+    }
+
+    /**
+     * Builds the spatial index of this snapshot and attaches it, so searches that start afterwards
+     * use it. Takes a while for large snapshots and should run in the background.
+     *
+     * @param progress receives the completed share of the work, from 0 to 1
+     */
+    public StoreGridIndex buildGridIndex(DoubleConsumer progress) {
+        StoreGridIndex built = StoreGridIndex.build(this, progress);
+        gridIndex = built;
+        return built;
+    }
+
+    /**
+     * Attaches the spatial index of an earlier snapshot this one was derived from, for an index
+     * whose build finished after this snapshot was published. Positions whose location differs
+     * between both snapshots are marked as changed.
+     *
+     * @return false if too many locations changed, this snapshot needs an index of its own then
+     */
+    public boolean adoptGridIndex(StoreSnapshot indexed) {
+        StoreGridIndex index = indexed.gridIndex;
+        if (index == null) {
+            return false;
+        }
+        int limit = Math.max(indexed.size, size);
+        int[] changed = new int[16];
+        int count = 0;
+        for (int chunk = 0; chunk << CHUNK_BITS < limit; chunk++) {
+            // Unchanged chunks are shared between the snapshots
+            if (chunk < chunks.length && chunk < indexed.chunks.length && chunks[chunk] == indexed.chunks[chunk]) {
+                continue;
+            }
+            int end = Math.min(limit, (chunk + 1) << CHUNK_BITS);
+            for (int position = chunk << CHUNK_BITS; position < end; position++) {
+                if (position >= size || (position < indexed.size && sameLocation(indexed, position))) {
+                    continue;
+                }
+                if (count == index.maxChanges()) {
+                    return false;
+                }
+                if (count == changed.length) {
+                    changed = Arrays.copyOf(changed, count * 2);
+                }
+                changed[count++] = position;
+            }
+        }
+        StoreGridIndex adopted = index.withChanged(Arrays.copyOf(changed, count));
+        if (adopted == null) {
+            return false;
+        }
+        gridIndex = adopted;
+        return true;
+    }
+
+    private boolean sameLocation(StoreSnapshot other, int position) {
+        return hasValidLocation(position) == other.hasValidLocation(position)
+                && Double.compare(latitude(position), other.latitude(position)) == 0
+                && Double.compare(longitude(position), other.longitude(position)) == 0;
+    }
+
+    /**
+     * @return unmodifiable list of all stores, in snapshot order. Elements are built on access
+     */
+    public List<Store> stores() {
+        return stores;
+    }
+
+    /**
+     * Derives the next generation with the given store added, or replacing the store with the same
+     * UUID in place. New stores are appended.
+     */
+    public StoreSnapshot withStore(long nextGeneration, Store store) {
+        CompactStore record = CompactStore.of(store);
+        int index = indexOf(record.uuid());
+        if (index >= 0) {
+            StoreChunk[] nextChunks = chunks.clone();
+            set(nextChunks, index, record);
+            return new StoreSnapshot(nextGeneration, loadGeneration,
+                    changes.with(new Change(nextGeneration, record.uuid(), index)),
+                    storage, nextChunks, size, uuidIndex, nextGridIndex(index));
+        }
+
+        StoreChunk[] nextChunks;
+        if ((size & CHUNK_MASK) == 0) {
+            nextChunks = Arrays.copyOf(chunks, chunks.length + 1);
+            nextChunks[chunks.length] = storage.chunk(List.of(record));
+        } else {
+            nextChunks = chunks.clone();
+            set(nextChunks, size, record);
+        }
+        return new StoreSnapshot(nextGeneration, loadGeneration,
+                changes.with(new Change(nextGeneration, record.uuid(), size)),
+                storage, nextChunks, size + 1, uuidIndex.with(record.uuid(), size), nextGridIndex(size));
+    }
+
+    /**
+     * Derives the next generation without the store with the given UUID. The last store takes over
+     * the position of the removed one, every other store keeps its position.
+     *
+     * @throws IllegalArgumentException if there is no store with the given UUID
+     */
+    public StoreSnapshot withoutStore(long nextGeneration, String uuid) {
+        int index = indexOf(uuid);
+        if (index < 0) {
+            throw new IllegalArgumentException("No store with UUID " + uuid);
+        }
+        int last = size - 1;
+        CompactStore moved = chunk(last).record(last & CHUNK_MASK);
+
+        StoreChunk[] nextChunks;
+        if ((last & CHUNK_MASK) == 0) {
+            nextChunks = Arrays.copyOf(chunks, chunks.length - 1);
+        } else {
+            nextChunks = chunks.clone();
+            nextChunks[last >> CHUNK_BITS] = chunks[last >> CHUNK_BITS].truncate(last & CHUNK_MASK);
+        }
+        UuidIndex nextIndex = uuidIndex.without(uuid);
+        ChangeHistory nextChanges = changes.with(new Change(nextGeneration, uuid, index));
+        if (index != last) {
+            set(nextChunks, index, moved);
+            nextIndex = nextIndex.with(moved.uuid(), index);
+            nextChanges = nextChanges.with(new Change(nextGeneration, moved.uuid(), last));
+        }
+        return new StoreSnapshot(nextGeneration, loadGeneration, nextChanges, storage, nextChunks, last, nextIndex,
+                nextGridIndex(index, last));
+    }
+
+    private StoreGridIndex nextGridIndex(int... changedPositions) {
+        StoreGridIndex current = gridIndex;
+        return current != null ? current.withChanged(changedPositions) : null;
+    }
+
+    /**
+     * Replaces the chunk holding {@code index} in {@code nextChunks} with a changed copy, chunks are
+     * shared with the snapshot they were cloned from.
+     */
+    private static void set(StoreChunk[] nextChunks, int index, CompactStore store) {
+        int chunk = index >> CHUNK_BITS;
+        nextChunks[chunk] = nextChunks[chunk].with(index & CHUNK_MASK, store);
+    }
+
+    /**
+     * Single-store change of a snapshot, see {@link #changesSince}.
+     *
+     * @param generation generation the change was published with
+     * @param uuid       UUID of the affected store
+     * @param position   position the change affected, may be beyond the end of later snapshots
+     */
+    public record Change(long generation, String uuid, int position) {
+    }
+
+    /**
+     * The last {@value #MAX_TRACKED_CHANGES} changes since a load, oldest first. Every change after
+     * generation {@code knownAfter} is among them.
+     */
+    private record ChangeHistory(long knownAfter, Change[] changes) {
+
+        ChangeHistory with(Change change) {
+            int kept = Math.min(changes.length, MAX_TRACKED_CHANGES - 1);
+            int forgotten = changes.length - kept;
+            Change[] next = Arrays.copyOfRange(changes, forgotten, changes.length + 1);
+            next[kept] = change;
+            return new ChangeHistory(forgotten > 0 ? changes[forgotten - 1].generation() : knownAfter, next);
+        }
+
+        List<Change> since(long since, long current) {
+            if (since < knownAfter || since > current) {
+                return null;
+            }
+            int from = changes.length;
+            while (from > 0 && changes[from - 1].generation() > since) {
+                from--;
+            }
+            return List.of(Arrays.copyOfRange(changes, from, changes.length));
+        }
+    }
+
+    private final class StoreList extends AbstractList<Store> implements RandomAccess {
+
+        @Override
+        public Store get(int index) {
+            return StoreSnapshot.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * UUID to position lookup of a whole snapshot, see {@link StoreStorage#uuidLookup}.
+     */
+    interface UuidLookup {
+
+        /**
+         * @return position of the store with the given UUID, or -1
+         */
+        int get(String uuid);
+
+        int size();
+    }
+
+    /**
+     * UUID to position lookup made of an immutable base lookup shared between generations and a
+     * small overlay of changes since the base was built. Once the overlay grows beyond about
+     * {@code sqrt(n)} entries the snapshot builds a new base from its chunks, which keeps both the
+     * per-change copy and the amortized rebuild cost at {@code O(sqrt(n))}.
+     */
+    private record UuidIndex(UuidLookup base, Map<String, Integer> overlay) {
+
+        private static final Integer REMOVED = -1;
+        private static final int MIN_OVERLAY_SIZE = 64;
+
+        int get(String uuid) {
+            Integer index = overlay.get(uuid);
+            return index != null ? index : base.get(uuid);
+        }
+
+        UuidIndex with(String uuid, int index) {
+            return withOverlayEntry(uuid, index);
+        }
+
+        UuidIndex without(String uuid) {
+            return withOverlayEntry(uuid, REMOVED);
+        }
+
+        boolean isFull() {
+            return overlay.size() > Math.max(MIN_OVERLAY_SIZE, (int) Math.sqrt(base.size()));
+        }
+
+        private UuidIndex withOverlayEntry(String uuid, Integer index) {
+            Map<String, Integer> nextOverlay = HashMap.newHashMap(overlay.size() + 1);
+            nextOverlay.putAll(overlay);
+            nextOverlay.put(uuid, index);
+            return new UuidIndex(base, nextOverlay);
+        }
+    }
+}
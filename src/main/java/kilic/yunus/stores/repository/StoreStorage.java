@@ -0,0 +1,66 @@
+package kilic.yunus.stores.repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where a {@link StoreSnapshot} keeps its stores.
+ */
+public enum StoreStorage {
+
+    /**
+     * {@link CompactStore} objects on the Java heap. Fastest to read and change, fine up to a few
+     * million stores.
+     */
+    HEAP {
+        @Override
+        StoreChunk chunk(List<CompactStore> records) {
+            return HeapStoreChunk.of(records);
+        }
+
+        @Override
+        StoreSnapshot.UuidLookup uuidLookup(StoreChunk[] chunks, int size) {
+            Map<String, Integer> indexByUuid = HashMap.newHashMap(size);
+            for (int index = 0; index < size; index++) {
+                indexByUuid.put(chunks[index >> StoreSnapshot.CHUNK_BITS].uuid(index & StoreSnapshot.CHUNK_MASK), index);
+            }
+            return new StoreSnapshot.UuidLookup() {
+                @Override
+                public int get(String uuid) {
+                    return indexByUuid.getOrDefault(uuid, -1);
+                }
+
+                @Override
+                public int size() {
+                    return indexByUuid.size();
+                }
+            };
+        }
+    },
+
+    /**
+     * Columns and strings in direct buffers outside the Java heap, including the UUID lookup. Only
+     * a few objects per 1024 stores stay on the heap, so garbage collection does not slow down as
+     * the data set grows. Reading a store decodes it, and single-store changes re-encode the chunk
+     * they touch. Size {@code -XX:MaxDirectMemorySize} for the data set.
+     */
+    OFF_HEAP {
+        @Override
+        StoreChunk chunk(List<CompactStore> records) {
+            return OffHeapStoreChunk.of(records);
+        }
+
+        @Override
+        StoreSnapshot.UuidLookup uuidLookup(StoreChunk[] chunks, int size) {
+            return new OffHeapUuidIndex(chunks, size);
+        }
+    };
+
+    abstract StoreChunk chunk(List<CompactStore> records);
+
+    /**
+     * @param chunks chunks of the snapshot the lookup is for, they must not be modified afterwards
+     */
+    abstract StoreSnapshot.UuidLookup uuidLookup(StoreChunk[] chunks, int size);
+}
@@ -0,0 +1,242 @@
+package kilic.yunus.stores.repository.impl;
+
+import kilic.yunus.stores.model.domain.Store;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Compact binary form of an already validated store list, meant to be built once (see
+ * {@link StoreSnapshotTool}) and memory-mapped at startup.
+ *
+ * <p>Stores are fixed-size records, so loading needs no parsing or validation, and every distinct
+ * string is stored once in a shared string table. Layout (big endian):
+ *
+ * <pre>
+ * header   int magic, int version, int storeCount, int stringCount,
+ *          long recordsOffset, long stringOffsetsOffset, long stringDataOffset
+ * records  storeCount x (double latitude, double longitude, 12 x int string id, byte flags)
+ * strings  (stringCount + 1) x int offset into string data, followed by the UTF-8 string data
+ * </pre>
+ *
+ * <p>Missing coordinates are stored as NaN, missing strings as id -1. The flags byte holds
+ * {@code showWarningMessage} in bits 0-1 and {@code collectionPoint} in bits 2-3 (0 = null, 1 =
+ * false, 2 = true).
+ */
+final class BinaryStoreSnapshot {
+
+    static final String FILE_EXTENSION = ".snapshot";
+
+    private static final int MAGIC = 0x5354534E; // "STSN"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 40;
+
+    private static final List<Function<Store, String>> STRING_FIELDS = List.of(
+            Store::getCity,
+            Store::getPostalCode,
+            Store::getStreet,
+            Store::getStreet2,
+            Store::getStreet3,
+            Store::getAddressName,
+            Store::getUuid,
+            Store::getComplexNumber,
+            Store::getTodayOpen,
+            Store::getLocationType,
+            Store::getSapStoreID,
+            Store::getTodayClose);
+
+    private static final int RECORD_BYTES = 8 + 8 + STRING_FIELDS.size() * 4 + 1;
+
+    private BinaryStoreSnapshot() {
+    }
+
+    static boolean isSnapshotFile(String filename) {
+        return filename != null && filename.endsWith(FILE_EXTENSION);
+    }
+
+    /**
+     * Writes the stores, in list order, to a new snapshot file.
+     */
+    static void write(List<Store> stores, Path target) throws IOException {
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int[][] recordStringIds = new int[stores.size()][];
+
+        for (int i = 0; i < stores.size(); i++) {
+            int[] ids = new int[STRING_FIELDS.size()];
+            for (int field = 0; field < ids.length; field++) {
+                String value = STRING_FIELDS.get(field).apply(stores.get(i));
+                ids[field] = value == null ? -1 : stringIds.computeIfAbsent(value, s -> {
+                    strings.add(s.getBytes(StandardCharsets.UTF_8));
+                    return strings.size() - 1;
+                });
+            }
+            recordStringIds[i] = ids;
+        }
+
+        long recordsOffset = HEADER_BYTES;
+        long stringOffsetsOffset = recordsOffset + (long) stores.size() * RECORD_BYTES;
+        long stringDataOffset = stringOffsetsOffset + (strings.size() + 1L) * 4;
+
+        try (OutputStream fileOut = Files.newOutputStream(target);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(stores.size());
+            out.writeInt(strings.size());
+            out.writeLong(recordsOffset);
+            out.writeLong(stringOffsetsOffset);
+            out.writeLong(stringDataOffset);
+
+            for (int i = 0; i < stores.size(); i++) {
+                Store store = stores.get(i);
+                out.writeDouble(store.getLatitude() != null ? store.getLatitude() : Double.NaN);
+                out.writeDouble(store.getLongitude() != null ? store.getLongitude() : Double.NaN);
+                for (int id : recordStringIds[i]) {
+                    out.writeInt(id);
+                }
+                out.writeByte(encodeFlag(store.getShowWarningMessage())
+                        | encodeFlag(store.getCollectionPoint()) << 2);
+            }
+
+            int offset = 0;
+            for (byte[] string : strings) {
+                out.writeInt(offset);
+                offset += string.length;
+            }
+            out.writeInt(offset);
+            for (byte[] string : strings) {
+                out.write(string);
+            }
+        }
+    }
+
+    /**
+     * Memory-maps a snapshot file. The mapping is read-only, so its pages are shared by every process
+     * mapping the same file.
+     */
+    static List<Store> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    static List<Store> read(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a store snapshot file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported store snapshot version " + buffer.getInt(4));
+        }
+        int storeCount = buffer.getInt(8);
+        int stringCount = buffer.getInt(12);
+        int recordsOffset = Math.toIntExact(buffer.getLong(16));
+        int stringOffsetsOffset = Math.toIntExact(buffer.getLong(24));
+        int stringDataOffset = Math.toIntExact(buffer.getLong(32));
+
+        // Every distinct string is decoded once and shared by all stores referring to it
+        String[] strings = new String[stringCount];
+        byte[] scratch = new byte[256];
+        for (int id = 0; id < stringCount; id++) {
+            int start = buffer.getInt(stringOffsetsOffset + id * 4);
+            int length = buffer.getInt(stringOffsetsOffset + (id + 1) * 4) - start;
+            if (length > scratch.length) {
+                scratch = new byte[length];
+            }
+            buffer.get(stringDataOffset + start, scratch, 0, length);
+            strings[id] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        List<Store> stores = new ArrayList<>(storeCount);
+        String[] values = new String[STRING_FIELDS.size()];
+        for (int i = 0; i < storeCount; i++) {
+            int record = recordsOffset + i * RECORD_BYTES;
+            for (int field = 0; field < values.length; field++) {
+                int id = buffer.getInt(record + 16 + field * 4);
+                values[field] = id < 0 ? null : strings[id];
+            }
+            byte flags = buffer.get(record + 16 + values.length * 4);
+
+            stores.add(toStore(buffer.getDouble(record), buffer.getDouble(record + 8), values, flags));
+        }
+        return stores;
+    }
+
+    /**
+     * Writes a single store with its strings inline, for record-at-a-time formats such as the
+     * {@link StoreChangeLog}.
+     */
+    static void writeStore(DataOutput out, Store store) throws IOException {
+        out.writeDouble(store.getLatitude() != null ? store.getLatitude() : Double.NaN);
+        out.writeDouble(store.getLongitude() != null ? store.getLongitude() : Double.NaN);
+        for (Function<Store, String> field : STRING_FIELDS) {
+            String value = field.apply(store);
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeUTF(value);
+            }
+        }
+        out.writeByte(encodeFlag(store.getShowWarningMessage()) | encodeFlag(store.getCollectionPoint()) << 2);
+    }
+
+    static Store readStore(DataInput in) throws IOException {
+        double latitude = in.readDouble();
+        double longitude = in.readDouble();
+        String[] values = new String[STRING_FIELDS.size()];
+        for (int field = 0; field < values.length; field++) {
+            values[field] = in.readBoolean() ? in.readUTF() : null;
+        }
+        return toStore(latitude, longitude, values, in.readByte());
+    }
+
+    private static Store toStore(double latitude, double longitude, String[] values, byte flags) {
+        return Store.builder()
+                .latitude(decodeCoordinate(latitude))
+                .longitude(decodeCoordinate(longitude))
+                .city(values[0])
+                .postalCode(values[1])
+                .street(values[2])
+                .street2(values[3])
+                .street3(values[4])
+                .addressName(values[5])
+                .uuid(values[6])
+                .complexNumber(values[7])
+                .todayOpen(values[8])
+                .locationType(values[9])
+                .sapStoreID(values[10])
+                .todayClose(values[11])
+                .showWarningMessage(decodeFlag(flags & 0b11))
+                .collectionPoint(decodeFlag(flags >> 2 & 0b11))
+                .build();
+    }
+
+    private static int encodeFlag(Boolean value) {
+        if (value == null) {
+            return 0;
+        }
+        return value ? 2 : 1;
+    }
+
+    private static Boolean decodeFlag(int value) {
+        return value == 0 ? null : value == 2;
+    }
+
+    private static Double decodeCoordinate(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
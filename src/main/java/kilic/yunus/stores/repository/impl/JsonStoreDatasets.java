@@ -0,0 +1,85 @@
+package kilic.yunus.stores.repository.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+import kilic.yunus.stores.config.StoreDataProperties;
+import kilic.yunus.stores.exception.StoreDataException;
+import kilic.yunus.stores.repository.StoreDatasets;
+import kilic.yunus.stores.repository.StoreRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The default data set ({@link JsonStoreRepository} bean) plus one {@link JsonStoreRepository} per
+ * data set configured under {@code stores.data.datasets.<name>}. Additional data sets are loaded at
+ * startup after the default one, and the application does not start if any of them is invalid.
+ *
+ * <p>All data sets share the JVM, the parser and validator, and the reload settings. Everything
+ * derived from the stores (snapshot, UUID lookup, generations, change log, cached results) is kept
+ * per data set.
+ */
+@Slf4j
+@Component
+public class JsonStoreDatasets implements StoreDatasets {
+
+    // Names end up in URLs, cache names and change log directories
+    private static final Pattern NAME = Pattern.compile("[a-z0-9][a-z0-9-]*");
+
+    private final Map<String, StoreRepository> repositories;
+    private final List<JsonStoreRepository> additionalRepositories = new ArrayList<>();
+
+    public JsonStoreDatasets(
+            StoreRepository defaultRepository,
+            ObjectMapper objectMapper,
+            Validator validator,
+            ApplicationEventPublisher eventPublisher,
+            StoreDataProperties properties) {
+        Map<String, StoreRepository> byName = new LinkedHashMap<>();
+        byName.put(DEFAULT, defaultRepository);
+        properties.getDatasets().forEach((name, dataset) -> {
+            if (!NAME.matcher(name).matches() || DEFAULT.equals(name)) {
+                throw new StoreDataException("Invalid store data set name '" + name
+                        + "', use lower-case letters, digits and dashes other than '" + DEFAULT + "'");
+            }
+            if (dataset.getFile() == null) {
+                throw new StoreDataException("No file configured for store data set " + name);
+            }
+            JsonStoreRepository repository = new JsonStoreRepository(
+                    name, objectMapper, validator, eventPublisher, properties.forDataset(name, dataset));
+            additionalRepositories.add(repository);
+            byName.put(name, repository);
+        });
+        this.repositories = Collections.unmodifiableMap(byName);
+    }
+
+    @PostConstruct
+    public void loadDatasets() {
+        for (JsonStoreRepository repository : additionalRepositories) {
+            repository.loadStores();
+        }
+        log.info("Serving {} store data set(s): {}", repositories.size(), repositories.keySet());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        for (JsonStoreRepository repository : additionalRepositories) {
+            repository.close();
+        }
+    }
+
+    @Override
+    public Map<String, StoreRepository> repositories() {
+        return repositories;
+    }
+}
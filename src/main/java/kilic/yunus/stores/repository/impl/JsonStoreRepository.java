@@ -1,128 +1,584 @@
 package kilic.yunus.stores.repository.impl;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
-import jakarta.validation.ConstraintViolation;
+import jakarta.annotation.PreDestroy;
 import jakarta.validation.Validator;
+import kilic.yunus.stores.config.StoreDataProperties;
 import kilic.yunus.stores.exception.StoreDataException;
 import kilic.yunus.stores.model.domain.Store;
+import kilic.yunus.stores.repository.StoreDataChangedEvent;
+import kilic.yunus.stores.repository.StoreDatasets;
+import kilic.yunus.stores.repository.StoreIndexStatus;
 import kilic.yunus.stores.repository.StoreRepository;
+import kilic.yunus.stores.repository.StoreSnapshot;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Repository;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Repository implementation that loads stores from JSON file. Stores are loaded once at startup and
- * kept in memory.
+ * Repository implementation that loads stores from JSON file, or from a prebuilt
+ * {@link BinaryStoreSnapshot} when the file name ends with {@code .snapshot}. Stores are kept in
+ * memory as an immutable {@link StoreSnapshot}. Every successful load publishes a new dataset
+ * generation together with a {@link StoreDataChangedEvent}.
+ *
+ * <p>The file is loaded at startup and can be reloaded at runtime, on demand or whenever it changes
+ * on disk ({@code stores.data.watch.enabled}). A reload parses, validates and indexes the new data on
+ * a background thread and then publishes it with a single reference swap. Readers never lock, and
+ * a reader holding a snapshot keeps a consistent view of its generation. If the new data is invalid,
+ * the current generation stays in place.
+ *
+ * <p>Single stores can also be added, replaced or removed at runtime ({@link #upsert},
+ * {@link #delete}). These changes derive the next generation from the current snapshot without a
+ * rebuild. Without a change log they only live in memory and a later reload replaces them with the
+ * content of the file. With {@code stores.data.change-log.enabled} every change is appended to a
+ * {@link StoreChangeLog} and only published once it is on disk, and the log is replayed on top of the
+ * data file on every load. Once enough changes have been logged, the current state is compacted into a base
+ * snapshot in the background, which later loads use instead of the data file. Logged changes belong to
+ * the data file they were made on: once that file changes, the next load discards all of them,
+ * compacted or not, and starts from the new file.
+ *
+ * <p>Every published snapshot is searchable right away. Unless {@code stores.data.spatial-index.enabled}
+ * is switched off, its spatial index is built afterwards by a {@link StoreGridIndexBuilder}, and
+ * searches switch from scanning all stores to the index once it is attached to the snapshot.
+ *
+ * <p>The Spring bean holds the default data set, {@link JsonStoreDatasets} creates one more instance
+ * per additional data set.
  */
 @Slf4j
 @Repository
 public class JsonStoreRepository implements StoreRepository {
 
-    private final Map<String, Store> storeCache = new ConcurrentHashMap<>();
-    private final ObjectMapper objectMapper;
-    private final Validator validator;
+    private final String dataset;
+    private volatile StoreSnapshot snapshot = StoreSnapshot.EMPTY;
+    private final AtomicLong generation = new AtomicLong();
+    // Serializes writers only, so generations are published in order. Not a monitor, writers append
+    // to the change log while holding it and must not pin the carrier of a virtual request thread
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private final StoreDataFiles storeDataFiles;
+    private final StoreDataValidator storeDataValidator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StoreDataProperties properties;
     private final Resource storeDataFile;
+    private final ExecutorService reloadExecutor;
+    private final StoreGridIndexBuilder gridIndexBuilder;
+    private CompletableFuture<StoreSnapshot> queuedReload;
+    private StoreDataFileWatcher fileWatcher;
+    private StoreChangeLog changeLog;
+    // Data file the current generation was derived from, written while holding publishLock
+    private volatile String loadedSource;
+    private final AtomicBoolean compactionQueued = new AtomicBoolean();
+    // Shared instances of repeated attribute values, rebuilt on every load, guarded by publishLock
+    private StoreAttributeDictionary attributeDictionary = new StoreAttributeDictionary();
+    // Logged changes waiting to be durable before they are published, in log order, guarded by publishLock
+    private final ArrayDeque<PendingChange> pendingChanges = new ArrayDeque<>();
 
+    @Autowired
     public JsonStoreRepository(
             ObjectMapper objectMapper,
             Validator validator,
-            @Value("${stores.data.file:classpath:stores.json}") Resource storeDataFile) {
-        this.objectMapper = objectMapper;
-        this.validator = validator;
-        this.storeDataFile = storeDataFile;
+            ApplicationEventPublisher eventPublisher,
+            StoreDataProperties properties) {
+        this(StoreDatasets.DEFAULT, objectMapper, validator, eventPublisher, properties);
+    }
+
+    public JsonStoreRepository(
+            String dataset,
+            ObjectMapper objectMapper,
+            Validator validator,
+            ApplicationEventPublisher eventPublisher,
+            StoreDataProperties properties) {
+        this.dataset = dataset;
+        this.storeDataFiles = new StoreDataFiles(new StoreJsonReader(objectMapper), properties.getValidationParallelism());
+        this.storeDataValidator = new StoreDataValidator(validator, properties.getValidationParallelism());
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.storeDataFile = properties.getFile();
+        this.reloadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            String threadName = StoreDatasets.DEFAULT.equals(dataset)
+                    ? "store-data-reload"
+                    : "store-data-reload-" + dataset;
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.gridIndexBuilder = properties.getSpatialIndex().isEnabled()
+                ? new StoreGridIndexBuilder(dataset, this::snapshot)
+                : null;
     }
 
     @PostConstruct
     public void loadStores() {
-        log.info("Loading stores from: {}", storeDataFile);
+        try {
+            if (properties.getChangeLog().isEnabled()) {
+                openChangeLog();
+            }
+            loadAndPublish(false);
+        } catch (StoreDataException e) {
+            log.error("FATAL: Cannot start application - store data invalid", e);
+            throw e;
+        }
+        if (properties.getWatch().isEnabled()) {
+            startFileWatcher();
+        }
+    }
 
-        try (InputStream inputStream = storeDataFile.getInputStream()) {
-            // Read JSON structure
-            JsonNode rootNode = objectMapper.readTree(inputStream);
+    @Override
+    public synchronized CompletableFuture<StoreSnapshot> reload() {
+        // A reload that has not started yet will pick up the latest file content anyway
+        if (queuedReload != null) {
+            return queuedReload;
+        }
+        CompletableFuture<StoreSnapshot> reload = new CompletableFuture<>();
+        queuedReload = reload;
+        reloadExecutor.execute(() -> {
+            synchronized (this) {
+                queuedReload = null;
+            }
+            try {
+                reload.complete(loadAndPublish(true));
+            } catch (RuntimeException e) {
+                log.error("Reload of {} failed, keeping store data generation {} of data set {}",
+                        storeDataFile, snapshot.generation(), dataset, e);
+                reload.completeExceptionally(e);
+            }
+        });
+        return reload;
+    }
+
+    @Override
+    public StoreSnapshot upsert(Store store) {
+        storeDataValidator.validate(List.of(store));
+        StoreSnapshot updated = change(new StoreChangeLog.Upsert(store)).orElseThrow();
+        log.debug("Upserted store {}, published store data generation {}", store.getUuid(), updated.generation());
+        return updated;
+    }
+
+    @Override
+    public Optional<StoreSnapshot> delete(String uuid) {
+        Optional<StoreSnapshot> updated = change(new StoreChangeLog.Delete(uuid));
+        updated.ifPresent(deleted ->
+                log.debug("Deleted store {}, published store data generation {}", uuid, deleted.generation()));
+        return updated;
+    }
 
-            // The JSON structure has "stores" as the root key
-            JsonNode storesNode = rootNode.get("stores");
+    /**
+     * Publishes a change once it is durable. The change waits for its fsync outside of
+     * {@link #publishLock}, so concurrent changes share it, and is then published together with every
+     * earlier change in log order. A change that could not be made durable is not published.
+     *
+     * @return snapshot containing the change, empty if a deleted store does not exist
+     */
+    private Optional<StoreSnapshot> change(StoreChangeLog.Change change) {
+        long logPosition;
+        publishLock.lock();
+        try {
+            if (change instanceof StoreChangeLog.Delete delete && !exists(delete.uuid())) {
+                return Optional.empty();
+            }
+            if (changeLog == null) {
+                StoreSnapshot updated = apply(snapshot, change);
+                publish(updated);
+                return Optional.of(updated);
+            }
+            logPosition = logChange(change);
+            pendingChanges.add(new PendingChange(logPosition, change));
+        } finally {
+            publishLock.unlock();
+        }
 
-            if (storesNode == null) {
-                throw new StoreDataException("Invalid JSON structure: 'stores' key not found");
+        try {
+            awaitDurable(logPosition);
+        } catch (StoreDataException e) {
+            publishLock.lock();
+            try {
+                pendingChanges.removeIf(pending -> pending.logPosition() == logPosition);
+            } finally {
+                publishLock.unlock();
             }
+            throw e;
+        }
 
-            // Parse stores array
-            List<Store> stores =
-                    objectMapper.convertValue(storesNode, new TypeReference<>() {
-                    });
-
-            // Validate each store
-            int invalidCount = 0;
-            StringBuilder validationErrors = new StringBuilder();
-
-            for (int i = 0; i < stores.size(); i++) {
-                Store store = stores.get(i);
-                Set<ConstraintViolation<Store>> violations = validator.validate(store);
-
-                if (!violations.isEmpty()) {
-                    invalidCount++;
-                    validationErrors.append(String.format("%n[Store #%d - UUID: %s]:%n",
-                            i + 1, store.getUuid()));
-
-                    for (ConstraintViolation<Store> violation : violations) {
-                        validationErrors.append(String.format("  - %s: %s (value: %s)%n",
-                                violation.getPropertyPath(),
-                                violation.getMessage(),
-                                violation.getInvalidValue()));
-                    }
+        publishLock.lock();
+        try {
+            publishDurableChanges(logPosition);
+            return Optional.of(snapshot);
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Whether a store exists once the pending changes are published. Must be called while holding
+     * {@link #publishLock}.
+     */
+    private boolean exists(String uuid) {
+        Iterator<PendingChange> latestFirst = pendingChanges.descendingIterator();
+        while (latestFirst.hasNext()) {
+            switch (latestFirst.next().change()) {
+                case StoreChangeLog.Upsert upsert when upsert.store().getUuid().equals(uuid) -> {
+                    return true;
+                }
+                case StoreChangeLog.Delete delete when delete.uuid().equals(uuid) -> {
+                    return false;
+                }
+                default -> {
                 }
             }
+        }
+        return snapshot.indexOf(uuid) >= 0;
+    }
 
-            // Fail fast if any validation errors found
-            if (invalidCount > 0) {
-                String errorMessage = String.format(
-                        "Store data validation failed! %d out of %d stores have validation errors:%s",
-                        invalidCount, stores.size(), validationErrors);
+    /**
+     * Publishes the pending changes up to {@code logPosition}, which are on disk. Must be called
+     * while holding {@link #publishLock}.
+     */
+    private void publishDurableChanges(long logPosition) {
+        StoreSnapshot next = snapshot;
+        while (!pendingChanges.isEmpty() && pendingChanges.peekFirst().logPosition() <= logPosition) {
+            next = apply(next, pendingChanges.pollFirst().change());
+        }
+        if (next != snapshot) {
+            publish(next);
+        }
+    }
 
-                log.error(errorMessage);
-                throw new StoreDataException(errorMessage);
+    /**
+     * Must be called while holding {@link #publishLock}.
+     */
+    private StoreSnapshot apply(StoreSnapshot current, StoreChangeLog.Change change) {
+        return switch (change) {
+            case StoreChangeLog.Upsert upsert -> {
+                attributeDictionary.canonicalize(upsert.store());
+                yield current.withStore(generation.incrementAndGet(), upsert.store());
             }
+            // Gone if the upsert before it was not made durable
+            case StoreChangeLog.Delete delete -> current.indexOf(delete.uuid()) < 0
+                    ? current
+                    : current.withoutStore(generation.incrementAndGet(), delete.uuid());
+        };
+    }
 
-            stores.forEach(
-                    store -> {
-                        if (store.getUuid() != null) {
-                            storeCache.put(store.getUuid(), store);
-                        }
-                    });
+    /**
+     * Must be called while holding {@link #publishLock}, so changes are logged in publishing order.
+     *
+     * @return log position to wait for, -1 without a change log
+     */
+    private long logChange(StoreChangeLog.Change change) {
+        if (changeLog == null) {
+            return -1;
+        }
+        try {
+            return changeLog.append(change);
+        } catch (IOException e) {
+            throw new StoreDataException("Failed to write store change log", e);
+        }
+    }
 
-            log.info("Successfully validated and loaded {} stores", storeCache.size());
-            long storesWithLocation = stores.stream().filter(Store::hasValidLocation).count();
-            log.info("Stores with valid location: {}", storesWithLocation);
+    private void awaitDurable(long logPosition) {
+        if (logPosition < 0) {
+            return;
+        }
+        try {
+            changeLog.awaitDurable(logPosition);
+        } catch (IOException e) {
+            throw new StoreDataException("Failed to write store change log", e);
+        }
+        if (changeLog.activeEntries() >= properties.getChangeLog().getCompactionThreshold()
+                && compactionQueued.compareAndSet(false, true)) {
+            reloadExecutor.execute(this::compactChangeLog);
+        }
+    }
 
-        } catch (StoreDataException e) {
-            log.error("FATAL: Cannot start application - store data invalid", e);
-            throw e;
+    /**
+     * Folds the logged changes into a new base snapshot. Only sealing the log segment happens under
+     * {@link #publishLock}, the snapshot is written while changes keep coming in. Runs on the reload
+     * thread, so no load can discard the log meanwhile.
+     */
+    void compactChangeLog() {
+        compactionQueued.set(false);
+        try {
+            StoreSnapshot base;
+            long segment;
+            publishLock.lock();
+            try {
+                // Sealing forces the segment, so every pending change in it is durable and part of the base
+                segment = changeLog.rotate();
+                publishDurableChanges(Long.MAX_VALUE);
+                base = snapshot;
+            } finally {
+                publishLock.unlock();
+            }
+            changeLog.writeBase(base.stores(), segment);
+        } catch (IOException e) {
+            log.error("Failed to compact store change log, changes stay in the log", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        reloadExecutor.shutdownNow();
+        if (gridIndexBuilder != null) {
+            gridIndexBuilder.close();
+        }
+        if (fileWatcher != null) {
+            fileWatcher.close();
+        }
+        if (changeLog != null) {
+            changeLog.close();
+        }
+    }
+
+    private void openChangeLog() {
+        StoreDataProperties.ChangeLog settings = properties.getChangeLog();
+        try {
+            changeLog = StoreChangeLog.open(settings.getDirectory(), settings.getSyncInterval());
+        } catch (IOException e) {
+            throw new StoreDataException("Failed to open store change log in " + settings.getDirectory(), e);
+        }
+    }
+
+    private synchronized void startFileWatcher() {
+        if (fileWatcher != null) {
+            return;
+        }
+        if (!storeDataFile.isFile()) {
+            log.warn("Not watching {} for changes, it is not on the file system", storeDataFile);
+            return;
+        }
+        try {
+            fileWatcher = new StoreDataFileWatcher(
+                    storeDataFile.getFile().toPath(), properties.getWatch().getDebounce(), this::reload);
+            fileWatcher.start();
+        } catch (IOException e) {
+            log.error("Cannot watch {} for changes", storeDataFile, e);
+        }
+    }
+
+    /**
+     * Reads, validates and deduplicates the stores outside of {@link #publishLock}, so changes keep
+     * being published meanwhile. Only discarding or replaying the change log and the swap itself hold
+     * it. Runs on the reload thread, or at startup before any change, so no compaction runs
+     * concurrently.
+     *
+     * @param skipUnchanged whether to keep the current snapshot if the data file is unchanged since it
+     *                      was last loaded, instead of publishing its content as a new load generation
+     */
+    private StoreSnapshot loadAndPublish(boolean skipUnchanged) {
+        long startedAt = System.nanoTime();
+        String source;
+        boolean sameSource;
+        StoreChangeLog.Base base = null;
+        Map<String, Store> storesByUuid;
+        StoreAttributeDictionary dictionary = new StoreAttributeDictionary();
+        try {
+            source = describeSource();
+            if (skipUnchanged && source.equals(loadedSource)) {
+                log.info("Store data file {} of data set {} is unchanged, keeping store data generation {}",
+                        storeDataFile, dataset, snapshot.generation());
+                return snapshot;
+            }
+            log.info("Loading stores of data set {} from: {}", dataset, storeDataFile);
+            sameSource = changeLog == null || source.equals(changeLog.source());
+            if (changeLog != null && sameSource) {
+                base = changeLog.latestBase();
+            }
+            List<Store> stores;
+            if (base != null) {
+                log.info("Using compacted store data {}", base.snapshot());
+                stores = BinaryStoreSnapshot.read(base.snapshot());
+            } else {
+                stores = BinaryStoreSnapshot.isSnapshotFile(storeDataFile.getFilename())
+                        ? readSnapshot()
+                        : readAndValidateJson();
+            }
+            storesByUuid = indexByUuid(stores);
+            storesByUuid.values().forEach(dictionary::canonicalize);
         } catch (IOException e) {
             log.error("Failed to load stores from JSON file", e);
             throw new StoreDataException("Failed to load store data", e);
         }
+
+        publishLock.lock();
+        try {
+            if (changeLog != null) {
+                try {
+                    if (!sameSource) {
+                        discardChangesOfOtherSource(source);
+                    }
+                    // Pending changes are replayed with the rest, so only once they are durable
+                    if (!pendingChanges.isEmpty()) {
+                        changeLog.awaitDurable(pendingChanges.getLast().logPosition());
+                    }
+                    replayChanges(base != null ? base.segment() : 0, storesByUuid, dictionary);
+                } catch (IOException e) {
+                    log.error("Failed to replay store change log", e);
+                    throw new StoreDataException("Failed to load store data", e);
+                }
+            }
+            loadedSource = source;
+            attributeDictionary = dictionary;
+
+            List<Store> uniqueStores = new ArrayList<>(storesByUuid.values());
+            log.debug("Shared {} distinct attribute values between {} stores", dictionary.size(), uniqueStores.size());
+            StoreSnapshot loaded = new StoreSnapshot(generation.incrementAndGet(), uniqueStores, properties.getStorage());
+            pendingChanges.clear();
+            publish(loaded);
+
+            log.info("Successfully validated and loaded {} stores in {} ms", loaded.size(),
+                    (System.nanoTime() - startedAt) / 1_000_000);
+            long storesWithLocation = uniqueStores.stream().filter(Store::hasValidLocation).count();
+            log.info("Stores with valid location: {}", storesWithLocation);
+
+            log.info("Published store data generation {} of data set {} ({} storage)",
+                    loaded.generation(), dataset, loaded.storage());
+            return loaded;
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Logged changes, compacted or not, only apply to the data file they were made on. A new data file
+     * replaces all of them, like a reload does without a change log.
+     */
+    private void discardChangesOfOtherSource(String source) throws IOException {
+        String logged = changeLog.source();
+        if (source.equals(logged)) {
+            return;
+        }
+        if (logged != null) {
+            log.info("Store data file {} of data set {} changed, discarding the logged store changes",
+                    storeDataFile, dataset);
+        }
+        changeLog.reset(source);
+    }
+
+    private void replayChanges(long afterSegment, Map<String, Store> storesByUuid,
+                               StoreAttributeDictionary dictionary) throws IOException {
+        long startedAt = System.nanoTime();
+        int replayed = changeLog.replay(afterSegment, change -> {
+            switch (change) {
+                case StoreChangeLog.Upsert upsert -> {
+                    dictionary.canonicalize(upsert.store());
+                    storesByUuid.put(upsert.store().getUuid(), upsert.store());
+                }
+                case StoreChangeLog.Delete delete -> storesByUuid.remove(delete.uuid());
+            }
+        });
+        log.info("Replayed {} logged store changes in {} ms", replayed, (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    /**
+     * Identifies the current content of the data file, so logged changes are only applied to the data
+     * file they were made on.
+     */
+    private String describeSource() throws IOException {
+        return StoreDataFiles.describe(storeDataFile);
+    }
+
+    /**
+     * Must be called while holding {@link #publishLock}.
+     */
+    private void publish(StoreSnapshot next) {
+        snapshot = next;
+        if (gridIndexBuilder != null && next.gridIndex() == null) {
+            gridIndexBuilder.schedule();
+        }
+        eventPublisher.publishEvent(new StoreDataChangedEvent(dataset, next.generation(), next.loadGeneration(),
+                next.size()));
+    }
+
+    private List<Store> readAndValidateJson() throws IOException {
+        long startedAt = System.nanoTime();
+        // Stream the "stores" array straight into Store objects
+        List<Store> stores = storeDataFiles.read(storeDataFile);
+
+        long parsedAt = System.nanoTime();
+        log.info("Parsed {} stores in {} ms", stores.size(), (parsedAt - startedAt) / 1_000_000);
+
+        // Validate all stores, fails with a report of every invalid store
+        storeDataValidator.validate(stores);
+        log.info("Validated {} stores in {} ms using {} thread(s)", stores.size(),
+                (System.nanoTime() - parsedAt) / 1_000_000, storeDataValidator.parallelism());
+        return stores;
+    }
+
+    /**
+     * Binary snapshots are validated when they are built, so they are only mapped and decoded here.
+     */
+    private List<Store> readSnapshot() throws IOException {
+        if (storeDataFile.isFile()) {
+            return BinaryStoreSnapshot.read(storeDataFile.getFile().toPath());
+        }
+        // Not on the file system (e.g. inside the application jar), so it cannot be mapped
+        try (InputStream inputStream = storeDataFile.getInputStream()) {
+            return BinaryStoreSnapshot.read(ByteBuffer.wrap(inputStream.readAllBytes()));
+        }
+    }
+
+    /**
+     * Later duplicates of a UUID replace earlier ones, file order is kept otherwise.
+     */
+    static List<Store> uniqueByUuid(List<Store> stores) {
+        return new ArrayList<>(indexByUuid(stores).values());
+    }
+
+    private static Map<String, Store> indexByUuid(List<Store> stores) {
+        Map<String, Store> storesByUuid = LinkedHashMap.newLinkedHashMap(stores.size());
+        stores.forEach(
+                store -> {
+                    if (store.getUuid() != null) {
+                        storesByUuid.put(store.getUuid(), store);
+                    }
+                });
+        return storesByUuid;
+    }
+
+    private record PendingChange(long logPosition, StoreChangeLog.Change change) {
+    }
+
+    @Override
+    public String dataset() {
+        return dataset;
+    }
+
+    @Override
+    public StoreIndexStatus indexStatus() {
+        return gridIndexBuilder != null ? gridIndexBuilder.status() : StoreIndexStatus.DISABLED;
     }
 
     @Override
     public List<Store> findAll() {
-        return new ArrayList<>(storeCache.values());
+        return new ArrayList<>(snapshot.stores());
     }
 
     @Override
     public int count() {
-        return storeCache.size();
+        return snapshot.size();
+    }
+
+    @Override
+    public StoreSnapshot snapshot() {
+        return snapshot;
     }
 }
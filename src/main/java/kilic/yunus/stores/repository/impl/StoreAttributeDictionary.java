@@ -0,0 +1,52 @@
+package kilic.yunus.stores.repository.impl;
+
+import kilic.yunus.stores.model.domain.Store;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Replaces repeated values of low-cardinality store attributes (city, street additions) with one
+ * shared instance per distinct value. Opening times and location type need no entry here, the
+ * {@link kilic.yunus.stores.repository.CompactStore} form packs them into codes.
+ *
+ * <p>The JSON parser creates a new {@code String} for every occurrence, so without this a data set
+ * of a few hundred thousand stores keeps hundreds of thousands of copies of the same city. Stores
+ * expose the same values as before, only the duplicates become garbage. Not thread-safe, callers
+ * serialize access (the repository only uses it while publishing).
+ */
+final class StoreAttributeDictionary {
+
+    private record Attribute(Function<Store, String> getter, BiConsumer<Store, String> setter) {
+    }
+
+    private static final List<Attribute> ATTRIBUTES = List.of(
+            new Attribute(Store::getCity, Store::setCity),
+            new Attribute(Store::getStreet2, Store::setStreet2),
+            new Attribute(Store::getStreet3, Store::setStreet3));
+
+    private final Map<String, String> canonicalValues = new HashMap<>();
+
+    void canonicalize(List<Store> stores) {
+        stores.forEach(this::canonicalize);
+    }
+
+    void canonicalize(Store store) {
+        for (Attribute attribute : ATTRIBUTES) {
+            String value = attribute.getter().apply(store);
+            if (value != null) {
+                attribute.setter().accept(store, canonicalValues.computeIfAbsent(value, Function.identity()));
+            }
+        }
+    }
+
+    /**
+     * @return number of distinct values
+     */
+    int size() {
+        return canonicalValues.size();
+    }
+}
@@ -0,0 +1,562 @@
+package kilic.yunus.stores.repository.impl;
+
+import kilic.yunus.stores.model.domain.Store;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of single-store changes, so changes made at runtime survive a restart.
+ *
+ * <p>The log is a sequence of numbered segment files of length-prefixed, checksummed records.
+ * Appends only write to the page cache, a background thread forces the active segment to disk, and
+ * every change appended while an fsync is running is covered by the next one, so concurrent writers
+ * share fsyncs (group commit). {@link #awaitDurable}
+ * blocks until a record is on disk. A torn record at the end of the active segment (a crash during
+ * an append) is cut off when the log is opened, any other corrupt record fails opening or replaying
+ * the log.
+ *
+ * <p>Compaction folds the log into a base snapshot: {@link #rotate} seals the active segment, the
+ * caller writes the matching state with {@link #writeBase}, and sealed segments are deleted once the
+ * base is in place. Base {@code N} contains every change of segments {@code <= N}, so a crash at any
+ * point leaves either the old base plus all segments or the new base plus the segments after it.
+ *
+ * <p>Logged changes belong to the data file they were made on, which the log records as its source.
+ * {@link #reset} discards every segment and base before it records a new source, so a crash in
+ * between leaves the old source, and the next load discards the rest.
+ */
+@Slf4j
+final class StoreChangeLog implements AutoCloseable {
+
+    sealed interface Change permits Upsert, Delete {
+    }
+
+    record Upsert(Store store) implements Change {
+    }
+
+    record Delete(String uuid) implements Change {
+    }
+
+    /**
+     * Compacted base snapshot containing every change of the segments up to {@code segment}.
+     */
+    record Base(long segment, Path snapshot) {
+    }
+
+    private static final int MAGIC = 0x5354434C; // "STCL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int FRAME_HEADER_BYTES = 8;
+    private static final byte UPSERT = 1;
+    private static final byte DELETE = 2;
+
+    private static final Pattern SEGMENT_FILE = Pattern.compile("changes-(\\d+)\\.log");
+    private static final Pattern BASE_FILE = Pattern.compile("base-(\\d+)\\" + BinaryStoreSnapshot.FILE_EXTENSION);
+    private static final String SOURCE_FILE = "changes.source";
+
+    private final Path directory;
+    private final Duration syncInterval;
+    private final Thread syncThread;
+    // Not a monitor, writers wait for fsyncs in request threads, which may be virtual threads
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    // Guarded by lock. Positions count bytes appended since the log was opened, across segments.
+    private FileChannel active;
+    private long activeSegment;
+    private long appended;
+    private long synced;
+    private int activeEntries;
+    private IOException failure;
+    private boolean closed;
+
+    private StoreChangeLog(Path directory, Duration syncInterval, long activeSegment, FileChannel active,
+                           int activeEntries) {
+        this.directory = directory;
+        this.syncInterval = syncInterval;
+        this.activeSegment = activeSegment;
+        this.active = active;
+        this.activeEntries = activeEntries;
+        this.syncThread = new Thread(this::syncLoop, "store-change-log-sync");
+        this.syncThread.setDaemon(true);
+    }
+
+    /**
+     * Opens the log in the given directory, creating it if needed, and starts the sync thread.
+     */
+    static StoreChangeLog open(Path directory, Duration syncInterval) throws IOException {
+        Files.createDirectories(directory);
+        List<Long> segments = numberedFiles(directory, SEGMENT_FILE);
+        long activeSegment = segments.isEmpty() ? 1 : segments.getLast();
+
+        FileChannel active;
+        int entries = 0;
+        Path activeFile = segmentFile(directory, activeSegment);
+        if (Files.exists(activeFile) && Files.size(activeFile) < HEADER_BYTES) {
+            // Crashed while creating the segment, nothing was appended to it yet
+            Files.delete(activeFile);
+        }
+        if (Files.exists(activeFile)) {
+            ValidPrefix valid = scan(activeFile, null, true);
+            entries = valid.entries();
+            active = FileChannel.open(activeFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (valid.length() < active.size()) {
+                log.warn("Truncating torn record at the end of {} ({} of {} bytes valid)",
+                        activeFile, valid.length(), active.size());
+                active.truncate(valid.length());
+                active.force(false);
+            }
+            active.position(valid.length());
+        } else {
+            active = createSegment(activeFile);
+        }
+
+        StoreChangeLog changeLog = new StoreChangeLog(directory, syncInterval, activeSegment, active, entries);
+        changeLog.syncThread.start();
+        return changeLog;
+    }
+
+    /**
+     * Appends a change. The change is not durable before {@link #awaitDurable} returns for the
+     * returned position.
+     *
+     * @return log position right after the change
+     */
+    long append(Change change) throws IOException {
+        ByteBuffer frame = encode(change);
+        lock.lock();
+        try {
+            ensureUsable();
+            try {
+                while (frame.hasRemaining()) {
+                    active.write(frame);
+                }
+            } catch (IOException e) {
+                // A partial record would hide every later record from replay
+                failure = e;
+                changed.signalAll();
+                throw e;
+            }
+            appended += frame.limit();
+            activeEntries++;
+            changed.signalAll();
+            return appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until every change up to {@code position} has been forced to disk.
+     */
+    void awaitDurable(long position) throws IOException {
+        lock.lock();
+        try {
+            while (synced < position) {
+                ensureUsable();
+                try {
+                    changed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the store change log");
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of changes in the active segment, i.e. since the last compaction started
+     */
+    int activeEntries() {
+        lock.lock();
+        try {
+            return activeEntries;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Seals the active segment and starts a new one. Changes appended before this call are part of
+     * the sealed segments.
+     *
+     * @return number of the sealed segment
+     */
+    long rotate() throws IOException {
+        lock.lock();
+        try {
+            ensureUsable();
+            active.force(false);
+            active.close();
+            synced = appended;
+            long sealed = activeSegment;
+            activeSegment++;
+            active = createSegment(segmentFile(directory, activeSegment));
+            activeEntries = 0;
+            changed.signalAll();
+            return sealed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return identifies the data file the logged changes were made on, null if none was recorded yet
+     */
+    String source() throws IOException {
+        Path sourceFile = directory.resolve(SOURCE_FILE);
+        return Files.exists(sourceFile) ? Files.readString(sourceFile, StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Discards every logged change and base and records {@code source} as the data file of the
+     * changes appended from now on. Must not run concurrently with {@link #append} or compaction.
+     */
+    void reset(String source) throws IOException {
+        lock.lock();
+        try {
+            ensureUsable();
+            // Waiting writers return, their changes are discarded with the rest
+            synced = appended;
+            activeEntries = 0;
+            try {
+                active.close();
+                for (long segment : numberedFiles(directory, SEGMENT_FILE)) {
+                    Files.deleteIfExists(segmentFile(directory, segment));
+                }
+                for (long base : numberedFiles(directory, BASE_FILE)) {
+                    Files.deleteIfExists(baseFile(directory, base));
+                }
+                // Only once the old changes are gone, they must never be replayed on top of the new source
+                writeAtomically(directory.resolve(SOURCE_FILE),
+                        tmp -> Files.writeString(tmp, source, StandardCharsets.UTF_8));
+                activeSegment++;
+                active = createSegment(segmentFile(directory, activeSegment));
+            } catch (IOException e) {
+                // The active segment is closed, appends cannot continue
+                failure = e;
+                throw e;
+            } finally {
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the latest base snapshot, or null if there is none
+     */
+    Base latestBase() throws IOException {
+        List<Long> bases = numberedFiles(directory, BASE_FILE);
+        if (bases.isEmpty()) {
+            return null;
+        }
+        long segment = bases.getLast();
+        return new Base(segment, baseFile(directory, segment));
+    }
+
+    /**
+     * Replays, in order, every change of the segments after {@code afterSegment}. Must not run
+     * concurrently with {@link #append}.
+     *
+     * @return number of replayed changes
+     * @throws IOException if a segment contains a corrupt record, nothing after it is replayed
+     */
+    int replay(long afterSegment, Consumer<Change> consumer) throws IOException {
+        int replayed = 0;
+        for (long segment : numberedFiles(directory, SEGMENT_FILE)) {
+            if (segment > afterSegment) {
+                // A torn tail of the active segment was cut off when the log was opened
+                replayed += scan(segmentFile(directory, segment), consumer, false).entries();
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Writes the compacted state of every change up to and including {@code segment} as the new base,
+     * then deletes older bases and the segments it contains.
+     */
+    void writeBase(List<Store> stores, long segment) throws IOException {
+        Path baseFile = baseFile(directory, segment);
+        writeAtomically(baseFile, tmp -> BinaryStoreSnapshot.write(stores, tmp));
+
+        for (long base : numberedFiles(directory, BASE_FILE)) {
+            if (base < segment) {
+                Files.deleteIfExists(baseFile(directory, base));
+            }
+        }
+        for (long sealed : numberedFiles(directory, SEGMENT_FILE)) {
+            if (sealed <= segment) {
+                Files.deleteIfExists(segmentFile(directory, sealed));
+            }
+        }
+        log.info("Compacted store change log into {} ({} stores)", baseFile, stores.size());
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (failure == null) {
+                    active.force(false);
+                    synced = appended;
+                }
+            } finally {
+                active.close();
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void syncLoop() {
+        try {
+            while (true) {
+                lock.lock();
+                try {
+                    while (synced == appended && !closed && failure == null) {
+                        changed.await();
+                    }
+                    if (closed || failure != null) {
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                // Optionally wait for more writers to join this fsync
+                if (syncInterval.isPositive()) {
+                    Thread.sleep(syncInterval);
+                }
+                sync();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sync() {
+        FileChannel channel;
+        long target;
+        lock.lock();
+        try {
+            channel = active;
+            target = appended;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            channel.force(false);
+            lock.lock();
+            try {
+                synced = Math.max(synced, target);
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        } catch (IOException e) {
+            lock.lock();
+            try {
+                if (e instanceof ClosedChannelException && (channel != active || closed)) {
+                    // Rotated or closed meanwhile, which forces the segment itself
+                    return;
+                }
+                log.error("Failed to sync store change log, rejecting further changes", e);
+                failure = e;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void ensureUsable() throws IOException {
+        if (failure != null) {
+            throw new IOException("Store change log is unusable after an earlier failure", failure);
+        }
+        if (closed) {
+            throw new IOException("Store change log is closed");
+        }
+    }
+
+    private static ByteBuffer encode(Change change) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        switch (change) {
+            case Upsert upsert -> {
+                out.writeByte(UPSERT);
+                BinaryStoreSnapshot.writeStore(out, upsert.store());
+            }
+            case Delete delete -> {
+                out.writeByte(DELETE);
+                out.writeUTF(delete.uuid());
+            }
+        }
+        byte[] payload = bytes.toByteArray();
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return ByteBuffer.allocate(FRAME_HEADER_BYTES + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+    }
+
+    private static Change decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        return switch (type) {
+            case UPSERT -> new Upsert(BinaryStoreSnapshot.readStore(in));
+            case DELETE -> new Delete(in.readUTF());
+            default -> throw new IOException("Unknown store change type " + type);
+        };
+    }
+
+    private record ValidPrefix(long length, int entries) {
+    }
+
+    /**
+     * Reads every record of a segment. Appends only ever write at the end of the active segment, so
+     * only there a record may be incomplete or corrupt after a crash: a record that ends past the end
+     * of the file, is cut off by it, or is followed by nothing but zeros. Anything else is corruption
+     * of records that were already durable.
+     *
+     * @param consumer        receives the decoded changes, null to only find the valid prefix
+     * @param tornTailAllowed whether to stop at a torn record at the end instead of failing
+     * @throws IOException if a record is corrupt, naming the segment and the offset of the record
+     */
+    private static ValidPrefix scan(Path segment, Consumer<Change> consumer, boolean tornTailAllowed)
+            throws IOException {
+        long size = Files.size(segment);
+        try (InputStream fileIn = Files.newInputStream(segment);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn, 1 << 16))) {
+            if (size < HEADER_BYTES || in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a store change log segment: " + segment);
+            }
+            long length = HEADER_BYTES;
+            int entries = 0;
+            CRC32C crc = new CRC32C();
+            while (length < size) {
+                boolean torn;
+                if (size - length < FRAME_HEADER_BYTES) {
+                    torn = true;
+                } else {
+                    int payloadLength = in.readInt();
+                    int checksum = in.readInt();
+                    long frameEnd = length + FRAME_HEADER_BYTES + payloadLength;
+                    if (payloadLength <= 0 || payloadLength > 1 << 20) {
+                        torn = payloadLength == 0 && checksum == 0 && onlyZeros(in);
+                    } else if (frameEnd > size) {
+                        torn = true;
+                    } else {
+                        byte[] payload = in.readNBytes(payloadLength);
+                        crc.reset();
+                        crc.update(payload);
+                        if ((int) crc.getValue() == checksum) {
+                            if (consumer != null) {
+                                consumer.accept(decode(payload));
+                            }
+                            length = frameEnd;
+                            entries++;
+                            continue;
+                        }
+                        torn = frameEnd == size;
+                    }
+                }
+                if (!torn || !tornTailAllowed) {
+                    throw new IOException("Corrupt record in store change log segment " + segment
+                            + " at offset " + length + " of " + size);
+                }
+                break;
+            }
+            return new ValidPrefix(length, entries);
+        }
+    }
+
+    private static boolean onlyZeros(InputStream in) throws IOException {
+        int next;
+        while ((next = in.read()) != -1) {
+            if (next != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static FileChannel createSegment(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.write(ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip());
+        channel.force(true);
+        return channel;
+    }
+
+    private interface FileWriter {
+        void write(Path target) throws IOException;
+    }
+
+    private static void writeAtomically(Path target, FileWriter writer) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        writer.write(tmp);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static List<Long> numberedFiles(Path directory, Pattern pattern) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = pattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    numbers.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    private static Path segmentFile(Path directory, long segment) {
+        return directory.resolve(String.format("changes-%06d.log", segment));
+    }
+
+    private static Path baseFile(Path directory, long segment) {
+        return directory.resolve(String.format("base-%06d%s", segment, BinaryStoreSnapshot.FILE_EXTENSION));
+    }
+}
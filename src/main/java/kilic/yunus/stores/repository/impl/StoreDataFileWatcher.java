@@ -0,0 +1,96 @@
+package kilic.yunus.stores.repository.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a single file, or the shards of a data directory, with a {@link WatchService} and runs a
+ * callback once they have stopped changing for the debounce period.
+ *
+ * <p>The parent directory is watched rather than the file itself, so replacing the file with an
+ * atomic move (the recommended way to publish a new data file) is detected as well. For a data
+ * directory, adding, changing or removing any shard counts as a change.
+ */
+@Slf4j
+class StoreDataFileWatcher implements AutoCloseable {
+
+    private final Path file;
+    private final boolean directory;
+    private final Duration debounce;
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    StoreDataFileWatcher(Path file, Duration debounce, Runnable onChange) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.directory = Files.isDirectory(this.file);
+        this.debounce = debounce;
+        this.onChange = onChange;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        if (directory) {
+            this.file.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } else {
+            this.file.getParent().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        this.thread = new Thread(this::watch, "store-data-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+        log.info("Watching {} for changes", file);
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                if (isFileEvent(watchService.take())) {
+                    // Wait until the file has been quiet for the debounce period
+                    WatchKey next;
+                    while ((next = watchService.poll(debounce.toMillis(), TimeUnit.MILLISECONDS)) != null) {
+                        isFileEvent(next);
+                    }
+                    log.info("Detected change of {}", file);
+                    onChange.run();
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            log.debug("Stopped watching {}", file);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean isFileEvent(WatchKey key) {
+        boolean matches = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path changed && matches(changed)) {
+                matches = true;
+            }
+        }
+        key.reset();
+        return matches;
+    }
+
+    private boolean matches(Path changed) {
+        return directory ? StoreDataFiles.isShard(changed.toString()) : file.getFileName().equals(changed);
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
@@ -0,0 +1,176 @@
+package kilic.yunus.stores.repository.impl;
+
+import kilic.yunus.stores.exception.StoreDataException;
+import kilic.yunus.stores.model.domain.Store;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads JSON store data from a single file or from a directory of shards.
+ *
+ * <p>Files ending in {@code .gz} are decompressed while they are parsed, so neither the compressed
+ * nor the decompressed document is ever held in memory as a whole. A directory is read as the
+ * {@code *.json} and {@code *.json.gz} files directly inside it, several shards at a time, and the
+ * stores are concatenated in file name order. As with a single file, a later store replaces an
+ * earlier one with the same UUID.
+ */
+@Slf4j
+class StoreDataFiles {
+
+    private static final String JSON_EXTENSION = ".json";
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final StoreJsonReader storeJsonReader;
+    private final int parallelism;
+
+    /**
+     * @param parallelism number of shards read at the same time, values below 1 use all available
+     *                    processors
+     */
+    StoreDataFiles(StoreJsonReader storeJsonReader, int parallelism) {
+        this.storeJsonReader = storeJsonReader;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @throws StoreDataException if a directory has no shards, or a shard is not a store data file
+     * @throws IOException        if a single file cannot be read or parsed
+     */
+    List<Store> read(Resource resource) throws IOException {
+        Optional<Path> directory = directory(resource);
+        if (directory.isEmpty()) {
+            try (InputStream inputStream = open(resource.getInputStream(), resource.getFilename())) {
+                return storeJsonReader.read(inputStream);
+            }
+        }
+
+        List<Path> shards = shards(directory.get());
+        if (shards.isEmpty()) {
+            throw new StoreDataException("No store data files (*" + JSON_EXTENSION + ", *" + JSON_EXTENSION
+                    + GZIP_EXTENSION + ") in " + directory.get());
+        }
+        int threads = Math.min(parallelism, shards.size());
+        log.info("Reading {} store data shards from {} using {} thread(s)", shards.size(), directory.get(), threads);
+
+        List<Store> stores = new ArrayList<>();
+        if (threads <= 1) {
+            for (Path shard : shards) {
+                stores.addAll(readShard(shard));
+            }
+            return stores;
+        }
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads, shardThreadFactory())) {
+            List<Future<List<Store>>> results = new ArrayList<>(shards.size());
+            for (Path shard : shards) {
+                results.add(executor.submit(() -> readShard(shard)));
+            }
+            for (Future<List<Store>> result : results) {
+                stores.addAll(result.get());
+            }
+            return stores;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StoreDataException("Interrupted while reading store data shards", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof StoreDataException storeDataException
+                    ? storeDataException
+                    : new StoreDataException("Failed to read store data shards", e.getCause());
+        }
+    }
+
+    /**
+     * Identifies the current content of the resource, from the name, modification time and size of
+     * the file or of every shard.
+     */
+    static String describe(Resource resource) throws IOException {
+        Optional<Path> directory = directory(resource);
+        if (directory.isEmpty()) {
+            return resource.getDescription() + "|" + resource.lastModified() + "|" + resource.contentLength();
+        }
+        StringBuilder description = new StringBuilder(resource.getDescription());
+        for (Path shard : shards(directory.get())) {
+            description.append('|').append(shard.getFileName())
+                    .append('|').append(Files.getLastModifiedTime(shard).toMillis())
+                    .append('|').append(Files.size(shard));
+        }
+        return description.toString();
+    }
+
+    /**
+     * @return the directory the resource points to, empty for files and resources outside the file
+     * system
+     */
+    static Optional<Path> directory(Resource resource) {
+        // isFile() is also true for directories, it only tells whether getFile() works
+        if (!resource.isFile()) {
+            return Optional.empty();
+        }
+        try {
+            Path path = resource.getFile().toPath();
+            return Files.isDirectory(path) ? Optional.of(path) : Optional.empty();
+        } catch (IOException e) {
+            // Not on the file system, e.g. inside the application jar
+            return Optional.empty();
+        }
+    }
+
+    static boolean isShard(String fileName) {
+        return fileName.endsWith(JSON_EXTENSION) || fileName.endsWith(JSON_EXTENSION + GZIP_EXTENSION);
+    }
+
+    private static List<Path> shards(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> isShard(file.getFileName().toString()) && Files.isRegularFile(file))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private List<Store> readShard(Path shard) {
+        try (InputStream inputStream = open(Files.newInputStream(shard), shard.getFileName().toString())) {
+            List<Store> stores = storeJsonReader.read(inputStream);
+            log.debug("Read {} stores from {}", stores.size(), shard.getFileName());
+            return stores;
+        } catch (IOException | StoreDataException e) {
+            throw new StoreDataException("Invalid store data shard " + shard.getFileName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static InputStream open(InputStream inputStream, String fileName) throws IOException {
+        if (fileName == null || !fileName.endsWith(GZIP_EXTENSION)) {
+            return inputStream;
+        }
+        try {
+            return new GZIPInputStream(inputStream, BUFFER_SIZE);
+        } catch (IOException e) {
+            inputStream.close();
+            throw e;
+        }
+    }
+
+    private static ThreadFactory shardThreadFactory() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "store-data-shard-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,238 @@
+package kilic.yunus.stores.repository.impl;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kilic.yunus.stores.model.domain.Store;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Command line tool that writes synthetic store data files for load and scale testing.
+ *
+ * <p>Stores are clustered the way real ones are: every synthetic store is placed around a store of
+ * the bundled {@code stores.json.gz}, with a normally distributed offset of a few kilometers, and takes
+ * over its city and postal code area. A small share is scattered over the whole area instead. All
+ * other attributes follow the value distributions of the bundled data, and every store passes
+ * validation. The output only depends on the count and the seed.
+ *
+ * <p>Usage: {@code StoreDataGenerator <count> <target> [shards] [seed]}. The target is a JSON file
+ * ({@code .json} or {@code .json.gz}), or with more than one shard a directory that receives
+ * {@code stores-NNN.json.gz} shards (see {@link StoreDataFiles}). Files are written as a stream, so
+ * any count fits in memory.
+ */
+public final class StoreDataGenerator {
+
+    private static final double KM_PER_DEGREE = 111.32;
+    private static final double CLUSTER_SIGMA_KM = 4.0;
+    private static final double SCATTERED_SHARE = 0.05;
+    private static final String[] LOCATION_TYPES = {"Supermarkt", "SupermarktPuP", "PuP"};
+    private static final double[] LOCATION_TYPE_WEIGHTS = {0.75, 0.2, 0.05};
+    private static final String[] OPENING_TIMES = {"07:00", "08:00", "08:00", "08:00", "09:00"};
+    private static final String[] CLOSING_TIMES = {"20:00", "21:00", "21:00", "22:00"};
+
+    private final List<Store> templates;
+    private final long seed;
+    private final double minLatitude;
+    private final double maxLatitude;
+    private final double minLongitude;
+    private final double maxLongitude;
+
+    /**
+     * @param templates real stores the synthetic ones are clustered around, they must have a valid
+     *                  location
+     */
+    StoreDataGenerator(List<Store> templates, long seed) {
+        if (templates.isEmpty()) {
+            throw new IllegalArgumentException("At least one template store is needed");
+        }
+        this.templates = templates;
+        this.seed = seed;
+        this.minLatitude = templates.stream().mapToDouble(Store::getLatitude).min().orElseThrow();
+        this.maxLatitude = templates.stream().mapToDouble(Store::getLatitude).max().orElseThrow();
+        this.minLongitude = templates.stream().mapToDouble(Store::getLongitude).min().orElseThrow();
+        this.maxLongitude = templates.stream().mapToDouble(Store::getLongitude).max().orElseThrow();
+    }
+
+    /**
+     * @return generator clustering stores around the bundled {@code stores.json.gz}
+     */
+    static StoreDataGenerator withBundledTemplates(long seed) throws IOException {
+        try (InputStream inputStream =
+                     new GZIPInputStream(new ClassPathResource("stores.json.gz").getInputStream())) {
+            List<Store> stores = new StoreJsonReader(new ObjectMapper()).read(inputStream);
+            return new StoreDataGenerator(stores.stream().filter(Store::hasValidLocation).toList(), seed);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 4) {
+            System.err.println("Usage: StoreDataGenerator <count> <target.json|target.json.gz|directory> [shards] [seed]");
+            System.exit(2);
+        }
+        int count = Integer.parseInt(args[0]);
+        Path target = Path.of(args[1]);
+        int shards = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+        StoreDataGenerator generator = withBundledTemplates(seed);
+        if (shards > 1) {
+            generator.writeShards(count, shards, target);
+        } else {
+            generator.write(count, target);
+        }
+        System.out.printf("Wrote %d synthetic stores to %s%n", count, target);
+    }
+
+    /**
+     * Writes stores {@code 0 .. count-1} to a single file, gzip-compressed if the name ends in
+     * {@code .gz}.
+     */
+    void write(int count, Path file) throws IOException {
+        write(0, count, file);
+    }
+
+    /**
+     * Writes stores {@code 0 .. count-1} to {@code shards} files of about the same size, the same
+     * stores as {@link #write} would write.
+     */
+    void writeShards(int count, int shards, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (int shard = 0; shard < shards; shard++) {
+            int from = (int) ((long) count * shard / shards);
+            int to = (int) ((long) count * (shard + 1) / shards);
+            write(from, to, directory.resolve(String.format("stores-%03d.json.gz", shard)));
+        }
+    }
+
+    private void write(int from, int to, Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        try (OutputStream outputStream = open(file);
+             JsonGenerator json = new ObjectMapper().getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("stores");
+            for (int index = from; index < to; index++) {
+                writeStore(json, store(index));
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * @return the synthetic store with the given index, the same for every call
+     */
+    Store store(int index) {
+        // One random stream per store, so shards and ranges produce the same stores
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + index);
+        Store template = templates.get(random.nextInt(templates.size()));
+
+        double latitude;
+        double longitude;
+        if (random.nextDouble() < SCATTERED_SHARE) {
+            latitude = minLatitude + random.nextDouble() * (maxLatitude - minLatitude);
+            longitude = minLongitude + random.nextDouble() * (maxLongitude - minLongitude);
+        } else {
+            latitude = template.getLatitude() + random.nextGaussian() * CLUSTER_SIGMA_KM / KM_PER_DEGREE;
+            longitude = template.getLongitude() + random.nextGaussian() * CLUSTER_SIGMA_KM
+                    / (KM_PER_DEGREE * Math.cos(Math.toRadians(template.getLatitude())));
+        }
+
+        boolean closed = random.nextInt(50) == 0;
+        String street = template.getStreet();
+        return Store.builder()
+                .city(template.getCity())
+                .postalCode(template.getPostalCode().substring(0, 5) + letter(random) + letter(random))
+                .street(street)
+                .street2(Integer.toString(1 + random.nextInt(250)))
+                .street3("")
+                .addressName("Jumbo " + template.getCity() + " " + street)
+                .uuid(uuid(index, random))
+                .longitude(round(longitude))
+                .latitude(round(latitude))
+                .complexNumber(Integer.toString(10_000 + index % 90_000))
+                .showWarningMessage(random.nextInt(10) < 8)
+                .todayOpen(closed ? "Gesloten" : OPENING_TIMES[random.nextInt(OPENING_TIMES.length)])
+                .locationType(locationType(random))
+                .collectionPoint(random.nextBoolean() ? random.nextBoolean() : null)
+                .sapStoreID(Integer.toString(1_000 + index))
+                .todayClose(closed ? "Gesloten" : CLOSING_TIMES[random.nextInt(CLOSING_TIMES.length)])
+                .build();
+    }
+
+    private static void writeStore(JsonGenerator json, Store store) throws IOException {
+        // Same shape as the bundled file, including coordinates as strings
+        json.writeStartObject();
+        json.writeStringField("city", store.getCity());
+        json.writeStringField("postalCode", store.getPostalCode());
+        json.writeStringField("street", store.getStreet());
+        json.writeStringField("street2", store.getStreet2());
+        json.writeStringField("street3", store.getStreet3());
+        json.writeStringField("addressName", store.getAddressName());
+        json.writeStringField("uuid", store.getUuid());
+        json.writeStringField("longitude", Double.toString(store.getLongitude()));
+        json.writeStringField("latitude", Double.toString(store.getLatitude()));
+        json.writeStringField("complexNumber", store.getComplexNumber());
+        json.writeBooleanField("showWarningMessage", store.getShowWarningMessage());
+        json.writeStringField("todayOpen", store.getTodayOpen());
+        json.writeStringField("locationType", store.getLocationType());
+        if (store.getCollectionPoint() != null) {
+            json.writeBooleanField("collectionPoint", store.getCollectionPoint());
+        }
+        json.writeStringField("sapStoreID", store.getSapStoreID());
+        json.writeStringField("todayClose", store.getTodayClose());
+        json.writeEndObject();
+    }
+
+    private static OutputStream open(Path file) throws IOException {
+        OutputStream outputStream = Files.newOutputStream(file);
+        return file.getFileName().toString().endsWith(".gz")
+                ? new GZIPOutputStream(outputStream, 64 * 1024)
+                : outputStream;
+    }
+
+    /**
+     * 24 URL-safe characters like the real UUIDs, unique because the first 8 bytes encode the index.
+     */
+    private static String uuid(int index, SplittableRandom random) {
+        byte[] bytes = new byte[18];
+        long mixed = index * 0xBF58476D1CE4E5B9L;
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (mixed >>> (56 - 8 * i));
+        }
+        for (int i = 8; i < bytes.length; i++) {
+            bytes[i] = (byte) random.nextInt(256);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String locationType(SplittableRandom random) {
+        double value = random.nextDouble();
+        for (int i = 0; i < LOCATION_TYPES.length - 1; i++) {
+            value -= LOCATION_TYPE_WEIGHTS[i];
+            if (value < 0) {
+                return LOCATION_TYPES[i];
+            }
+        }
+        return LOCATION_TYPES[LOCATION_TYPES.length - 1];
+    }
+
+    private static char letter(SplittableRandom random) {
+        return (char) ('A' + random.nextInt(26));
+    }
+
+    private static double round(double coordinate) {
+        return Math.round(coordinate * 1_000_000) / 1_000_000.0;
+    }
+}
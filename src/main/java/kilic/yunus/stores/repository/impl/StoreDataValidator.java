@@ -0,0 +1,136 @@
+package kilic.yunus.stores.repository.impl;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import kilic.yunus.stores.exception.StoreDataException;
+import kilic.yunus.stores.model.domain.Store;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bean-validates loaded stores, optionally spread over several threads.
+ *
+ * <p>Stores are split into contiguous chunks that are validated concurrently. Each store's report
+ * is written to its own slot, and the final error message is assembled in file order, so the
+ * {@link StoreDataException} message does not depend on the parallelism or thread scheduling.
+ */
+@Slf4j
+class StoreDataValidator {
+
+    // More chunks than threads, so a chunk of expensive stores does not hold up the whole run
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int MIN_CHUNK_SIZE = 1_000;
+
+    private static final Comparator<ConstraintViolation<Store>> VIOLATION_ORDER =
+            Comparator.<ConstraintViolation<Store>, String>comparing(v -> v.getPropertyPath().toString())
+                    .thenComparing(ConstraintViolation::getMessage);
+
+    private final Validator validator;
+    private final int parallelism;
+
+    /**
+     * @param parallelism number of validation threads, values below 1 use all available processors
+     */
+    StoreDataValidator(Validator validator, int parallelism) {
+        this.validator = validator;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    int parallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @throws StoreDataException listing every invalid store, if at least one store is invalid
+     */
+    void validate(List<Store> stores) {
+        String[] reports = new String[stores.size()];
+
+        int threads = (int) Math.min(parallelism, Math.max(1, stores.size() / MIN_CHUNK_SIZE));
+        if (threads <= 1) {
+            validateRange(stores, reports, 0, stores.size());
+        } else {
+            validateInParallel(stores, reports, threads);
+        }
+
+        // Fail fast if any validation errors found
+        int invalidCount = 0;
+        StringBuilder validationErrors = new StringBuilder();
+        for (String report : reports) {
+            if (report != null) {
+                invalidCount++;
+                validationErrors.append(report);
+            }
+        }
+
+        if (invalidCount > 0) {
+            String errorMessage = String.format(
+                    "Store data validation failed! %d out of %d stores have validation errors:%s",
+                    invalidCount, stores.size(), validationErrors);
+
+            log.error(errorMessage);
+            throw new StoreDataException(errorMessage);
+        }
+    }
+
+    private void validateInParallel(List<Store> stores, String[] reports, int threads) {
+        int chunkCount = threads * CHUNKS_PER_THREAD;
+        int chunkSize = (stores.size() + chunkCount - 1) / chunkCount;
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads, validationThreadFactory())) {
+            List<Future<?>> chunks = new ArrayList<>(chunkCount);
+            for (int from = 0; from < stores.size(); from += chunkSize) {
+                int start = from;
+                int end = Math.min(stores.size(), from + chunkSize);
+                chunks.add(executor.submit(() -> validateRange(stores, reports, start, end)));
+            }
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StoreDataException("Interrupted while validating store data", e);
+        } catch (ExecutionException e) {
+            throw new StoreDataException("Failed to validate store data", e.getCause());
+        }
+    }
+
+    private void validateRange(List<Store> stores, String[] reports, int from, int to) {
+        for (int i = from; i < to; i++) {
+            Store store = stores.get(i);
+            Set<ConstraintViolation<Store>> violations = validator.validate(store);
+
+            if (!violations.isEmpty()) {
+                StringBuilder report = new StringBuilder(String.format("%n[Store #%d - UUID: %s]:%n",
+                        i + 1, store.getUuid()));
+
+                violations.stream()
+                        .sorted(VIOLATION_ORDER)
+                        .forEach(violation -> report.append(String.format("  - %s: %s (value: %s)%n",
+                                violation.getPropertyPath(),
+                                violation.getMessage(),
+                                violation.getInvalidValue())));
+                reports[i] = report.toString();
+            }
+        }
+    }
+
+    private static ThreadFactory validationThreadFactory() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "store-validation-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,103 @@
+package kilic.yunus.stores.repository.impl;
+
+import kilic.yunus.stores.repository.StoreGridIndex;
+import kilic.yunus.stores.repository.StoreIndexStatus;
+import kilic.yunus.stores.repository.StoreSnapshot;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Builds the {@link StoreGridIndex} of the current snapshot of a repository on a background thread,
+ * so a newly loaded snapshot can be searched (by a full scan) before its index is complete.
+ *
+ * <p>Builds are coalesced, at most one is queued and it indexes the snapshot that is current when it
+ * starts. Snapshots published while a build is running are derived from the one being indexed and
+ * adopt its index once it is complete. Only if they changed too many stores another build follows.
+ */
+@Slf4j
+class StoreGridIndexBuilder {
+
+    private final String dataset;
+    private final Supplier<StoreSnapshot> currentSnapshot;
+    private final ExecutorService executor;
+    private final AtomicBoolean buildQueued = new AtomicBoolean();
+    private volatile boolean building;
+    private volatile double progress;
+
+    StoreGridIndexBuilder(String dataset, Supplier<StoreSnapshot> currentSnapshot) {
+        this.dataset = dataset;
+        this.currentSnapshot = currentSnapshot;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "store-index-build-" + dataset);
+            thread.setDaemon(true);
+            // Searches keep running on the linear scan, they should not compete with the build
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a build unless one is queued already. Does nothing if the current snapshot has an index.
+     */
+    void schedule() {
+        if (buildQueued.compareAndSet(false, true)) {
+            executor.execute(this::buildCurrent);
+        }
+    }
+
+    StoreIndexStatus status() {
+        if (currentSnapshot.get().gridIndex() != null) {
+            return StoreIndexStatus.READY;
+        }
+        return new StoreIndexStatus(StoreIndexStatus.State.BUILDING, building ? progress : 0);
+    }
+
+    void close() {
+        executor.shutdownNow();
+    }
+
+    private void buildCurrent() {
+        // Cleared before reading the snapshot, so a later change queues another build
+        buildQueued.set(false);
+        StoreSnapshot snapshot = currentSnapshot.get();
+        if (snapshot.gridIndex() != null) {
+            return;
+        }
+        progress = 0;
+        building = true;
+        long startedAt = System.nanoTime();
+        try {
+            StoreGridIndex index = snapshot.buildGridIndex(fraction -> progress = fraction);
+            log.info("Built spatial index of store data generation {} of data set {} in {} ms: {} stores in {}x{} cells",
+                    snapshot.generation(), dataset, (System.nanoTime() - startedAt) / 1_000_000,
+                    index.size(), index.rows(), index.columns());
+        } catch (RuntimeException e) {
+            log.error("Failed to build spatial index of data set {}, searches keep scanning all stores", dataset, e);
+            return;
+        } finally {
+            building = false;
+        }
+        handOver(snapshot);
+    }
+
+    /**
+     * Passes the new index on to snapshots derived from the indexed one in the meantime.
+     */
+    private void handOver(StoreSnapshot indexed) {
+        StoreSnapshot current = currentSnapshot.get();
+        while (current.gridIndex() == null) {
+            if (!current.adoptGridIndex(indexed)) {
+                log.debug("Store data generation {} of data set {} changed too much to adopt the spatial index",
+                        current.generation(), dataset);
+                schedule();
+                return;
+            }
+            // A snapshot derived while adopting does not have the index yet
+            current = currentSnapshot.get();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package kilic.yunus.stores.repository.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import kilic.yunus.stores.exception.StoreDataException;
+import kilic.yunus.stores.model.domain.Store;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for store data files of the form {@code {"stores": [ {...}, {...} ]}}.
+ *
+ * <p>The file is consumed token by token and every array element is bound directly to a
+ * {@link Store}, so no intermediate {@code JsonNode} tree of the whole document is built.
+ */
+class StoreJsonReader {
+
+    private static final String STORES_FIELD = "stores";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader storeReader;
+
+    StoreJsonReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.storeReader = objectMapper.readerFor(Store.class);
+    }
+
+    /**
+     * Reads all stores of the {@code stores} array, in file order.
+     *
+     * @throws StoreDataException if the document has no {@code stores} array
+     * @throws IOException        if the document is not valid JSON or a store cannot be bound
+     */
+    List<Store> read(InputStream inputStream) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            List<Store> stores = null;
+
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String fieldName = parser.currentName();
+                    JsonToken value = parser.nextToken();
+
+                    if (STORES_FIELD.equals(fieldName) && value == JsonToken.START_ARRAY) {
+                        stores = readStoresArray(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+
+            // Consume the rest of the document so trailing garbage is still reported as malformed
+            while (parser.nextToken() != null) {
+                parser.skipChildren();
+            }
+
+            if (stores == null) {
+                throw new StoreDataException("Invalid JSON structure: 'stores' key not found");
+            }
+            return stores;
+        }
+    }
+
+    private List<Store> readStoresArray(JsonParser parser) throws IOException {
+        List<Store> stores = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            stores.add(storeReader.readValue(parser));
+        }
+        return stores;
+    }
+}
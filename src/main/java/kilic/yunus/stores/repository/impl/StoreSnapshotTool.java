@@ -0,0 +1,49 @@
+package kilic.yunus.stores.repository.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import kilic.yunus.stores.model.domain.Store;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Command line tool that converts a {@code stores.json} file (or a {@code .json.gz} file or a
+ * directory of shards, see {@link StoreDataFiles}) into a validated {@link BinaryStoreSnapshot}.
+ * The snapshot is only written if every store passes validation.
+ *
+ * <p>Usage: {@code StoreSnapshotTool <stores.json> <stores.snapshot>}, or run the {@code snapshot}
+ * Maven profile to build {@code stores.snapshot} next to {@code stores.json} in the packaged
+ * application.
+ */
+public final class StoreSnapshotTool {
+
+    private StoreSnapshotTool() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: StoreSnapshotTool <stores.json> <stores" + BinaryStoreSnapshot.FILE_EXTENSION + ">");
+            System.exit(2);
+        }
+        Path source = Path.of(args[0]);
+        Path target = Path.of(args[1]);
+
+        List<Store> stores;
+        try (ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory()) {
+            stores = new StoreDataFiles(new StoreJsonReader(new ObjectMapper()), 0).read(new FileSystemResource(source));
+            new StoreDataValidator(validatorFactory.getValidator(), 0).validate(stores);
+        }
+
+        List<Store> uniqueStores = JsonStoreRepository.uniqueByUuid(stores);
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        BinaryStoreSnapshot.write(uniqueStores, target);
+
+        System.out.printf("Wrote %d stores from %s to %s (%d bytes)%n",
+                uniqueStores.size(), source, target, Files.size(target));
+    }
+}
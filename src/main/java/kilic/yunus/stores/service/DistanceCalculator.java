@@ -16,4 +16,16 @@ public interface DistanceCalculator {
      * @return Distance in kilometers
      */
     double calculateDistance(Location from, Location to);
+
+    /**
+     * Calculate the distance between two coordinates in kilometers. Meant for search loops, which
+     * hold plain coordinates and should not create a {@link Location} per store.
+     *
+     * @param fromLatitude  Starting latitude
+     * @param fromLongitude Starting longitude
+     * @param toLatitude    Ending latitude
+     * @param toLongitude   Ending longitude
+     * @return Distance in kilometers
+     */
+    double calculateDistance(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude);
 }
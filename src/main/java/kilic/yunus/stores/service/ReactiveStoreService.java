@@ -0,0 +1,24 @@
+package kilic.yunus.stores.service;
+
+import kilic.yunus.stores.model.domain.Location;
+import kilic.yunus.stores.model.dto.StoreWithDistance;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking variant of {@link StoreService} for the reactive API.
+ */
+public interface ReactiveStoreService {
+
+    /**
+     * Find the nearest stores of a data set to a given location.
+     *
+     * @param dataset  The data set to search, {@code null} for the default data set
+     * @param location The location to search from
+     * @param limit    Maximum number of stores to return
+     * @param deadline Deadline by which the search has to complete
+     * @return Stores with distances, sorted by distance. Signals
+     * {@link kilic.yunus.stores.exception.DatasetNotFoundException} if the data set does not exist and
+     * {@link kilic.yunus.stores.exception.SearchTimeoutException} if the deadline passes first
+     */
+    Flux<StoreWithDistance> findNearestStores(String dataset, Location location, int limit, SearchDeadline deadline);
+}
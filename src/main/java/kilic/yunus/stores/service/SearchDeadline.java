@@ -0,0 +1,77 @@
+package kilic.yunus.stores.service;
+
+import kilic.yunus.stores.exception.SearchTimeoutException;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Point in time by which a search has to complete, and optionally a signal that its caller gave up
+ * earlier. Searches {@link #check() check} it between batches of stores and stop with
+ * {@link SearchTimeoutException} once it passed, so abandoned requests stop using the CPU.
+ */
+public final class SearchDeadline {
+
+    /**
+     * No deadline, the search always runs to completion.
+     */
+    public static final SearchDeadline NONE = new SearchDeadline(null, 0, () -> false);
+
+    private final Duration timeout;
+    private final long deadlineNanos;
+    private final BooleanSupplier cancelled;
+
+    private SearchDeadline(Duration timeout, long deadlineNanos, BooleanSupplier cancelled) {
+        this.timeout = timeout;
+        this.deadlineNanos = deadlineNanos;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * @param timeout time from now the search may take, already passed if zero or negative
+     */
+    public static SearchDeadline after(Duration timeout) {
+        return new SearchDeadline(timeout, System.nanoTime() + timeout.toNanos(), () -> false);
+    }
+
+    /**
+     * @return this deadline, which also passes as soon as {@code cancelled} returns true
+     */
+    public SearchDeadline withCancellation(BooleanSupplier cancelled) {
+        return new SearchDeadline(timeout, deadlineNanos, cancelled);
+    }
+
+    public boolean isExpired() {
+        return expiry() != null;
+    }
+
+    /**
+     * @throws SearchTimeoutException if the deadline passed or the search was cancelled
+     */
+    public void check() {
+        if (this == NONE) {
+            return;
+        }
+        String expiry = expiry();
+        if (expiry != null) {
+            throw new SearchTimeoutException(expiry);
+        }
+    }
+
+    /**
+     * Asks {@code cancelled} at most once, its answer may change between calls.
+     *
+     * @return why the search has to stop, null if it may go on
+     */
+    private String expiry() {
+        if (timeout != null && System.nanoTime() - deadlineNanos >= 0) {
+            return "Search did not complete within " + timeout.toMillis() + " ms";
+        }
+        return cancelled.getAsBoolean() ? "Search was cancelled" : null;
+    }
+
+    @Override
+    public String toString() {
+        return timeout == null ? "none" : timeout.toMillis() + " ms";
+    }
+}
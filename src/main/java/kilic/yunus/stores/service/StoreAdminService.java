@@ -0,0 +1,43 @@
+package kilic.yunus.stores.service;
+
+import kilic.yunus.stores.model.domain.Store;
+import kilic.yunus.stores.model.dto.StoreChangeResponse;
+import kilic.yunus.stores.model.dto.StoreReloadResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service for changing store data at runtime.
+ */
+public interface StoreAdminService {
+
+    /**
+     * Add a store, or replace the store with the same UUID.
+     *
+     * @param dataset Data set to change, {@code null} for the default data set
+     * @param uuid    UUID of the store to add or replace
+     * @param store   New store data, its UUID must match {@code uuid}
+     * @return The applied change
+     */
+    StoreChangeResponse upsertStore(String dataset, String uuid, Store store);
+
+    /**
+     * Remove a store.
+     *
+     * @param dataset Data set to change, {@code null} for the default data set
+     * @param uuid    UUID of the store to remove
+     * @return The applied change
+     */
+    StoreChangeResponse deleteStore(String dataset, String uuid);
+
+    /**
+     * Reload the data file of a data set in the background, unless it is unchanged since it was last
+     * loaded.
+     *
+     * @param dataset Data set to reload, {@code null} for the default data set
+     * @return Future completing with the result once the reload is done, or exceptionally with a
+     * {@link kilic.yunus.stores.exception.StoreDataException} if the data file could not be loaded
+     * @throws kilic.yunus.stores.exception.DatasetNotFoundException if the data set does not exist
+     */
+    CompletableFuture<StoreReloadResponse> reload(String dataset);
+}
@@ -12,23 +12,39 @@ import java.util.List;
 public interface StoreService {
 
     /**
-     * Find the nearest stores to a given location.
+     * Find the nearest stores of a data set to a given location.
      *
+     * @param dataset  The data set to search, {@code null} for the default data set
      * @param location The location to search from
      * @param limit    Maximum number of stores to return
      * @return List of stores with distances, sorted by distance
+     * @throws kilic.yunus.stores.exception.DatasetNotFoundException if the data set does not exist
      */
-    List<StoreWithDistance> findNearestStores(Location location, int limit);
+    List<StoreWithDistance> findNearestStores(String dataset, Location location, int limit);
 
     /**
-     * Get all stores.
+     * Find the nearest stores of a data set to a given location, unless the deadline passes first.
+     * Shares the results of {@link #findNearestStores(String, Location, int)}.
+     *
+     * @param dataset  The data set to search, {@code null} for the default data set
+     * @param location The location to search from
+     * @param limit    Maximum number of stores to return
+     * @param deadline Deadline by which the search has to complete
+     * @return List of stores with distances, sorted by distance
+     * @throws kilic.yunus.stores.exception.DatasetNotFoundException if the data set does not exist
+     * @throws kilic.yunus.stores.exception.SearchTimeoutException   if the deadline passes first
+     */
+    List<StoreWithDistance> findNearestStores(String dataset, Location location, int limit, SearchDeadline deadline);
+
+    /**
+     * Get all stores of the default data set.
      *
      * @return List of all stores
      */
     List<Store> getAllStores();
 
     /**
-     * Get total number of stores.
+     * Get total number of stores of the default data set.
      *
      * @return Total count of stores
      */
@@ -0,0 +1,29 @@
+package kilic.yunus.stores.service;
+
+import kilic.yunus.stores.model.domain.Location;
+import kilic.yunus.stores.model.dto.NearestStoresUpdate;
+
+import java.util.Optional;
+
+/**
+ * The nearest stores of a location that moves, kept between location updates so each update only
+ * reports what changed.
+ */
+public interface StoreSubscription extends AutoCloseable {
+
+    /**
+     * Move the subscription to a new location.
+     *
+     * @param location The current location
+     * @return Changes of the nearest stores since the previous update, all of them on the first
+     * update, and empty if nothing changed
+     * @throws kilic.yunus.stores.exception.InvalidCoordinatesException if the location is invalid
+     * @throws kilic.yunus.stores.exception.SearchOverloadedException  if the stores have to be
+     *                                                                 searched again while too many
+     *                                                                 searches are running
+     */
+    Optional<NearestStoresUpdate> update(Location location);
+
+    @Override
+    void close();
+}
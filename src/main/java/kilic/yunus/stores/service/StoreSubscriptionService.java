@@ -0,0 +1,19 @@
+package kilic.yunus.stores.service;
+
+/**
+ * Service for subscriptions to the nearest stores of a moving location.
+ */
+public interface StoreSubscriptionService {
+
+    /**
+     * Open a subscription to the nearest stores of a data set, which the caller has to close.
+     *
+     * @param dataset The data set to search, {@code null} for the default data set
+     * @param limit   Number of nearest stores to follow
+     * @return Subscription without a location yet
+     * @throws kilic.yunus.stores.exception.DatasetNotFoundException  if the data set does not exist
+     * @throws kilic.yunus.stores.exception.SearchOverloadedException if the maximum number of
+     *                                                                subscriptions is open
+     */
+    StoreSubscription subscribe(String dataset, int limit);
+}
@@ -0,0 +1,157 @@
+package kilic.yunus.stores.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import kilic.yunus.stores.config.SearchLimitProperties;
+import kilic.yunus.stores.exception.SearchOverloadedException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits how many store searches run at the same time, and adapts the limit to their latency with
+ * a gradient algorithm: the average latency of every window is compared with the long-term
+ * average. While it stays within the tolerance the limit grows by about its square root per
+ * window; once searches queue for the CPU and get slower, it shrinks proportionally (at most by
+ * half per window). Searches beyond the limit are rejected at once with
+ * {@link SearchOverloadedException} instead of queueing, so the admitted ones keep their latency.
+ *
+ * <p>Only searches that miss the result cache get here, cache hits are answered before and are
+ * never rejected.
+ *
+ * <p>Publishes {@code store.search.concurrency.limit}, {@code store.search.concurrency.active} and
+ * {@code store.search.concurrency.rejected}.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    // Weight of a window in the long-term average, about the last 20 windows
+    private static final double LONG_RTT_WEIGHT = 0.05;
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final long windowNanos;
+    private final int minWindowSamples;
+    private final Duration retryAfter;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger active = new AtomicInteger();
+    private final Counter rejected;
+    private volatile double limit;
+
+    // Guarded by this
+    private long windowStartedAt;
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxActive;
+    private double longRtt;
+
+    @Autowired
+    public AdaptiveConcurrencyLimiter(SearchLimitProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(SearchLimitProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.enabled = properties.isEnabled();
+        this.minLimit = properties.getMinLimit();
+        this.maxLimit = properties.getMaxLimit();
+        this.tolerance = properties.getTolerance();
+        this.smoothing = properties.getSmoothing();
+        this.windowNanos = properties.getWindow().toNanos();
+        this.minWindowSamples = properties.getMinWindowSamples();
+        this.retryAfter = properties.getRetryAfter();
+        this.nanoClock = nanoClock;
+        this.limit = Math.clamp(properties.getInitialLimit(), minLimit, maxLimit);
+
+        Gauge.builder("store.search.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Searches allowed to run at the same time")
+                .register(meterRegistry);
+        Gauge.builder("store.search.concurrency.active", active, AtomicInteger::get)
+                .description("Searches running")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("store.search.concurrency.rejected")
+                .description("Searches rejected at the concurrency limit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits a search, which must be followed by {@link #onSuccess(long)} or {@link #onIgnore()}.
+     *
+     * @return start time of the search
+     * @throws SearchOverloadedException if as many searches as the limit allows are running
+     */
+    public long acquire() {
+        if (enabled) {
+            int current;
+            do {
+                current = active.get();
+                if (current >= (int) limit) {
+                    rejected.increment();
+                    throw new SearchOverloadedException("Too many concurrent searches, retry later", retryAfter);
+                }
+            } while (!active.compareAndSet(current, current + 1));
+        }
+        return nanoClock.getAsLong();
+    }
+
+    /**
+     * Releases a search that completed normally and measures its latency.
+     */
+    public void onSuccess(long startedAt) {
+        if (enabled) {
+            long now = nanoClock.getAsLong();
+            int activeBefore = active.getAndDecrement();
+            sample(now - startedAt, activeBefore, now);
+        }
+    }
+
+    /**
+     * Releases a search that failed, its latency says nothing about the load.
+     */
+    public void onIgnore() {
+        if (enabled) {
+            active.decrementAndGet();
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    private synchronized void sample(long rtt, int activeBefore, long now) {
+        if (windowSamples == 0) {
+            windowStartedAt = now;
+        }
+        windowRttSum += rtt;
+        windowSamples++;
+        windowMaxActive = Math.max(windowMaxActive, activeBefore);
+        if (windowSamples >= minWindowSamples && now - windowStartedAt >= windowNanos) {
+            adapt(Math.max(1.0, (double) windowRttSum / windowSamples), windowMaxActive);
+            windowRttSum = 0;
+            windowSamples = 0;
+            windowMaxActive = 0;
+        }
+    }
+
+    private void adapt(double shortRtt, int maxActive) {
+        longRtt = longRtt == 0 ? shortRtt : longRtt + (shortRtt - longRtt) * LONG_RTT_WEIGHT;
+        if (longRtt / shortRtt > 2) {
+            // Latency dropped well below the long-term average, let the average follow faster
+            longRtt *= 0.95;
+        }
+        double current = limit;
+        if (maxActive < current / 2) {
+            // The limit was not reached by far, the latency says nothing about a higher one
+            return;
+        }
+        double gradient = Math.clamp(tolerance * longRtt / shortRtt, 0.5, 1.0);
+        double estimate = current * gradient + Math.sqrt(current);
+        limit = Math.clamp(current * (1 - smoothing) + estimate * smoothing, minLimit, maxLimit);
+    }
+}
@@ -2,10 +2,12 @@ package kilic.yunus.stores.service.impl;
 
 import kilic.yunus.stores.model.domain.Location;
 import kilic.yunus.stores.service.DistanceCalculator;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-@Slf4j
+/**
+ * Great-circle distance with the haversine formula. Runs for every store a search ranks, so it does
+ * not log.
+ */
 @Component
 public class HaversineDistanceCalculator implements DistanceCalculator {
 
@@ -17,10 +19,15 @@ public class HaversineDistanceCalculator implements DistanceCalculator {
             throw new IllegalArgumentException("Locations cannot be null");
         }
 
-        double lat1 = Math.toRadians(from.getLatitude());
-        double lon1 = Math.toRadians(from.getLongitude());
-        double lat2 = Math.toRadians(to.getLatitude());
-        double lon2 = Math.toRadians(to.getLongitude());
+        return calculateDistance(from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+    }
+
+    @Override
+    public double calculateDistance(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        double lat1 = Math.toRadians(fromLatitude);
+        double lon1 = Math.toRadians(fromLongitude);
+        double lat2 = Math.toRadians(toLatitude);
+        double lon2 = Math.toRadians(toLongitude);
 
         // Haversine formula
         double dLat = lat2 - lat1;
@@ -32,16 +39,6 @@ public class HaversineDistanceCalculator implements DistanceCalculator {
 
         double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
 
-        double distance = EARTH_RADIUS_KM * c;
-
-        log.debug(
-                "Calculated distance from ({}, {}) to ({}, {}): {} km",
-                from.getLatitude(),
-                from.getLongitude(),
-                to.getLatitude(),
-                to.getLongitude(),
-                distance);
-
-        return distance;
+        return EARTH_RADIUS_KM * c;
     }
 }
@@ -0,0 +1,284 @@
+package kilic.yunus.stores.service.impl;
+
+import kilic.yunus.stores.model.dto.StoreWithDistance;
+import kilic.yunus.stores.repository.StoreGridIndex;
+import kilic.yunus.stores.repository.StoreSnapshot;
+import kilic.yunus.stores.service.DistanceCalculator;
+import kilic.yunus.stores.service.SearchDeadline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the stores of a snapshot closest to a location, with the snapshot's {@link StoreGridIndex}
+ * when it has one and by scanning all stores otherwise. Both rank exactly like sorting all stores by
+ * distance rounded to two decimals, ties in snapshot order, so switching between them never changes
+ * a result.
+ *
+ * <p>The indexed search visits the grid cells in rings around the query cell and stops once no
+ * unvisited cell can hold a store closer than the current {@code limit}-th one. That bound is the
+ * distance to the nearest edge of the visited area: the meridian distance to the next row, or the
+ * distance to the closest point of the next column's meridian, measured with the same
+ * {@link DistanceCalculator} as the stores, which therefore has to measure great-circle distances.
+ *
+ * <p>The {@link SearchDeadline} is checked every {@value #DEADLINE_CHECK_INTERVAL} stores of a scan
+ * and after every ring of the indexed search.
+ */
+class NearestStoreSearch {
+
+    // Guards the cut-off against rounding errors at cell edges
+    private static final double BOUND_TOLERANCE_KM = 1e-9;
+
+    // Power of two, so a scan checks the clock once per few microseconds of work
+    private static final int DEADLINE_CHECK_INTERVAL = 4096;
+
+    private final DistanceCalculator distanceCalculator;
+
+    NearestStoreSearch(DistanceCalculator distanceCalculator) {
+        this.distanceCalculator = distanceCalculator;
+    }
+
+    List<StoreWithDistance> findNearest(StoreSnapshot snapshot, double latitude, double longitude, int limit) {
+        return findNearest(snapshot, latitude, longitude, limit, SearchDeadline.NONE);
+    }
+
+    /**
+     * @throws kilic.yunus.stores.exception.SearchTimeoutException if the deadline passes during the search
+     */
+    List<StoreWithDistance> findNearest(StoreSnapshot snapshot, double latitude, double longitude, int limit,
+                                        SearchDeadline deadline) {
+        int capacity = Math.min(limit, snapshot.size());
+        if (capacity <= 0) {
+            return List.of();
+        }
+        return search(snapshot, latitude, longitude, capacity, deadline).toResults(snapshot);
+    }
+
+    /**
+     * @return snapshot positions of the {@code limit} nearest stores, in the order of
+     * {@link #findNearest}
+     */
+    int[] findNearestPositions(StoreSnapshot snapshot, double latitude, double longitude, int limit) {
+        int capacity = Math.min(limit, snapshot.size());
+        if (capacity <= 0) {
+            return new int[0];
+        }
+        return search(snapshot, latitude, longitude, capacity, SearchDeadline.NONE).positions();
+    }
+
+    /**
+     * @return the {@code limit} nearest of the stores at the given snapshot positions, ranked like
+     * {@link #findNearest}
+     */
+    List<StoreWithDistance> findNearestAmong(StoreSnapshot snapshot, int[] positions, double latitude,
+                                             double longitude, int limit) {
+        int capacity = Math.min(limit, positions.length);
+        if (capacity <= 0) {
+            return List.of();
+        }
+        Nearest nearest = new Nearest(capacity);
+        for (int position : positions) {
+            offer(snapshot, position, latitude, longitude, nearest);
+        }
+        return nearest.toResults(snapshot);
+    }
+
+    private Nearest search(StoreSnapshot snapshot, double latitude, double longitude, int capacity,
+                           SearchDeadline deadline) {
+        Nearest nearest = new Nearest(capacity);
+        StoreGridIndex index = snapshot.gridIndex();
+        if (index == null) {
+            for (int i = 0; i < snapshot.size(); i++) {
+                if ((i & (DEADLINE_CHECK_INTERVAL - 1)) == DEADLINE_CHECK_INTERVAL - 1) {
+                    deadline.check();
+                }
+                offer(snapshot, i, latitude, longitude, nearest);
+            }
+        } else {
+            searchGrid(snapshot, index, latitude, longitude, nearest, deadline);
+        }
+        return nearest;
+    }
+
+    private void searchGrid(StoreSnapshot snapshot, StoreGridIndex index, double latitude, double longitude,
+                            Nearest nearest, SearchDeadline deadline) {
+        // Stores that changed since the index was built are not (or not correctly) in the grid
+        for (int i = 0; i < index.changedCount(); i++) {
+            int position = index.changedPosition(i);
+            if (position < snapshot.size()) {
+                offer(snapshot, position, latitude, longitude, nearest);
+            }
+        }
+
+        int row = index.row(latitude);
+        int column = index.column(longitude);
+        int maxRing = Math.max(Math.max(row, index.rows() - 1 - row), Math.max(column, index.columns() - 1 - column));
+        for (int ring = 0; ring <= maxRing; ring++) {
+            int south = row - ring;
+            int north = row + ring;
+            int west = column - ring;
+            int east = column + ring;
+            for (int x = Math.max(0, west); x <= Math.min(index.columns() - 1, east); x++) {
+                searchCell(snapshot, index, south, x, latitude, longitude, nearest);
+                if (ring > 0) {
+                    searchCell(snapshot, index, north, x, latitude, longitude, nearest);
+                }
+            }
+            for (int y = Math.max(0, south + 1); y <= Math.min(index.rows() - 1, north - 1); y++) {
+                searchCell(snapshot, index, y, west, latitude, longitude, nearest);
+                searchCell(snapshot, index, y, east, latitude, longitude, nearest);
+            }
+            if (nearest.isFull()
+                    && round(unvisitedBound(index, ring, row, column, latitude, longitude) - BOUND_TOLERANCE_KM)
+                    > nearest.farthest()) {
+                return;
+            }
+            deadline.check();
+        }
+    }
+
+    private void searchCell(StoreSnapshot snapshot, StoreGridIndex index, int row, int column,
+                            double latitude, double longitude, Nearest nearest) {
+        if (row < 0 || row >= index.rows() || column < 0 || column >= index.columns()) {
+            return;
+        }
+        for (int offset = index.cellStart(row, column); offset < index.cellEnd(row, column); offset++) {
+            int position = index.position(offset);
+            if (position < snapshot.size() && !index.isChanged(position)) {
+                offer(snapshot, position, latitude, longitude, nearest);
+            }
+        }
+    }
+
+    /**
+     * @return lower bound of the distance to any store in a cell outside the given ring,
+     * {@link Double#POSITIVE_INFINITY} if the ring covers the whole grid
+     */
+    private double unvisitedBound(StoreGridIndex index, int ring, int row, int column,
+                                  double latitude, double longitude) {
+        double bound = Double.POSITIVE_INFINITY;
+        if (row - ring > 0) {
+            double edge = index.rowSouth(row - ring);
+            bound = Math.min(bound, latitude > edge ? meridianDistance(latitude, longitude, edge) : 0);
+        }
+        if (row + ring < index.rows() - 1) {
+            double edge = index.rowSouth(row + ring + 1);
+            bound = Math.min(bound, latitude < edge ? meridianDistance(latitude, longitude, edge) : 0);
+        }
+        if (column - ring > 0) {
+            double degrees = longitudeGap(longitude, index.minLongitude(), index.columnWest(column - ring));
+            bound = Math.min(bound, distanceToMeridian(latitude, longitude, degrees));
+        }
+        if (column + ring < index.columns() - 1) {
+            double degrees = longitudeGap(longitude, index.columnWest(column + ring + 1), index.maxLongitude());
+            bound = Math.min(bound, distanceToMeridian(latitude, longitude, degrees));
+        }
+        return bound;
+    }
+
+    private double meridianDistance(double latitude, double longitude, double toLatitude) {
+        return distanceCalculator.calculateDistance(latitude, longitude, toLatitude, longitude);
+    }
+
+    /**
+     * @return distance to the closest point of any meridian {@code degrees} of longitude away, which
+     * is the foot of the perpendicular great circle or, 90 degrees or more away, the nearer pole
+     */
+    private double distanceToMeridian(double latitude, double longitude, double degrees) {
+        if (degrees <= 0) {
+            return 0;
+        }
+        if (degrees >= 90) {
+            return meridianDistance(latitude, longitude, latitude >= 0 ? 90 : -90);
+        }
+        double footLatitude = Math.toDegrees(
+                Math.atan(Math.tan(Math.toRadians(latitude)) / Math.cos(Math.toRadians(degrees))));
+        return distanceCalculator.calculateDistance(latitude, longitude, footLatitude, longitude + degrees);
+    }
+
+    /**
+     * @return smallest longitude difference, across the antimeridian if that is shorter, between the
+     * given longitude and any longitude in {@code [from, to]}
+     */
+    private static double longitudeGap(double longitude, double from, double to) {
+        if (longitude >= from && longitude <= to) {
+            return 0;
+        }
+        return Math.min(longitudeDifference(longitude, from), longitudeDifference(longitude, to));
+    }
+
+    private static double longitudeDifference(double a, double b) {
+        double difference = Math.abs(a - b) % 360;
+        return difference > 180 ? 360 - difference : difference;
+    }
+
+    private void offer(StoreSnapshot snapshot, int position, double latitude, double longitude, Nearest nearest) {
+        if (!snapshot.hasValidLocation(position)) {
+            return;
+        }
+        double distance = distanceCalculator.calculateDistance(
+                latitude, longitude, snapshot.latitude(position), snapshot.longitude(position));
+        nearest.offer(round(distance), position);
+    }
+
+    static double round(double distance) {
+        return Math.round(distance * 100.0) / 100.0; // Round to 2 decimals
+    }
+
+    /**
+     * The {@code capacity} closest stores seen so far, sorted by distance and then by position.
+     */
+    private static final class Nearest {
+
+        private final double[] distances;
+        private final int[] positions;
+        private int count;
+
+        Nearest(int capacity) {
+            this.distances = new double[capacity];
+            this.positions = new int[capacity];
+        }
+
+        void offer(double distance, int position) {
+            if (isFull() && !precedes(distance, position, count - 1)) {
+                return;
+            }
+            int slot = isFull() ? count - 1 : count++;
+            while (slot > 0 && precedes(distance, position, slot - 1)) {
+                distances[slot] = distances[slot - 1];
+                positions[slot] = positions[slot - 1];
+                slot--;
+            }
+            distances[slot] = distance;
+            positions[slot] = position;
+        }
+
+        private boolean precedes(double distance, int position, int slot) {
+            return distance < distances[slot] || (distance == distances[slot] && position < positions[slot]);
+        }
+
+        boolean isFull() {
+            return count == distances.length;
+        }
+
+        double farthest() {
+            return distances[count - 1];
+        }
+
+        int[] positions() {
+            return Arrays.copyOf(positions, count);
+        }
+
+        List<StoreWithDistance> toResults(StoreSnapshot snapshot) {
+            List<StoreWithDistance> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                results.add(StoreWithDistance.builder()
+                        .store(snapshot.get(positions[i]))
+                        .distance(distances[i])
+                        .build());
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package kilic.yunus.stores.service.impl;
+
+import kilic.yunus.stores.model.domain.Location;
+import kilic.yunus.stores.model.dto.StoreWithDistance;
+import kilic.yunus.stores.repository.StoreDatasets;
+import kilic.yunus.stores.service.ReactiveStoreService;
+import kilic.yunus.stores.service.SearchDeadline;
+import kilic.yunus.stores.service.StoreService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * Implementation of ReactiveStoreService on top of the cached {@link StoreService}, so both APIs
+ * share results, metrics and data.
+ *
+ * <p>Store data is held in memory and nothing in a search blocks. Cache hits and searches of the
+ * spatial index take microseconds and run on the calling thread, typically a Netty event loop. Only
+ * while the index of the current snapshot is being built does a search scan all stores, then it
+ * moves to the bounded elastic scheduler so the event loop keeps serving other connections.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveStoreServiceImpl implements ReactiveStoreService {
+
+    private final StoreService storeService;
+    private final StoreDatasets storeDatasets;
+
+    @Override
+    public Flux<StoreWithDistance> findNearestStores(String dataset, Location location, int limit,
+                                                     SearchDeadline deadline) {
+        return Mono.defer(() -> {
+                    Mono<List<StoreWithDistance>> search =
+                            Mono.fromCallable(() -> storeService.findNearestStores(dataset, location, limit, deadline));
+                    return storeDatasets.get(dataset).snapshot().gridIndex() != null
+                            ? search
+                            : search.subscribeOn(Schedulers.boundedElastic());
+                })
+                .flatMapIterable(stores -> stores);
+    }
+}
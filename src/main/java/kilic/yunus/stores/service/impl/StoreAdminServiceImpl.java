@@ -0,0 +1,70 @@
+package kilic.yunus.stores.service.impl;
+
+import kilic.yunus.stores.exception.InvalidStoreException;
+import kilic.yunus.stores.exception.StoreNotFoundException;
+import kilic.yunus.stores.model.domain.Store;
+import kilic.yunus.stores.model.dto.StoreChangeResponse;
+import kilic.yunus.stores.model.dto.StoreReloadResponse;
+import kilic.yunus.stores.repository.StoreDatasets;
+import kilic.yunus.stores.repository.StoreRepository;
+import kilic.yunus.stores.repository.StoreSnapshot;
+import kilic.yunus.stores.service.StoreAdminService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Implementation of StoreAdminService on top of the incremental repository updates.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StoreAdminServiceImpl implements StoreAdminService {
+
+    private final StoreDatasets storeDatasets;
+
+    @Override
+    public StoreChangeResponse upsertStore(String dataset, String uuid, Store store) {
+        if (!uuid.equals(store.getUuid())) {
+            throw new InvalidStoreException(
+                    String.format("Store UUID '%s' does not match the requested UUID '%s'", store.getUuid(), uuid));
+        }
+
+        StoreRepository storeRepository = storeDatasets.get(dataset);
+        StoreSnapshot snapshot = storeRepository.upsert(store);
+        return toResponse(storeRepository, uuid, StoreChangeResponse.Change.UPSERTED, snapshot);
+    }
+
+    @Override
+    public StoreChangeResponse deleteStore(String dataset, String uuid) {
+        StoreRepository storeRepository = storeDatasets.get(dataset);
+        StoreSnapshot snapshot = storeRepository.delete(uuid)
+                .orElseThrow(() -> new StoreNotFoundException("Store not found: " + uuid));
+        return toResponse(storeRepository, uuid, StoreChangeResponse.Change.DELETED, snapshot);
+    }
+
+    @Override
+    public CompletableFuture<StoreReloadResponse> reload(String dataset) {
+        StoreRepository storeRepository = storeDatasets.get(dataset);
+        long loadGeneration = storeRepository.snapshot().loadGeneration();
+        return storeRepository.reload().thenApply(snapshot -> StoreReloadResponse.builder()
+                .dataset(storeRepository.dataset())
+                .reloaded(snapshot.loadGeneration() != loadGeneration)
+                .generation(snapshot.generation())
+                .totalStores(snapshot.size())
+                .build());
+    }
+
+    private static StoreChangeResponse toResponse(
+            StoreRepository storeRepository, String uuid, StoreChangeResponse.Change change, StoreSnapshot snapshot) {
+        return StoreChangeResponse.builder()
+                .dataset(storeRepository.dataset())
+                .uuid(uuid)
+                .change(change)
+                .generation(snapshot.generation())
+                .totalStores(snapshot.size())
+                .build();
+    }
+}
@@ -3,63 +3,88 @@ package kilic.yunus.stores.service.impl;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import kilic.yunus.stores.exception.DatasetNotFoundException;
 import kilic.yunus.stores.exception.InvalidCoordinatesException;
+import kilic.yunus.stores.exception.SearchOverloadedException;
+import kilic.yunus.stores.exception.SearchTimeoutException;
 import kilic.yunus.stores.model.domain.Location;
 import kilic.yunus.stores.model.domain.Store;
 import kilic.yunus.stores.model.dto.StoreWithDistance;
+import kilic.yunus.stores.repository.StoreDatasets;
 import kilic.yunus.stores.repository.StoreRepository;
+import kilic.yunus.stores.repository.StoreSnapshot;
 import kilic.yunus.stores.service.DistanceCalculator;
+import kilic.yunus.stores.service.SearchDeadline;
 import kilic.yunus.stores.service.StoreService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
-import java.util.Comparator;
 import java.util.List;
 
 /**
- * Implementation of StoreService with caching support and metrics tracking.
+ * Implementation of StoreService with caching support and metrics tracking. Results are cached per
+ * data set, see {@link kilic.yunus.stores.config.CacheConfig}.
+ *
+ * <p>Searches are not logged here, only errors: the entry points log a sample of the requests, see
+ * {@link kilic.yunus.stores.config.RequestLogSampler}, and the timer and counters account for all.
+ *
+ * <p>Searches that miss the cache run within the {@link AdaptiveConcurrencyLimiter}, which rejects
+ * them with {@link SearchOverloadedException} while too many are running. They stop with
+ * {@link SearchTimeoutException} once their {@link SearchDeadline} passes, counted as
+ * {@code store.search.timeouts}.
  */
 @Slf4j
 @Service
 public class StoreServiceImpl implements StoreService {
 
-    private final StoreRepository storeRepository;
-    private final DistanceCalculator distanceCalculator;
+    private final StoreDatasets storeDatasets;
+    private final NearestStoreSearch nearestStoreSearch;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
     private final MeterRegistry meterRegistry;
     private final Counter storeSearchCounter;
     private final Counter storeSearchErrorCounter;
     private final Timer storeSearchTimer;
+    private final Counter storeSearchTimeoutCounter;
 
     public StoreServiceImpl(
-            StoreRepository storeRepository,
+            StoreDatasets storeDatasets,
             DistanceCalculator distanceCalculator,
+            AdaptiveConcurrencyLimiter concurrencyLimiter,
             MeterRegistry meterRegistry,
             @Qualifier("storeSearchCounter") Counter storeSearchCounter,
             @Qualifier("storeSearchErrorCounter") Counter storeSearchErrorCounter,
             @Qualifier("storeSearchTimer") Timer storeSearchTimer) {
-        this.storeRepository = storeRepository;
-        this.distanceCalculator = distanceCalculator;
+        this.storeDatasets = storeDatasets;
+        this.nearestStoreSearch = new NearestStoreSearch(distanceCalculator);
+        this.concurrencyLimiter = concurrencyLimiter;
         this.meterRegistry = meterRegistry;
         this.storeSearchCounter = storeSearchCounter;
         this.storeSearchErrorCounter = storeSearchErrorCounter;
         this.storeSearchTimer = storeSearchTimer;
+        this.storeSearchTimeoutCounter = Counter.builder("store.search.timeouts")
+                .description("Searches stopped at their deadline")
+                .register(meterRegistry);
     }
 
     @Override
-    @Cacheable(
-            value = "nearestStores",
-            key = "#location.latitude + '_' + #location.longitude + '_' + #limit")
-    public List<StoreWithDistance> findNearestStores(Location location, int limit) {
+    @Cacheable(cacheResolver = "nearestStoresCacheResolver", keyGenerator = "nearestStoresKeyGenerator",
+            sync = true)
+    public List<StoreWithDistance> findNearestStores(String dataset, Location location, int limit) {
+        // Not through the proxy, the cache of this method already missed
+        return findNearestStores(dataset, location, limit, SearchDeadline.NONE);
+    }
+
+    @Override
+    @Cacheable(cacheResolver = "nearestStoresCacheResolver", keyGenerator = "nearestStoresKeyGenerator",
+            sync = true)
+    public List<StoreWithDistance> findNearestStores(String dataset, Location location, int limit,
+                                                     SearchDeadline deadline) {
         Timer.Sample sample = Timer.start(meterRegistry);
 
         try {
-            log.info(
-                    "Finding {} nearest stores to location ({}, {})",
-                    limit,
-                    location.getLatitude(),
-                    location.getLongitude());
+            StoreRepository storeRepository = storeDatasets.get(dataset);
 
             // Validate location
             if (!location.isValid()) {
@@ -70,36 +95,34 @@ public class StoreServiceImpl implements StoreService {
                                 location.getLatitude(), location.getLongitude()));
             }
 
-            List<Store> allStores = storeRepository.findAll();
-            log.debug("Total stores loaded: {}", allStores.size());
-
-
-            List<StoreWithDistance> storesWithDistances =
-                    allStores.stream()
-                            .filter(Store::hasValidLocation)
-                            .map(
-                                    store -> {
-                                        double distance =
-                                                distanceCalculator.calculateDistance(location, store.getLocation());
-
-                                        return StoreWithDistance.builder()
-                                                .store(store)
-                                                .distance(Math.round(distance * 100.0) / 100.0) // Round to 2 decimals
-                                                .build();
-                                    })
-                            .sorted(Comparator.comparingDouble(StoreWithDistance::getDistance))
-                            .limit(limit)
-                            .toList();
-
-            log.info("Found {} nearest stores", storesWithDistances.size());
+            StoreSnapshot snapshot = storeRepository.snapshot();
+
+            deadline.check();
+            // Scans all stores until the spatial index of the snapshot is built
+            long startedAt = concurrencyLimiter.acquire();
+            List<StoreWithDistance> storesWithDistances;
+            try {
+                storesWithDistances = nearestStoreSearch.findNearest(
+                        snapshot, location.getLatitude(), location.getLongitude(), limit, deadline);
+            } catch (RuntimeException e) {
+                concurrencyLimiter.onIgnore();
+                throw e;
+            }
+            concurrencyLimiter.onSuccess(startedAt);
 
             storeSearchCounter.increment();
 
             return storesWithDistances;
 
-        } catch (InvalidCoordinatesException e) {
+        } catch (InvalidCoordinatesException | DatasetNotFoundException e) {
             storeSearchErrorCounter.increment();
             throw e;
+        } catch (SearchOverloadedException e) {
+            // Counted by store.search.concurrency.rejected
+            throw e;
+        } catch (SearchTimeoutException e) {
+            storeSearchTimeoutCounter.increment();
+            throw e;
         } catch (Exception e) {
             storeSearchErrorCounter.increment();
             log.error("Error finding nearest stores", e);
@@ -112,11 +135,11 @@ public class StoreServiceImpl implements StoreService {
     @Override
     public List<Store> getAllStores() {
         log.info("Retrieving all stores");
-        return storeRepository.findAll();
+        return storeDatasets.get(StoreDatasets.DEFAULT).findAll();
     }
 
     @Override
     public int getTotalStoreCount() {
-        return storeRepository.count();
+        return storeDatasets.get(StoreDatasets.DEFAULT).count();
     }
 }
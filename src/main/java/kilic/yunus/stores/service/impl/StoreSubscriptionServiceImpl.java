@@ -0,0 +1,252 @@
+package kilic.yunus.stores.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import kilic.yunus.stores.config.SubscriptionProperties;
+import kilic.yunus.stores.exception.InvalidCoordinatesException;
+import kilic.yunus.stores.exception.SearchOverloadedException;
+import kilic.yunus.stores.model.domain.Location;
+import kilic.yunus.stores.model.domain.Store;
+import kilic.yunus.stores.model.dto.NearestStoresUpdate;
+import kilic.yunus.stores.model.dto.StoreWithDistance;
+import kilic.yunus.stores.repository.StoreDatasets;
+import kilic.yunus.stores.repository.StoreRepository;
+import kilic.yunus.stores.repository.StoreSnapshot;
+import kilic.yunus.stores.service.DistanceCalculator;
+import kilic.yunus.stores.service.StoreSubscription;
+import kilic.yunus.stores.service.StoreSubscriptionService;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implementation of StoreSubscriptionService. A subscription searches the stores once for a
+ * multiple of the stores it follows, its candidates, and answers later location updates from them.
+ *
+ * <p>The candidates are all stores within their farthest distance {@code r} of the location they
+ * were searched from. Once the location moved {@code d} away, every other store is at least
+ * {@code r - d} away, so the nearest candidates are the nearest stores as long as the farthest of
+ * them is closer than that, less the rounding of distances. Otherwise the stores are searched again
+ * from the new location, within the {@link AdaptiveConcurrencyLimiter} like any search that misses
+ * the cache. Single-store changes keep the candidates unless one of them changed or a changed store
+ * is now within {@code r} of the location they were searched from (see
+ * {@link StoreSnapshot#changesSince}), any other change of the store data searches again. Updates
+ * count as {@code store.subscription.updates} tagged with the {@code search} they took.
+ */
+@Service
+public class StoreSubscriptionServiceImpl implements StoreSubscriptionService {
+
+    // Each rounded distance is off by up to half of this from the exact one
+    private static final double ROUNDING_KM = 0.01;
+
+    // Guards the bound against rounding errors of the distances
+    private static final double BOUND_TOLERANCE_KM = 1e-9;
+
+    // Clients reconnect after this when all subscriptions are open
+    private static final Duration SUBSCRIBE_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final StoreDatasets storeDatasets;
+    private final DistanceCalculator distanceCalculator;
+    private final NearestStoreSearch nearestStoreSearch;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final SubscriptionProperties properties;
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final Counter incrementalUpdates;
+    private final Counter fullUpdates;
+
+    public StoreSubscriptionServiceImpl(StoreDatasets storeDatasets, DistanceCalculator distanceCalculator,
+                                        AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                        SubscriptionProperties properties, MeterRegistry meterRegistry) {
+        this.storeDatasets = storeDatasets;
+        this.distanceCalculator = distanceCalculator;
+        this.nearestStoreSearch = new NearestStoreSearch(distanceCalculator);
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.properties = properties;
+        Gauge.builder("store.subscription.sessions", sessions, AtomicInteger::get)
+                .description("Open nearest-store subscriptions")
+                .register(meterRegistry);
+        this.incrementalUpdates = Counter.builder("store.subscription.updates")
+                .description("Location updates of nearest-store subscriptions")
+                .tag("search", "incremental")
+                .register(meterRegistry);
+        this.fullUpdates = Counter.builder("store.subscription.updates")
+                .description("Location updates of nearest-store subscriptions")
+                .tag("search", "full")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public StoreSubscription subscribe(String dataset, int limit) {
+        StoreRepository storeRepository = storeDatasets.get(dataset);
+        int open;
+        do {
+            open = sessions.get();
+            if (open >= properties.getMaxSessions()) {
+                throw new SearchOverloadedException("Too many subscriptions, retry later", SUBSCRIBE_RETRY_AFTER);
+            }
+        } while (!sessions.compareAndSet(open, open + 1));
+        return new Subscription(storeRepository, limit, limit * Math.max(1, properties.getCandidatesPerResult()));
+    }
+
+    private final class Subscription implements StoreSubscription {
+
+        private final StoreRepository storeRepository;
+        private final int limit;
+        private final int candidateCount;
+        private boolean closed;
+
+        // Nearest stores to the anchor, searched in the snapshot of this generation
+        private long generation = -1;
+        private int[] candidates;
+        private double anchorLatitude;
+        private double anchorLongitude;
+        private double candidateRadius;
+
+        private List<StoreWithDistance> nearest = List.of();
+
+        Subscription(StoreRepository storeRepository, int limit, int candidateCount) {
+            this.storeRepository = storeRepository;
+            this.limit = limit;
+            this.candidateCount = candidateCount;
+        }
+
+        @Override
+        public synchronized Optional<NearestStoresUpdate> update(Location location) {
+            if (!location.isValid()) {
+                throw new InvalidCoordinatesException(
+                        String.format(
+                                "Invalid coordinates: latitude=%.6f, longitude=%.6f",
+                                location.getLatitude(), location.getLongitude()));
+            }
+            StoreSnapshot snapshot = storeRepository.snapshot();
+            List<StoreWithDistance> next = candidatesCurrent(snapshot)
+                    ? nearestCandidates(snapshot, location)
+                    : null;
+            if (next != null) {
+                incrementalUpdates.increment();
+            } else {
+                next = search(snapshot, location);
+                fullUpdates.increment();
+            }
+            Optional<NearestStoresUpdate> update = diff(nearest, next, location);
+            nearest = next;
+            return update;
+        }
+
+        /**
+         * @return whether the candidates are still the nearest stores to the anchor in the snapshot
+         */
+        private boolean candidatesCurrent(StoreSnapshot snapshot) {
+            if (snapshot.generation() == generation) {
+                return true;
+            }
+            List<StoreSnapshot.Change> changes = snapshot.changesSince(generation);
+            if (changes == null) {
+                return false;
+            }
+            for (StoreSnapshot.Change change : changes) {
+                int position = change.position();
+                for (int candidate : candidates) {
+                    if (candidate == position) {
+                        return false;
+                    }
+                }
+                if (position < snapshot.size() && snapshot.hasValidLocation(position)
+                        && NearestStoreSearch.round(distanceCalculator.calculateDistance(anchorLatitude,
+                        anchorLongitude, snapshot.latitude(position), snapshot.longitude(position)))
+                        <= candidateRadius) {
+                    return false;
+                }
+            }
+            generation = snapshot.generation();
+            return true;
+        }
+
+        /**
+         * @return nearest stores among the candidates, null if they may miss one of the nearest
+         */
+        private List<StoreWithDistance> nearestCandidates(StoreSnapshot snapshot, Location location) {
+            List<StoreWithDistance> next = nearestStoreSearch.findNearestAmong(
+                    snapshot, candidates, location.getLatitude(), location.getLongitude(), limit);
+            if (candidateRadius == Double.POSITIVE_INFINITY) {
+                return next;
+            }
+            double moved = distanceCalculator.calculateDistance(
+                    anchorLatitude, anchorLongitude, location.getLatitude(), location.getLongitude());
+            double bound = candidateRadius - moved - ROUNDING_KM - BOUND_TOLERANCE_KM;
+            return next.size() == limit && next.getLast().getDistance() < bound ? next : null;
+        }
+
+        private List<StoreWithDistance> search(StoreSnapshot snapshot, Location location) {
+            long startedAt = concurrencyLimiter.acquire();
+            int[] positions;
+            try {
+                positions = nearestStoreSearch.findNearestPositions(
+                        snapshot, location.getLatitude(), location.getLongitude(), candidateCount);
+            } catch (RuntimeException e) {
+                concurrencyLimiter.onIgnore();
+                throw e;
+            }
+            concurrencyLimiter.onSuccess(startedAt);
+
+            generation = snapshot.generation();
+            candidates = positions;
+            anchorLatitude = location.getLatitude();
+            anchorLongitude = location.getLongitude();
+            if (positions.length < candidateCount) {
+                // All stores with a location are candidates
+                candidateRadius = Double.POSITIVE_INFINITY;
+            } else {
+                int farthest = positions[positions.length - 1];
+                candidateRadius = NearestStoreSearch.round(distanceCalculator.calculateDistance(
+                        anchorLatitude, anchorLongitude, snapshot.latitude(farthest), snapshot.longitude(farthest)));
+            }
+            return nearestStoreSearch.findNearestAmong(
+                    snapshot, positions, location.getLatitude(), location.getLongitude(), limit);
+        }
+
+        private static Optional<NearestStoresUpdate> diff(List<StoreWithDistance> previous,
+                                                          List<StoreWithDistance> next, Location location) {
+            Map<String, Store> previousStores = new LinkedHashMap<>();
+            for (StoreWithDistance result : previous) {
+                previousStores.put(result.getStore().getUuid(), result.getStore());
+            }
+            List<StoreWithDistance> added = new ArrayList<>();
+            List<String> order = new ArrayList<>(next.size());
+            for (StoreWithDistance result : next) {
+                Store store = result.getStore();
+                if (!store.equals(previousStores.remove(store.getUuid()))) {
+                    added.add(result);
+                }
+                order.add(store.getUuid());
+            }
+            boolean sameOrder = previous.size() == next.size() && previousStores.isEmpty()
+                    && order.equals(previous.stream().map(result -> result.getStore().getUuid()).toList());
+            if (added.isEmpty() && sameOrder) {
+                return Optional.empty();
+            }
+            return Optional.of(NearestStoresUpdate.builder()
+                    .latitude(location.getLatitude())
+                    .longitude(location.getLongitude())
+                    .added(added)
+                    .removed(List.copyOf(previousStores.keySet()))
+                    .order(sameOrder ? null : order)
+                    .build());
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                sessions.decrementAndGet();
+            }
+        }
+    }
+}
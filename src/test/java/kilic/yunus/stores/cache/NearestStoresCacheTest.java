@@ -0,0 +1,142 @@
+package kilic.yunus.stores.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import kilic.yunus.stores.model.domain.Store;
+import kilic.yunus.stores.model.dto.StoreWithDistance;
+import kilic.yunus.stores.repository.StoreRepository;
+import kilic.yunus.stores.repository.StoreSnapshot;
+import kilic.yunus.stores.service.DistanceCalculator;
+import kilic.yunus.stores.service.impl.HaversineDistanceCalculator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for NearestStoresCache. Every cached result has to be the result of a new search in the
+ * current snapshot.
+ */
+@ExtendWith(MockitoExtension.class)
+class NearestStoresCacheTest {
+
+    private static final NearestStoresCacheKey KEY = new NearestStoresCacheKey(52.0, 5.0, 2, 1);
+
+    private final DistanceCalculator distanceCalculator = new HaversineDistanceCalculator();
+    private final AtomicInteger searches = new AtomicInteger();
+
+    @Mock
+    private StoreRepository storeRepository;
+
+    private CaffeineCache l1;
+    private StoreSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        l1 = new CaffeineCache("nearestStores", Caffeine.newBuilder().build());
+        // Stores about 1.1 km apart, north of the searched location
+        snapshot = new StoreSnapshot(1, IntStream.range(0, 5).mapToObj(id -> store(id, 52.0 + id * 0.01)).toList());
+    }
+
+    @Test
+    @DisplayName("Should keep cached results across changes of distant stores only")
+    void shouldKeepResultsAcrossDistantChanges() {
+        // Given
+        NearestStoresCache cache = new NearestStoresCache(l1, null, storeRepository, distanceCalculator);
+        List<StoreWithDistance> first = get(cache);
+
+        // When & Then - renamed and removed stores farther away than the cached ones
+        publish(snapshot.withStore(2, renamed(snapshot.get(4))));
+        publish(snapshot.withoutStore(3, store(3, 0).getUuid()));
+        assertThat(get(cache)).isEqualTo(first);
+        assertThat(searches).hasValue(1);
+
+        // A store added closer than the farthest cached one
+        publish(snapshot.withStore(4, store(9, 52.005)));
+        assertThat(get(cache)).extracting(result -> result.getStore().getUuid())
+                .containsExactly(store(0, 0).getUuid(), store(9, 0).getUuid());
+        assertThat(searches).hasValue(2);
+
+        // A cached store that changed
+        publish(snapshot.withStore(5, renamed(snapshot.get(0))));
+        assertThat(get(cache).getFirst().getStore().getCity()).isEqualTo("Renamed");
+        assertThat(get(cache)).isEqualTo(search(snapshot));
+        assertThat(searches).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("Should resolve off-heap results against the current stores")
+    void shouldResolveOffHeapResults() {
+        // Given
+        NearestStoresCache cache = new NearestStoresCache(
+                l1, new OffHeapNearestStoresCache(64, 5, null), storeRepository, distanceCalculator);
+        get(cache);
+
+        // When & Then - the last store takes over the position of a distant removed one
+        publish(snapshot.withoutStore(2, store(3, 0).getUuid()));
+        l1.clear();
+        assertThat(get(cache)).isEqualTo(search(snapshot));
+        assertThat(searches).hasValue(1);
+
+        // ... or of a cached one
+        publish(snapshot.withoutStore(3, store(1, 0).getUuid()));
+        l1.clear();
+        assertThat(get(cache)).isEqualTo(search(snapshot));
+        assertThat(searches).hasValue(2);
+    }
+
+    private List<StoreWithDistance> get(NearestStoresCache cache) {
+        when(storeRepository.snapshot()).thenReturn(snapshot);
+        return cache.get(KEY, () -> {
+            searches.incrementAndGet();
+            return search(snapshot);
+        });
+    }
+
+    private void publish(StoreSnapshot next) {
+        snapshot = next;
+    }
+
+    /**
+     * Same order as a nearest-store search: rounded distance, then snapshot position.
+     */
+    private List<StoreWithDistance> search(StoreSnapshot searched) {
+        return IntStream.range(0, searched.size())
+                .mapToObj(position -> StoreWithDistance.builder()
+                        .store(searched.get(position))
+                        .distance(Math.round(distanceCalculator.calculateDistance(KEY.latitude(), KEY.longitude(),
+                                searched.latitude(position), searched.longitude(position)) * 100.0) / 100.0)
+                        .build())
+                .sorted(Comparator.comparingDouble(StoreWithDistance::getDistance))
+                .limit(KEY.limit())
+                .toList();
+    }
+
+    private static Store store(int id, double latitude) {
+        return Store.builder()
+                .uuid(String.format("store-uuid-%05d", id))
+                .city("City " + id)
+                .latitude(latitude)
+                .longitude(5.0)
+                .build();
+    }
+
+    private static Store renamed(Store store) {
+        return Store.builder()
+                .uuid(store.getUuid())
+                .city("Renamed")
+                .latitude(store.getLatitude())
+                .longitude(store.getLongitude())
+                .build();
+    }
+}
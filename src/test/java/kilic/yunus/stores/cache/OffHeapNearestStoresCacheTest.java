@@ -0,0 +1,131 @@
+package kilic.yunus.stores.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kilic.yunus.stores.cache.OffHeapNearestStoresCache.CompactResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for OffHeapNearestStoresCache.
+ */
+class OffHeapNearestStoresCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should return stored result for the same key")
+    void shouldReturnStoredResult() {
+        // Given
+        OffHeapNearestStoresCache cache = new OffHeapNearestStoresCache(64, 5, null);
+        NearestStoresCacheKey key = new NearestStoresCacheKey(52.3676, 4.9041, 3, 1);
+
+        // When
+        cache.put(key, new CompactResult(7, new int[]{4, 2, 9}, new int[]{85, 123, 4567}));
+        CompactResult result = cache.get(key);
+
+        // Then
+        assertThat(result).isNotNull();
+        assertThat(result.storeIndices()).containsExactly(4, 2, 9);
+        assertThat(result.distances()).containsExactly(85, 123, 4567);
+        assertThat(result.generation()).isEqualTo(7);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should miss for a different limit or generation")
+    void shouldMissForDifferentLimitOrGeneration() {
+        // Given
+        OffHeapNearestStoresCache cache = new OffHeapNearestStoresCache(64, 5, null);
+        cache.put(new NearestStoresCacheKey(52.3676, 4.9041, 3, 1),
+                new CompactResult(1, new int[]{1}, new int[]{10}));
+
+        // When/Then
+        assertThat(cache.get(new NearestStoresCacheKey(52.3676, 4.9041, 4, 1))).isNull();
+        assertThat(cache.get(new NearestStoresCacheKey(52.3676, 4.9041, 3, 2))).isNull();
+    }
+
+    @Test
+    @DisplayName("Should not store results larger than the per-entry limit")
+    void shouldRejectOversizedResults() {
+        // Given
+        OffHeapNearestStoresCache cache = new OffHeapNearestStoresCache(64, 2, null);
+        NearestStoresCacheKey key = new NearestStoresCacheKey(52.0, 4.0, 3, 1);
+
+        // When
+        boolean stored = cache.put(key, new CompactResult(1, new int[]{1, 2, 3}, new int[]{1, 2, 3}));
+
+        // Then
+        assertThat(stored).isFalse();
+        assertThat(cache.get(key)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should evict least recently used entry when full")
+    void shouldEvictLeastRecentlyUsedEntry() {
+        // Given - a single bucket
+        OffHeapNearestStoresCache cache =
+                new OffHeapNearestStoresCache(OffHeapNearestStoresCache.WAYS, 1, null);
+        CompactResult result = new CompactResult(1, new int[]{0}, new int[]{0});
+        for (int i = 0; i < OffHeapNearestStoresCache.WAYS; i++) {
+            cache.put(new NearestStoresCacheKey(i, i, 1, 1), result);
+        }
+        // Touch the oldest entry so the second one becomes least recently used
+        cache.get(new NearestStoresCacheKey(0, 0, 1, 1));
+
+        // When
+        cache.put(new NearestStoresCacheKey(99, 99, 1, 1), result);
+
+        // Then
+        assertThat(cache.get(new NearestStoresCacheKey(0, 0, 1, 1))).isNotNull();
+        assertThat(cache.get(new NearestStoresCacheKey(1, 1, 1, 1))).isNull();
+        assertThat(cache.get(new NearestStoresCacheKey(99, 99, 1, 1))).isNotNull();
+        assertThat(cache.size()).isEqualTo(OffHeapNearestStoresCache.WAYS);
+    }
+
+    @Test
+    @DisplayName("Should evict entries of older generations only")
+    void shouldEvictOlderGenerations() {
+        // Given
+        OffHeapNearestStoresCache cache = new OffHeapNearestStoresCache(64, 1, null);
+        CompactResult result = new CompactResult(1, new int[]{0}, new int[]{0});
+        cache.put(new NearestStoresCacheKey(1, 1, 1, 1), result);
+        cache.put(new NearestStoresCacheKey(2, 2, 1, 1), result);
+        cache.put(new NearestStoresCacheKey(3, 3, 1, 2), result);
+
+        // When
+        int freed = cache.evictOlderThan(2);
+
+        // Then
+        assertThat(freed).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get(new NearestStoresCacheKey(3, 3, 1, 2))).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should work on a memory-mapped file and export metrics")
+    void shouldWorkOnMappedFileAndExportMetrics() {
+        // Given
+        OffHeapNearestStoresCache cache =
+                new OffHeapNearestStoresCache(64, 5, tempDir.resolve("l2.cache"));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        NearestStoresCacheKey key = new NearestStoresCacheKey(52.0, 4.0, 1, 1);
+
+        // When
+        cache.get(key);
+        cache.put(key, new CompactResult(1, new int[]{7}, new int[]{42}));
+        cache.get(key);
+
+        // Then
+        assertThat(registry.get("store.cache.l2.hits").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("store.cache.l2.misses").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("store.cache.l2.size").gauge().value()).isEqualTo(1);
+        assertThat(tempDir.resolve("l2.cache")).exists();
+    }
+}
@@ -0,0 +1,63 @@
+package kilic.yunus.stores.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestLogSamplerTest {
+
+    private static final long SECOND_NANOS = 1_000_000_000L;
+
+    private final AtomicLong nanoTime = new AtomicLong(5 * SECOND_NANOS);
+
+    @Test
+    @DisplayName("Should sample up to the limit per second")
+    void shouldSampleUpToLimitPerSecond() {
+        // Given
+        RequestLogSampler sampler = new RequestLogSampler(3, nanoTime::get);
+
+        // When
+        long[] samples = new long[5];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = sampler.sample();
+        }
+
+        // Then
+        assertThat(samples).containsExactly(0, 0, 0, RequestLogSampler.NOT_SAMPLED, RequestLogSampler.NOT_SAMPLED);
+    }
+
+    @Test
+    @DisplayName("Should report the requests left out with the next sampled one")
+    void shouldReportSkippedRequests() {
+        // Given
+        RequestLogSampler sampler = new RequestLogSampler(1, nanoTime::get);
+        for (int i = 0; i < 8; i++) {
+            sampler.sample();
+        }
+
+        // When
+        nanoTime.addAndGet(SECOND_NANOS);
+        long first = sampler.sample();
+        long second = sampler.sample();
+        nanoTime.addAndGet(SECOND_NANOS);
+        long third = sampler.sample();
+
+        // Then
+        assertThat(first).isEqualTo(7);
+        assertThat(second).isEqualTo(RequestLogSampler.NOT_SAMPLED);
+        assertThat(third).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should sample nothing when disabled")
+    void shouldSampleNothingWhenDisabled() {
+        // Given
+        RequestLogSampler sampler = new RequestLogSampler(0, nanoTime::get);
+
+        // When / Then
+        assertThat(sampler.sample()).isEqualTo(RequestLogSampler.NOT_SAMPLED);
+    }
+}
@@ -0,0 +1,51 @@
+package kilic.yunus.stores.config;
+
+import kilic.yunus.stores.exception.InvalidRequestTimeoutException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchTimeoutPropertiesTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(ValidationAutoConfiguration.class))
+            .withUserConfiguration(Config.class);
+
+    @Test
+    @DisplayName("Should reject a maximum timeout that is not positive")
+    void shouldRejectMaxTimeoutThatIsNotPositive() {
+        contextRunner.withPropertyValues("stores.search.timeout.max-timeout=0ms")
+                .run(context -> assertThat(context).hasFailed());
+        contextRunner.withPropertyValues("stores.search.timeout.max-timeout=-1s")
+                .run(context -> assertThat(context).hasFailed());
+        contextRunner.withPropertyValues("stores.search.timeout.max-timeout=5s")
+                .run(context -> assertThat(context.getBean(SearchTimeoutProperties.class).getMaxTimeout())
+                        .isEqualTo(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    @DisplayName("Should cut requested timeouts to the maximum and reject those that are not positive")
+    void shouldCutRequestedTimeouts() {
+        // Given
+        SearchTimeoutProperties properties = new SearchTimeoutProperties();
+        properties.setMaxTimeout(Duration.ofSeconds(2));
+
+        // When & Then
+        assertThat(properties.deadline(Long.MAX_VALUE)).hasToString("2000 ms");
+        assertThat(properties.deadline(500L)).hasToString("500 ms");
+        assertThat(properties.deadline(null)).hasToString("none");
+        assertThatThrownBy(() -> properties.deadline(0L)).isInstanceOf(InvalidRequestTimeoutException.class);
+    }
+
+    @EnableConfigurationProperties(SearchTimeoutProperties.class)
+    static class Config {
+    }
+}
@@ -0,0 +1,77 @@
+package kilic.yunus.stores.config;
+
+import kilic.yunus.stores.model.domain.Store;
+import kilic.yunus.stores.repository.StoreIndexStatus;
+import kilic.yunus.stores.repository.StoreRepository;
+import kilic.yunus.stores.repository.StoreSnapshot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StoreDataHealthIndicatorTest {
+
+    @Mock
+    private StoreRepository defaultStores;
+
+    @Mock
+    private StoreRepository chainB;
+
+    @Test
+    @DisplayName("Should be up with a loaded data set without stores")
+    void shouldReportEmptyDatasetAsUp() {
+        // Given
+        when(defaultStores.snapshot())
+                .thenReturn(new StoreSnapshot(1, List.of(Store.builder().uuid("test-uuid-0001").build())));
+        when(chainB.snapshot()).thenReturn(new StoreSnapshot(1, List.of()));
+
+        // When
+        Health health = health();
+
+        // Then
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails().get("totalStores")).isEqualTo(1L);
+        assertThat(dataset(health, "default")).doesNotContainKey("empty");
+        assertThat(dataset(health, "chain-b")).containsEntry("totalStores", 0).containsEntry("empty", true);
+    }
+
+    @Test
+    @DisplayName("Should be down while a data set has not been loaded")
+    void shouldReportUnloadedDatasetAsDown() {
+        // Given
+        when(defaultStores.snapshot()).thenReturn(new StoreSnapshot(1, List.of()));
+        when(chainB.snapshot()).thenReturn(StoreSnapshot.EMPTY);
+
+        // When
+        Health health = health();
+
+        // Then
+        assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(health.getDetails()).containsEntry("status", "Store data not loaded");
+    }
+
+    private Health health() {
+        when(defaultStores.indexStatus()).thenReturn(StoreIndexStatus.DISABLED);
+        when(chainB.indexStatus()).thenReturn(StoreIndexStatus.DISABLED);
+        Map<String, StoreRepository> repositories = new LinkedHashMap<>();
+        repositories.put("default", defaultStores);
+        repositories.put("chain-b", chainB);
+        return new StoreDataHealthIndicator(() -> repositories).health();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> dataset(Health health, String dataset) {
+        return ((Map<String, Map<String, Object>>) health.getDetails().get("datasets")).get(dataset);
+    }
+}
@@ -0,0 +1,214 @@
+package kilic.yunus.stores.controller;
+
+import io.restassured.RestAssured;
+import io.restassured.path.json.JsonPath;
+import kilic.yunus.stores.model.domain.Location;
+import kilic.yunus.stores.model.dto.StoreWithDistance;
+import kilic.yunus.stores.repository.StoreDatasets;
+import kilic.yunus.stores.service.StoreService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.publisher.Flux;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Integration tests for ReactiveStoreController, the API of the {@code reactive} profile.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "reactive"})
+class ReactiveStoreControllerIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ReactiveWebServerApplicationContext applicationContext;
+
+    @Autowired
+    private StoreService storeService;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.basePath = "/api/v1/stores";
+    }
+
+    @Test
+    void shouldRunOnNetty() {
+        assertThat(applicationContext.getWebServer()).isInstanceOf(NettyWebServer.class);
+    }
+
+    @Test
+    void shouldReturnSameStoresAsStoreService() {
+        List<StoreWithDistance> expected =
+                storeService.findNearestStores(StoreDatasets.DEFAULT, new Location(52.3676, 4.9041), 5);
+
+        given()
+                .queryParam("latitude", 52.3676)
+                .queryParam("longitude", 4.9041)
+                .when()
+                .get("/nearest")
+                .then()
+                .statusCode(200)
+                .body("query.latitude", equalTo(52.3676f))
+                .body("query.limit", equalTo(5))
+                .body("totalFound", equalTo(5))
+                .body("results.store.uuid",
+                        contains(expected.stream().map(result -> result.getStore().getUuid()).toArray()))
+                .body("results[0].distance", equalTo((float) expected.get(0).getDistance()));
+    }
+
+    @Test
+    void shouldSearchDatasetSelectedByPath() {
+        given()
+                .basePath("/api/v1/datasets/chain-b/stores")
+                .queryParam("latitude", 52.5125)
+                .queryParam("longitude", 6.0940)
+                .queryParam("limit", 1)
+                .when()
+                .get("/nearest")
+                .then()
+                .statusCode(200)
+                .body("query.dataset", equalTo("chain-b"))
+                .body("results[0].store.uuid", equalTo("chain-b-0000000000000002"));
+    }
+
+    @Test
+    void shouldReturnOnlySelectedStoreFields() {
+        given()
+                .queryParam("latitude", 52.3676)
+                .queryParam("longitude", 4.9041)
+                .queryParam("fields", "uuid,city")
+                .when()
+                .get("/nearest")
+                .then()
+                .statusCode(200)
+                .body("results[0].store.keySet()", containsInAnyOrder("uuid", "city"));
+    }
+
+    @Test
+    void shouldRejectRequestTimeoutsThatAreNotPositive() {
+        given()
+                .header("X-Request-Timeout", 0)
+                .queryParam("latitude", 51.3456)
+                .queryParam("longitude", 5.6543)
+                .when()
+                .get("/nearest")
+                .then()
+                .statusCode(400)
+                .body("message", equalTo("X-Request-Timeout must be a positive number of milliseconds"));
+
+        given()
+                .header("X-Request-Timeout", Long.MAX_VALUE)
+                .queryParam("latitude", 51.3456)
+                .queryParam("longitude", 5.6543)
+                .when()
+                .get("/nearest")
+                .then()
+                .statusCode(200);
+    }
+
+    @Test
+    void shouldSendChangesOfNearestStoresOverWebSocket() {
+        List<String> expected = storeService
+                .findNearestStores(StoreDatasets.DEFAULT, new Location(52.3676, 4.9041), 3).stream()
+                .map(result -> result.getStore().getUuid())
+                .toList();
+        List<String> replies = new ArrayList<>();
+
+        new ReactorNettyWebSocketClient()
+                .execute(URI.create("ws://localhost:" + port + StoreSubscriptionMessages.PATH + "?limit=3"),
+                        session -> session.send(Flux.just(
+                                                "{\"latitude\": 52.3676, \"longitude\": 4.9041}",
+                                                "{\"latitude\": 52.36761, \"longitude\": 4.90411}",
+                                                "not json")
+                                        .map(session::textMessage))
+                                .thenMany(session.receive().map(WebSocketMessage::getPayloadAsText).take(2))
+                                .doOnNext(replies::add)
+                                .then())
+                .block(Duration.ofSeconds(10));
+
+        assertThat(replies).hasSize(2);
+        assertThat(JsonPath.from(replies.get(0)).getList("order")).containsExactlyElementsOf(expected);
+        assertThat(JsonPath.from(replies.get(1)).getInt("status")).isEqualTo(400);
+    }
+
+    @Test
+    void shouldReturnBadRequestForUnknownStoreField() {
+        given()
+                .queryParam("latitude", 52.3676)
+                .queryParam("longitude", 4.9041)
+                .queryParam("fields", "password")
+                .when()
+                .get("/nearest")
+                .then()
+                .statusCode(400)
+                .body("message", containsString("Fields must be"));
+    }
+
+    @Test
+    void shouldReturnBadRequestForInvalidLatitude() {
+        given()
+                .queryParam("latitude", 100.0)
+                .queryParam("longitude", 4.9041)
+                .when()
+                .get("/nearest")
+                .then()
+                .statusCode(400)
+                .body("status", equalTo(400))
+                .body("message", containsString("Latitude"))
+                .body("path", equalTo("/api/v1/stores/nearest"));
+    }
+
+    @Test
+    void shouldReturnBadRequestForMissingLongitude() {
+        given()
+                .queryParam("latitude", 52.3676)
+                .when()
+                .get("/nearest")
+                .then()
+                .statusCode(400)
+                .body("status", equalTo(400))
+                .body("message", equalTo("Longitude is required"));
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownDataset() {
+        given()
+                .queryParam("latitude", 52.3676)
+                .queryParam("longitude", 4.9041)
+                .queryParam("dataset", "unknown-chain")
+                .when()
+                .get("/nearest")
+                .then()
+                .statusCode(404)
+                .body("status", equalTo(404))
+                .body("message", containsString("unknown-chain"));
+    }
+
+    @Test
+    void shouldNotExposeAdminApi() {
+        given()
+                .basePath("/api/v1/admin/stores")
+                .when()
+                .delete("/some-store")
+                .then()
+                .statusCode(404);
+    }
+}
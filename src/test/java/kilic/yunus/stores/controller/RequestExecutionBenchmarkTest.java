@@ -0,0 +1,223 @@
+package kilic.yunus.stores.controller;
+
+import kilic.yunus.stores.StoresApplication;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput and tail latency of the HTTP API at high concurrency, with Tomcat requests running on
+ * its platform thread pool and on virtual threads ({@code spring.threads.virtual.enabled}). Run with
+ * {@code ./mvnw test -Pbenchmark -Dtest=RequestExecutionBenchmarkTest}, the load can be set with
+ * {@code -Dbenchmark.concurrency=1000 -Dbenchmark.duration=10s}.
+ *
+ * <p>Clients mix nearest-store searches with admin upserts. Upserts wait for the change log fsync,
+ * which is delayed by {@code -Dbenchmark.sync-interval} to stand in for a slow disk, so they block
+ * their request thread the way any blocking call would. Every run appends one CSV row per mode to
+ * {@code target/benchmark-results/request-execution.csv} (or {@code -Dbenchmark.results=<file>}).
+ */
+@Tag("benchmark")
+class RequestExecutionBenchmarkTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 1000);
+    private static final Duration DURATION = Duration.parse(
+            "PT" + System.getProperty("benchmark.duration", "10s"));
+    private static final Duration WARMUP = Duration.ofSeconds(3);
+    private static final String SYNC_INTERVAL = System.getProperty("benchmark.sync-interval", "20ms");
+    private static final double WRITE_SHARE = 0.2;
+    private static final Path RESULTS = Path.of(
+            System.getProperty("benchmark.results", "target/benchmark-results/request-execution.csv"));
+    private static final String CSV_HEADER = "timestamp,commit,threads,concurrency,requests_per_s,"
+            + "search_p50_ms,search_p99_ms,upsert_p50_ms,upsert_p99_ms,errors";
+    private static final String API_KEY = "test-admin-key";
+
+    private static final String STORE = """
+            {
+              "city": "Maastricht",
+              "postalCode": "6211 AB",
+              "street": "Markt",
+              "addressName": "Benchmark Store",
+              "uuid": "%s",
+              "longitude": %.6f,
+              "latitude": %.6f,
+              "complexNumber": "99999",
+              "showWarningMessage": false,
+              "locationType": "Supermarkt",
+              "sapStoreID": "9999"
+            }
+            """;
+
+    @TempDir
+    Path changeLogDirectory;
+
+    @ParameterizedTest(name = "{0} threads")
+    @ValueSource(strings = {"platform", "virtual"})
+    @DisplayName("Throughput and tail latency per request execution mode")
+    void measureRequestExecution(String threads) throws Exception {
+        // Given
+        boolean virtual = threads.equals("virtual");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(StoresApplication.class)
+                .profiles("test")
+                .properties(
+                        "spring.threads.virtual.enabled=" + virtual,
+                        "stores.data.file=classpath:stores.json",
+                        "stores.data.change-log.enabled=true",
+                        "stores.data.change-log.directory=" + changeLogDirectory.resolve(threads),
+                        "stores.data.change-log.sync-interval=" + SYNC_INTERVAL,
+                        "logging.level.kilic.yunus.stores=WARN")
+                .run()) {
+            TomcatWebServer webServer = (TomcatWebServer)
+                    ((ServletWebServerApplicationContext) context).getWebServer();
+            assertThat(webServer.getTomcat().getConnector().getProtocolHandler().getExecutor() instanceof
+                    VirtualThreadExecutor).isEqualTo(virtual);
+            URI baseUri = URI.create("http://localhost:" + webServer.getPort());
+
+            // When
+            Load load = run(baseUri);
+
+            // Then
+            assertThat(load.searches()).isNotEmpty();
+            assertThat(load.upserts()).isNotEmpty();
+            record(threads, load);
+        }
+    }
+
+    private static Load run(URI baseUri) throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        long startedAt = System.nanoTime();
+        long measureFrom = startedAt + WARMUP.toNanos();
+        long endAt = measureFrom + DURATION.toNanos();
+        AtomicInteger errors = new AtomicInteger();
+        List<Future<Load>> clients = new ArrayList<>();
+        // One virtual thread per client, so the client side never limits the concurrency
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < CONCURRENCY; client++) {
+                int clientId = client;
+                clients.add(executor.submit(() -> {
+                    SplittableRandom random = new SplittableRandom(clientId);
+                    List<Long> searches = new ArrayList<>();
+                    List<Long> upserts = new ArrayList<>();
+                    for (int request = 0; System.nanoTime() < endAt; request++) {
+                        boolean upsert = random.nextDouble() < WRITE_SHARE;
+                        HttpRequest httpRequest = upsert
+                                ? upsertRequest(baseUri, clientId, request, random)
+                                : searchRequest(baseUri, random);
+                        long requestStartedAt = System.nanoTime();
+                        int status = send(httpClient, httpRequest);
+                        long elapsed = System.nanoTime() - requestStartedAt;
+                        if (status != 200) {
+                            errors.incrementAndGet();
+                        } else if (requestStartedAt >= measureFrom) {
+                            (upsert ? upserts : searches).add(elapsed);
+                        }
+                    }
+                    return new Load(searches, upserts, 0);
+                }));
+            }
+        }
+        List<Long> searches = new ArrayList<>();
+        List<Long> upserts = new ArrayList<>();
+        for (Future<Load> client : clients) {
+            searches.addAll(client.get().searches());
+            upserts.addAll(client.get().upserts());
+        }
+        searches.sort(null);
+        upserts.sort(null);
+        return new Load(searches, upserts, errors.get());
+    }
+
+    private static HttpRequest searchRequest(URI baseUri, SplittableRandom random) {
+        // Random locations in the Netherlands, so most searches miss the result cache
+        double latitude = 50.8 + random.nextDouble() * 2.6;
+        double longitude = 3.4 + random.nextDouble() * 3.7;
+        return HttpRequest.newBuilder(baseUri.resolve(String.format(Locale.ROOT,
+                        "/api/v1/stores/nearest?latitude=%.5f&longitude=%.5f&limit=5", latitude, longitude)))
+                .GET()
+                .build();
+    }
+
+    private static HttpRequest upsertRequest(URI baseUri, int clientId, int request, SplittableRandom random) {
+        // A few stores per client, updated over and over
+        String uuid = String.format("benchmark-store-%05d-%d", clientId, request % 4);
+        double longitude = 3.4 + random.nextDouble() * 3.7;
+        double latitude = 50.8 + random.nextDouble() * 2.6;
+        String body = String.format(Locale.ROOT, STORE, uuid, longitude, latitude);
+        return HttpRequest.newBuilder(baseUri.resolve("/api/v1/admin/stores/" + uuid))
+                .header("Content-Type", "application/json")
+                .header("X-API-Key", API_KEY)
+                .PUT(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static int send(HttpClient httpClient, HttpRequest request) throws InterruptedException {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static void record(String threads, Load load) throws IOException {
+        long requests = load.searches().size() + load.upserts().size();
+        long requestsPerSecond = requests * 1000 / DURATION.toMillis();
+        System.out.printf("Requests: %s threads, %d clients: %,d requests/s, search p50 %.1f ms, p99 %.1f ms, "
+                        + "upsert p50 %.1f ms, p99 %.1f ms, %d errors%n",
+                threads, CONCURRENCY, requestsPerSecond,
+                percentileMillis(load.searches(), 50), percentileMillis(load.searches(), 99),
+                percentileMillis(load.upserts(), 50), percentileMillis(load.upserts(), 99), load.errors());
+
+        Files.createDirectories(RESULTS.toAbsolutePath().getParent());
+        if (!Files.exists(RESULTS)) {
+            Files.writeString(RESULTS, CSV_HEADER + System.lineSeparator());
+        }
+        String row = String.join(",", Instant.now().toString(), System.getenv().getOrDefault("GITHUB_SHA", ""),
+                threads, Integer.toString(CONCURRENCY), Long.toString(requestsPerSecond),
+                String.format(Locale.ROOT, "%.1f", percentileMillis(load.searches(), 50)),
+                String.format(Locale.ROOT, "%.1f", percentileMillis(load.searches(), 99)),
+                String.format(Locale.ROOT, "%.1f", percentileMillis(load.upserts(), 50)),
+                String.format(Locale.ROOT, "%.1f", percentileMillis(load.upserts(), 99)),
+                Integer.toString(load.errors()));
+        Files.writeString(RESULTS, row + System.lineSeparator(), StandardOpenOption.APPEND);
+    }
+
+    private static double percentileMillis(List<Long> sortedNanos, int percentile) {
+        return sortedNanos.get((sortedNanos.size() - 1) * percentile / 100) / 1_000_000.0;
+    }
+
+    /**
+     * Latencies in nanoseconds of the measured requests, sorted once the run is complete.
+     */
+    private record Load(List<Long> searches, List<Long> upserts, int errors) {
+    }
+}
@@ -0,0 +1,127 @@
+package kilic.yunus.stores.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import kilic.yunus.stores.model.dto.NearestStoresResponse;
+import kilic.yunus.stores.model.dto.StoreWithDistance;
+import kilic.yunus.stores.proto.Store;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the binary response formats of the nearest-store API, negotiated with the
+ * {@code Accept} header.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ResponseFormatIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.basePath = "/api/v1/stores";
+    }
+
+    @Test
+    void shouldReturnJsonByDefault() {
+        assertThat(search(null, null).contentType()).startsWith("application/json");
+    }
+
+    @Test
+    void shouldReturnCbor() throws Exception {
+        Response response = search("application/cbor", null);
+
+        assertThat(response.contentType()).isEqualTo("application/cbor");
+        assertThat(new CBORMapper().readValue(response.asByteArray(), NearestStoresResponse.class))
+                .isEqualTo(json());
+    }
+
+    @Test
+    void shouldReturnSmile() throws Exception {
+        Response response = search("application/x-jackson-smile", null);
+
+        assertThat(response.contentType()).isEqualTo("application/x-jackson-smile");
+        assertThat(new SmileMapper().readValue(response.asByteArray(), NearestStoresResponse.class))
+                .isEqualTo(json());
+    }
+
+    @Test
+    void shouldReturnProtobuf() throws Exception {
+        Response response = search("application/x-protobuf", null);
+
+        assertThat(response.contentType()).isEqualTo("application/x-protobuf");
+        assertThat(response.header("X-Protobuf-Message")).isEqualTo("stores.v1.NearestStoresResponse");
+        kilic.yunus.stores.proto.NearestStoresResponse message =
+                kilic.yunus.stores.proto.NearestStoresResponse.parseFrom(response.asByteArray());
+        NearestStoresResponse expected = json();
+        assertThat(message.getTotalFound()).isEqualTo(expected.getTotalFound());
+        assertThat(message.getQuery().getLatitude()).isEqualTo(expected.getQuery().getLatitude());
+        assertThat(message.getQuery().hasDataset()).isFalse();
+        for (int i = 0; i < expected.getResults().size(); i++) {
+            StoreWithDistance result = expected.getResults().get(i);
+            Store store = message.getResults(i).getStore();
+            assertThat(message.getResults(i).getDistance()).isEqualTo(result.getDistance());
+            assertThat(store.getUuid()).isEqualTo(result.getStore().getUuid());
+            assertThat(store.getLatitude()).isEqualTo(result.getStore().getLatitude());
+            assertThat(store.getSapStoreId()).isEqualTo(result.getStore().getSapStoreID());
+            assertThat(store.getShowWarningMessage()).isEqualTo(result.getStore().getShowWarningMessage());
+        }
+    }
+
+    @Test
+    void shouldReturnSelectedFieldsAsProtobuf() throws Exception {
+        Response response = search("application/x-protobuf", "summary");
+
+        Store store = kilic.yunus.stores.proto.NearestStoresResponse.parseFrom(response.asByteArray())
+                .getResults(0)
+                .getStore();
+        assertThat(store.hasUuid()).isTrue();
+        assertThat(store.hasLatitude()).isTrue();
+        assertThat(store.hasCity()).isFalse();
+        assertThat(store.hasShowWarningMessage()).isFalse();
+    }
+
+    @Test
+    void shouldReturnErrorsForProtobufRequests() {
+        Response response = given()
+                .accept("application/x-protobuf")
+                .queryParam("latitude", 100.0)
+                .queryParam("longitude", 4.9041)
+                .when()
+                .get("/nearest");
+
+        assertThat(response.statusCode()).isEqualTo(400);
+    }
+
+    private static Response search(String accept, String fields) {
+        var request = given()
+                .queryParam("latitude", 52.3676)
+                .queryParam("longitude", 4.9041)
+                .queryParam("limit", 10);
+        if (accept != null) {
+            request.accept(accept);
+        }
+        if (fields != null) {
+            request.queryParam("fields", fields);
+        }
+        Response response = request.when().get("/nearest");
+        assertThat(response.statusCode()).isEqualTo(200);
+        return response;
+    }
+
+    private static NearestStoresResponse json() throws Exception {
+        return new ObjectMapper().readValue(search(null, null).asByteArray(), NearestStoresResponse.class);
+    }
+}
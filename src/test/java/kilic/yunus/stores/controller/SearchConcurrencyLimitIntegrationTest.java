@@ -0,0 +1,76 @@
+package kilic.yunus.stores.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.restassured.RestAssured;
+import kilic.yunus.stores.service.impl.AdaptiveConcurrencyLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Integration tests for the concurrency limit of searches that miss the result cache. The limit is
+ * filled by acquiring it directly, as searches in progress would.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "stores.search.concurrency-limit.initial-limit=2",
+        "stores.search.concurrency-limit.min-limit=2",
+        "stores.search.concurrency-limit.max-limit=2",
+        "stores.search.concurrency-limit.retry-after=1500ms"
+})
+@ActiveProfiles("test")
+class SearchConcurrencyLimitIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.basePath = "/api/v1/stores";
+    }
+
+    @Test
+    void shouldRejectCacheMissesAtLimitButServeCacheHits() {
+        search(51.0, 5.0).then().statusCode(200);
+
+        concurrencyLimiter.acquire();
+        concurrencyLimiter.acquire();
+        try {
+            search(51.5, 5.5)
+                    .then()
+                    .statusCode(503)
+                    .header("Retry-After", "2")
+                    .body("status", equalTo(503))
+                    .body("message", equalTo("Too many concurrent searches, retry later"));
+            search(51.0, 5.0).then().statusCode(200);
+        } finally {
+            concurrencyLimiter.onIgnore();
+            concurrencyLimiter.onIgnore();
+        }
+
+        search(51.5, 5.5).then().statusCode(200);
+        assertThat(meterRegistry.get("store.search.concurrency.rejected").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("store.search.concurrency.limit").gauge().value()).isEqualTo(2);
+    }
+
+    private static io.restassured.response.Response search(double latitude, double longitude) {
+        return given()
+                .queryParam("latitude", latitude)
+                .queryParam("longitude", longitude)
+                .when()
+                .get("/nearest");
+    }
+}
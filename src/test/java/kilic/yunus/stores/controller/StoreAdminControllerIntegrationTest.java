@@ -0,0 +1,229 @@
+package kilic.yunus.stores.controller;
+
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Integration tests for StoreAdminController REST API endpoints.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class StoreAdminControllerIntegrationTest {
+
+    private static final String API_KEY = "test-admin-key";
+    private static final String UUID = "admin-test-store-0001";
+
+    // Far away from the sample stores, so other tests never see it among their nearest results
+    private static final String STORE = """
+            {
+              "city": "Maastricht",
+              "postalCode": "6211 AB",
+              "street": "Markt",
+              "addressName": "Admin Test Store",
+              "uuid": "%s",
+              "longitude": 5.6909,
+              "latitude": 50.8514,
+              "complexNumber": "99999",
+              "showWarningMessage": false,
+              "locationType": "Supermarkt",
+              "sapStoreID": "9999"
+            }
+            """;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.basePath = "";
+    }
+
+    @Test
+    void shouldRejectRequestsWithoutApiKey() {
+        given()
+                .contentType(ContentType.JSON)
+                .body(STORE.formatted(UUID))
+                .when()
+                .put("/api/v1/admin/stores/" + UUID)
+                .then()
+                .statusCode(401)
+                .body("status", equalTo(401));
+    }
+
+    @Test
+    void shouldRejectRequestsWithWrongApiKey() {
+        given()
+                .header("X-API-Key", "wrong-key")
+                .when()
+                .delete("/api/v1/admin/stores/" + UUID)
+                .then()
+                .statusCode(401);
+    }
+
+    @Test
+    void shouldUpsertAndDeleteStore() {
+        given()
+                .header("X-API-Key", API_KEY)
+                .contentType(ContentType.JSON)
+                .body(STORE.formatted(UUID))
+                .when()
+                .put("/api/v1/admin/stores/" + UUID)
+                .then()
+                .statusCode(200)
+                .body("uuid", equalTo(UUID))
+                .body("change", equalTo("UPSERTED"))
+                .body("generation", greaterThan(1));
+
+        given()
+                .queryParam("latitude", 50.8514)
+                .queryParam("longitude", 5.6909)
+                .queryParam("limit", 1)
+                .when()
+                .get("/api/v1/stores/nearest")
+                .then()
+                .statusCode(200)
+                .body("results[0].store.uuid", equalTo(UUID));
+
+        given()
+                .header("X-API-Key", API_KEY)
+                .when()
+                .delete("/api/v1/admin/stores/" + UUID)
+                .then()
+                .statusCode(200)
+                .body("change", equalTo("DELETED"));
+
+        given()
+                .queryParam("latitude", 50.8514)
+                .queryParam("longitude", 5.6909)
+                .queryParam("limit", 1)
+                .when()
+                .get("/api/v1/stores/nearest")
+                .then()
+                .statusCode(200)
+                .body("results[0].store.uuid", not(equalTo(UUID)));
+    }
+
+    @Test
+    void shouldChangeOnlyTheSelectedDataset() {
+        given()
+                .header("X-API-Key", API_KEY)
+                .queryParam("dataset", "chain-b")
+                .contentType(ContentType.JSON)
+                .body(STORE.formatted(UUID))
+                .when()
+                .put("/api/v1/admin/stores/" + UUID)
+                .then()
+                .statusCode(200)
+                .body("dataset", equalTo("chain-b"))
+                .body("totalStores", equalTo(3));
+
+        given()
+                .queryParam("latitude", 50.8514)
+                .queryParam("longitude", 5.6909)
+                .queryParam("limit", 1)
+                .when()
+                .get("/api/v1/datasets/chain-b/stores/nearest")
+                .then()
+                .statusCode(200)
+                .body("results[0].store.uuid", equalTo(UUID));
+
+        given()
+                .queryParam("latitude", 50.8514)
+                .queryParam("longitude", 5.6909)
+                .queryParam("limit", 1)
+                .when()
+                .get("/api/v1/stores/nearest")
+                .then()
+                .statusCode(200)
+                .body("results[0].store.uuid", not(equalTo(UUID)));
+
+        given()
+                .header("X-API-Key", API_KEY)
+                .queryParam("dataset", "chain-b")
+                .when()
+                .delete("/api/v1/admin/stores/" + UUID)
+                .then()
+                .statusCode(200)
+                .body("dataset", equalTo("chain-b"))
+                .body("totalStores", equalTo(2));
+    }
+
+    @Test
+    void shouldReloadOnlyWithApiKey() {
+        given()
+                .when()
+                .post("/api/v1/admin/stores/reload")
+                .then()
+                .statusCode(401);
+
+        // The data file is unchanged since startup
+        given()
+                .header("X-API-Key", API_KEY)
+                .queryParam("dataset", "chain-b")
+                .when()
+                .post("/api/v1/admin/stores/reload")
+                .then()
+                .statusCode(200)
+                .body("dataset", equalTo("chain-b"))
+                .body("reloaded", equalTo(false))
+                .body("totalStores", greaterThan(0));
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownDataset() {
+        given()
+                .header("X-API-Key", API_KEY)
+                .queryParam("dataset", "unknown-chain")
+                .when()
+                .delete("/api/v1/admin/stores/" + UUID)
+                .then()
+                .statusCode(404)
+                .body("message", containsString("unknown-chain"));
+    }
+
+    @Test
+    void shouldReturnNotFoundWhenDeletingUnknownStore() {
+        given()
+                .header("X-API-Key", API_KEY)
+                .when()
+                .delete("/api/v1/admin/stores/unknown-store-uuid")
+                .then()
+                .statusCode(404)
+                .body("status", equalTo(404));
+    }
+
+    @Test
+    void shouldRejectStoreWithMismatchingUuid() {
+        given()
+                .header("X-API-Key", API_KEY)
+                .contentType(ContentType.JSON)
+                .body(STORE.formatted("another-store-0001"))
+                .when()
+                .put("/api/v1/admin/stores/" + UUID)
+                .then()
+                .statusCode(400)
+                .body("message", containsString("does not match"));
+    }
+
+    @Test
+    void shouldRejectInvalidStore() {
+        given()
+                .header("X-API-Key", API_KEY)
+                .contentType(ContentType.JSON)
+                .body(STORE.formatted(UUID).replace("6211 AB", "invalid"))
+                .when()
+                .put("/api/v1/admin/stores/" + UUID)
+                .then()
+                .statusCode(400)
+                .body("message", containsStringIgnoringCase("postal code"));
+    }
+}
@@ -1,14 +1,25 @@
 package kilic.yunus.stores.controller;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
+import kilic.yunus.stores.model.domain.Location;
+import kilic.yunus.stores.model.dto.NearestStoresResponse;
+import kilic.yunus.stores.model.dto.StoreWithDistance;
+import kilic.yunus.stores.repository.StoreDatasets;
+import kilic.yunus.stores.service.StoreService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.List;
+
 import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 
 /**
@@ -21,6 +32,9 @@ class StoreControllerIntegrationTest {
     @LocalServerPort
     private int port;
 
+    @Autowired
+    private StoreService storeService;
+
     @BeforeEach
     void setUp() {
         RestAssured.port = port;
@@ -265,4 +279,153 @@ class StoreControllerIntegrationTest {
                     i, currentDistance, i + 1, nextDistance);
         }
     }
+
+    @Test
+    void shouldSearchDatasetSelectedByQueryParameter() {
+        given()
+                .queryParam("latitude", 53.2194)
+                .queryParam("longitude", 6.5665)
+                .queryParam("dataset", "chain-b")
+                .when()
+                .get("/nearest")
+                .then()
+                .statusCode(200)
+                .body("query.dataset", equalTo("chain-b"))
+                .body("totalFound", equalTo(2))
+                .body("results[0].store.uuid", equalTo("chain-b-0000000000000001"))
+                .body("results.store.uuid", everyItem(startsWith("chain-b-")));
+    }
+
+    @Test
+    void shouldSearchDatasetSelectedByPath() {
+        given()
+                .basePath("/api/v1/datasets/chain-b/stores")
+                .queryParam("latitude", 52.5125)
+                .queryParam("longitude", 6.0940)
+                .queryParam("limit", 1)
+                .when()
+                .get("/nearest")
+                .then()
+                .statusCode(200)
+                .body("query.dataset", equalTo("chain-b"))
+                .body("results[0].store.uuid", equalTo("chain-b-0000000000000002"));
+    }
+
+    @Test
+    void shouldNotReturnStoresOfOtherDatasets() {
+        given()
+                .queryParam("latitude", 53.2194)
+                .queryParam("longitude", 6.5665)
+                .queryParam("limit", 50)
+                .when()
+                .get("/nearest")
+                .then()
+                .statusCode(200)
+                .body("results.store.uuid", everyItem(not(startsWith("chain-b-"))));
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownDataset() {
+        given()
+                .queryParam("latitude", 52.3676)
+                .queryParam("longitude", 4.9041)
+                .queryParam("dataset", "unknown-chain")
+                .when()
+                .get("/nearest")
+                .then()
+                .statusCode(404)
+                .body("status", equalTo(404))
+                .body("message", containsString("unknown-chain"));
+    }
+
+    @Test
+    void shouldRejectRequestTimeoutsThatAreNotPositive() {
+        given()
+                .header("X-Request-Timeout", 0)
+                .queryParam("latitude", 51.2345)
+                .queryParam("longitude", 5.4321)
+                .when()
+                .get("/nearest")
+                .then()
+                .statusCode(400)
+                .body("status", equalTo(400))
+                .body("message", equalTo("X-Request-Timeout must be a positive number of milliseconds"));
+
+        given()
+                .header("X-Request-Timeout", -5)
+                .queryParam("latitude", 51.2345)
+                .queryParam("longitude", 5.4321)
+                .when()
+                .get("/nearest")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void shouldCapLongRequestTimeouts() {
+        given()
+                .header("X-Request-Timeout", Long.MAX_VALUE)
+                .queryParam("latitude", 51.2345)
+                .queryParam("longitude", 5.4321)
+                .when()
+                .get("/nearest")
+                .then()
+                .statusCode(200)
+                .body("results", hasSize(5));
+    }
+
+    @Test
+    void shouldWriteSameJsonAsBeanSerializers() throws Exception {
+        List<StoreWithDistance> nearestStores =
+                storeService.findNearestStores(StoreDatasets.DEFAULT, new Location(52.3676, 4.9041), 10);
+        NearestStoresResponse expected = NearestStoresResponse.builder()
+                .query(NearestStoresResponse.QueryInfo.builder().latitude(52.3676).longitude(4.9041).limit(10).build())
+                .results(nearestStores)
+                .totalFound(nearestStores.size())
+                .build();
+
+        String body = given()
+                .queryParam("latitude", 52.3676)
+                .queryParam("longitude", 4.9041)
+                .queryParam("limit", 10)
+                .when()
+                .get("/nearest")
+                .then()
+                .statusCode(200)
+                .extract()
+                .asString();
+
+        assertThat(body).isEqualTo(new ObjectMapper()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .writeValueAsString(expected));
+    }
+
+    @Test
+    void shouldReturnOnlySelectedStoreFields() {
+        given()
+                .queryParam("latitude", 52.3676)
+                .queryParam("longitude", 4.9041)
+                .queryParam("fields", "summary")
+                .when()
+                .get("/nearest")
+                .then()
+                .statusCode(200)
+                .body("totalFound", equalTo(5))
+                .body("results[0].store.keySet()", containsInAnyOrder("uuid", "addressName", "longitude", "latitude"))
+                .body("results.distance", everyItem(notNullValue()));
+    }
+
+    @Test
+    void shouldReturnBadRequestForUnknownStoreField() {
+        given()
+                .queryParam("latitude", 52.3676)
+                .queryParam("longitude", 4.9041)
+                .queryParam("fields", "uuid,password")
+                .when()
+                .get("/nearest")
+                .then()
+                .statusCode(400)
+                .body("status", equalTo(400))
+                .body("message", containsString("Fields must be"));
+    }
 }
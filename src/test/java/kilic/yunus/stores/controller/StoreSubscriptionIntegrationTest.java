@@ -0,0 +1,132 @@
+package kilic.yunus.stores.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kilic.yunus.stores.model.domain.Location;
+import kilic.yunus.stores.model.dto.StoreWithDistance;
+import kilic.yunus.stores.repository.StoreDatasets;
+import kilic.yunus.stores.service.StoreService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.lang.NonNull;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for nearest-store subscriptions over WebSocket on the servlet stack.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class StoreSubscriptionIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private StoreService storeService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldSendOnlyChangesOfNearestStores() throws Exception {
+        Client client = new Client();
+        WebSocketSession session = connect("?limit=3", client);
+        try {
+            session.sendMessage(new TextMessage("{\"latitude\": 52.3676, \"longitude\": 4.9041}"));
+            JsonNode first = client.next();
+            List<StoreWithDistance> expected =
+                    storeService.findNearestStores(StoreDatasets.DEFAULT, new Location(52.3676, 4.9041), 3);
+            assertThat(first.get("latitude").asDouble()).isEqualTo(52.3676);
+            assertThat(first.get("added")).hasSize(3);
+            assertThat(first.get("added").get(0).get("distance").asDouble())
+                    .isEqualTo(expected.getFirst().getDistance());
+            assertThat(first.get("order")).extracting(JsonNode::asText)
+                    .containsExactlyElementsOf(expected.stream().map(result -> result.getStore().getUuid()).toList());
+            assertThat(first.has("removed")).isFalse();
+
+            // Nothing changes a few meters away, the error is the next message
+            session.sendMessage(new TextMessage("{\"latitude\": 52.36761, \"longitude\": 4.90411}"));
+            session.sendMessage(new TextMessage("{\"latitude\": 52.3676}"));
+            JsonNode error = client.next();
+            assertThat(error.get("status").asInt()).isEqualTo(400);
+            assertThat(error.get("message").asText())
+                    .isEqualTo("Location updates must be JSON objects with a latitude and longitude");
+
+            session.sendMessage(new TextMessage("{\"latitude\": 95, \"longitude\": 4.9}"));
+            assertThat(client.next().get("status").asInt()).isEqualTo(400);
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    void shouldReturnOnlySelectedStoreFields() throws Exception {
+        Client client = new Client();
+        WebSocketSession session = connect("?limit=2&fields=uuid,city", client);
+        try {
+            session.sendMessage(new TextMessage("{\"latitude\": 52.3676, \"longitude\": 4.9041}"));
+            JsonNode store = client.next().get("added").get(0).get("store");
+            assertThat(store.properties()).extracting(Map.Entry::getKey)
+                    .containsExactlyInAnyOrder("uuid", "city");
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    void shouldCloseSessionWithInvalidParameters() throws Exception {
+        Client unknownDataset = new Client();
+        connect("?dataset=unknown-chain", unknownDataset);
+        Client invalidLimit = new Client();
+        connect("?limit=51", invalidLimit);
+
+        assertThat(unknownDataset.closed.get(5, TimeUnit.SECONDS).getCode())
+                .isEqualTo(CloseStatus.POLICY_VIOLATION.getCode());
+        assertThat(invalidLimit.closed.get(5, TimeUnit.SECONDS))
+                .isEqualTo(CloseStatus.POLICY_VIOLATION.withReason("Limit cannot exceed 50"));
+    }
+
+    private WebSocketSession connect(String query, Client client) throws Exception {
+        return new StandardWebSocketClient()
+                .execute(client, "ws://localhost:" + port + StoreSubscriptionMessages.PATH + query)
+                .get(5, TimeUnit.SECONDS);
+    }
+
+    private final class Client extends TextWebSocketHandler {
+
+        private final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+        private final CompletableFuture<CloseStatus> closed = new CompletableFuture<>();
+
+        @Override
+        protected void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage message) {
+            messages.add(message.getPayload());
+        }
+
+        @Override
+        public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) {
+            closed.complete(status);
+        }
+
+        JsonNode next() throws Exception {
+            String message = messages.poll(5, TimeUnit.SECONDS);
+            assertThat(message).as("message within 5 seconds").isNotNull();
+            return objectMapper.readTree(message);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package kilic.yunus.stores.controller;
+
+import kilic.yunus.stores.StoresApplication;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput, tail latency and thread use of the servlet API (Tomcat, platform or virtual threads)
+ * and the reactive API (WebFlux on Netty) for many connections of mostly cached searches. Run with
+ * {@code ./mvnw test -Pbenchmark -Dtest=WebStackBenchmarkTest}, the load can be set with
+ * {@code -Dbenchmark.connections=2000 -Dbenchmark.duration=10s}.
+ *
+ * <p>Every connection searches one of a few hot locations, so after the warmup nearly every request
+ * is a cache hit. Every run appends one CSV row per stack to
+ * {@code target/benchmark-results/web-stack.csv} (or {@code -Dbenchmark.results=<file>}).
+ */
+@Tag("benchmark")
+class WebStackBenchmarkTest {
+
+    private static final int CONNECTIONS = Integer.getInteger("benchmark.connections", 2000);
+    private static final Duration DURATION = Duration.parse(
+            "PT" + System.getProperty("benchmark.duration", "10s"));
+    private static final Duration WARMUP = Duration.ofSeconds(3);
+    private static final int HOT_LOCATIONS = 64;
+    private static final Path RESULTS = Path.of(
+            System.getProperty("benchmark.results", "target/benchmark-results/web-stack.csv"));
+    private static final String CSV_HEADER = "timestamp,commit,stack,connections,requests_per_s,"
+            + "p50_ms,p99_ms,p999_ms,peak_threads,errors";
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({
+            "mvc,         servlet,  false",
+            "mvc-virtual, servlet,  true",
+            "webflux,     reactive, false",
+    })
+    @DisplayName("Throughput, tail latency and threads per web stack")
+    void measureWebStack(String stack, String webApplicationType, boolean virtualThreads) throws Exception {
+        // Given
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(StoresApplication.class)
+                .profiles("test")
+                .properties(
+                        "spring.main.web-application-type=" + webApplicationType,
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "stores.data.file=classpath:stores.json",
+                        "logging.level.kilic.yunus.stores=WARN")
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI baseUri = URI.create("http://localhost:" + port);
+
+            // When
+            Load load = run(baseUri);
+
+            // Then
+            assertThat(load.latencies()).isNotEmpty();
+            record(stack, load);
+        }
+    }
+
+    private static Load run(URI baseUri) throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        List<HttpRequest> hotRequests = new ArrayList<>();
+        SplittableRandom locations = new SplittableRandom(42);
+        for (int i = 0; i < HOT_LOCATIONS; i++) {
+            hotRequests.add(HttpRequest.newBuilder(baseUri.resolve(String.format(Locale.ROOT,
+                            "/api/v1/stores/nearest?latitude=%.4f&longitude=%.4f&limit=5",
+                            50.8 + locations.nextDouble() * 2.6, 3.4 + locations.nextDouble() * 3.7)))
+                    .GET()
+                    .build());
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long measureFrom = System.nanoTime() + WARMUP.toNanos();
+        long endAt = measureFrom + DURATION.toNanos();
+        AtomicInteger errors = new AtomicInteger();
+        List<Future<List<Long>>> connections = new ArrayList<>();
+        // One virtual thread per connection, so the client side never limits the concurrency
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int connection = 0; connection < CONNECTIONS; connection++) {
+                int connectionId = connection;
+                connections.add(executor.submit(() -> {
+                    SplittableRandom random = new SplittableRandom(connectionId);
+                    List<Long> latencies = new ArrayList<>();
+                    while (System.nanoTime() < endAt) {
+                        long startedAt = System.nanoTime();
+                        int status = send(httpClient, hotRequests.get(random.nextInt(HOT_LOCATIONS)));
+                        long elapsed = System.nanoTime() - startedAt;
+                        if (status != 200) {
+                            errors.incrementAndGet();
+                        } else if (startedAt >= measureFrom) {
+                            latencies.add(elapsed);
+                        }
+                    }
+                    return latencies;
+                }));
+            }
+            // Threads started for the warmup load count, the peak is taken from here on
+            Thread.sleep(WARMUP.dividedBy(2));
+            threads.resetPeakThreadCount();
+        }
+        List<Long> latencies = new ArrayList<>();
+        for (Future<List<Long>> connection : connections) {
+            latencies.addAll(connection.get());
+        }
+        latencies.sort(null);
+        return new Load(latencies, threads.getPeakThreadCount(), errors.get());
+    }
+
+    private static int send(HttpClient httpClient, HttpRequest request) throws InterruptedException {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static void record(String stack, Load load) throws IOException {
+        long requestsPerSecond = load.latencies().size() * 1000L / DURATION.toMillis();
+        System.out.printf(Locale.ROOT, "Web stack: %s, %d connections: %,d requests/s, p50 %.2f ms, p99 %.2f ms, "
+                        + "p99.9 %.2f ms, %d peak threads, %d errors%n",
+                stack, CONNECTIONS, requestsPerSecond, percentileMillis(load.latencies(), 500),
+                percentileMillis(load.latencies(), 990), percentileMillis(load.latencies(), 999),
+                load.peakThreads(), load.errors());
+
+        Files.createDirectories(RESULTS.toAbsolutePath().getParent());
+        if (!Files.exists(RESULTS)) {
+            Files.writeString(RESULTS, CSV_HEADER + System.lineSeparator());
+        }
+        String row = String.join(",", Instant.now().toString(), System.getenv().getOrDefault("GITHUB_SHA", ""),
+                stack, Integer.toString(CONNECTIONS), Long.toString(requestsPerSecond),
+                String.format(Locale.ROOT, "%.2f", percentileMillis(load.latencies(), 500)),
+                String.format(Locale.ROOT, "%.2f", percentileMillis(load.latencies(), 990)),
+                String.format(Locale.ROOT, "%.2f", percentileMillis(load.latencies(), 999)),
+                Integer.toString(load.peakThreads()), Integer.toString(load.errors()));
+        Files.writeString(RESULTS, row + System.lineSeparator(), StandardOpenOption.APPEND);
+    }
+
+    private static double percentileMillis(List<Long> sortedNanos, int perMille) {
+        return sortedNanos.get((int) ((sortedNanos.size() - 1L) * perMille / 1000)) / 1_000_000.0;
+    }
+
+    /**
+     * Latencies in nanoseconds of the measured requests, sorted once the run is complete, and the
+     * peak number of platform threads of the JVM while measuring.
+     */
+    private record Load(List<Long> latencies, int peakThreads, int errors) {
+    }
+}
@@ -0,0 +1,242 @@
+package kilic.yunus.stores.grpc;
+
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.stub.StreamObserver;
+import kilic.yunus.stores.StoresApplication;
+import kilic.yunus.stores.proto.NearestStoresQuery;
+import kilic.yunus.stores.proto.NearestStoresResponse;
+import kilic.yunus.stores.proto.StoreSearchGrpc;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput and latency of nearest-store searches over the REST API (JSON over HTTP/1.1), unary gRPC
+ * calls multiplexed over one channel and one bidirectional gRPC stream per caller, for the same
+ * cached searches. Run with {@code ./mvnw test -Pbenchmark -Dtest=GrpcTransportBenchmarkTest}, the
+ * load can be set with {@code -Dbenchmark.callers=64 -Dbenchmark.duration=10s}.
+ *
+ * <p>Every run appends one CSV row per transport to {@code target/benchmark-results/grpc-transport.csv}
+ * (or {@code -Dbenchmark.results=<file>}).
+ */
+@Tag("benchmark")
+class GrpcTransportBenchmarkTest {
+
+    private static final int CALLERS = Integer.getInteger("benchmark.callers", 64);
+    private static final Duration DURATION = Duration.parse(
+            "PT" + System.getProperty("benchmark.duration", "10s"));
+    private static final Duration WARMUP = Duration.ofSeconds(3);
+    private static final int HOT_LOCATIONS = 64;
+    private static final Path RESULTS = Path.of(
+            System.getProperty("benchmark.results", "target/benchmark-results/grpc-transport.csv"));
+    private static final String CSV_HEADER = "timestamp,commit,transport,callers,queries_per_s,p50_ms,p99_ms,errors";
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = {"rest", "grpc-unary", "grpc-stream"})
+    @DisplayName("Throughput and latency per transport")
+    void measureTransport(String transport) throws Exception {
+        // Given
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(StoresApplication.class)
+                .profiles("test")
+                // Arguments rather than default properties, which the profile's properties would override
+                .run("--stores.grpc.enabled=true",
+                        "--stores.grpc.port=0",
+                        "--stores.data.file=classpath:stores.json",
+                        "--logging.level.kilic.yunus.stores=WARN")) {
+            int httpPort = ((WebServerApplicationContext) context).getWebServer().getPort();
+            int grpcPort = context.getBean(GrpcServer.class).getPort();
+            ManagedChannel channel = ManagedChannelBuilder.forAddress("localhost", grpcPort).usePlaintext().build();
+            try {
+                Caller caller = switch (transport) {
+                    case "rest" -> restCaller(URI.create("http://localhost:" + httpPort));
+                    case "grpc-unary" -> unaryCaller(channel);
+                    case "grpc-stream" -> streamCaller(channel);
+                    default -> throw new IllegalArgumentException("Unknown transport: " + transport);
+                };
+
+                // When
+                Load load = run(caller);
+
+                // Then
+                assertThat(load.latencies()).isNotEmpty();
+                record(transport, load);
+            } finally {
+                channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private static List<NearestStoresQuery> hotQueries() {
+        List<NearestStoresQuery> queries = new ArrayList<>();
+        SplittableRandom locations = new SplittableRandom(42);
+        for (int i = 0; i < HOT_LOCATIONS; i++) {
+            queries.add(NearestStoresQuery.newBuilder()
+                    .setLatitude(Math.round((50.8 + locations.nextDouble() * 2.6) * 10_000) / 10_000.0)
+                    .setLongitude(Math.round((3.4 + locations.nextDouble() * 3.7) * 10_000) / 10_000.0)
+                    .setLimit(5)
+                    .build());
+        }
+        return queries;
+    }
+
+    private static Caller restCaller(URI baseUri) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        List<HttpRequest> requests = hotQueries().stream()
+                .map(query -> HttpRequest.newBuilder(baseUri.resolve(String.format(Locale.ROOT,
+                                "/api/v1/stores/nearest?latitude=%s&longitude=%s&limit=%d",
+                                query.getLatitude(), query.getLongitude(), query.getLimit())))
+                        .GET()
+                        .build())
+                .toList();
+        return () -> random -> {
+            try {
+                return httpClient.send(requests.get(random.nextInt(HOT_LOCATIONS)),
+                        HttpResponse.BodyHandlers.ofByteArray()).statusCode() == 200;
+            } catch (IOException e) {
+                return false;
+            }
+        };
+    }
+
+    private static Caller unaryCaller(ManagedChannel channel) {
+        List<NearestStoresQuery> queries = hotQueries();
+        StoreSearchGrpc.StoreSearchBlockingStub stub = StoreSearchGrpc.newBlockingStub(channel);
+        return () -> random -> stub.findNearest(queries.get(random.nextInt(HOT_LOCATIONS))).getTotalFound() == 5;
+    }
+
+    private static Caller streamCaller(ManagedChannel channel) {
+        List<NearestStoresQuery> queries = hotQueries();
+        StoreSearchGrpc.StoreSearchStub stub = StoreSearchGrpc.newStub(channel);
+        return () -> {
+            BlockingQueue<NearestStoresResponse> responses = new LinkedBlockingQueue<>();
+            StreamObserver<NearestStoresQuery> stream = stub.findNearestStream(new StreamObserver<>() {
+                @Override
+                public void onNext(NearestStoresResponse response) {
+                    responses.add(response);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    responses.add(NearestStoresResponse.getDefaultInstance());
+                }
+
+                @Override
+                public void onCompleted() {
+                }
+            });
+            return random -> {
+                stream.onNext(queries.get(random.nextInt(HOT_LOCATIONS)));
+                return responses.take().getTotalFound() == 5;
+            };
+        };
+    }
+
+    private static Load run(Caller caller) throws Exception {
+        long measureFrom = System.nanoTime() + WARMUP.toNanos();
+        long endAt = measureFrom + DURATION.toNanos();
+        AtomicInteger errors = new AtomicInteger();
+        List<Future<List<Long>>> callers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CALLERS; i++) {
+                int callerId = i;
+                callers.add(executor.submit(() -> {
+                    SplittableRandom random = new SplittableRandom(callerId);
+                    Search search = caller.open();
+                    List<Long> latencies = new ArrayList<>();
+                    while (System.nanoTime() < endAt) {
+                        long startedAt = System.nanoTime();
+                        boolean found = search.find(random);
+                        long elapsed = System.nanoTime() - startedAt;
+                        if (!found) {
+                            errors.incrementAndGet();
+                        } else if (startedAt >= measureFrom) {
+                            latencies.add(elapsed);
+                        }
+                    }
+                    return latencies;
+                }));
+            }
+        }
+        List<Long> latencies = new ArrayList<>();
+        for (Future<List<Long>> callerLatencies : callers) {
+            latencies.addAll(callerLatencies.get());
+        }
+        latencies.sort(null);
+        return new Load(latencies, errors.get());
+    }
+
+    private static void record(String transport, Load load) throws IOException {
+        long queriesPerSecond = load.latencies().size() * 1000L / DURATION.toMillis();
+        System.out.printf(Locale.ROOT, "Transport: %s, %d callers: %,d queries/s, p50 %.2f ms, p99 %.2f ms, "
+                        + "%d errors%n",
+                transport, CALLERS, queriesPerSecond, percentileMillis(load.latencies(), 500),
+                percentileMillis(load.latencies(), 990), load.errors());
+
+        Files.createDirectories(RESULTS.toAbsolutePath().getParent());
+        if (!Files.exists(RESULTS)) {
+            Files.writeString(RESULTS, CSV_HEADER + System.lineSeparator());
+        }
+        String row = String.join(",", Instant.now().toString(), System.getenv().getOrDefault("GITHUB_SHA", ""),
+                transport, Integer.toString(CALLERS), Long.toString(queriesPerSecond),
+                String.format(Locale.ROOT, "%.2f", percentileMillis(load.latencies(), 500)),
+                String.format(Locale.ROOT, "%.2f", percentileMillis(load.latencies(), 990)),
+                Integer.toString(load.errors()));
+        Files.writeString(RESULTS, row + System.lineSeparator(), StandardOpenOption.APPEND);
+    }
+
+    private static double percentileMillis(List<Long> sortedNanos, int perMille) {
+        return sortedNanos.get((int) ((sortedNanos.size() - 1L) * perMille / 1000)) / 1_000_000.0;
+    }
+
+    /**
+     * Opens what one caller searches with: nothing for REST and unary calls, a stream of its own for
+     * streamed queries.
+     */
+    private interface Caller {
+
+        Search open();
+    }
+
+    private interface Search {
+
+        boolean find(SplittableRandom random) throws InterruptedException;
+    }
+
+    /**
+     * Latencies in nanoseconds of the measured searches, sorted once the run is complete.
+     */
+    private record Load(List<Long> latencies, int errors) {
+    }
+}
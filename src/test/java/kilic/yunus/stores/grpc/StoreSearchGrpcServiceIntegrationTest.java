@@ -0,0 +1,292 @@
+package kilic.yunus.stores.grpc;
+
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.MeterRegistry;
+import kilic.yunus.stores.model.domain.Location;
+import kilic.yunus.stores.model.dto.StoreWithDistance;
+import kilic.yunus.stores.proto.NearestStoresBatch;
+import kilic.yunus.stores.proto.NearestStoresQuery;
+import kilic.yunus.stores.proto.NearestStoresResponse;
+import kilic.yunus.stores.proto.StoreSearchGrpc;
+import kilic.yunus.stores.service.StoreService;
+import kilic.yunus.stores.service.impl.AdaptiveConcurrencyLimiter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Integration tests for the {@code stores.v1.StoreSearch} gRPC service, called over a plaintext
+ * channel like an internal client would.
+ */
+@SpringBootTest(properties = {
+        "stores.grpc.enabled=true",
+        "stores.grpc.port=0",
+        "stores.grpc.max-batch-size=10"
+})
+@ActiveProfiles("test")
+class StoreSearchGrpcServiceIntegrationTest {
+
+    private static final double LATITUDE = 52.3676;
+    private static final double LONGITUDE = 4.9041;
+
+    @Autowired
+    private GrpcServer grpcServer;
+
+    @Autowired
+    private StoreService storeService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        channel = ManagedChannelBuilder.forAddress("localhost", grpcServer.getPort()).usePlaintext().build();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shouldFindSameStoresAsService() {
+        NearestStoresResponse response = StoreSearchGrpc.newBlockingStub(channel).findNearest(query(3));
+
+        List<StoreWithDistance> expected = storeService.findNearestStores(null, new Location(LATITUDE, LONGITUDE), 3);
+        assertThat(response.getTotalFound()).isEqualTo(3);
+        assertThat(response.getQuery().getLimit()).isEqualTo(3);
+        assertThat(response.getQuery().hasDataset()).isFalse();
+        assertThat(response.getResultsList())
+                .extracting(result -> result.getStore().getUuid())
+                .containsExactlyElementsOf(expected.stream().map(result -> result.getStore().getUuid()).toList());
+        assertThat(response.getResults(0).getDistance()).isEqualTo(expected.getFirst().getDistance());
+        assertThat(response.getResults(0).getStore().getCity()).isEqualTo(expected.getFirst().getStore().getCity());
+    }
+
+    @Test
+    void shouldDefaultLimitToFive() {
+        NearestStoresResponse response = StoreSearchGrpc.newBlockingStub(channel).findNearest(
+                NearestStoresQuery.newBuilder().setLatitude(LATITUDE).setLongitude(LONGITUDE).build());
+
+        assertThat(response.getQuery().getLimit()).isEqualTo(5);
+        assertThat(response.getResultsCount()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldReturnOnlyRequestedFields() {
+        NearestStoresResponse response = StoreSearchGrpc.newBlockingStub(channel)
+                .findNearest(query(1).toBuilder().setFields("summary").build());
+
+        kilic.yunus.stores.proto.Store store = response.getResults(0).getStore();
+        assertThat(store.hasUuid()).isTrue();
+        assertThat(store.hasLatitude()).isTrue();
+        assertThat(store.hasCity()).isFalse();
+    }
+
+    @Test
+    void shouldSearchRequestedDataset() {
+        NearestStoresResponse response = StoreSearchGrpc.newBlockingStub(channel)
+                .findNearest(query(1).toBuilder().setDataset("chain-b").build());
+
+        assertThat(response.getQuery().getDataset()).isEqualTo("chain-b");
+        assertThat(response.getResults(0).getStore().getUuid()).isEqualTo(storeService
+                .findNearestStores("chain-b", new Location(LATITUDE, LONGITUDE), 1).getFirst().getStore().getUuid());
+    }
+
+    @Test
+    void shouldRejectInvalidQueryWithRestMessages() {
+        NearestStoresQuery query = NearestStoresQuery.newBuilder().setLongitude(200).setLimit(0).build();
+
+        assertThatThrownBy(() -> StoreSearchGrpc.newBlockingStub(channel).findNearest(query))
+                .isInstanceOfSatisfying(StatusRuntimeException.class, e -> {
+                    assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT);
+                    assertThat(e.getStatus().getDescription()).isEqualTo("Latitude is required, "
+                            + "Limit must be at least 1, Longitude must be between -180 and 180");
+                });
+    }
+
+    @Test
+    void shouldSearchWithinCallDeadline() {
+        NearestStoresQuery query = NearestStoresQuery.newBuilder().setLatitude(50.3).setLongitude(3.3).build();
+
+        NearestStoresResponse response = StoreSearchGrpc.newBlockingStub(channel)
+                .withDeadlineAfter(1, TimeUnit.MINUTES)
+                .findNearest(query);
+
+        assertThat(response.getResultsCount()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownDataset() {
+        NearestStoresQuery query = query(1).toBuilder().setDataset("unknown").build();
+
+        assertThatThrownBy(() -> StoreSearchGrpc.newBlockingStub(channel).findNearest(query))
+                .isInstanceOfSatisfying(StatusRuntimeException.class,
+                        e -> assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.NOT_FOUND));
+    }
+
+    @Test
+    void shouldReturnUnavailableWithRetryPushbackAtConcurrencyLimit() {
+        NearestStoresQuery query = NearestStoresQuery.newBuilder().setLatitude(50.1).setLongitude(3.1).build();
+        int limit = concurrencyLimiter.getLimit();
+        for (int i = 0; i < limit; i++) {
+            concurrencyLimiter.acquire();
+        }
+        try {
+            assertThatThrownBy(() -> StoreSearchGrpc.newBlockingStub(channel).findNearest(query))
+                    .isInstanceOfSatisfying(StatusRuntimeException.class, e -> {
+                        assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.UNAVAILABLE);
+                        assertThat(e.getTrailers().get(
+                                Metadata.Key.of("grpc-retry-pushback-ms", Metadata.ASCII_STRING_MARSHALLER)))
+                                .isEqualTo("1000");
+                    });
+        } finally {
+            for (int i = 0; i < limit; i++) {
+                concurrencyLimiter.onIgnore();
+            }
+        }
+    }
+
+    @Test
+    void shouldStreamBatchResultsInQueryOrder() {
+        NearestStoresBatch batch = NearestStoresBatch.newBuilder()
+                .addAllQueries(IntStream.rangeClosed(1, 5)
+                        .mapToObj(StoreSearchGrpcServiceIntegrationTest::query)
+                        .toList())
+                .build();
+
+        List<NearestStoresResponse> responses = new ArrayList<>();
+        StoreSearchGrpc.newBlockingStub(channel).findNearestBatch(batch).forEachRemaining(responses::add);
+
+        assertThat(responses).extracting(NearestStoresResponse::getTotalFound).containsExactly(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    void shouldRejectBatchWithInvalidQueryBeforeSearching() {
+        NearestStoresBatch batch = NearestStoresBatch.newBuilder()
+                .addQueries(query(1))
+                .addQueries(query(51))
+                .build();
+
+        Iterator<NearestStoresResponse> responses = StoreSearchGrpc.newBlockingStub(channel).findNearestBatch(batch);
+
+        assertThatThrownBy(responses::hasNext)
+                .isInstanceOfSatisfying(StatusRuntimeException.class, e -> {
+                    assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT);
+                    assertThat(e.getStatus().getDescription()).isEqualTo("Limit cannot exceed 50");
+                });
+    }
+
+    @Test
+    void shouldRejectBatchOverMaxSize() {
+        NearestStoresBatch batch = NearestStoresBatch.newBuilder()
+                .addAllQueries(IntStream.range(0, 11).mapToObj(i -> query(1)).toList())
+                .build();
+
+        Iterator<NearestStoresResponse> responses = StoreSearchGrpc.newBlockingStub(channel).findNearestBatch(batch);
+
+        assertThatThrownBy(responses::hasNext)
+                .isInstanceOfSatisfying(StatusRuntimeException.class,
+                        e -> assertThat(e.getStatus().getDescription()).isEqualTo("Batch cannot exceed 10 queries"));
+    }
+
+    @Test
+    void shouldAnswerStreamedQueriesInOrder() throws Exception {
+        ResponseCollector collector = new ResponseCollector();
+        StreamObserver<NearestStoresQuery> queries = StoreSearchGrpc.newStub(channel).findNearestStream(collector);
+
+        for (int limit = 1; limit <= 20; limit++) {
+            queries.onNext(query(limit % 5 + 1));
+        }
+        queries.onCompleted();
+
+        assertThat(collector.completed.get(10, TimeUnit.SECONDS))
+                .extracting(NearestStoresResponse::getTotalFound)
+                .containsExactlyElementsOf(IntStream.rangeClosed(1, 20).mapToObj(limit -> limit % 5 + 1).toList());
+    }
+
+    @Test
+    void shouldEndStreamOnInvalidQuery() {
+        ResponseCollector collector = new ResponseCollector();
+        StreamObserver<NearestStoresQuery> queries = StoreSearchGrpc.newStub(channel).findNearestStream(collector);
+
+        queries.onNext(query(1));
+        queries.onNext(NearestStoresQuery.newBuilder().setLatitude(LATITUDE).build());
+
+        assertThat(collector.completed)
+                .failsWithin(10, TimeUnit.SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .havingCause()
+                .isInstanceOfSatisfying(StatusRuntimeException.class, e -> {
+                    assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT);
+                    assertThat(e.getStatus().getDescription()).isEqualTo("Longitude is required");
+                });
+        assertThat(collector.responses).hasSize(1);
+    }
+
+    @Test
+    void shouldRecordCallAndExecutorMetrics() {
+        StoreSearchGrpc.newBlockingStub(channel).findNearest(query(1));
+
+        assertThat(meterRegistry.find("grpc.server.processing.duration")
+                .tag("method", "FindNearest")
+                .tag("statusCode", "OK")
+                .timer())
+                .isNotNull()
+                .satisfies(timer -> assertThat(timer.count()).isPositive());
+        assertThat(meterRegistry.find("executor").tag("name", "grpc").timer()).isNotNull();
+    }
+
+    private static NearestStoresQuery query(int limit) {
+        return NearestStoresQuery.newBuilder()
+                .setLatitude(LATITUDE)
+                .setLongitude(LONGITUDE)
+                .setLimit(limit)
+                .build();
+    }
+
+    private static final class ResponseCollector implements StreamObserver<NearestStoresResponse> {
+
+        private final List<NearestStoresResponse> responses = new ArrayList<>();
+        private final CompletableFuture<List<NearestStoresResponse>> completed = new CompletableFuture<>();
+
+        @Override
+        public void onNext(NearestStoresResponse response) {
+            responses.add(response);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            completed.completeExceptionally(t);
+        }
+
+        @Override
+        public void onCompleted() {
+            completed.complete(responses);
+        }
+    }
+}
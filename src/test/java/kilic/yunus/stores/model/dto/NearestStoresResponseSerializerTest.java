@@ -0,0 +1,208 @@
+package kilic.yunus.stores.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import kilic.yunus.stores.model.domain.Store;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the output of NearestStoresResponseSerializer with the output of the bean serializers.
+ */
+class NearestStoresResponseSerializerTest {
+
+    @ParameterizedTest(name = "{0}")
+    @EnumSource(value = JsonInclude.Include.class, names = {"NON_NULL", "ALWAYS"})
+    @DisplayName("Should write the same bytes as the bean serializers for all stores")
+    void shouldMatchBeanSerializers(JsonInclude.Include inclusion) throws IOException {
+        // Given
+        List<Store> stores = readStores();
+        NearestStoresResponse response = response("default", stores);
+
+        // When
+        ObjectMapper objectMapper = objectMapper(inclusion);
+
+        // Then
+        assertThat(objectMapper.writeValueAsBytes(response)).isEqualTo(beanObjectMapper(inclusion)
+                .writeValueAsBytes(response));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @EnumSource(value = JsonInclude.Include.class, names = {"NON_NULL", "ALWAYS"})
+    @DisplayName("Should write the same bytes as the bean serializers for missing values")
+    void shouldMatchBeanSerializersForNulls(JsonInclude.Include inclusion) throws IOException {
+        // Given - every Store property null, so a property missing here is missing in the output
+        List<StoreWithDistance> results = new ArrayList<>(Arrays.asList(
+                new StoreWithDistance(new Store(), 0.0),
+                new StoreWithDistance(null, 1.25),
+                null,
+                new StoreWithDistance(Store.builder()
+                        .city("Café \"Zuid\"\n☃ 🛒")
+                        .latitude(-0.0)
+                        .longitude(1e-7)
+                        .showWarningMessage(false)
+                        .build(), Double.MAX_VALUE)));
+        List<NearestStoresResponse> responses = List.of(
+                new NearestStoresResponse(new NearestStoresResponse.QueryInfo(null, 52.3676, 4.9041, 4), results, 3,
+                        null),
+                new NearestStoresResponse(null, null, 0, null),
+                new NearestStoresResponse());
+
+        // When
+        ObjectMapper objectMapper = objectMapper(inclusion);
+
+        // Then
+        for (NearestStoresResponse response : responses) {
+            assertThat(objectMapper.writeValueAsString(response))
+                    .isEqualTo(beanObjectMapper(inclusion).writeValueAsString(response));
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = {"cbor", "smile"})
+    @DisplayName("Should write the same bytes as the bean serializers in binary formats")
+    void shouldMatchBeanSerializersInBinaryFormats(String format) throws IOException {
+        // Given
+        NearestStoresResponse response = response("default", readStores());
+        JsonFactory factory = format.equals("cbor") ? new CBORFactory() : new SmileFactory();
+
+        // When
+        ObjectMapper objectMapper = new ObjectMapper(factory)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .registerModule(NearestStoresResponseSerializer.module());
+
+        // Then
+        assertThat(objectMapper.writeValueAsBytes(response)).isEqualTo(new ObjectMapper(factory)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .writeValueAsBytes(response));
+    }
+
+    @Test
+    @DisplayName("Should indent like the bean serializers")
+    void shouldMatchIndentedBeanSerializers() throws IOException {
+        // Given
+        NearestStoresResponse response = response("chain-b", readStores().subList(0, 3));
+
+        // When
+        ObjectMapper objectMapper = objectMapper(JsonInclude.Include.NON_NULL)
+                .enable(SerializationFeature.INDENT_OUTPUT);
+
+        // Then
+        assertThat(objectMapper.writeValueAsString(response)).isEqualTo(beanObjectMapper(JsonInclude.Include.NON_NULL)
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValueAsString(response));
+    }
+
+    @Test
+    @DisplayName("Should keep the bean serializers for unsupported configurations")
+    void shouldKeepBeanSerializersForUnsupportedConfigurations() throws IOException {
+        // Given
+        ObjectMapper nonEmpty = objectMapper(JsonInclude.Include.NON_EMPTY);
+        ObjectMapper snakeCase = objectMapper(JsonInclude.Include.NON_NULL)
+                .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+        ObjectMapper supported = objectMapper(JsonInclude.Include.NON_NULL);
+
+        // When / Then
+        assertThat(nonEmpty.getSerializerProviderInstance().findValueSerializer(NearestStoresResponse.class))
+                .isNotInstanceOf(NearestStoresResponseSerializer.class);
+        assertThat(snakeCase.getSerializerProviderInstance().findValueSerializer(NearestStoresResponse.class))
+                .isNotInstanceOf(NearestStoresResponseSerializer.class);
+        assertThat(supported.getSerializerProviderInstance().findValueSerializer(NearestStoresResponse.class))
+                .isInstanceOf(NearestStoresResponseSerializer.class);
+        assertThat(snakeCase.writeValueAsString(response("default", readStores().subList(0, 1))))
+                .contains("\"total_found\":1");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @EnumSource(value = JsonInclude.Include.class, names = {"NON_NULL", "NON_EMPTY"})
+    @DisplayName("Should write only the selected store properties")
+    void shouldWriteSelectedProperties(JsonInclude.Include inclusion) throws IOException {
+        // Given
+        NearestStoresResponse response = response("default", readStores().subList(0, 5));
+        response.setFields(StoreFields.parse("summary,todayClose"));
+
+        // When
+        String json = objectMapper(inclusion).writeValueAsString(response);
+
+        // Then - like the bean serializers writing copies with only those properties set
+        List<StoreWithDistance> projected = response.getResults().stream()
+                .map(result -> new StoreWithDistance(Store.builder()
+                        .addressName(result.getStore().getAddressName())
+                        .uuid(result.getStore().getUuid())
+                        .longitude(result.getStore().getLongitude())
+                        .latitude(result.getStore().getLatitude())
+                        .todayClose(result.getStore().getTodayClose())
+                        .build(), result.getDistance()))
+                .toList();
+        assertThat(json).isEqualTo(beanObjectMapper(inclusion).writeValueAsString(
+                new NearestStoresResponse(response.getQuery(), projected, response.getTotalFound(), null)));
+        assertThat(json).doesNotContain("\"city\"", "\"fields\"").contains("\"todayClose\"");
+    }
+
+    @Test
+    @DisplayName("Should write nulls of selected store properties only with the always inclusion")
+    void shouldWriteNullsOfSelectedProperties() throws IOException {
+        // Given
+        NearestStoresResponse response = new NearestStoresResponse(null,
+                List.of(new StoreWithDistance(Store.builder().uuid("store-uuid-1").build(), 0.5)), 1,
+                StoreFields.parse("uuid,street2"));
+
+        // When
+        String json = objectMapper(JsonInclude.Include.ALWAYS).writeValueAsString(response);
+
+        // Then
+        assertThat(json).isEqualTo("{\"query\":null,\"results\":[{\"store\":{\"street2\":null,"
+                + "\"uuid\":\"store-uuid-1\"},\"distance\":0.5}],\"totalFound\":1}");
+    }
+
+    private static ObjectMapper objectMapper(JsonInclude.Include inclusion) {
+        return beanObjectMapper(inclusion).registerModule(NearestStoresResponseSerializer.module());
+    }
+
+    private static ObjectMapper beanObjectMapper(JsonInclude.Include inclusion) {
+        return new ObjectMapper().setSerializationInclusion(inclusion);
+    }
+
+    private static NearestStoresResponse response(String dataset, List<Store> stores) {
+        List<StoreWithDistance> results = IntStream.range(0, stores.size())
+                .mapToObj(i -> new StoreWithDistance(stores.get(i), i * 0.37))
+                .toList();
+        return NearestStoresResponse.builder()
+                .query(NearestStoresResponse.QueryInfo.builder()
+                        .dataset(dataset)
+                        .latitude(52.3676)
+                        .longitude(4.9041)
+                        .limit(stores.size())
+                        .build())
+                .results(results)
+                .totalFound(results.size())
+                .build();
+    }
+
+    private static List<Store> readStores() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (InputStream inputStream = NearestStoresResponseSerializerTest.class.getResourceAsStream("/stores.json")) {
+            return objectMapper.convertValue(objectMapper.readTree(inputStream).get("stores"),
+                    new TypeReference<>() {
+                    });
+        }
+    }
+}
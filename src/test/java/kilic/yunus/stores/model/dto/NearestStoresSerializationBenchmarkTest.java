@@ -0,0 +1,122 @@
+package kilic.yunus.stores.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import kilic.yunus.stores.model.domain.Store;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Time to write a {@link NearestStoresResponse} with the bean serializers and with
+ * {@link NearestStoresResponseSerializer}, compact and indented, with all store properties and the
+ * {@code summary} fields, as on a result cache hit. Run with
+ * {@code ./mvnw test -Pbenchmark -Dtest=NearestStoresSerializationBenchmarkTest}.
+ *
+ * <p>Every run appends one CSV row per case to
+ * {@code target/benchmark-results/nearest-stores-serialization.csv} (or {@code -Dbenchmark.results=<file>}).
+ */
+@Tag("benchmark")
+class NearestStoresSerializationBenchmarkTest {
+
+    private static final Path RESULTS = Path.of(System.getProperty("benchmark.results",
+            "target/benchmark-results/nearest-stores-serialization.csv"));
+    private static final String CSV_HEADER =
+            "timestamp,commit,serializer,indent,limit,fields,bytes,ns_per_response";
+    private static final int WARMUP_ROUNDS = 200_000;
+    private static final int ROUNDS = 500_000;
+
+    @ParameterizedTest(name = "{0}, indent {1}, limit {2}, fields {3}")
+    @CsvSource({
+            "bean,      false, 5,  all",
+            "streaming, false, 5,  all",
+            "bean,      true,  5,  all",
+            "streaming, true,  5,  all",
+            "bean,      false, 50, all",
+            "streaming, false, 50, all",
+            "streaming, false, 5,  summary",
+            "streaming, false, 50, summary",
+    })
+    @DisplayName("Time to serialize a nearest-stores response")
+    void measureSerialization(String serializer, boolean indent, int limit, String fields) throws IOException {
+        // Given
+        ObjectMapper objectMapper = new ObjectMapper()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .configure(SerializationFeature.INDENT_OUTPUT, indent);
+        if (serializer.equals("streaming")) {
+            objectMapper.registerModule(NearestStoresResponseSerializer.module());
+        }
+        NearestStoresResponse response = response(limit);
+        response.setFields(fields.equals("all") ? null : StoreFields.parse(fields));
+        int bytes = objectMapper.writeValueAsBytes(response).length;
+
+        // When
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            objectMapper.writeValue(OutputStream.nullOutputStream(), response);
+        }
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            objectMapper.writeValue(OutputStream.nullOutputStream(), response);
+        }
+        double nanosPerResponse = (System.nanoTime() - startedAt) / (double) ROUNDS;
+
+        // Then
+        assertThat(bytes).isPositive();
+        record(serializer, indent, limit, fields, bytes, nanosPerResponse);
+    }
+
+    private static NearestStoresResponse response(int limit) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Store> stores;
+        try (InputStream inputStream = NearestStoresSerializationBenchmarkTest.class
+                .getResourceAsStream("/stores.json")) {
+            stores = objectMapper.convertValue(objectMapper.readTree(inputStream).get("stores"),
+                    new TypeReference<>() {
+                    });
+        }
+        List<StoreWithDistance> results = IntStream.range(0, limit)
+                .mapToObj(i -> new StoreWithDistance(stores.get(i), 0.85 + i * 0.37))
+                .toList();
+        return NearestStoresResponse.builder()
+                .query(NearestStoresResponse.QueryInfo.builder()
+                        .latitude(52.3676)
+                        .longitude(4.9041)
+                        .limit(limit)
+                        .build())
+                .results(results)
+                .totalFound(results.size())
+                .build();
+    }
+
+    private static void record(String serializer, boolean indent, int limit, String fields, int bytes,
+                               double nanosPerResponse) throws IOException {
+        System.out.printf(Locale.ROOT, "Serialization: %s, indent %s, limit %d, fields %s: %d bytes, "
+                        + "%.0f ns/response%n",
+                serializer, indent, limit, fields, bytes, nanosPerResponse);
+
+        Files.createDirectories(RESULTS.toAbsolutePath().getParent());
+        if (!Files.exists(RESULTS)) {
+            Files.writeString(RESULTS, CSV_HEADER + System.lineSeparator());
+        }
+        String row = String.join(",", Instant.now().toString(), System.getenv().getOrDefault("GITHUB_SHA", ""),
+                serializer, Boolean.toString(indent), Integer.toString(limit), fields, Integer.toString(bytes),
+                String.format(Locale.ROOT, "%.0f", nanosPerResponse));
+        Files.writeString(RESULTS, row + System.lineSeparator(), StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,164 @@
+package kilic.yunus.stores.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import kilic.yunus.stores.model.domain.Store;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Payload size and encode and decode time of a {@link NearestStoresResponse} as JSON, CBOR, Smile
+ * and Protobuf, the formats the nearest-store API negotiates. Jackson formats are written with
+ * {@link NearestStoresResponseSerializer} and read back into the response, Protobuf is mapped with
+ * {@link NearestStoresResponseProtobuf} and parsed into its message. Run with
+ * {@code ./mvnw test -Pbenchmark -Dtest=ResponseFormatBenchmarkTest}.
+ *
+ * <p>Every run appends one CSV row per case to {@code target/benchmark-results/response-format.csv}
+ * (or {@code -Dbenchmark.results=<file>}).
+ */
+@Tag("benchmark")
+class ResponseFormatBenchmarkTest {
+
+    private static final Path RESULTS = Path.of(
+            System.getProperty("benchmark.results", "target/benchmark-results/response-format.csv"));
+    private static final String CSV_HEADER = "timestamp,commit,format,limit,bytes,encode_ns,decode_ns";
+    private static final int WARMUP_ROUNDS = 100_000;
+    private static final int ROUNDS = 200_000;
+
+    @ParameterizedTest(name = "{0}, limit {1}")
+    @CsvSource({
+            "json,     5",
+            "cbor,     5",
+            "smile,    5",
+            "protobuf, 5",
+            "json,     50",
+            "cbor,     50",
+            "smile,    50",
+            "protobuf, 50",
+    })
+    @DisplayName("Payload size, encode and decode time per response format")
+    void measureFormat(String format, int limit) throws IOException {
+        // Given
+        Codec codec = codec(format);
+        NearestStoresResponse response = response(limit);
+        byte[] payload = codec.encode(response);
+
+        // When
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            codec.decode(codec.encode(response));
+        }
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            codec.encode(response);
+        }
+        double encodeNanos = (System.nanoTime() - startedAt) / (double) ROUNDS;
+        startedAt = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            codec.decode(payload);
+        }
+        double decodeNanos = (System.nanoTime() - startedAt) / (double) ROUNDS;
+
+        // Then
+        assertThat(payload).isNotEmpty();
+        record(format, limit, payload.length, encodeNanos, decodeNanos);
+    }
+
+    private static Codec codec(String format) {
+        return switch (format) {
+            case "json" -> jackson(new JsonFactory());
+            case "cbor" -> jackson(new CBORFactory());
+            case "smile" -> jackson(new SmileFactory());
+            case "protobuf" -> new Codec() {
+                @Override
+                public byte[] encode(NearestStoresResponse response) {
+                    return NearestStoresResponseProtobuf.toMessage(response).toByteArray();
+                }
+
+                @Override
+                public Object decode(byte[] payload) throws IOException {
+                    return kilic.yunus.stores.proto.NearestStoresResponse.parseFrom(payload);
+                }
+            };
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+    }
+
+    private static Codec jackson(JsonFactory factory) {
+        ObjectMapper objectMapper = new ObjectMapper(factory)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .registerModule(NearestStoresResponseSerializer.module());
+        return new Codec() {
+            @Override
+            public byte[] encode(NearestStoresResponse response) throws IOException {
+                return objectMapper.writeValueAsBytes(response);
+            }
+
+            @Override
+            public Object decode(byte[] payload) throws IOException {
+                return objectMapper.readValue(payload, NearestStoresResponse.class);
+            }
+        };
+    }
+
+    private static NearestStoresResponse response(int limit) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Store> stores;
+        try (InputStream inputStream = ResponseFormatBenchmarkTest.class.getResourceAsStream("/stores.json")) {
+            stores = objectMapper.convertValue(objectMapper.readTree(inputStream).get("stores"),
+                    new TypeReference<>() {
+                    });
+        }
+        List<StoreWithDistance> results = IntStream.range(0, limit)
+                .mapToObj(i -> new StoreWithDistance(stores.get(i), 0.85 + i * 0.37))
+                .toList();
+        return NearestStoresResponse.builder()
+                .query(NearestStoresResponse.QueryInfo.builder()
+                        .latitude(52.3676)
+                        .longitude(4.9041)
+                        .limit(limit)
+                        .build())
+                .results(results)
+                .totalFound(results.size())
+                .build();
+    }
+
+    private static void record(String format, int limit, int bytes, double encodeNanos, double decodeNanos)
+            throws IOException {
+        System.out.printf(Locale.ROOT, "Format: %s, limit %d: %d bytes, encode %.0f ns, decode %.0f ns%n",
+                format, limit, bytes, encodeNanos, decodeNanos);
+
+        Files.createDirectories(RESULTS.toAbsolutePath().getParent());
+        if (!Files.exists(RESULTS)) {
+            Files.writeString(RESULTS, CSV_HEADER + System.lineSeparator());
+        }
+        String row = String.join(",", Instant.now().toString(), System.getenv().getOrDefault("GITHUB_SHA", ""),
+                format, Integer.toString(limit), Integer.toString(bytes),
+                String.format(Locale.ROOT, "%.0f", encodeNanos), String.format(Locale.ROOT, "%.0f", decodeNanos));
+        Files.writeString(RESULTS, row + System.lineSeparator(), StandardOpenOption.APPEND);
+    }
+
+    private interface Codec {
+
+        byte[] encode(NearestStoresResponse response) throws IOException;
+
+        Object decode(byte[] payload) throws IOException;
+    }
+}
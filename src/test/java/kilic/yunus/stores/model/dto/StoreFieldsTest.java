@@ -0,0 +1,68 @@
+package kilic.yunus.stores.model.dto;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for StoreFields.
+ */
+class StoreFieldsTest {
+
+    @ParameterizedTest(name = "[{index}] \"{0}\"")
+    @ValueSource(strings = {"", " "})
+    @DisplayName("Should select all properties without fields")
+    void shouldSelectAllPropertiesWithoutFields(String parameter) {
+        assertThat(StoreFields.parse(parameter)).isSameAs(StoreFields.ALL);
+        assertThat(StoreFields.parse(null)).isSameAs(StoreFields.ALL);
+        assertThat(StoreFields.ALL.isAll()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should expand summary to uuid, addressName and coordinates")
+    void shouldExpandSummary() {
+        // When
+        StoreFields fields = StoreFields.parse(StoreFields.SUMMARY);
+
+        // Then
+        assertThat(fields.isAll()).isFalse();
+        assertThat(fields).hasToString("addressName,uuid,longitude,latitude");
+    }
+
+    @Test
+    @DisplayName("Should share one field set between spellings of the same properties")
+    void shouldShareFieldSets() {
+        // When
+        StoreFields fields = StoreFields.parse("uuid, city");
+
+        // Then
+        assertThat(fields).hasToString("city,uuid");
+        assertThat(StoreFields.parse("city,uuid,city")).isSameAs(fields);
+        assertThat(StoreFields.parse("summary,city")).hasToString("city,addressName,uuid,longitude,latitude");
+    }
+
+    @Test
+    @DisplayName("Should select all properties when every property is named")
+    void shouldSelectAllPropertiesWhenAllNamed() {
+        // Given
+        String allNames = "city,postalCode,street,street2,street3,addressName,uuid,longitude,latitude,"
+                + "complexNumber,showWarningMessage,todayOpen,locationType,collectionPoint,sapStoreID,todayClose";
+
+        // When / Then
+        assertThat(StoreFields.parse(allNames)).isSameAs(StoreFields.ALL);
+    }
+
+    @ParameterizedTest(name = "[{index}] \"{0}\"")
+    @ValueSource(strings = {"distance", "uuid,", "UUID", "uuid,,city", "location"})
+    @DisplayName("Should reject unknown properties")
+    void shouldRejectUnknownProperties(String parameter) {
+        assertThat(StoreFields.isValid(parameter)).isFalse();
+        assertThatThrownBy(() -> StoreFields.parse(parameter))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Unknown store field");
+    }
+}
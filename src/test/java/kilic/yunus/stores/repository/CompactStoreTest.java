@@ -0,0 +1,97 @@
+package kilic.yunus.stores.repository;
+
+import kilic.yunus.stores.model.domain.Store;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactStoreTest {
+
+    @Test
+    @DisplayName("Should build a store equal to the original")
+    void shouldRoundTripStore() {
+        // Given
+        Store store = Store.builder()
+                .city("Amsterdam")
+                .postalCode("1012 AB")
+                .street("Damrak")
+                .street2("1")
+                .street3("")
+                .addressName("Jumbo Amsterdam Damrak")
+                .uuid("store-1")
+                .longitude(4.8952)
+                .latitude(52.3702)
+                .complexNumber("33249")
+                .showWarningMessage(true)
+                .todayOpen("08:00")
+                .locationType("SupermarktPUP")
+                .collectionPoint(false)
+                .sapStoreID("3605")
+                .todayClose("22:00")
+                .build();
+
+        // When
+        CompactStore compact = CompactStore.of(store);
+
+        // Then
+        assertThat(compact.toStore()).isEqualTo(store);
+        assertThat(compact.latitude()).isEqualTo(52.3702);
+        assertThat(compact.longitude()).isEqualTo(4.8952);
+        assertThat(compact.uuid()).isEqualTo("store-1");
+        assertThat(compact.hasValidLocation()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should keep missing values missing")
+    void shouldRoundTripMissingValues() {
+        // Given
+        Store store = Store.builder().uuid("store-1").build();
+
+        // When
+        CompactStore compact = CompactStore.of(store);
+
+        // Then
+        assertThat(compact.toStore()).isEqualTo(store);
+        assertThat(compact.hasValidLocation()).isFalse();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"00:00", "09:30", "23:59", "Gesloten"})
+    @DisplayName("Should keep every opening time and share the materialized value")
+    void shouldRoundTripOpeningTimes(String time) {
+        // Given
+        Store store = Store.builder().uuid("store-1").todayOpen(time).todayClose(time).build();
+
+        // When
+        Store first = CompactStore.of(store).toStore();
+        Store second = CompactStore.of(store).toStore();
+
+        // Then
+        assertThat(first.getTodayOpen()).isEqualTo(time);
+        assertThat(first.getTodayClose()).isEqualTo(time);
+        assertThat(second.getTodayOpen()).isSameAs(first.getTodayOpen());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"8:00", "24:00", "08:60", "ab:cd", "closed"})
+    @DisplayName("Should reject opening times that validation would reject")
+    void shouldRejectUnsupportedOpeningTimes(String time) {
+        Store store = Store.builder().uuid("store-1").todayOpen(time).build();
+
+        assertThatThrownBy(() -> CompactStore.of(store))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(time);
+    }
+
+    @Test
+    @DisplayName("Should treat out of range coordinates as an invalid location")
+    void shouldRejectOutOfRangeCoordinates() {
+        Store store = Store.builder().uuid("store-1").latitude(91.0).longitude(4.9).build();
+
+        assertThat(CompactStore.of(store).hasValidLocation()).isFalse();
+    }
+}
@@ -0,0 +1,261 @@
+package kilic.yunus.stores.repository;
+
+import kilic.yunus.stores.model.domain.Store;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StoreSnapshotTest {
+
+    static Stream<Arguments> storesPerStorage() {
+        return Stream.of(StoreStorage.values())
+                .flatMap(storage -> IntStream.of(0, 1, 1023, 1024, 1025, 5000)
+                        .mapToObj(count -> Arguments.of(storage, count)));
+    }
+
+    @ParameterizedTest(name = "{0}, {1} stores")
+    @MethodSource("storesPerStorage")
+    @DisplayName("Should keep stores in list order and find them by UUID")
+    void shouldIndexStores(StoreStorage storage, int count) {
+        // Given
+        List<Store> stores = IntStream.range(0, count).mapToObj(StoreSnapshotTest::store).toList();
+
+        // When
+        StoreSnapshot snapshot = new StoreSnapshot(1, stores, storage);
+
+        // Then
+        assertThat(snapshot.size()).isEqualTo(count);
+        assertThat(snapshot.stores()).containsExactlyElementsOf(stores);
+        for (int i = 0; i < count; i++) {
+            assertThat(snapshot.indexOf(stores.get(i).getUuid())).isEqualTo(i);
+        }
+        assertThat(snapshot.indexOf("unknown-store")).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("Should replace an existing store in place")
+    void shouldReplaceStoreInPlace() {
+        // Given
+        StoreSnapshot snapshot = new StoreSnapshot(1, List.of(store(0), store(1), store(2)));
+        Store replacement = store(1, "Utrecht");
+
+        // When
+        StoreSnapshot next = snapshot.withStore(2, replacement);
+
+        // Then
+        assertThat(next.generation()).isEqualTo(2);
+        assertThat(next.get(1)).isEqualTo(replacement);
+        assertThat(next.indexOf(replacement.getUuid())).isEqualTo(1);
+        assertThat(snapshot.get(1).getCity()).isEqualTo("City 1");
+    }
+
+    @Test
+    @DisplayName("Should move the last store into the position of a deleted store")
+    void shouldMoveLastStoreOnDelete() {
+        // Given
+        StoreSnapshot snapshot = new StoreSnapshot(1, List.of(store(0), store(1), store(2)));
+
+        // When
+        StoreSnapshot next = snapshot.withoutStore(2, store(0).getUuid());
+
+        // Then
+        assertThat(next.stores()).extracting(Store::getUuid)
+                .containsExactly(store(2).getUuid(), store(1).getUuid());
+        assertThat(next.indexOf(store(0).getUuid())).isEqualTo(-1);
+        assertThat(next.indexOf(store(2).getUuid())).isZero();
+        assertThat(snapshot.size()).isEqualTo(3);
+        assertThatThrownBy(() -> next.withoutStore(3, store(0).getUuid()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should list the changes since an earlier generation of the same load")
+    void shouldListChangesSinceGeneration() {
+        // Given
+        StoreSnapshot loaded = new StoreSnapshot(1, List.of(store(0), store(1), store(2)));
+
+        // When
+        StoreSnapshot replaced = loaded.withStore(2, store(1, "Utrecht"));
+        StoreSnapshot deleted = replaced.withoutStore(3, store(0).getUuid());
+        StoreSnapshot added = deleted.withStore(4, store(3));
+
+        // Then
+        assertThat(added.loadGeneration()).isEqualTo(1);
+        assertThat(added.changesSince(1)).containsExactly(
+                new StoreSnapshot.Change(2, store(1).getUuid(), 1),
+                new StoreSnapshot.Change(3, store(0).getUuid(), 0),
+                new StoreSnapshot.Change(3, store(2).getUuid(), 2),
+                new StoreSnapshot.Change(4, store(3).getUuid(), 2));
+        assertThat(added.changesSince(3)).containsExactly(new StoreSnapshot.Change(4, store(3).getUuid(), 2));
+        assertThat(added.changesSince(4)).isEmpty();
+        assertThat(added.changesSince(0)).isNull();
+        assertThat(replaced.changesSince(4)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should forget the oldest changes beyond the tracked maximum")
+    void shouldForgetOldestChanges() {
+        // Given
+        StoreSnapshot snapshot = new StoreSnapshot(1, List.of(store(0)));
+
+        // When
+        for (int change = 0; change <= StoreSnapshot.MAX_TRACKED_CHANGES; change++) {
+            snapshot = snapshot.withStore(snapshot.generation() + 1, store(0, "City " + change));
+        }
+
+        // Then
+        assertThat(snapshot.changesSince(1)).isNull();
+        assertThat(snapshot.changesSince(2)).hasSize(StoreSnapshot.MAX_TRACKED_CHANGES);
+    }
+
+    @ParameterizedTest
+    @EnumSource(StoreStorage.class)
+    @DisplayName("Should stay consistent over many random changes")
+    void shouldStayConsistentOverRandomChanges(StoreStorage storage) {
+        // Given
+        Random random = new Random(42);
+        List<Store> initial = IntStream.range(0, 3000).mapToObj(StoreSnapshotTest::store).toList();
+        StoreSnapshot snapshot = new StoreSnapshot(1, initial, storage);
+        Map<String, Store> expected = new HashMap<>();
+        initial.forEach(store -> expected.put(store.getUuid(), store));
+        StoreSnapshot first = snapshot;
+
+        // When
+        for (int change = 0; change < 5000; change++) {
+            int id = random.nextInt(6000);
+            Store store = store(id, "City " + id + "-" + change);
+            if (random.nextInt(3) == 0 && expected.containsKey(store.getUuid())) {
+                snapshot = snapshot.withoutStore(snapshot.generation() + 1, store.getUuid());
+                expected.remove(store.getUuid());
+            } else {
+                snapshot = snapshot.withStore(snapshot.generation() + 1, store);
+                expected.put(store.getUuid(), store);
+            }
+        }
+
+        // Then
+        assertThat(snapshot.size()).isEqualTo(expected.size());
+        assertThat(snapshot.stores()).containsExactlyInAnyOrderElementsOf(expected.values());
+        for (int i = 0; i < snapshot.size(); i++) {
+            assertThat(snapshot.indexOf(snapshot.get(i).getUuid())).isEqualTo(i);
+        }
+        List<String> removed = new ArrayList<>();
+        for (int id = 0; id < 6000; id++) {
+            if (!expected.containsKey(store(id).getUuid())) {
+                removed.add(store(id).getUuid());
+            }
+        }
+        StoreSnapshot last = snapshot;
+        assertThat(removed).allSatisfy(uuid -> assertThat(last.indexOf(uuid)).isEqualTo(-1));
+        assertThat(first.stores()).containsExactlyElementsOf(initial);
+    }
+
+    @Test
+    @DisplayName("Should carry the spatial index over to derived snapshots")
+    void shouldCarrySpatialIndexOver() {
+        // Given
+        List<Store> stores = IntStream.range(0, 3000).mapToObj(StoreSnapshotTest::store).toList();
+        StoreSnapshot snapshot = new StoreSnapshot(1, stores);
+        StoreSnapshot unindexed = snapshot.withStore(2, store(1, "Moved"));
+
+        // When
+        StoreGridIndex index = snapshot.buildGridIndex(progress -> {
+        });
+        StoreSnapshot derived = snapshot.withStore(2, store(3000)).withoutStore(3, store(5).getUuid());
+        boolean adopted = unindexed.adoptGridIndex(snapshot);
+
+        // Then
+        assertThat(snapshot.gridIndex()).isSameAs(index);
+        assertThat(index.size()).isEqualTo(3000);
+        assertThat(derived.gridIndex()).isNotNull();
+        assertThat(derived.gridIndex().isChanged(5)).isTrue();
+        assertThat(derived.gridIndex().isChanged(3000)).isTrue();
+        assertThat(derived.gridIndex().isChanged(4)).isFalse();
+        // Only the city changed, the location is the same
+        assertThat(adopted).isTrue();
+        assertThat(unindexed.gridIndex().changedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should drop the spatial index once too many stores changed")
+    void shouldDropSpatialIndexAfterManyChanges() {
+        // Given
+        List<Store> stores = IntStream.range(0, 3000).mapToObj(StoreSnapshotTest::store).toList();
+        StoreSnapshot snapshot = new StoreSnapshot(1, stores);
+        snapshot.buildGridIndex(progress -> {
+        });
+        StoreSnapshot changed = snapshot;
+
+        // When
+        for (int id = 3000; id < 3100; id++) {
+            changed = changed.withStore(changed.generation() + 1, store(id));
+        }
+
+        // Then
+        assertThat(changed.gridIndex()).isNull();
+        assertThat(changed.adoptGridIndex(snapshot)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should keep every store attribute off-heap")
+    void shouldKeepAllAttributesOffHeap() {
+        // Given
+        Store store = Store.builder()
+                .city("'s-Hertogenbosch")
+                .postalCode("5211 AB")
+                .street("Stationsplein")
+                .street2("1-ä")
+                .street3("")
+                .addressName("Jumbo Den Bosch Stationsplein")
+                .uuid("store-uuid-€")
+                .longitude(5.2937)
+                .latitude(51.6901)
+                .complexNumber("33249")
+                .showWarningMessage(false)
+                .todayOpen("Gesloten")
+                .locationType("SupermarktPUP")
+                .collectionPoint(true)
+                .sapStoreID("3605")
+                .todayClose("Gesloten")
+                .build();
+        Store withoutValues = Store.builder().uuid("store-uuid-empty").build();
+
+        // When
+        StoreSnapshot snapshot = new StoreSnapshot(1, List.of(store, withoutValues), StoreStorage.OFF_HEAP);
+
+        // Then
+        assertThat(snapshot.stores()).containsExactly(store, withoutValues);
+        assertThat(snapshot.indexOf("store-uuid-€")).isZero();
+        assertThat(snapshot.latitude(0)).isEqualTo(51.6901);
+        assertThat(snapshot.hasValidLocation(0)).isTrue();
+        assertThat(snapshot.hasValidLocation(1)).isFalse();
+        assertThat(snapshot.withStore(2, withoutValues).storage()).isEqualTo(StoreStorage.OFF_HEAP);
+    }
+
+    private static Store store(int id) {
+        return store(id, "City " + id);
+    }
+
+    private static Store store(int id, String city) {
+        return Store.builder()
+                .uuid(String.format("store-uuid-%05d", id))
+                .city(city)
+                .latitude(52.0)
+                .longitude(5.0)
+                .build();
+    }
+}
@@ -4,8 +4,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import jakarta.validation.ValidatorFactory;
+import kilic.yunus.stores.config.StoreDataProperties;
+import kilic.yunus.stores.exception.DatasetNotFoundException;
 import kilic.yunus.stores.exception.StoreDataException;
 import kilic.yunus.stores.model.domain.Store;
+import kilic.yunus.stores.repository.StoreDataChangedEvent;
+import kilic.yunus.stores.repository.StoreDatasets;
+import kilic.yunus.stores.repository.StoreIndexStatus;
+import kilic.yunus.stores.repository.StoreSnapshot;
+import kilic.yunus.stores.repository.StoreStorage;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,19 +21,32 @@ import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 class JsonStoreRepositoryTest {
 
     private ObjectMapper objectMapper;
     private Validator validator;
+    private final List<Object> publishedEvents = new CopyOnWriteArrayList<>();
+    private final List<JsonStoreRepository> createdRepositories = new ArrayList<>();
 
     @TempDir
     Path tempDir;
@@ -40,6 +61,13 @@ class JsonStoreRepositoryTest {
         }
     }
 
+    @AfterEach
+    void tearDown() throws IOException {
+        for (JsonStoreRepository repository : createdRepositories) {
+            repository.close();
+        }
+    }
+
     // Template for creating test stores
     private static final String STORE_TEMPLATE = """
             {
@@ -157,10 +185,43 @@ class JsonStoreRepositoryTest {
                 .hasMessageContaining("test-uuid-0003");
     }
 
+    @Test
+    @DisplayName("Should report validation errors in file order regardless of parallelism")
+    void shouldReportValidationErrorsInOrderWhenValidatingInParallel() throws IOException {
+        // Given - enough stores to be split across threads, every 500th one invalid
+        String[] stores = new String[5_000];
+        for (int i = 0; i < stores.length; i++) {
+            String postalCode = i % 500 == 499 ? "WRONG" : "1234 AB";
+            String todayOpen = i % 1000 == 999 ? "25:99" : "08:00";
+            stores[i] = createStore("Amsterdam", postalCode, "Store " + i, String.format("test-uuid-%05d", i),
+                    "4.9041", "52.3676", "123", todayOpen, String.valueOf(i));
+        }
+        String json = wrapInStoresArray(stores);
+
+        // When
+        Throwable sequential = catchThrowable(createRepository(json, 1)::loadStores);
+        Throwable parallel = catchThrowable(createRepository(json, 4)::loadStores);
+
+        // Then
+        assertThat(parallel)
+                .isInstanceOf(StoreDataException.class)
+                .hasMessageContaining("10 out of 5000 stores have validation errors")
+                .hasMessage(sequential.getMessage());
+        String message = parallel.getMessage();
+        assertThat(message.indexOf("Store #500 ")).isLessThan(message.indexOf("Store #1000 "));
+        assertThat(message.indexOf("Store #1000 ")).isLessThan(message.indexOf("Store #4500 "));
+        assertThat(message.indexOf("postalCode", message.indexOf("Store #1000 ")))
+                .isLessThan(message.indexOf("todayOpen", message.indexOf("Store #1000 ")));
+    }
+
     @ParameterizedTest(name = "[{index}] {0}")
     @CsvSource(delimiter = '|', textBlock = """
             Missing stores key | {"data": []}       | 'stores' key not found
+            Stores not an array| {"stores": {}}     | 'stores' key not found
+            Root not an object | []                 | 'stores' key not found
             Malformed JSON     | { invalid json     | Failed to load store data
+            Truncated array    | {"stores": [       | Failed to load store data
+            Trailing garbage   | {"stores": []} }   | Failed to load store data
             """)
     @DisplayName("Should handle JSON structure errors")
     void shouldHandleJsonStructureErrors(String description, String json, String expectedError) throws IOException {
@@ -173,14 +234,151 @@ class JsonStoreRepositoryTest {
                 .hasMessageContaining(expectedError);
     }
 
+    @Test
+    @DisplayName("Should skip other root fields around the stores array")
+    void shouldSkipOtherRootFields() throws IOException {
+        // Given
+        String store = createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                "4.9041", "52.3676", "123", "08:00", "1");
+        String json = String.format(
+                "{\"meta\": {\"stores\": [1, 2]}, \"stores\": [%s], \"exportedAt\": \"2025-11-29\"}", store);
+        JsonStoreRepository repository = createRepository(json);
+
+        // When
+        repository.loadStores();
+
+        // Then
+        assertThat(repository.findAll()).extracting(Store::getUuid).containsExactly("test-uuid-0001");
+    }
+
+    @Test
+    @DisplayName("Should load the same stores from a binary snapshot as from JSON")
+    void shouldLoadSameStoresFromBinarySnapshot() throws IOException {
+        // Given
+        String store1 = createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                "4.9041", "52.3676", "123", "08:00", "1");
+        String store2 = createStore("Rotterdam", "5678 CD", "Store 2", "test-uuid-0002",
+                "4.4777", "51.9244", "456", "Gesloten", "2");
+        JsonStoreRepository jsonRepository = createRepository(wrapInStoresArray(store1, store2));
+        jsonRepository.loadStores();
+        Path snapshotFile = tempDir.resolve("stores" + BinaryStoreSnapshot.FILE_EXTENSION);
+        BinaryStoreSnapshot.write(jsonRepository.findAll(), snapshotFile);
+
+        // When
+        JsonStoreRepository snapshotRepository = createRepository(new FileSystemResource(snapshotFile), 1);
+        snapshotRepository.loadStores();
+
+        // Then
+        assertThat(snapshotRepository.findAll()).isEqualTo(jsonRepository.findAll());
+        assertThat(snapshotRepository.findAll().get(1).getLongitude()).isEqualTo(4.4777);
+        assertThat(snapshotRepository.findAll().get(0).getCollectionPoint()).isFalse();
+        assertThat(snapshotRepository.findAll().get(0).getTodayClose()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should load stores from a gzip-compressed JSON file")
+    void shouldLoadGzipCompressedJson() throws IOException {
+        // Given
+        String store1 = createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                "4.9041", "52.3676", "123", "08:00", "1");
+        String store2 = createStore("Rotterdam", "5678 CD", "Store 2", "test-uuid-0002",
+                "4.4777", "51.9244", "456", "09:00", "2");
+        Path storeFile = tempDir.resolve("stores.json.gz");
+        writeGzip(storeFile, wrapInStoresArray(store1, store2));
+        JsonStoreRepository repository = createRepository(new FileSystemResource(storeFile), 1);
+
+        // When
+        repository.loadStores();
+
+        // Then
+        assertThat(repository.findAll()).extracting(Store::getUuid)
+                .containsExactly("test-uuid-0001", "test-uuid-0002");
+    }
+
+    @Test
+    @DisplayName("Should load a directory of shards in file name order")
+    void shouldLoadShardedDirectory() throws IOException {
+        // Given
+        Path shards = Files.createDirectory(tempDir.resolve("shards"));
+        writeGzip(shards.resolve("stores-1.json.gz"), wrapInStoresArray(
+                createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                        "4.9041", "52.3676", "123", "08:00", "1"),
+                createStore("Rotterdam", "5678 CD", "Store 2", "test-uuid-0002",
+                        "4.4777", "51.9244", "456", "09:00", "2")));
+        Files.writeString(shards.resolve("stores-2.json"), wrapInStoresArray(
+                createStore("Utrecht", "3511 AB", "Store 3", "test-uuid-0003",
+                        "5.1214", "52.0907", "789", "08:00", "3"),
+                createStore("Amsterdam", "1234 AB", "Store 1 moved", "test-uuid-0001",
+                        "4.9041", "52.3676", "123", "08:00", "1")));
+        Files.writeString(shards.resolve("README.txt"), "not a shard");
+        StoreDataProperties properties = new StoreDataProperties();
+        properties.setFile(new FileSystemResource(shards));
+        properties.setValidationParallelism(2);
+        JsonStoreRepository repository = createRepository(properties);
+
+        // When
+        repository.loadStores();
+
+        // Then - the later shard replaces the earlier store with the same UUID
+        assertThat(repository.findAll()).extracting(Store::getAddressName)
+                .containsExactly("Store 1 moved", "Store 2", "Store 3");
+    }
+
+    @Test
+    @DisplayName("Should name the shard that cannot be parsed")
+    void shouldReportInvalidShard() throws IOException {
+        // Given
+        Path shards = Files.createDirectory(tempDir.resolve("shards"));
+        Files.writeString(shards.resolve("stores-1.json"), wrapInStoresArray(
+                createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                        "4.9041", "52.3676", "123", "08:00", "1")));
+        Files.writeString(shards.resolve("stores-2.json"), "{\"stores\": [");
+        StoreDataProperties properties = new StoreDataProperties();
+        properties.setFile(new FileSystemResource(shards));
+        properties.setValidationParallelism(2);
+        JsonStoreRepository repository = createRepository(properties);
+
+        // When/Then
+        assertThatThrownBy(repository::loadStores)
+                .isInstanceOf(StoreDataException.class)
+                .hasMessageContaining("stores-2.json");
+        assertThat(repository.generation()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reject a data directory without shards")
+    void shouldRejectEmptyDataDirectory() throws IOException {
+        // Given
+        Path shards = Files.createDirectory(tempDir.resolve("shards"));
+        JsonStoreRepository repository = createRepository(new FileSystemResource(shards), 1);
+
+        // When/Then
+        assertThatThrownBy(repository::loadStores)
+                .isInstanceOf(StoreDataException.class)
+                .hasMessageContaining("No store data files");
+    }
+
+    @Test
+    @DisplayName("Should reject a snapshot file with an unknown format")
+    void shouldRejectInvalidSnapshotFile() throws IOException {
+        // Given
+        Path snapshotFile = tempDir.resolve("stores" + BinaryStoreSnapshot.FILE_EXTENSION);
+        Files.writeString(snapshotFile, "{\"stores\": []}");
+        JsonStoreRepository repository = createRepository(new FileSystemResource(snapshotFile), 1);
+
+        // When/Then
+        assertThatThrownBy(repository::loadStores)
+                .isInstanceOf(StoreDataException.class)
+                .hasMessageContaining("Failed to load store data")
+                .hasRootCauseMessage("Not a store snapshot file");
+    }
+
     @Test
     @DisplayName("Should throw exception when file cannot be read")
     void shouldThrowExceptionWhenFileNotFound() {
         // Given - Create repository with non-existent file
-        JsonStoreRepository repository = new JsonStoreRepository(
-                objectMapper,
-                validator,
-                new FileSystemResource("/nonexistent/stores.json"));
+        JsonStoreRepository repository =
+                createRepository(new FileSystemResource("/nonexistent/stores.json"), 1);
 
         // When/Then
         assertThatThrownBy(repository::loadStores)
@@ -276,6 +474,544 @@ class JsonStoreRepositoryTest {
         assertThat(repository.count()).isEqualTo(1);
     }
 
+    @Test
+    @DisplayName("Should publish a new generation on every successful load")
+    void shouldPublishNewGenerationOnEveryLoad() throws IOException {
+        // Given
+        String store = createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                "4.9041", "52.3676", "123", "08:00", "1");
+        JsonStoreRepository repository = createRepository(wrapInStoresArray(store));
+        assertThat(repository.generation()).isZero();
+
+        // When
+        repository.loadStores();
+        repository.loadStores();
+
+        // Then
+        assertThat(repository.generation()).isEqualTo(2);
+        assertThat(publishedEvents).containsExactly(
+                new StoreDataChangedEvent(StoreDatasets.DEFAULT, 1, 1, 1),
+                new StoreDataChangedEvent(StoreDatasets.DEFAULT, 2, 2, 1));
+    }
+
+    @Test
+    @DisplayName("Should keep file order and index stores by UUID in the snapshot")
+    void shouldKeepFileOrderInSnapshot() throws IOException {
+        // Given
+        String store1 = createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0002",
+                "4.9041", "52.3676", "123", "08:00", "1");
+        String store2 = createStore("Rotterdam", "5678 CD", "Store 2", "test-uuid-0001",
+                "4.4777", "51.9244", "456", "09:00", "2");
+        JsonStoreRepository repository = createRepository(wrapInStoresArray(store1, store2));
+
+        // When
+        repository.loadStores();
+        var snapshot = repository.snapshot();
+
+        // Then
+        assertThat(snapshot.generation()).isEqualTo(1);
+        assertThat(snapshot.stores()).extracting(Store::getUuid)
+                .containsExactly("test-uuid-0002", "test-uuid-0001");
+        assertThat(snapshot.indexOf("test-uuid-0001")).isEqualTo(1);
+        assertThat(snapshot.indexOf("unknown")).isEqualTo(-1);
+        assertThat(repository.findAll()).isEqualTo(snapshot.stores());
+    }
+
+    @Test
+    @DisplayName("Should publish reloaded data as a new generation without changing held snapshots")
+    void shouldReloadIntoNewGeneration() throws IOException {
+        // Given
+        String store1 = createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                "4.9041", "52.3676", "123", "08:00", "1");
+        String store2 = createStore("Rotterdam", "5678 CD", "Store 2", "test-uuid-0002",
+                "4.4777", "51.9244", "456", "09:00", "2");
+        JsonStoreRepository repository = createRepository(wrapInStoresArray(store1));
+        repository.loadStores();
+        var heldSnapshot = repository.snapshot();
+        Files.writeString(tempDir.resolve("stores1.json"), wrapInStoresArray(store1, store2));
+
+        // When
+        var reloaded = repository.reload().join();
+
+        // Then
+        assertThat(reloaded.generation()).isEqualTo(2);
+        assertThat(repository.snapshot()).isSameAs(reloaded);
+        assertThat(repository.count()).isEqualTo(2);
+        assertThat(heldSnapshot.generation()).isEqualTo(1);
+        assertThat(heldSnapshot.stores()).extracting(Store::getUuid).containsExactly("test-uuid-0001");
+        assertThat(publishedEvents).last().isEqualTo(new StoreDataChangedEvent(StoreDatasets.DEFAULT, 2, 2, 2));
+    }
+
+    @Test
+    @DisplayName("Should keep the current generation when the reloaded file is unchanged")
+    void shouldSkipReloadOfUnchangedFile() throws IOException {
+        // Given
+        String store = createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                "4.9041", "52.3676", "123", "08:00", "1");
+        JsonStoreRepository repository = createRepository(wrapInStoresArray(store));
+        repository.loadStores();
+        var current = repository.snapshot();
+
+        // When
+        var reloaded = repository.reload().join();
+
+        // Then
+        assertThat(reloaded).isSameAs(current);
+        assertThat(repository.generation()).isEqualTo(1);
+        assertThat(publishedEvents).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should keep serving the current generation when reloaded data is invalid")
+    void shouldKeepCurrentGenerationWhenReloadFails() throws IOException {
+        // Given
+        String store = createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                "4.9041", "52.3676", "123", "08:00", "1");
+        JsonStoreRepository repository = createRepository(wrapInStoresArray(store));
+        repository.loadStores();
+        var current = repository.snapshot();
+        Files.writeString(tempDir.resolve("stores1.json"), "{ invalid json");
+
+        // When/Then
+        assertThatThrownBy(() -> repository.reload().join())
+                .hasCauseInstanceOf(StoreDataException.class);
+        assertThat(repository.snapshot()).isSameAs(current);
+        assertThat(repository.generation()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reload when the watched file is replaced")
+    void shouldReloadWhenWatchedFileChanges() throws Exception {
+        // Given
+        String store1 = createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                "4.9041", "52.3676", "123", "08:00", "1");
+        String store2 = createStore("Rotterdam", "5678 CD", "Store 2", "test-uuid-0002",
+                "4.4777", "51.9244", "456", "09:00", "2");
+        Path storeFile = tempDir.resolve("watched.json");
+        Files.writeString(storeFile, wrapInStoresArray(store1));
+        StoreDataProperties properties = new StoreDataProperties();
+        properties.setFile(new FileSystemResource(storeFile));
+        properties.setValidationParallelism(1);
+        properties.getWatch().setEnabled(true);
+        properties.getWatch().setDebounce(Duration.ofMillis(100));
+        JsonStoreRepository repository = createRepository(properties);
+        repository.loadStores();
+
+        // When - publish the new file with an atomic move, as a deployment would
+        Path newFile = tempDir.resolve("watched.json.tmp");
+        Files.writeString(newFile, wrapInStoresArray(store1, store2));
+        Files.move(newFile, storeFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // Then
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (repository.generation() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(repository.generation()).isEqualTo(2);
+        assertThat(repository.count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should build the spatial index in the background after loading")
+    void shouldBuildSpatialIndexInBackground() throws Exception {
+        // Given
+        String store1 = createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                "4.9041", "52.3676", "123", "08:00", "1");
+        String store2 = createStore("Rotterdam", "5678 CD", "Store 2", "test-uuid-0002",
+                "4.4777", "51.9244", "456", "09:00", "2");
+        JsonStoreRepository repository = createRepository(wrapInStoresArray(store1, store2));
+
+        // When
+        repository.loadStores();
+
+        // Then
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (repository.indexStatus().state() != StoreIndexStatus.State.READY && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(repository.indexStatus()).isEqualTo(StoreIndexStatus.READY);
+        assertThat(repository.snapshot().gridIndex().size()).isEqualTo(2);
+        Store added = objectMapper.readValue(createStore("Utrecht", "3511 EF", "Store 3",
+                "test-uuid-0003", "5.1214", "52.0907", "789", "10:00", "3"), Store.class);
+        assertThat(repository.upsert(added).gridIndex().isChanged(2)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should not build a spatial index when it is disabled")
+    void shouldNotBuildDisabledSpatialIndex() throws IOException {
+        // Given
+        Path storeFile = tempDir.resolve("stores.json");
+        Files.writeString(storeFile, wrapInStoresArray(createStore("Amsterdam", "1234 AB", "Store 1",
+                "test-uuid-0001", "4.9041", "52.3676", "123", "08:00", "1")));
+        StoreDataProperties properties = new StoreDataProperties();
+        properties.setFile(new FileSystemResource(storeFile));
+        properties.getSpatialIndex().setEnabled(false);
+        JsonStoreRepository repository = createRepository(properties);
+
+        // When
+        repository.loadStores();
+
+        // Then
+        assertThat(repository.indexStatus()).isEqualTo(StoreIndexStatus.DISABLED);
+        assertThat(repository.snapshot().gridIndex()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should upsert stores incrementally without changing held snapshots")
+    void shouldUpsertStoresIncrementally() throws IOException {
+        // Given
+        String store1 = createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                "4.9041", "52.3676", "123", "08:00", "1");
+        JsonStoreRepository repository = createRepository(wrapInStoresArray(store1));
+        repository.loadStores();
+        var heldSnapshot = repository.snapshot();
+        Store updated = objectMapper.readValue(createStore("Amsterdam", "1234 AB", "Store 1 renamed",
+                "test-uuid-0001", "4.9041", "52.3676", "123", "09:00", "1"), Store.class);
+        Store added = objectMapper.readValue(createStore("Rotterdam", "5678 CD", "Store 2",
+                "test-uuid-0002", "4.4777", "51.9244", "456", "09:00", "2"), Store.class);
+
+        // When
+        repository.upsert(updated);
+        var afterAdd = repository.upsert(added);
+
+        // Then
+        assertThat(afterAdd.generation()).isEqualTo(3);
+        assertThat(repository.findAll()).containsExactly(updated, added);
+        assertThat(afterAdd.indexOf("test-uuid-0002")).isEqualTo(1);
+        assertThat(heldSnapshot.stores()).extracting(Store::getAddressName).containsExactly("Store 1");
+        assertThat(publishedEvents).last().isEqualTo(new StoreDataChangedEvent(StoreDatasets.DEFAULT, 3, 1, 2));
+    }
+
+    @Test
+    @DisplayName("Should load and change stores kept off-heap")
+    void shouldLoadAndChangeStoresOffHeap() throws IOException {
+        // Given
+        String store1 = createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                "4.9041", "52.3676", "123", "08:00", "1");
+        String store2 = createStore("Rotterdam", "5678 CD", "Store 2", "test-uuid-0002",
+                "4.4777", "51.9244", "456", "09:00", "2");
+        Path storeFile = tempDir.resolve("stores1.json");
+        Files.writeString(storeFile, wrapInStoresArray(store1, store2));
+        StoreDataProperties properties = new StoreDataProperties();
+        properties.setFile(new FileSystemResource(storeFile));
+        properties.setValidationParallelism(1);
+        properties.setStorage(StoreStorage.OFF_HEAP);
+        JsonStoreRepository repository = createRepository(properties);
+        repository.loadStores();
+        List<Store> loaded = repository.findAll();
+        Store updated = objectMapper.readValue(createStore("Amsterdam", "1234 AB", "Store 1 renamed",
+                "test-uuid-0001", "4.9041", "52.3676", "123", "09:00", "1"), Store.class);
+
+        // When
+        repository.upsert(updated);
+        repository.delete("test-uuid-0002");
+
+        // Then
+        assertThat(loaded).extracting(Store::getUuid).containsExactly("test-uuid-0001", "test-uuid-0002");
+        assertThat(repository.snapshot().storage()).isEqualTo(StoreStorage.OFF_HEAP);
+        assertThat(repository.findAll()).containsExactly(updated);
+        assertThat(repository.snapshot().indexOf("test-uuid-0002")).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("Should load every configured data set into its own repository")
+    void shouldLoadDatasetsIntoSeparateRepositories() throws IOException {
+        // Given
+        String store1 = createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                "4.9041", "52.3676", "123", "08:00", "1");
+        String store2 = createStore("Rotterdam", "5678 CD", "Store 2", "test-uuid-0002",
+                "4.4777", "51.9244", "456", "09:00", "2");
+        Path defaultFile = tempDir.resolve("stores-default.json");
+        Path chainFile = tempDir.resolve("stores-chain-b.json");
+        Files.writeString(defaultFile, wrapInStoresArray(store1));
+        Files.writeString(chainFile, wrapInStoresArray(store2));
+        StoreDataProperties properties = new StoreDataProperties();
+        properties.setFile(new FileSystemResource(defaultFile));
+        properties.setValidationParallelism(1);
+        StoreDataProperties.Dataset chain = new StoreDataProperties.Dataset();
+        chain.setFile(new FileSystemResource(chainFile));
+        chain.setStorage(StoreStorage.OFF_HEAP);
+        properties.getDatasets().put("chain-b", chain);
+        JsonStoreRepository defaultRepository = createRepository(properties);
+        defaultRepository.loadStores();
+        JsonStoreDatasets datasets =
+                new JsonStoreDatasets(defaultRepository, objectMapper, validator, publishedEvents::add, properties);
+
+        // When
+        datasets.loadDatasets();
+        datasets.get("chain-b").delete("test-uuid-0002");
+
+        // Then
+        try {
+            assertThat(datasets.names()).containsExactly(StoreDatasets.DEFAULT, "chain-b");
+            assertThat(datasets.get(null)).isSameAs(defaultRepository);
+            assertThat(defaultRepository.findAll()).extracting(Store::getUuid).containsExactly("test-uuid-0001");
+            assertThat(datasets.get("chain-b").count()).isZero();
+            assertThat(datasets.get("chain-b").snapshot().storage()).isEqualTo(StoreStorage.OFF_HEAP);
+            assertThat(publishedEvents).contains(
+                    new StoreDataChangedEvent(StoreDatasets.DEFAULT, 1, 1, 1),
+                    new StoreDataChangedEvent("chain-b", 1, 1, 1),
+                    new StoreDataChangedEvent("chain-b", 2, 1, 0));
+            assertThatThrownBy(() -> datasets.get("chain-c"))
+                    .isInstanceOf(DatasetNotFoundException.class)
+                    .hasMessageContaining("chain-c");
+        } finally {
+            datasets.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject data set names that cannot be used in URLs")
+    void shouldRejectInvalidDatasetNames() {
+        // Given
+        StoreDataProperties properties = new StoreDataProperties();
+        StoreDataProperties.Dataset dataset = new StoreDataProperties.Dataset();
+        dataset.setFile(new FileSystemResource(tempDir.resolve("stores.json")));
+        properties.getDatasets().put("Chain B", dataset);
+        JsonStoreRepository defaultRepository = createRepository(properties);
+
+        // When/Then
+        assertThatThrownBy(() -> new JsonStoreDatasets(
+                defaultRepository, objectMapper, validator, publishedEvents::add, properties))
+                .isInstanceOf(StoreDataException.class)
+                .hasMessageContaining("Chain B");
+    }
+
+    @Test
+    @DisplayName("Should reject invalid upserts and keep the current generation")
+    void shouldRejectInvalidUpsert() throws IOException {
+        // Given
+        String store = createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                "4.9041", "52.3676", "123", "08:00", "1");
+        JsonStoreRepository repository = createRepository(wrapInStoresArray(store));
+        repository.loadStores();
+        Store invalid = objectMapper.readValue(createStore("Amsterdam", "INVALID", "Store 1",
+                "test-uuid-0001", "4.9041", "52.3676", "123", "08:00", "1"), Store.class);
+
+        // When/Then
+        assertThatThrownBy(() -> repository.upsert(invalid))
+                .isInstanceOf(StoreDataException.class)
+                .hasMessageContaining("postalCode");
+        assertThat(repository.generation()).isEqualTo(1);
+        assertThat(repository.findAll()).extracting(Store::getPostalCode).containsExactly("1234 AB");
+    }
+
+    @Test
+    @DisplayName("Should delete stores by UUID")
+    void shouldDeleteStores() throws IOException {
+        // Given
+        String store1 = createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                "4.9041", "52.3676", "123", "08:00", "1");
+        String store2 = createStore("Rotterdam", "5678 CD", "Store 2", "test-uuid-0002",
+                "4.4777", "51.9244", "456", "09:00", "2");
+        JsonStoreRepository repository = createRepository(wrapInStoresArray(store1, store2));
+        repository.loadStores();
+
+        // When
+        var deleted = repository.delete("test-uuid-0001");
+        var unknown = repository.delete("test-uuid-0001");
+
+        // Then
+        assertThat(deleted).hasValueSatisfying(snapshot -> assertThat(snapshot.generation()).isEqualTo(2));
+        assertThat(unknown).isEmpty();
+        assertThat(repository.generation()).isEqualTo(2);
+        assertThat(repository.findAll()).extracting(Store::getUuid).containsExactly("test-uuid-0002");
+        assertThat(repository.snapshot().indexOf("test-uuid-0001")).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("Should replay logged changes after a restart")
+    void shouldReplayLoggedChangesAfterRestart() throws IOException {
+        // Given
+        String store1 = createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                "4.9041", "52.3676", "123", "08:00", "1");
+        String store2 = createStore("Rotterdam", "5678 CD", "Store 2", "test-uuid-0002",
+                "4.4777", "51.9244", "456", "09:00", "2");
+        Path storeFile = tempDir.resolve("stores.json");
+        Files.writeString(storeFile, wrapInStoresArray(store1, store2));
+        Store added = objectMapper.readValue(createStore("Utrecht", "3511 AB", "Store 3",
+                "test-uuid-0003", "5.1214", "52.0907", "789", "08:00", "3"), Store.class);
+
+        JsonStoreRepository repository = createRepository(changeLogProperties(storeFile));
+        repository.loadStores();
+        repository.upsert(added);
+        repository.delete("test-uuid-0001");
+        repository.close();
+
+        // When
+        JsonStoreRepository restarted = createRepository(changeLogProperties(storeFile));
+        restarted.loadStores();
+
+        // Then
+        assertThat(restarted.findAll()).extracting(Store::getUuid)
+                .containsExactly("test-uuid-0002", "test-uuid-0003");
+    }
+
+    @Test
+    @DisplayName("Should publish logged changes only once they are on disk")
+    void shouldPublishChangesOnceDurable() throws Exception {
+        // Given
+        Path storeFile = tempDir.resolve("stores.json");
+        Files.writeString(storeFile, wrapInStoresArray(createStore("Amsterdam", "1234 AB", "Store 1",
+                "test-uuid-0001", "4.9041", "52.3676", "123", "08:00", "1")));
+        Store added = objectMapper.readValue(createStore("Utrecht", "3511 AB", "Store 2",
+                "test-uuid-0002", "5.1214", "52.0907", "789", "08:00", "2"), Store.class);
+        StoreDataProperties properties = changeLogProperties(storeFile);
+        // Every fsync waits this long for more changes to join
+        properties.getChangeLog().setSyncInterval(Duration.ofMillis(500));
+        JsonStoreRepository repository = createRepository(properties);
+        repository.loadStores();
+
+        // When
+        CompletableFuture<StoreSnapshot> upsert = CompletableFuture.supplyAsync(() -> repository.upsert(added));
+        Thread.sleep(100);
+
+        // Then
+        assertThat(upsert).isNotDone();
+        assertThat(repository.snapshot().indexOf("test-uuid-0002")).isEqualTo(-1);
+        // A pending upsert can already be deleted
+        assertThat(repository.delete("test-uuid-0002")).isPresent();
+        upsert.get(5, TimeUnit.SECONDS);
+        assertThat(repository.findAll()).extracting(Store::getUuid).containsExactly("test-uuid-0001");
+    }
+
+    @Test
+    @DisplayName("Should load the compacted base and replay later changes after a restart")
+    void shouldLoadCompactedBaseAfterRestart() throws IOException {
+        // Given
+        String store1 = createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                "4.9041", "52.3676", "123", "08:00", "1");
+        Path storeFile = tempDir.resolve("stores.json");
+        Files.writeString(storeFile, wrapInStoresArray(store1));
+        Store compacted = objectMapper.readValue(createStore("Utrecht", "3511 AB", "Store 2",
+                "test-uuid-0002", "5.1214", "52.0907", "789", "08:00", "2"), Store.class);
+        Store logged = objectMapper.readValue(createStore("Utrecht", "3511 AB", "Store 3",
+                "test-uuid-0003", "5.1214", "52.0907", "790", "08:00", "3"), Store.class);
+
+        JsonStoreRepository repository = createRepository(changeLogProperties(storeFile));
+        repository.loadStores();
+        repository.upsert(compacted);
+        repository.compactChangeLog();
+        repository.upsert(logged);
+        repository.close();
+
+        // When
+        JsonStoreRepository restarted = createRepository(changeLogProperties(storeFile));
+        restarted.loadStores();
+
+        // Then
+        assertThat(restarted.findAll()).extracting(Store::getUuid)
+                .containsExactly("test-uuid-0001", "test-uuid-0002", "test-uuid-0003");
+        try (var files = Files.list(tempDir.resolve("changes"))) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    .containsOnlyOnce("base-000002.snapshot")
+                    .doesNotContain("changes-000002.log");
+        }
+    }
+
+    @Test
+    @DisplayName("Should discard compacted and later changes once the data file is replaced")
+    void shouldDiscardCompactedChangesOfReplacedDataFile() throws IOException {
+        // Given
+        Path storeFile = tempDir.resolve("stores.json");
+        Files.writeString(storeFile, wrapInStoresArray(createStore("Amsterdam", "1234 AB", "Store 1",
+                "test-uuid-0001", "4.9041", "52.3676", "123", "08:00", "1")));
+        Store compacted = objectMapper.readValue(createStore("Utrecht", "3511 AB", "Store 3",
+                "test-uuid-0003", "5.1214", "52.0907", "789", "08:00", "3"), Store.class);
+        Store logged = objectMapper.readValue(createStore("Utrecht", "3511 AB", "Store 4",
+                "test-uuid-0004", "5.1214", "52.0907", "790", "08:00", "4"), Store.class);
+
+        JsonStoreRepository repository = createRepository(changeLogProperties(storeFile));
+        repository.loadStores();
+        repository.upsert(compacted);
+        repository.compactChangeLog();
+        repository.upsert(logged);
+        repository.close();
+
+        // When
+        replaceDataFile(storeFile);
+        JsonStoreRepository restarted = createRepository(changeLogProperties(storeFile));
+        restarted.loadStores();
+
+        // Then
+        assertThat(restarted.findAll()).extracting(Store::getUuid)
+                .containsExactly("test-uuid-0001", "test-uuid-0002");
+        try (var files = Files.list(tempDir.resolve("changes"))) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    .noneMatch(file -> file.startsWith("base-"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should discard logged changes once the data file is replaced")
+    void shouldDiscardLoggedChangesOfReplacedDataFile() throws IOException {
+        // Given
+        Path storeFile = tempDir.resolve("stores.json");
+        Files.writeString(storeFile, wrapInStoresArray(createStore("Amsterdam", "1234 AB", "Store 1",
+                "test-uuid-0001", "4.9041", "52.3676", "123", "08:00", "1")));
+        Store logged = objectMapper.readValue(createStore("Utrecht", "3511 AB", "Store 3",
+                "test-uuid-0003", "5.1214", "52.0907", "789", "08:00", "3"), Store.class);
+
+        JsonStoreRepository repository = createRepository(changeLogProperties(storeFile));
+        repository.loadStores();
+        repository.upsert(logged);
+        repository.delete("test-uuid-0001");
+
+        // When
+        replaceDataFile(storeFile);
+        repository.reload().join();
+        Store added = objectMapper.readValue(createStore("Utrecht", "3511 AB", "Store 4",
+                "test-uuid-0004", "5.1214", "52.0907", "790", "08:00", "4"), Store.class);
+        repository.upsert(added);
+        repository.close();
+        JsonStoreRepository restarted = createRepository(changeLogProperties(storeFile));
+        restarted.loadStores();
+
+        // Then
+        assertThat(repository.findAll()).extracting(Store::getUuid)
+                .containsExactly("test-uuid-0001", "test-uuid-0002", "test-uuid-0004");
+        assertThat(restarted.findAll()).extracting(Store::getUuid)
+                .containsExactly("test-uuid-0001", "test-uuid-0002", "test-uuid-0004");
+    }
+
+    @Test
+    @DisplayName("Should share one instance per distinct repeated attribute value")
+    void shouldShareRepeatedAttributeValues() throws IOException {
+        // Given
+        String store1 = createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                "4.9041", "52.3676", "123", "08:00", "1");
+        String store2 = createStore("Amsterdam", "1234 AC", "Store 2", "test-uuid-0002",
+                "4.9042", "52.3677", "124", "08:00", "2");
+        JsonStoreRepository repository = createRepository(wrapInStoresArray(store1, store2));
+        repository.loadStores();
+        Store upserted = objectMapper.readValue(createStore("Amsterdam", "1234 AD", "Store 3",
+                "test-uuid-0003", "4.9043", "52.3678", "125", "08:00", "3"), Store.class);
+
+        // When
+        repository.upsert(upserted);
+
+        // Then
+        List<Store> stores = repository.findAll();
+        assertThat(stores).extracting(Store::getCity).containsOnly("Amsterdam");
+        assertThat(stores.get(1).getCity()).isSameAs(stores.get(0).getCity());
+        assertThat(stores.get(2).getCity()).isSameAs(stores.get(0).getCity());
+        assertThat(stores.get(1).getTodayOpen()).isSameAs(stores.get(0).getTodayOpen());
+        assertThat(stores.get(1).getLocationType()).isSameAs(stores.get(0).getLocationType());
+        assertThat(stores.get(1).getPostalCode()).isNotSameAs(stores.get(0).getPostalCode());
+    }
+
+    @Test
+    @DisplayName("Should not publish a generation when loading fails")
+    void shouldNotPublishGenerationWhenLoadFails() throws IOException {
+        // Given
+        JsonStoreRepository repository = createRepository("{\"data\": []}");
+
+        // When/Then
+        assertThatThrownBy(repository::loadStores).isInstanceOf(StoreDataException.class);
+        assertThat(repository.generation()).isZero();
+        assertThat(publishedEvents).isEmpty();
+    }
+
     // Helper methods
 
     private String createStore(String city, String postalCode, String addressName, String uuid,
@@ -290,6 +1026,20 @@ class JsonStoreRepositoryTest {
                 complexNumber, todayOpen, sapStoreId);
     }
 
+    private static void writeGzip(Path file, String content) throws IOException {
+        try (OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(file))) {
+            outputStream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void replaceDataFile(Path storeFile) throws IOException {
+        Files.writeString(storeFile, wrapInStoresArray(
+                createStore("Amsterdam", "1234 AB", "Store 1", "test-uuid-0001",
+                        "4.9041", "52.3676", "123", "08:00", "1"),
+                createStore("Rotterdam", "5678 CD", "Store 2", "test-uuid-0002",
+                        "4.4777", "51.9244", "456", "09:00", "2")));
+    }
+
     private String wrapInStoresArray(String... stores) {
         if (stores.length == 0) {
             return "{\"stores\": []}";
@@ -299,9 +1049,37 @@ class JsonStoreRepositoryTest {
     }
 
     private JsonStoreRepository createRepository(String jsonContent) throws IOException {
+        return createRepository(jsonContent, 1);
+    }
+
+    private JsonStoreRepository createRepository(String jsonContent, int validationParallelism) throws IOException {
         Path storeFile = tempDir.resolve("stores1.json");
         Files.writeString(storeFile, jsonContent);
-        return new JsonStoreRepository(objectMapper, validator, new FileSystemResource(storeFile.toFile()));
+        return createRepository(new FileSystemResource(storeFile.toFile()), validationParallelism);
+    }
+
+    private JsonStoreRepository createRepository(Resource storeDataFile, int validationParallelism) {
+        StoreDataProperties properties = new StoreDataProperties();
+        properties.setFile(storeDataFile);
+        properties.setValidationParallelism(validationParallelism);
+        return createRepository(properties);
+    }
+
+    private StoreDataProperties changeLogProperties(Path storeFile) {
+        StoreDataProperties properties = new StoreDataProperties();
+        properties.setFile(new FileSystemResource(storeFile));
+        properties.setValidationParallelism(1);
+        properties.getChangeLog().setEnabled(true);
+        properties.getChangeLog().setDirectory(tempDir.resolve("changes"));
+        properties.getChangeLog().setSyncInterval(Duration.ZERO);
+        return properties;
+    }
+
+    private JsonStoreRepository createRepository(StoreDataProperties properties) {
+        JsonStoreRepository repository =
+                new JsonStoreRepository(objectMapper, validator, publishedEvents::add, properties);
+        createdRepositories.add(repository);
+        return repository;
     }
 }
 
@@ -0,0 +1,121 @@
+package kilic.yunus.stores.repository.impl;
+
+import kilic.yunus.stores.model.domain.Store;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Durable write throughput and replay speed of the {@link StoreChangeLog}. Run with
+ * {@code ./mvnw test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class StoreChangeLogBenchmarkTest {
+
+    private static final int CHANGES = Integer.getInteger("benchmark.changes", 20_000);
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest(name = "{0} writer(s), sync interval {1} ms")
+    @CsvSource(textBlock = """
+            1,  0
+            8,  0
+            8,  5
+            64, 5
+            """)
+    @DisplayName("Durable change throughput")
+    void measureDurableWriteThroughput(int writers, int syncIntervalMillis) throws Exception {
+        // Given
+        AtomicInteger sequence = new AtomicInteger();
+        long startedAt;
+        long elapsed;
+
+        // When
+        try (StoreChangeLog changeLog = StoreChangeLog.open(tempDir, Duration.ofMillis(syncIntervalMillis));
+             ExecutorService executor = Executors.newFixedThreadPool(writers)) {
+            startedAt = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int writer = 0; writer < writers; writer++) {
+                futures.add(executor.submit(() -> {
+                    int change;
+                    while ((change = sequence.getAndIncrement()) < CHANGES) {
+                        changeLog.awaitDurable(changeLog.append(new StoreChangeLog.Upsert(store(change))));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            elapsed = System.nanoTime() - startedAt;
+        }
+
+        // Then
+        System.out.printf("Change log: %d writer(s), sync interval %d ms: %,d durable changes/s%n",
+                writers, syncIntervalMillis, CHANGES * 1_000_000_000L / elapsed);
+        try (StoreChangeLog reopened = StoreChangeLog.open(tempDir, Duration.ZERO)) {
+            assertThat(reopened.activeEntries()).isEqualTo(CHANGES);
+        }
+    }
+
+    @ParameterizedTest(name = "{0} changes")
+    @CsvSource({"100000"})
+    @DisplayName("Replay speed")
+    void measureReplay(int changes) throws IOException {
+        // Given
+        try (StoreChangeLog changeLog = StoreChangeLog.open(tempDir, Duration.ofMillis(5))) {
+            long position = 0;
+            for (int change = 0; change < changes; change++) {
+                position = changeLog.append(new StoreChangeLog.Upsert(store(change)));
+            }
+            changeLog.awaitDurable(position);
+        }
+
+        // When
+        long startedAt = System.nanoTime();
+        int replayed;
+        try (StoreChangeLog reopened = StoreChangeLog.open(tempDir, Duration.ZERO)) {
+            replayed = reopened.replay(0, change -> {
+            });
+        }
+        long elapsed = System.nanoTime() - startedAt;
+
+        // Then
+        System.out.printf("Change log: opened and replayed %,d changes in %d ms%n", replayed, elapsed / 1_000_000);
+        assertThat(replayed).isEqualTo(changes);
+    }
+
+    private static Store store(int id) {
+        return Store.builder()
+                .uuid(String.format("benchmark-store-%08d", id))
+                .city("Amsterdam")
+                .postalCode("1234 AB")
+                .street("Main Street")
+                .addressName("Store " + id)
+                .latitude(52.3676)
+                .longitude(4.9041)
+                .complexNumber(Integer.toString(id))
+                .showWarningMessage(true)
+                .todayOpen("08:00")
+                .todayClose("21:00")
+                .locationType("Supermarkt")
+                .collectionPoint(false)
+                .sapStoreID(Integer.toString(id))
+                .build();
+    }
+}
@@ -0,0 +1,174 @@
+package kilic.yunus.stores.repository.impl;
+
+import kilic.yunus.stores.model.domain.Store;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StoreChangeLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should replay durable changes in order after reopening")
+    void shouldReplayChangesAfterReopen() throws IOException {
+        // Given
+        Store store = store("test-uuid-0001", "Amsterdam");
+        try (StoreChangeLog changeLog = StoreChangeLog.open(tempDir, Duration.ofMillis(1))) {
+            changeLog.append(new StoreChangeLog.Upsert(store));
+            long position = changeLog.append(new StoreChangeLog.Delete("test-uuid-0002"));
+
+            // When
+            changeLog.awaitDurable(position);
+        }
+
+        // Then
+        try (StoreChangeLog reopened = StoreChangeLog.open(tempDir, Duration.ZERO)) {
+            assertThat(replayAll(reopened)).containsExactly(
+                    new StoreChangeLog.Upsert(store), new StoreChangeLog.Delete("test-uuid-0002"));
+            assertThat(reopened.activeEntries()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    @DisplayName("Should cut off a torn record at the end of the log")
+    void shouldTruncateTornRecord() throws IOException {
+        // Given
+        try (StoreChangeLog changeLog = StoreChangeLog.open(tempDir, Duration.ZERO)) {
+            changeLog.awaitDurable(changeLog.append(new StoreChangeLog.Delete("test-uuid-0001")));
+        }
+        Path segment = segments().getFirst();
+        // Frame header of a record whose payload never made it to disk
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3, 4, 1}, StandardOpenOption.APPEND);
+
+        // When
+        try (StoreChangeLog reopened = StoreChangeLog.open(tempDir, Duration.ZERO)) {
+            reopened.awaitDurable(reopened.append(new StoreChangeLog.Delete("test-uuid-0002")));
+        }
+
+        // Then
+        try (StoreChangeLog reopened = StoreChangeLog.open(tempDir, Duration.ZERO)) {
+            assertThat(replayAll(reopened)).containsExactly(
+                    new StoreChangeLog.Delete("test-uuid-0001"), new StoreChangeLog.Delete("test-uuid-0002"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail on a corrupt record in the middle of a segment instead of dropping the rest")
+    void shouldFailOnCorruptRecordInMiddleOfSegment() throws IOException {
+        // Given - three records in a sealed segment, one more in the active segment
+        try (StoreChangeLog changeLog = StoreChangeLog.open(tempDir, Duration.ZERO)) {
+            for (String uuid : List.of("test-uuid-0001", "test-uuid-0002", "test-uuid-0003")) {
+                changeLog.append(new StoreChangeLog.Delete(uuid));
+            }
+            changeLog.rotate();
+            changeLog.awaitDurable(changeLog.append(new StoreChangeLog.Delete("test-uuid-0004")));
+        }
+        Path sealed = segments().getFirst();
+        long size = Files.size(sealed);
+        // Second record: 8 byte segment header, 8 byte frame header and 17 byte payload before it
+        byte[] bytes = Files.readAllBytes(sealed);
+        bytes[33 + 8 + 5] ^= 0x40;
+        Files.write(sealed, bytes);
+
+        // When & Then - replaying the sealed segment fails
+        try (StoreChangeLog reopened = StoreChangeLog.open(tempDir, Duration.ZERO)) {
+            assertThatThrownBy(() -> replayAll(reopened))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining(sealed.toString())
+                    .hasMessageContaining("at offset 33");
+        }
+
+        // As the active segment, it is not cut off at the corrupt record either
+        Files.delete(segments().getLast());
+        assertThatThrownBy(() -> StoreChangeLog.open(tempDir, Duration.ZERO))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("at offset 33");
+        assertThat(Files.size(sealed)).isEqualTo(size);
+    }
+
+    @Test
+    @DisplayName("Should only replay changes after the compacted base")
+    void shouldReplayChangesAfterBase() throws IOException {
+        try (StoreChangeLog changeLog = StoreChangeLog.open(tempDir, Duration.ZERO)) {
+            // Given
+            Store compacted = store("test-uuid-0001", "Amsterdam");
+            changeLog.append(new StoreChangeLog.Upsert(compacted));
+            long sealed = changeLog.rotate();
+            changeLog.awaitDurable(changeLog.append(new StoreChangeLog.Delete("test-uuid-0002")));
+
+            // When
+            changeLog.writeBase(List.of(compacted), sealed);
+
+            // Then
+            StoreChangeLog.Base base = changeLog.latestBase();
+            assertThat(base).isNotNull();
+            assertThat(BinaryStoreSnapshot.read(base.snapshot())).containsExactly(compacted);
+
+            List<StoreChangeLog.Change> replayed = new ArrayList<>();
+            changeLog.replay(base.segment(), replayed::add);
+            assertThat(replayed).containsExactly(new StoreChangeLog.Delete("test-uuid-0002"));
+            assertThat(segments()).hasSize(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Should discard every change and base when the source is reset")
+    void shouldDiscardChangesOnReset() throws IOException {
+        // Given
+        try (StoreChangeLog changeLog = StoreChangeLog.open(tempDir, Duration.ZERO)) {
+            changeLog.reset("stores.json|1");
+            Store compacted = store("test-uuid-0001", "Amsterdam");
+            changeLog.append(new StoreChangeLog.Upsert(compacted));
+            changeLog.writeBase(List.of(compacted), changeLog.rotate());
+            changeLog.awaitDurable(changeLog.append(new StoreChangeLog.Delete("test-uuid-0002")));
+
+            // When
+            changeLog.reset("stores.json|2");
+            changeLog.awaitDurable(changeLog.append(new StoreChangeLog.Delete("test-uuid-0003")));
+        }
+
+        // Then
+        try (StoreChangeLog reopened = StoreChangeLog.open(tempDir, Duration.ZERO)) {
+            assertThat(reopened.source()).isEqualTo("stores.json|2");
+            assertThat(reopened.latestBase()).isNull();
+            assertThat(replayAll(reopened)).containsExactly(new StoreChangeLog.Delete("test-uuid-0003"));
+        }
+    }
+
+    private List<StoreChangeLog.Change> replayAll(StoreChangeLog changeLog) throws IOException {
+        List<StoreChangeLog.Change> replayed = new ArrayList<>();
+        changeLog.replay(0, replayed::add);
+        return replayed;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+
+    private static Store store(String uuid, String city) {
+        return Store.builder()
+                .uuid(uuid)
+                .city(city)
+                .postalCode("1234 AB")
+                .latitude(52.3676)
+                .longitude(4.9041)
+                .showWarningMessage(true)
+                .build();
+    }
+}
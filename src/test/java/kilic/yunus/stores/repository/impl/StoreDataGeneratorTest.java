@@ -0,0 +1,47 @@
+package kilic.yunus.stores.repository.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import kilic.yunus.stores.model.domain.Store;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+class StoreDataGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should write valid, unique stores that read back the same from a file and from shards")
+    void shouldWriteValidStores() throws IOException {
+        // Given
+        StoreDataGenerator generator = StoreDataGenerator.withBundledTemplates(7);
+        StoreDataFiles storeDataFiles = new StoreDataFiles(new StoreJsonReader(new ObjectMapper()), 2);
+
+        // When
+        generator.write(2_000, tempDir.resolve("stores.json.gz"));
+        generator.writeShards(2_000, 3, tempDir.resolve("shards"));
+        List<Store> stores = storeDataFiles.read(new FileSystemResource(tempDir.resolve("stores.json.gz")));
+        List<Store> sharded = storeDataFiles.read(new FileSystemResource(tempDir.resolve("shards")));
+
+        // Then
+        assertThat(stores).hasSize(2_000).isEqualTo(sharded);
+        assertThat(stores).extracting(Store::getUuid).doesNotHaveDuplicates();
+        assertThat(stores).allMatch(Store::hasValidLocation).allMatch(Store::isValid);
+        try (ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory()) {
+            assertThatCode(() -> new StoreDataValidator(validatorFactory.getValidator(), 1).validate(stores))
+                    .doesNotThrowAnyException();
+        }
+        assertThat(StoreDataGenerator.withBundledTemplates(7).store(1_999)).isEqualTo(stores.get(1_999));
+    }
+}
@@ -0,0 +1,186 @@
+package kilic.yunus.stores.repository.impl;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import kilic.yunus.stores.config.SearchLimitProperties;
+import kilic.yunus.stores.config.StoreDataProperties;
+import kilic.yunus.stores.model.domain.Location;
+import kilic.yunus.stores.model.domain.Store;
+import kilic.yunus.stores.repository.StoreDatasets;
+import kilic.yunus.stores.repository.StoreStorage;
+import kilic.yunus.stores.service.StoreService;
+import kilic.yunus.stores.service.impl.AdaptiveConcurrencyLimiter;
+import kilic.yunus.stores.service.impl.HaversineDistanceCalculator;
+import kilic.yunus.stores.service.impl.StoreServiceImpl;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load time, memory use and nearest-store query latency for synthetic data sets of increasing size
+ * (see {@link StoreDataGenerator}), for every storage and search strategy. The {@code grid-index}
+ * strategy queries once the spatial index is built, its load time includes the index build. Run with
+ * {@code ./mvnw test -Pbenchmark -Dtest=StoreScaleBenchmarkTest}, sizes can be set with
+ * {@code -Dbenchmark.scale.sizes=10000,100000}.
+ *
+ * <p>Every run appends one CSV row per case to {@code target/benchmark-results/store-scale.csv}
+ * (or {@code -Dbenchmark.results=<file>}), so results of successive runs can be compared.
+ */
+@Tag("benchmark")
+class StoreScaleBenchmarkTest {
+
+    private static final String SIZES = System.getProperty("benchmark.scale.sizes", "10000,100000,1000000");
+    private static final Path RESULTS = Path.of(
+            System.getProperty("benchmark.results", "target/benchmark-results/store-scale.csv"));
+    private static final String CSV_HEADER =
+            "timestamp,commit,stores,storage,strategy,load_ms,heap_mb,direct_mb,query_p50_us,query_p99_us";
+    private static final int WARMUP_QUERIES = 200;
+    private static final int QUERIES = 500;
+    private static final int LIMIT = 5;
+    private static final String GRID_INDEX = "grid-index";
+    private static final String[] STRATEGIES = {"linear-scan", GRID_INDEX};
+
+    @TempDir
+    static Path dataDirectory;
+
+    @BeforeAll
+    static void quietLogging() {
+        // Per-query log lines would be part of the measured latency
+        ((Logger) LoggerFactory.getLogger("kilic.yunus.stores")).setLevel(Level.WARN);
+    }
+
+    static Stream<Arguments> cases() {
+        return Arrays.stream(SIZES.split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .boxed()
+                .flatMap(size -> Stream.of(StoreStorage.values())
+                        .flatMap(storage -> Stream.of(STRATEGIES).map(strategy -> Arguments.of(size, storage, strategy))));
+    }
+
+    @ParameterizedTest(name = "{0} stores, {1}, {2}")
+    @MethodSource("cases")
+    @DisplayName("Scaling of load time, memory and query latency")
+    void measureScaling(int size, StoreStorage storage, String strategy) throws IOException, InterruptedException {
+        // Given
+        StoreDataGenerator generator = StoreDataGenerator.withBundledTemplates(42);
+        Path dataFile = dataDirectory.resolve("stores-" + size + ".json");
+        if (!Files.exists(dataFile)) {
+            generator.write(size, dataFile);
+        }
+        StoreDataProperties properties = new StoreDataProperties();
+        properties.setFile(new FileSystemResource(dataFile));
+        properties.setStorage(storage);
+        properties.getSpatialIndex().setEnabled(strategy.equals(GRID_INDEX));
+
+        try (ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory()) {
+            JsonStoreRepository repository = new JsonStoreRepository(
+                    new ObjectMapper(), validatorFactory.getValidator(), event -> {
+                    }, properties);
+            long heapBefore = usedHeap();
+            long directBefore = usedDirectMemory();
+
+            // When
+            long startedAt = System.nanoTime();
+            repository.loadStores();
+            long indexStartedAt = System.nanoTime();
+            while (strategy.equals(GRID_INDEX) && repository.snapshot().gridIndex() == null) {
+                Thread.sleep(1);
+            }
+            if (strategy.equals(GRID_INDEX)) {
+                System.out.printf("Scale: %,d stores, %s: spatial index built in %d ms%n",
+                        size, storage, (System.nanoTime() - indexStartedAt) / 1_000_000);
+            }
+            long loadMillis = (System.nanoTime() - startedAt) / 1_000_000;
+            // Memory released from the previous case can make the difference slightly negative
+            long heapBytes = Math.max(0, usedHeap() - heapBefore);
+            long directBytes = Math.max(0, usedDirectMemory() - directBefore);
+
+            StoreService service = service(repository);
+            // Query points follow the same clustered distribution as the stores
+            List<Location> queries = Stream.iterate(size, index -> index + 1)
+                    .limit(WARMUP_QUERIES + QUERIES)
+                    .map(generator::store)
+                    .map(Store::getLocation)
+                    .toList();
+            long[] latencies = new long[QUERIES];
+            for (int i = 0; i < queries.size(); i++) {
+                long queryStartedAt = System.nanoTime();
+                assertThat(service.findNearestStores(StoreDatasets.DEFAULT, queries.get(i), LIMIT)).hasSize(LIMIT);
+                if (i >= WARMUP_QUERIES) {
+                    latencies[i - WARMUP_QUERIES] = (System.nanoTime() - queryStartedAt) / 1_000;
+                }
+            }
+            Arrays.sort(latencies);
+
+            // Then
+            assertThat(repository.count()).isEqualTo(size);
+            record(size, storage, strategy, loadMillis, heapBytes, directBytes,
+                    latencies[QUERIES / 2], latencies[QUERIES * 99 / 100]);
+            repository.close();
+        }
+    }
+
+    private static StoreService service(JsonStoreRepository repository) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new StoreServiceImpl(StoreDatasets.of(repository), new HaversineDistanceCalculator(),
+                new AdaptiveConcurrencyLimiter(new SearchLimitProperties(), meterRegistry), meterRegistry,
+                Counter.builder("searches").register(meterRegistry),
+                Counter.builder("errors").register(meterRegistry),
+                Timer.builder("duration").register(meterRegistry));
+    }
+
+    private static void record(int size, StoreStorage storage, String strategy, long loadMillis, long heapBytes,
+                               long directBytes, long p50Micros, long p99Micros) throws IOException {
+        System.out.printf("Scale: %,d stores, %s, %s: load %d ms, heap %d MB, direct %d MB, query p50 %d us, p99 %d us%n",
+                size, storage, strategy, loadMillis, heapBytes >> 20, directBytes >> 20, p50Micros, p99Micros);
+
+        Files.createDirectories(RESULTS.toAbsolutePath().getParent());
+        if (!Files.exists(RESULTS)) {
+            Files.writeString(RESULTS, CSV_HEADER + System.lineSeparator());
+        }
+        String row = String.join(",", Instant.now().toString(), System.getenv().getOrDefault("GITHUB_SHA", ""),
+                Integer.toString(size), storage.name(), strategy, Long.toString(loadMillis),
+                Long.toString(heapBytes >> 20), Long.toString(directBytes >> 20),
+                Long.toString(p50Micros), Long.toString(p99Micros));
+        Files.writeString(RESULTS, row + System.lineSeparator(), StandardOpenOption.APPEND);
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long usedDirectMemory() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+}
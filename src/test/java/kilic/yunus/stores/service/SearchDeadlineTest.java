@@ -0,0 +1,33 @@
+package kilic.yunus.stores.service;
+
+import kilic.yunus.stores.exception.SearchTimeoutException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchDeadlineTest {
+
+    @Test
+    @DisplayName("Should ask for cancellation once per check and report why the search stopped")
+    void shouldAskForCancellationOncePerCheck() {
+        // Given - a call that is cancelled between two questions
+        AtomicInteger asked = new AtomicInteger();
+        SearchDeadline deadline = SearchDeadline.after(Duration.ofMinutes(1))
+                .withCancellation(() -> asked.incrementAndGet() == 1);
+
+        // When & Then
+        assertThatThrownBy(deadline::check)
+                .isInstanceOf(SearchTimeoutException.class)
+                .hasMessage("Search was cancelled");
+        assertThat(asked).hasValue(1);
+        assertThatNoException().isThrownBy(deadline::check);
+        assertThatThrownBy(SearchDeadline.after(Duration.ZERO).withCancellation(() -> true)::check)
+                .hasMessage("Search did not complete within 0 ms");
+    }
+}
@@ -0,0 +1,138 @@
+package kilic.yunus.stores.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kilic.yunus.stores.config.SearchLimitProperties;
+import kilic.yunus.stores.exception.SearchOverloadedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private SearchLimitProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new SearchLimitProperties();
+        properties.setInitialLimit(20);
+        properties.setMinLimit(4);
+        properties.setMaxLimit(100);
+        properties.setWindow(Duration.ofMillis(10));
+        properties.setMinWindowSamples(1);
+    }
+
+    @Test
+    @DisplayName("Should reject searches beyond the limit until one completes")
+    void shouldRejectBeyondLimit() {
+        // Given
+        properties.setInitialLimit(2);
+        properties.setMinLimit(1);
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        long first = limiter.acquire();
+        limiter.acquire();
+
+        // When / Then
+        assertThatThrownBy(limiter::acquire)
+                .isInstanceOfSatisfying(SearchOverloadedException.class,
+                        e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(1)));
+        limiter.onSuccess(first);
+        limiter.acquire();
+        assertThat(meterRegistry.get("store.search.concurrency.rejected").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("store.search.concurrency.active").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should raise the limit while latency stays flat at full use")
+    void shouldRaiseLimitWhileLatencyFlat() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter();
+
+        // When
+        for (int window = 0; window < 20; window++) {
+            runWindow(limiter, limiter.getLimit(), 10);
+        }
+
+        // Then
+        assertThat(limiter.getLimit()).isGreaterThan(30);
+        assertThat(meterRegistry.get("store.search.concurrency.limit").gauge().value())
+                .isEqualTo(limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Should lower the limit when latency rises")
+    void shouldLowerLimitWhenLatencyRises() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        for (int window = 0; window < 5; window++) {
+            runWindow(limiter, limiter.getLimit(), 10);
+        }
+        int limitBefore = limiter.getLimit();
+
+        // When - searches queue and take five times as long
+        for (int window = 0; window < 10; window++) {
+            runWindow(limiter, limiter.getLimit(), 50);
+        }
+
+        // Then
+        assertThat(limiter.getLimit()).isLessThan(limitBefore);
+    }
+
+    @Test
+    @DisplayName("Should not raise the limit while far from reaching it")
+    void shouldKeepLimitWhenUnused() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter();
+
+        // When
+        for (int window = 0; window < 20; window++) {
+            runWindow(limiter, 3, 10);
+        }
+
+        // Then
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    @DisplayName("Should admit every search when disabled")
+    void shouldAdmitEverySearchWhenDisabled() {
+        // Given
+        properties.setEnabled(false);
+        properties.setInitialLimit(1);
+        AdaptiveConcurrencyLimiter limiter = limiter();
+
+        // When / Then
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire();
+        }
+        assertThat(meterRegistry.get("store.search.concurrency.rejected").counter().count()).isZero();
+    }
+
+    private AdaptiveConcurrencyLimiter limiter() {
+        return new AdaptiveConcurrencyLimiter(properties, meterRegistry, nanoTime::get);
+    }
+
+    /**
+     * Runs {@code concurrency} searches side by side that each take {@code latencyMillis}. Their
+     * window ends with the first search of the next call, as the window (10 ms) has passed by then.
+     */
+    private void runWindow(AdaptiveConcurrencyLimiter limiter, int concurrency, long latencyMillis) {
+        long[] startedAt = new long[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            startedAt[i] = limiter.acquire();
+        }
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        for (long start : startedAt) {
+            limiter.onSuccess(start);
+        }
+    }
+}
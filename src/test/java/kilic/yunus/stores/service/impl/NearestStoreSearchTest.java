@@ -0,0 +1,220 @@
+package kilic.yunus.stores.service.impl;
+
+import kilic.yunus.stores.exception.SearchTimeoutException;
+import kilic.yunus.stores.model.domain.Store;
+import kilic.yunus.stores.model.dto.StoreWithDistance;
+import kilic.yunus.stores.repository.CompactStore;
+import kilic.yunus.stores.repository.StoreGridIndex;
+import kilic.yunus.stores.repository.StoreSnapshot;
+import kilic.yunus.stores.service.SearchDeadline;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Compares the indexed search with the ranking of all stores, which the linear scan is defined by.
+ */
+class NearestStoreSearchTest {
+
+    private final HaversineDistanceCalculator distanceCalculator = new HaversineDistanceCalculator();
+    private final NearestStoreSearch search = new NearestStoreSearch(distanceCalculator);
+
+    @ParameterizedTest(name = "latitude {0}..{1}, longitude {2}..{3}")
+    @CsvSource({
+            "50.7, 53.5, 3.3, 7.2",      // The Netherlands
+            "-60, 75, -179.9, 179.9",    // Whole world, neighbours across the antimeridian
+            "80, 89.9, -180, 180",       // Around the north pole
+            "52.0, 52.0, 4.0, 6.0",      // All stores on one parallel
+    })
+    @DisplayName("Should find the same stores with and without the spatial index")
+    void shouldMatchLinearScan(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+        // Given
+        Random random = new Random(42);
+        List<Store> stores = IntStream.range(0, 3000)
+                .mapToObj(id -> store(id, random, minLatitude, maxLatitude, minLongitude, maxLongitude))
+                .toList();
+        StoreSnapshot snapshot = new StoreSnapshot(1, stores);
+
+        // When
+        snapshot.buildGridIndex(progress -> {
+        });
+
+        // Then
+        assertThat(snapshot.gridIndex()).isNotNull();
+        for (int query = 0; query < 300; query++) {
+            double latitude = minLatitude - 5 + random.nextDouble() * (maxLatitude - minLatitude + 10);
+            double longitude = minLongitude - 5 + random.nextDouble() * (maxLongitude - minLongitude + 10);
+            assertMatchesRanking(snapshot, Math.clamp(latitude, -90, 90), Math.clamp(longitude, -180, 180),
+                    1 + random.nextInt(20));
+        }
+    }
+
+    @Test
+    @DisplayName("Should find changed stores of snapshots derived from the indexed one")
+    void shouldFindChangedStores() {
+        // Given
+        Random random = new Random(7);
+        List<Store> stores = IntStream.range(0, 2000)
+                .mapToObj(id -> store(id, random, 50.7, 53.5, 3.3, 7.2))
+                .toList();
+        StoreSnapshot snapshot = new StoreSnapshot(1, stores);
+        snapshot.buildGridIndex(progress -> {
+        });
+
+        // When - moved, added and removed stores, few enough to keep the index
+        for (int change = 0; change < 40; change++) {
+            if (change % 4 == 3) {
+                snapshot = snapshot.withoutStore(snapshot.generation() + 1,
+                        snapshot.get(random.nextInt(snapshot.size())).getUuid());
+            } else {
+                snapshot = snapshot.withStore(snapshot.generation() + 1,
+                        store(random.nextInt(2100), random, 50.7, 53.5, 3.3, 7.2));
+            }
+        }
+
+        // Then
+        assertThat(snapshot.gridIndex()).isNotNull();
+        assertThat(snapshot.gridIndex().changedCount()).isPositive();
+        for (int query = 0; query < 200; query++) {
+            assertMatchesRanking(snapshot, 50 + random.nextDouble() * 4, 3 + random.nextDouble() * 5,
+                    1 + random.nextInt(10));
+        }
+    }
+
+    @Test
+    @DisplayName("Should stop scans and indexed searches once the deadline passed")
+    void shouldStopAtDeadline() {
+        // Given
+        Random random = new Random(11);
+        List<Store> stores = IntStream.range(0, 10_000)
+                .mapToObj(id -> store(id, random, 50.7, 53.5, 3.3, 7.2))
+                .toList();
+        StoreSnapshot snapshot = new StoreSnapshot(1, stores);
+        SearchDeadline expired = SearchDeadline.after(Duration.ZERO);
+        SearchDeadline cancelled = SearchDeadline.NONE.withCancellation(() -> true);
+
+        // When & Then - the scan before the index is built
+        assertThatThrownBy(() -> search.findNearest(snapshot, 52.0, 5.0, 5, expired))
+                .isInstanceOf(SearchTimeoutException.class)
+                .hasMessage("Search did not complete within 0 ms");
+        assertThatThrownBy(() -> search.findNearest(snapshot, 52.0, 5.0, 5, cancelled))
+                .isInstanceOf(SearchTimeoutException.class)
+                .hasMessage("Search was cancelled");
+
+        // When & Then - an indexed search that has to visit every ring
+        snapshot.buildGridIndex(progress -> {
+        });
+        assertThat(snapshot.gridIndex()).isNotNull();
+        assertThatThrownBy(() -> search.findNearest(snapshot, 52.0, 5.0, stores.size(), expired))
+                .isInstanceOf(SearchTimeoutException.class);
+        assertThat(search.findNearest(snapshot, 52.0, 5.0, 5, SearchDeadline.after(Duration.ofMinutes(1))))
+                .containsExactlyElementsOf(search.findNearest(snapshot, 52.0, 5.0, 5));
+    }
+
+    @Test
+    @DisplayName("Should not log anywhere in the search loop")
+    void shouldNotLogInSearchLoop() throws Exception {
+        // Given - the classes a search runs through for every store it ranks
+        List<Class<?>> searchLoop = List.of(NearestStoreSearch.class, HaversineDistanceCalculator.class,
+                StoreSnapshot.class, StoreGridIndex.class, CompactStore.class,
+                Class.forName("kilic.yunus.stores.repository.HeapStoreChunk"),
+                Class.forName("kilic.yunus.stores.repository.OffHeapStoreChunk"));
+
+        // When
+        List<String> loggingCalls = new ArrayList<>();
+        for (Class<?> type : searchLoop) {
+            for (Class<?> nestMember : type.getNestMembers()) {
+                loggingCalls.addAll(loggingCalls(nestMember));
+            }
+        }
+
+        // Then
+        assertThat(loggingCalls).isEmpty();
+    }
+
+    private static List<String> loggingCalls(Class<?> type) throws IOException {
+        List<String> calls = new ArrayList<>();
+        String classFileName = type.getName().substring(type.getName().lastIndexOf('.') + 1) + ".class";
+        try (InputStream classFile = type.getResourceAsStream(classFileName)) {
+            assertThat(classFile).as("class file of %s", type.getName()).isNotNull();
+            new ClassReader(classFile).accept(new ClassVisitor(Opcodes.ASM9) {
+                @Override
+                public MethodVisitor visitMethod(int access, String method, String descriptor, String signature,
+                                                 String[] exceptions) {
+                    return new MethodVisitor(Opcodes.ASM9) {
+                        @Override
+                        public void visitMethodInsn(int opcode, String owner, String name, String calledDescriptor,
+                                                    boolean isInterface) {
+                            if (owner.startsWith("org/slf4j/") || owner.startsWith("java/lang/System$Logger")) {
+                                calls.add(type.getName() + "." + method + " calls " + owner + "." + name);
+                            }
+                        }
+
+                        @Override
+                        public void visitFieldInsn(int opcode, String owner, String name, String fieldDescriptor) {
+                            if (owner.equals("java/lang/System") && (name.equals("out") || name.equals("err"))) {
+                                calls.add(type.getName() + "." + method + " writes to System." + name);
+                            }
+                        }
+                    };
+                }
+            }, ClassReader.SKIP_DEBUG);
+        }
+        return calls;
+    }
+
+    private void assertMatchesRanking(StoreSnapshot snapshot, double latitude, double longitude, int limit) {
+        List<double[]> ranking = new ArrayList<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (snapshot.hasValidLocation(i)) {
+                double distance = distanceCalculator.calculateDistance(
+                        latitude, longitude, snapshot.latitude(i), snapshot.longitude(i));
+                ranking.add(new double[]{Math.round(distance * 100.0) / 100.0, i});
+            }
+        }
+        // Stable sort, equal distances keep snapshot order
+        ranking.sort(Comparator.comparingDouble(entry -> entry[0]));
+        List<StoreWithDistance> expected = ranking.stream()
+                .limit(limit)
+                .map(entry -> StoreWithDistance.builder()
+                        .store(snapshot.get((int) entry[1]))
+                        .distance(entry[0])
+                        .build())
+                .toList();
+
+        assertThat(search.findNearest(snapshot, latitude, longitude, limit))
+                .as("%d nearest to (%s, %s)", limit, latitude, longitude)
+                .containsExactlyElementsOf(expected);
+    }
+
+    private static Store store(int id, Random random, double minLatitude, double maxLatitude,
+                               double minLongitude, double maxLongitude) {
+        // Some stores without a location, and some duplicated coordinates
+        boolean located = random.nextInt(50) != 0;
+        double latitude = minLatitude + random.nextInt(100_000) / 100_000.0 * (maxLatitude - minLatitude);
+        double longitude = minLongitude + random.nextInt(100_000) / 100_000.0 * (maxLongitude - minLongitude);
+        return Store.builder()
+                .uuid(String.format("store-uuid-%05d", id))
+                .city("City " + id)
+                .latitude(located ? latitude : null)
+                .longitude(located ? longitude : null)
+                .build();
+    }
+}
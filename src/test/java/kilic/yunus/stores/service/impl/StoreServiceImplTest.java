@@ -4,24 +4,30 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kilic.yunus.stores.config.SearchLimitProperties;
 import kilic.yunus.stores.exception.InvalidCoordinatesException;
+import kilic.yunus.stores.exception.SearchTimeoutException;
 import kilic.yunus.stores.model.domain.Location;
 import kilic.yunus.stores.model.domain.Store;
 import kilic.yunus.stores.model.dto.StoreWithDistance;
+import kilic.yunus.stores.repository.StoreDatasets;
 import kilic.yunus.stores.repository.StoreRepository;
+import kilic.yunus.stores.repository.StoreSnapshot;
 import kilic.yunus.stores.service.DistanceCalculator;
+import kilic.yunus.stores.service.SearchDeadline;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.Mockito.when;
 
 /**
@@ -64,8 +70,9 @@ class StoreServiceImplTest {
                 .register(meterRegistry);
 
         storeService = new StoreServiceImpl(
-                storeRepository,
+                StoreDatasets.of(storeRepository),
                 distanceCalculator,
+                new AdaptiveConcurrencyLimiter(new SearchLimitProperties(), meterRegistry),
                 meterRegistry,
                 storeSearchCounter,
                 storeSearchErrorCounter,
@@ -81,16 +88,16 @@ class StoreServiceImplTest {
         Store store2 = createStore("2", "Store 2", 52.3650, 4.9100);
         Store store3 = createStore("3", "Store 3", 52.4000, 4.9500);
 
-        when(storeRepository.findAll()).thenReturn(Arrays.asList(store1, store2, store3));
-        when(distanceCalculator.calculateDistance(queryLocation, store1.getLocation()))
+        when(storeRepository.snapshot()).thenReturn(snapshotOf(store1, store2, store3));
+        when(distanceCalculator.calculateDistance(52.3676, 4.9041, 52.3700, 4.9000))
                 .thenReturn(1.5);
-        when(distanceCalculator.calculateDistance(queryLocation, store2.getLocation()))
+        when(distanceCalculator.calculateDistance(52.3676, 4.9041, 52.3650, 4.9100))
                 .thenReturn(0.8);
-        when(distanceCalculator.calculateDistance(queryLocation, store3.getLocation()))
+        when(distanceCalculator.calculateDistance(52.3676, 4.9041, 52.4000, 4.9500))
                 .thenReturn(5.2);
 
         // When
-        List<StoreWithDistance> result = storeService.findNearestStores(queryLocation, 2);
+        List<StoreWithDistance> result = storeService.findNearestStores(StoreDatasets.DEFAULT, queryLocation, 2);
 
         // Then
         assertThat(result).hasSize(2);
@@ -105,7 +112,7 @@ class StoreServiceImplTest {
 
         assertThrows(
                 InvalidCoordinatesException.class,
-                () -> storeService.findNearestStores(invalidLocation, 5));
+                () -> storeService.findNearestStores(StoreDatasets.DEFAULT, invalidLocation, 5));
     }
 
     @Test
@@ -116,11 +123,12 @@ class StoreServiceImplTest {
         Store validStore = createStore("1", "Valid Store", 52.3700, 4.9000);
         Store invalidStore = createStore("2", "Invalid Store", null, null);
 
-        when(storeRepository.findAll()).thenReturn(Arrays.asList(validStore, invalidStore));
-        when(distanceCalculator.calculateDistance(any(), any())).thenReturn(1.0);
+        when(storeRepository.snapshot()).thenReturn(snapshotOf(validStore, invalidStore));
+        when(distanceCalculator.calculateDistance(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+                .thenReturn(1.0);
 
         // When
-        List<StoreWithDistance> result = storeService.findNearestStores(queryLocation, 5);
+        List<StoreWithDistance> result = storeService.findNearestStores(StoreDatasets.DEFAULT, queryLocation, 5);
 
         // Then
         assertThat(result).hasSize(1);
@@ -133,16 +141,46 @@ class StoreServiceImplTest {
         Location queryLocation = new Location(52.3676, 4.9041);
         Store store = createStore("1", "Store 1", 52.3700, 4.9000);
 
-        when(storeRepository.findAll()).thenReturn(List.of(store));
-        when(distanceCalculator.calculateDistance(any(), any())).thenReturn(1.2345678);
+        when(storeRepository.snapshot()).thenReturn(snapshotOf(store));
+        when(distanceCalculator.calculateDistance(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+                .thenReturn(1.2345678);
 
         // When
-        List<StoreWithDistance> result = storeService.findNearestStores(queryLocation, 5);
+        List<StoreWithDistance> result = storeService.findNearestStores(StoreDatasets.DEFAULT, queryLocation, 5);
 
         // Then
         assertThat(result.get(0).getDistance()).isEqualTo(1.23);
     }
 
+    @Test
+    void shouldKeepSnapshotOrderForEqualRoundedDistances() {
+        // Given
+        Location queryLocation = new Location(52.3676, 4.9041);
+        Store store1 = createStore("1", "Store 1", 52.3700, 4.9000);
+        Store store2 = createStore("2", "Store 2", 52.3650, 4.9100);
+        Store store3 = createStore("3", "Store 3", 52.4000, 4.9500);
+        Store store4 = createStore("4", "Store 4", 52.3800, 4.9200);
+
+        when(storeRepository.snapshot()).thenReturn(snapshotOf(store1, store2, store3, store4));
+        when(distanceCalculator.calculateDistance(52.3676, 4.9041, 52.3700, 4.9000))
+                .thenReturn(2.004);
+        when(distanceCalculator.calculateDistance(52.3676, 4.9041, 52.3650, 4.9100))
+                .thenReturn(3.0);
+        when(distanceCalculator.calculateDistance(52.3676, 4.9041, 52.4000, 4.9500))
+                .thenReturn(1.996);
+        when(distanceCalculator.calculateDistance(52.3676, 4.9041, 52.3800, 4.9200))
+                .thenReturn(0.5);
+
+        // When
+        List<StoreWithDistance> result = storeService.findNearestStores(StoreDatasets.DEFAULT, queryLocation, 3);
+
+        // Then - 2.004 and 1.996 both round to 2.0, so the earlier store ranks first
+        assertThat(result)
+                .extracting(storeWithDistance -> storeWithDistance.getStore().getUuid())
+                .containsExactly("test-uuid-4", "test-uuid-1", "test-uuid-3");
+        assertThat(result).extracting(StoreWithDistance::getDistance).containsExactly(0.5, 2.0, 2.0);
+    }
+
     @Test
     void shouldReturnAllStores() {
         // Given
@@ -175,18 +213,38 @@ class StoreServiceImplTest {
     void shouldHandleRuntimeExceptionDuringSearch() {
         // Given
         Location validLocation = new Location(52.3676, 4.9041);
-        when(storeRepository.findAll()).thenThrow(new RuntimeException("Database connection failed"));
+        when(storeRepository.snapshot()).thenThrow(new RuntimeException("Database connection failed"));
 
         // When & Then
         RuntimeException exception = assertThrows(
                 RuntimeException.class,
-                () -> storeService.findNearestStores(validLocation, 5));
+                () -> storeService.findNearestStores(StoreDatasets.DEFAULT, validLocation, 5));
 
         assertThat(exception.getMessage()).contains("Database connection failed");
 
         assertThat(storeSearchErrorCounter.count()).isEqualTo(1.0);
     }
 
+    @Test
+    void shouldCountSearchesStoppedAtDeadline() {
+        // Given
+        Location validLocation = new Location(52.3676, 4.9041);
+        when(storeRepository.snapshot()).thenReturn(snapshotOf(createStore("1", "Store 1", 52.3700, 4.9000)));
+
+        // When & Then
+        assertThrows(
+                SearchTimeoutException.class,
+                () -> storeService.findNearestStores(StoreDatasets.DEFAULT, validLocation, 5,
+                        SearchDeadline.after(Duration.ZERO)));
+
+        assertThat(meterRegistry.get("store.search.timeouts").counter().count()).isEqualTo(1.0);
+        assertThat(storeSearchErrorCounter.count()).isZero();
+    }
+
+    private StoreSnapshot snapshotOf(Store... stores) {
+        return new StoreSnapshot(1, List.of(stores));
+    }
+
     private Store createStore(String id, String name, Double latitude, Double longitude) {
         return Store.builder()
                 .sapStoreID(id)
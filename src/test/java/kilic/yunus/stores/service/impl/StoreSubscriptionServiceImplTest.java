@@ -0,0 +1,223 @@
+package kilic.yunus.stores.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kilic.yunus.stores.config.SearchLimitProperties;
+import kilic.yunus.stores.config.SubscriptionProperties;
+import kilic.yunus.stores.exception.InvalidCoordinatesException;
+import kilic.yunus.stores.exception.SearchOverloadedException;
+import kilic.yunus.stores.model.domain.Location;
+import kilic.yunus.stores.model.domain.Store;
+import kilic.yunus.stores.model.dto.NearestStoresUpdate;
+import kilic.yunus.stores.model.dto.StoreWithDistance;
+import kilic.yunus.stores.repository.StoreDatasets;
+import kilic.yunus.stores.repository.StoreRepository;
+import kilic.yunus.stores.repository.StoreSnapshot;
+import kilic.yunus.stores.service.StoreSubscription;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for StoreSubscriptionServiceImpl. Clients apply every update to the stores they hold,
+ * which has to give the result of a full search at every location.
+ */
+@ExtendWith(MockitoExtension.class)
+class StoreSubscriptionServiceImplTest {
+
+    @Mock
+    private StoreRepository storeRepository;
+
+    private final HaversineDistanceCalculator distanceCalculator = new HaversineDistanceCalculator();
+    private final NearestStoreSearch search = new NearestStoreSearch(distanceCalculator);
+    private final SubscriptionProperties properties = new SubscriptionProperties();
+    private MeterRegistry meterRegistry;
+    private StoreSubscriptionServiceImpl subscriptionService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        subscriptionService = new StoreSubscriptionServiceImpl(
+                StoreDatasets.of(storeRepository),
+                distanceCalculator,
+                new AdaptiveConcurrencyLimiter(new SearchLimitProperties(), meterRegistry),
+                properties,
+                meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should keep the nearest stores of a moving location with few searches")
+    void shouldFollowMovingLocation() {
+        // Given
+        Random random = new Random(3);
+        StoreSnapshot snapshot = snapshot(1, random, 5000);
+        when(storeRepository.snapshot()).thenReturn(snapshot);
+        Map<String, StoreWithDistance> held = new LinkedHashMap<>();
+        int sent = 0;
+
+        // When - a courier moving about 50 m per update
+        try (StoreSubscription subscription = subscriptionService.subscribe(null, 5)) {
+            double latitude = 52.0;
+            double longitude = 5.0;
+            for (int update = 0; update < 2000; update++) {
+                latitude += (random.nextDouble() - 0.3) * 0.0007;
+                longitude += (random.nextDouble() - 0.3) * 0.0011;
+                Optional<NearestStoresUpdate> changes = subscription.update(new Location(latitude, longitude));
+                if (changes.isPresent()) {
+                    apply(held, changes.get());
+                    sent++;
+                }
+
+                // Then
+                List<StoreWithDistance> expected = search.findNearest(snapshot, latitude, longitude, 5);
+                assertThat(held.keySet()).containsExactlyElementsOf(uuids(expected));
+            }
+        }
+
+        assertThat(sent).isLessThan(2000);
+        assertThat(updates("full")).isLessThan(updates("incremental") / 5);
+        assertThat(meterRegistry.get("store.subscription.sessions").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should report stores that changed with the store data")
+    void shouldSearchAgainWhenStoreDataChanges() {
+        // Given
+        StoreSnapshot snapshot = snapshot(1, new Random(5), 500);
+        when(storeRepository.snapshot()).thenReturn(snapshot);
+        StoreSubscription subscription = subscriptionService.subscribe(null, 3);
+        Location location = new Location(52.0, 5.0);
+        List<StoreWithDistance> nearest = subscription.update(location).orElseThrow().getAdded();
+        Store store = nearest.get(1).getStore();
+        Store renamed = Store.builder()
+                .uuid(store.getUuid())
+                .city("Renamed")
+                .latitude(store.getLatitude())
+                .longitude(store.getLongitude())
+                .build();
+
+        // When
+        assertThat(subscription.update(location)).isEmpty();
+        when(storeRepository.snapshot()).thenReturn(snapshot.withStore(2, renamed));
+        NearestStoresUpdate update = subscription.update(location).orElseThrow();
+
+        // Then
+        assertThat(update.getAdded()).extracting(StoreWithDistance::getStore).containsExactly(renamed);
+        assertThat(update.getRemoved()).isEmpty();
+        assertThat(update.getOrder()).isNull();
+        assertThat(updates("full")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should keep the candidates across changes of distant stores")
+    void shouldKeepCandidatesAcrossDistantChanges() {
+        // Given
+        StoreSnapshot snapshot = snapshot(1, new Random(7), 500);
+        when(storeRepository.snapshot()).thenReturn(snapshot);
+        StoreSubscription subscription = subscriptionService.subscribe(null, 3);
+        Location location = new Location(52.0, 5.0);
+        subscription.update(location);
+        Store distant = search.findNearest(snapshot, 51.5, 4.5, 1).getFirst().getStore();
+        Store nearby = Store.builder()
+                .uuid("store-uuid-nearby")
+                .city("Nearby")
+                .latitude(52.0001)
+                .longitude(5.0001)
+                .build();
+
+        // When
+        StoreSnapshot changed = snapshot.withoutStore(2, distant.getUuid());
+        when(storeRepository.snapshot()).thenReturn(changed);
+        Optional<NearestStoresUpdate> unchanged = subscription.update(location);
+        when(storeRepository.snapshot()).thenReturn(changed.withStore(3, nearby));
+        NearestStoresUpdate update = subscription.update(location).orElseThrow();
+
+        // Then
+        assertThat(unchanged).isEmpty();
+        assertThat(update.getAdded()).extracting(StoreWithDistance::getStore).containsExactly(nearby);
+        assertThat(updates("incremental")).isEqualTo(1);
+        assertThat(updates("full")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should reject invalid locations and keep the subscription")
+    void shouldRejectInvalidLocation() {
+        // Given
+        when(storeRepository.snapshot()).thenReturn(snapshot(1, new Random(9), 100));
+        StoreSubscription subscription = subscriptionService.subscribe(null, 2);
+
+        // When & Then
+        assertThatThrownBy(() -> subscription.update(new Location(91, 5)))
+                .isInstanceOf(InvalidCoordinatesException.class);
+        assertThat(subscription.update(new Location(52, 5))).get()
+                .satisfies(update -> assertThat(update.getAdded()).hasSize(2));
+    }
+
+    @Test
+    @DisplayName("Should refuse subscriptions beyond the maximum until one is closed")
+    void shouldLimitOpenSubscriptions() {
+        // Given
+        properties.setMaxSessions(2);
+        StoreSubscription first = subscriptionService.subscribe(null, 5);
+        StoreSubscription second = subscriptionService.subscribe(null, 5);
+
+        // When & Then
+        assertThatThrownBy(() -> subscriptionService.subscribe(null, 5))
+                .isInstanceOf(SearchOverloadedException.class)
+                .hasMessage("Too many subscriptions, retry later");
+        first.close();
+        first.close();
+        subscriptionService.subscribe(null, 5);
+        assertThatThrownBy(() -> subscriptionService.subscribe(null, 5))
+                .isInstanceOf(SearchOverloadedException.class);
+        second.close();
+    }
+
+    private static void apply(Map<String, StoreWithDistance> held, NearestStoresUpdate update) {
+        update.getRemoved().forEach(held::remove);
+        update.getAdded().forEach(result -> held.put(result.getStore().getUuid(), result));
+        if (update.getOrder() != null) {
+            Map<String, StoreWithDistance> ordered = new LinkedHashMap<>();
+            update.getOrder().forEach(uuid -> ordered.put(uuid, held.get(uuid)));
+            held.clear();
+            held.putAll(ordered);
+        }
+    }
+
+    private double updates(String search) {
+        return meterRegistry.get("store.subscription.updates").tag("search", search).counter().count();
+    }
+
+    private static List<String> uuids(List<StoreWithDistance> results) {
+        return results.stream().map(result -> result.getStore().getUuid()).toList();
+    }
+
+    private static StoreSnapshot snapshot(long generation, Random random, int size) {
+        List<Store> stores = new ArrayList<>();
+        IntStream.range(0, size).forEach(id -> stores.add(Store.builder()
+                .uuid(String.format("store-uuid-%05d", id))
+                .city("City " + id)
+                .latitude(51.5 + random.nextDouble())
+                .longitude(4.5 + random.nextDouble())
+                .build()));
+        StoreSnapshot snapshot = new StoreSnapshot(generation, stores);
+        snapshot.buildGridIndex(progress -> {
+        });
+        return snapshot;
+    }
+}